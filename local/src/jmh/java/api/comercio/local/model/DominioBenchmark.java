@@ -0,0 +1,78 @@
+package api.comercio.local.model;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks dos métodos de domínio chamados a cada item e a cada endereço.
+ *
+ * Mesmo pacote de Estoque: calcularSubtotal é protected (chamado pelo Hibernate
+ * no @PrePersist/@PreUpdate).
+ *
+ * Executar: mvn -Pjmh test -Djmh.filtro=DominioBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class DominioBenchmark {
+
+	private Estoque item;
+	private Endereco endereco;
+	private Endereco enderecoSemComplemento;
+
+	@Setup
+	public void preparar() {
+		item = Estoque.builder()
+				.quantidade(3)
+				.precoUnitario(new BigDecimal("129.90"))
+				.build();
+
+		endereco = Endereco.builder()
+				.logradouro("Rua das Flores")
+				.numero("1000")
+				.complemento("Apto 101")
+				.bairro("Centro")
+				.cidade("São Paulo")
+				.estado("SP")
+				.cep("12345-678")
+				.build();
+
+		enderecoSemComplemento = Endereco.builder()
+				.logradouro("Avenida Brasil")
+				.numero("25")
+				.cidade("Campinas")
+				.estado("SP")
+				.build();
+	}
+
+	@Benchmark
+	public BigDecimal calcularSubtotal() {
+		item.calcularSubtotal();
+		return item.getSubtotal();
+	}
+
+	@Benchmark
+	public String enderecoCompleto() {
+		return endereco.getEnderecoCompleto();
+	}
+
+	@Benchmark
+	public String enderecoCompletoSemComplemento() {
+		return enderecoSemComplemento.getEnderecoCompleto();
+	}
+
+}
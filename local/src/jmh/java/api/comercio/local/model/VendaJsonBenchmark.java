@@ -0,0 +1,85 @@
+package api.comercio.local.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Benchmarks da serialização e desserialização JSON de uma venda completa
+ * (cliente, endereço, itens, produtos e fornecedores), como em GET/POST /api/vendas.
+ *
+ * Executar: mvn -Pjmh test -Djmh.filtro=VendaJsonBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VendaJsonBenchmark {
+
+	@Param({"1", "10", "100"})
+	private int itens;
+
+	private final JsonMapper jsonMapper = JsonMapper.builder().build();
+
+	private Venda venda;
+	private byte[] json;
+
+	@Setup
+	public void preparar() {
+		Endereco endereco = Endereco.builder()
+				.logradouro("Rua das Flores").numero("1000").bairro("Centro")
+				.cidade("São Paulo").estado("SP").cep("12345-678")
+				.build();
+		Cliente cliente = Cliente.builder()
+				.id(1L).nome("Maria da Silva").cpf("123.456.789-00").email("maria@email.com").endereco(endereco)
+				.build();
+		Fornecedor fornecedor = Fornecedor.builder()
+				.id(1L).nome("Distribuidora Central").cnpj("12.345.678/0001-90").endereco(endereco)
+				.build();
+
+		venda = Venda.builder()
+				.id(1L).cliente(cliente).dataVenda(LocalDateTime.of(2024, 11, 20, 14, 30)).valorTotal(BigDecimal.ZERO)
+				.build();
+		for (int i = 0; i < itens; i++) {
+			Produto produto = Produto.builder()
+					.id((long) i).nome("Produto " + i).descricao("Descrição do produto " + i)
+					.preco(new BigDecimal("19.90")).quantidadeEstoque(100).fornecedor(fornecedor)
+					.build();
+			Estoque item = Estoque.builder()
+					.id((long) i).venda(venda).produto(produto).quantidade(2).precoUnitario(new BigDecimal("19.90"))
+					.build();
+			item.calcularSubtotal();
+			venda.getItens().add(item);
+			venda.setValorTotal(venda.getValorTotal().add(item.getSubtotal()));
+		}
+
+		json = jsonMapper.writeValueAsBytes(venda);
+	}
+
+	@Benchmark
+	public byte[] serializar() {
+		return jsonMapper.writeValueAsBytes(venda);
+	}
+
+	@Benchmark
+	public Venda desserializar() {
+		return jsonMapper.readValue(json, Venda.class);
+	}
+
+}
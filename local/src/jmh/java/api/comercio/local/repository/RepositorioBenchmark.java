@@ -0,0 +1,133 @@
+package api.comercio.local.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import api.comercio.local.App;
+import api.comercio.local.dto.VendaResumo;
+import api.comercio.local.model.Cliente;
+import api.comercio.local.model.Endereco;
+import api.comercio.local.model.Estoque;
+import api.comercio.local.model.Produto;
+import api.comercio.local.model.Venda;
+
+/**
+ * Benchmarks das consultas de histórico do cliente contra um H2 em memória
+ * populado sempre com os mesmos dados (CLIENTES clientes, VENDAS_POR_CLIENTE
+ * vendas cada, ITENS_POR_VENDA itens por venda).
+ *
+ * A aplicação sobe sem servidor web e sem log de SQL; cada chamada passa pelo
+ * proxy do Spring Data (transação somente leitura), como em produção.
+ *
+ * Executar: mvn -Pjmh test -Djmh.filtro=RepositorioBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RepositorioBenchmark {
+
+	private static final int CLIENTES = 1_000;
+	private static final int VENDAS_POR_CLIENTE = 10;
+	private static final int ITENS_POR_VENDA = 3;
+
+	private ConfigurableApplicationContext contexto;
+	private VendaRepository vendaRepository;
+	private long[] clienteIds;
+	private int proximo;
+
+	@Setup(Level.Trial)
+	public void preparar() {
+		// Argumentos (--chave=valor), e não SpringApplicationBuilder.properties(): aquelas
+		// são só valores padrão e perderiam para o application.properties
+		contexto = new SpringApplicationBuilder(App.class)
+				.web(WebApplicationType.NONE)
+				.run("--spring.datasource.url=jdbc:h2:mem:jmh_repositorio",
+						"--spring.jpa.show-sql=false",
+						"--spring.jpa.properties.hibernate.generate_statistics=false",
+						"--logging.level.org.hibernate.SQL=WARN",
+						"--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN");
+		vendaRepository = contexto.getBean(VendaRepository.class);
+		ClienteRepository clienteRepository = contexto.getBean(ClienteRepository.class);
+		ProdutoRepository produtoRepository = contexto.getBean(ProdutoRepository.class);
+
+		List<Produto> produtos = new ArrayList<>();
+		for (int i = 0; i < ITENS_POR_VENDA; i++) {
+			produtos.add(produtoRepository.save(Produto.builder()
+					.nome("Produto " + i).preco(BigDecimal.TEN).quantidadeEstoque(1_000_000)
+					.build()));
+		}
+
+		clienteIds = new long[CLIENTES];
+		LocalDateTime inicio = LocalDateTime.of(2024, 1, 1, 8, 0);
+		for (int c = 0; c < CLIENTES; c++) {
+			Cliente cliente = clienteRepository.save(Cliente.builder()
+					.nome("Cliente " + c)
+					.cpf(String.format("%011d", c))
+					.endereco(Endereco.builder().logradouro("Rua " + c).numero("1").cidade("São Paulo").estado("SP").build())
+					.build());
+			clienteIds[c] = cliente.getId();
+
+			List<Venda> vendas = new ArrayList<>();
+			for (int v = 0; v < VENDAS_POR_CLIENTE; v++) {
+				Venda venda = Venda.builder()
+						.cliente(cliente).dataVenda(inicio.plusHours((long) c * VENDAS_POR_CLIENTE + v))
+						.valorTotal(BigDecimal.valueOf(10L * ITENS_POR_VENDA))
+						.build();
+				for (Produto produto : produtos) {
+					venda.getItens().add(Estoque.builder()
+							.venda(venda).produto(produto).quantidade(1).precoUnitario(BigDecimal.TEN)
+							.build());
+				}
+				vendas.add(venda);
+			}
+			vendaRepository.saveAll(vendas);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void encerrar() {
+		contexto.close();
+	}
+
+	@Benchmark
+	public List<Venda> findByClienteId() {
+		return vendaRepository.findByClienteId(proximoCliente());
+	}
+
+	@Benchmark
+	public List<VendaResumo> findResumoByClienteId() {
+		return vendaRepository.findResumoByClienteId(proximoCliente());
+	}
+
+	/**
+	 * Percorre os clientes em ordem: a sequência de consultas é a mesma em toda execução
+	 */
+	private long proximoCliente() {
+		long id = clienteIds[proximo];
+		proximo = (proximo + 1) % clienteIds.length;
+		return id;
+	}
+
+}
@@ -0,0 +1,193 @@
+package api.comercio.local.service;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import api.comercio.local.App;
+import api.comercio.local.dto.SituacaoVendaFila;
+import api.comercio.local.model.Cliente;
+import api.comercio.local.model.Estoque;
+import api.comercio.local.model.Produto;
+import api.comercio.local.model.Venda;
+import api.comercio.local.repository.ClienteRepository;
+import api.comercio.local.repository.ProdutoRepository;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Vendas gravadas por segundo com vários caixas ao mesmo tempo (THREADS threads):
+ *
+ *   - sincrono: VendaService.registrar, um commit por venda (POST /api/vendas)
+ *   - fila: FilaVendasService, várias vendas por commit (POST /api/vendas/fila);
+ *     cada operação espera a venda ser gravada, então o resultado é comparável
+ *   - lote: VendaService.registrarLote com VENDAS_POR_LOTE vendas (POST /api/vendas/lote);
+ *     o resultado também é em vendas/s (@OperationsPerInvocation). Roda com uma
+ *     thread, como um terminal reenviando as vendas feitas offline: lotes
+ *     simultâneos baixariam quase os mesmos produtos e ficariam esperando o lock
+ *     das linhas uns dos outros (timeout do H2) em vez de medir a gravação
+ *
+ * O H2 é gravado em arquivo com WRITE_DELAY=0 (cada commit vai para o disco),
+ * que é o custo que o group commit divide entre as vendas do lote. O arquivo
+ * é apagado antes de cada benchmark (cada um roda em um fork).
+ *
+ * Cada item sai de um produto sorteado entre PRODUTOS produtos: com poucos
+ * produtos, as baixas de estoque disputariam o lock das mesmas linhas e o
+ * modo síncrono mediria essa espera, e não o custo de um commit por venda.
+ *
+ * Ao fim de cada iteração é impresso o número de commits por segundo e a
+ * média de vendas por commit (estatísticas do Hibernate).
+ *
+ * Executar: mvn -Pjmh test -Djmh.filtro=GravacaoVendasBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(GravacaoVendasBenchmark.THREADS)
+@State(Scope.Benchmark)
+public class GravacaoVendasBenchmark {
+
+	static final int THREADS = 16;
+	private static final int ITENS_POR_VENDA = 2;
+	private static final int PRODUTOS = 1_000;
+	static final int VENDAS_POR_LOTE = 100;
+	private static final String DIRETORIO_BANCO = "./target/jmh-gravacao";
+
+	private ConfigurableApplicationContext contexto;
+	private VendaService vendaService;
+	private FilaVendasService filaVendasService;
+	private Statistics estatisticas;
+	private Long clienteId;
+	private final List<Long> produtoIds = new ArrayList<>();
+
+	private long inicioIteracao;
+	private long commitsInicio;
+	private long vendasInicio;
+
+	@Setup(Level.Trial)
+	public void preparar() throws IOException {
+		FileSystemUtils.deleteRecursively(Path.of(DIRETORIO_BANCO));
+		// Argumentos (--chave=valor), e não SpringApplicationBuilder.properties(): aquelas
+		// são só valores padrão e perderiam para o spring.datasource.url do application.properties
+		contexto = new SpringApplicationBuilder(App.class)
+				.web(WebApplicationType.NONE)
+				.run("--spring.datasource.url=jdbc:h2:file:" + DIRETORIO_BANCO + "/comercio;WRITE_DELAY=0",
+						"--spring.jpa.hibernate.ddl-auto=create-drop",
+						"--comercio.vendas.fila.habilitada=true");
+		vendaService = contexto.getBean(VendaService.class);
+		filaVendasService = contexto.getBean(FilaVendasService.class);
+		estatisticas = contexto.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+
+		clienteId = contexto.getBean(ClienteRepository.class)
+				.save(Cliente.builder().nome("Cliente Caixa").cpf("00000000000").build())
+				.getId();
+		List<Produto> produtos = new ArrayList<>();
+		for (int i = 0; i < PRODUTOS; i++) {
+			produtos.add(Produto.builder()
+					.nome("Produto " + i).preco(BigDecimal.TEN).quantidadeEstoque(Integer.MAX_VALUE)
+					.build());
+		}
+		contexto.getBean(ProdutoRepository.class).saveAll(produtos)
+				.forEach(produto -> produtoIds.add(produto.getId()));
+	}
+
+	@TearDown(Level.Trial)
+	public void encerrar() {
+		contexto.close();
+	}
+
+	@Setup(Level.Iteration)
+	public void iniciarIteracao() {
+		inicioIteracao = System.nanoTime();
+		commitsInicio = estatisticas.getSuccessfulTransactionCount();
+		vendasInicio = estatisticas.getEntityInsertCount();
+	}
+
+	@TearDown(Level.Iteration)
+	public void encerrarIteracao() {
+		double segundos = (System.nanoTime() - inicioIteracao) / 1e9;
+		long commits = estatisticas.getSuccessfulTransactionCount() - commitsInicio;
+		// cada venda insere a venda e os seus itens
+		long vendas = (estatisticas.getEntityInsertCount() - vendasInicio) / (1 + ITENS_POR_VENDA);
+		System.out.printf("%n  commits/s: %.1f   vendas por commit: %.1f%n",
+				commits / segundos, commits == 0 ? 0.0 : (double) vendas / commits);
+	}
+
+	@Benchmark
+	public Venda sincrono() {
+		return vendaService.registrar(novaVenda());
+	}
+
+	@Benchmark
+	public SituacaoVendaFila fila() throws InterruptedException {
+		Venda venda = novaVenda();
+		Optional<FilaVendasService.Pendente> pendente = filaVendasService.colocarNaFila(venda);
+		while (pendente.isEmpty()) {
+			// fila cheia: mesmo comportamento de um terminal que respeita o Retry-After
+			Thread.sleep(1);
+			pendente = filaVendasService.colocarNaFila(venda);
+		}
+		return pendente.get().concluida().join();
+	}
+
+	@Benchmark
+	@Threads(1)
+	@OperationsPerInvocation(VENDAS_POR_LOTE)
+	public List<Long> lote() {
+		List<Venda> vendas = new ArrayList<>(VENDAS_POR_LOTE);
+		for (int i = 0; i < VENDAS_POR_LOTE; i++) {
+			vendas.add(novaVenda());
+		}
+		return vendaService.registrarLote(vendas);
+	}
+
+	/**
+	 * Venda com ITENS_POR_VENDA produtos diferentes, sorteados entre todos os cadastrados
+	 */
+	private Venda novaVenda() {
+		ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+		Venda venda = Venda.builder().cliente(Cliente.builder().id(clienteId).build()).build();
+		List<Long> sorteados = new ArrayList<>(ITENS_POR_VENDA);
+		while (sorteados.size() < ITENS_POR_VENDA) {
+			Long produtoId = produtoIds.get(aleatorio.nextInt(PRODUTOS));
+			if (sorteados.contains(produtoId)) {
+				continue;
+			}
+			sorteados.add(produtoId);
+			venda.getItens().add(Estoque.builder()
+					.produto(Produto.builder().id(produtoId).build())
+					.quantidade(1)
+					.precoUnitario(BigDecimal.TEN)
+					.build());
+		}
+		return venda;
+	}
+
+}
@@ -2,6 +2,8 @@ package api.comercio.local;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * CLASSE PRINCIPAL DA APLICAÇÃO SPRING BOOT
@@ -25,6 +27,14 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  *      - Detecta: @Controller, @Service, @Repository, @Component
  *      - Neste caso, escaneia: api.comercio.local e todos os subpacotes
  *
+ * @EnableScheduling:
+ *   - Habilita os métodos anotados com @Scheduled (tarefas periódicas)
+ *   - Exemplo: descarga do ledger de estoque no banco (EstoqueLedger)
+ *
+ * @EnableCaching:
+ *   - Habilita as anotações de cache (@Cacheable, @CacheEvict)
+ *   - Exemplo: produtos consultados por ID ficam em memória (ProdutoRepository)
+ *
  * ESTRUTURA DE PACOTES DETECTADA:
  *   api.comercio.local
  *   ├── controller   → @RestController (Controllers REST)
@@ -42,6 +52,8 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  *   - Console H2: http://localhost:8080/h2-console
  */
 @SpringBootApplication
+@EnableScheduling
+@EnableCaching
 public class App {
 
     /**
@@ -3,12 +3,18 @@ package api.comercio.local.controller;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import tools.jackson.databind.JsonNode;
 
+import api.comercio.local.dto.ClienteResumo;
 import api.comercio.local.model.Cliente;
 import api.comercio.local.repository.ClienteRepository;
+import api.comercio.local.service.AtualizacaoParcialService;
+import api.comercio.local.service.DocumentoUnicoService;
 
 /**
  * CONTROLLER - Camada de Controle da API REST
@@ -32,17 +38,29 @@ public class ClienteController {
     @Autowired
     private ClienteRepository clienteRepository;
 
+    /**
+     * Verificação de CPF já cadastrado com filtro em memória (evita um SELECT por cadastro novo)
+     */
+    @Autowired
+    private DocumentoUnicoService documentoUnicoService;
+
+    @Autowired
+    private AtualizacaoParcialService atualizacaoParcialService;
+
     /**
      * GET /api/clientes
      *
-     * Lista todos os clientes cadastrados no banco de dados
+     * Lista todos os clientes cadastrados no banco de dados (visão resumida)
+     *
+     * Retorna apenas os dados de contato de cada cliente (ClienteResumo).
+     * Para o cadastro completo com endereço, use GET /api/clientes/{id}
      *
      * @return ResponseEntity com status 200 (OK) e a lista de clientes no corpo da resposta
      */
     @GetMapping
-    public ResponseEntity<List<Cliente>> listarTodos() {
-        // findAll() é um método do JpaRepository que busca todos os registros da tabela
-        List<Cliente> clientes = clienteRepository.findAll();
+    public ResponseEntity<List<ClienteResumo>> listarTodos() {
+        // findAllResumo() seleciona só as colunas da listagem, sem carregar endereço nem vendas
+        List<ClienteResumo> clientes = clienteRepository.findAllResumo();
 
         // ResponseEntity.ok() retorna status 200 (OK) com o corpo da resposta
         return ResponseEntity.ok(clientes);
@@ -93,13 +111,21 @@ public class ClienteController {
     @PostMapping
     public ResponseEntity<Cliente> criar(@RequestBody Cliente cliente) {
         // Valida se o CPF já está cadastrado para evitar duplicação
-        if (clienteRepository.existsByCpf(cliente.getCpf())) {
+        // (CPF novo é confirmado pelo filtro em memória, sem consultar o banco)
+        if (documentoUnicoService.cpfCadastrado(cliente.getCpf())) {
             // Retorna status 409 (Conflict) indicando conflito de dados
             return ResponseEntity.status(HttpStatus.CONFLICT).build();
         }
 
         // save() persiste o objeto no banco de dados
-        Cliente clienteSalvo = clienteRepository.save(cliente);
+        Cliente clienteSalvo;
+        try {
+            clienteSalvo = clienteRepository.save(cliente);
+        } catch (DataIntegrityViolationException e) {
+            // Outro cadastro com o mesmo CPF foi gravado ao mesmo tempo (restrição UNIQUE)
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        documentoUnicoService.registrarCpf(clienteSalvo.getCpf());
 
         // Retorna status 201 (Created) com o cliente salvo no corpo da resposta
         return ResponseEntity.status(HttpStatus.CREATED).body(clienteSalvo);
@@ -125,67 +151,50 @@ public class ClienteController {
         cliente.setId(id);
 
         // save() também serve para atualizar (se o ID já existir, faz UPDATE ao invés de INSERT)
+        String cpfAnterior = clienteRepository.findCpfById(id);
         Cliente clienteAtualizado = clienteRepository.save(cliente);
+        documentoUnicoService.trocarCpf(cpfAnterior, clienteAtualizado.getCpf());
 
         return ResponseEntity.ok(clienteAtualizado);
     }
 
     /**
-     * DELETE /api/clientes/{id}
+     * PATCH /api/clientes/{id}
      *
-     * Remove um cliente do banco de dados
+     * Altera apenas os campos enviados (JSON Merge Patch, RFC 7396)
      *
-     * ATENÇÃO: Esta operação é irreversível!
+     * Um UPDATE com as colunas do patch, sem consultar o cliente antes.
+     * O endereço só é alterado se vier no patch, e apenas nos campos enviados.
      *
-     * Em produção, considere usar "soft delete" (marcar como inativo ao invés de deletar)
-     * para manter histórico e integridade referencial
+     * Exemplos de JSON:
+     *   { "telefone": "(11) 98888-7777", "email": null }
+     *   { "endereco": { "logradouro": "Rua Nova", "numero": "45" } }
      *
-     * @param id - ID do cliente a ser deletado
-     * @return ResponseEntity com status 204 (No Content) se deletado, ou 404 se não existir
+     * @param id - ID do cliente
+     * @param patch - campos a alterar (null apaga o campo)
+     * @return 204 (No Content) se alterado, 404 se não existir, 400 se o patch for inválido,
+     *         ou 409 (Conflict) se o CPF já pertencer a outro cliente
      */
-    @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deletar(@PathVariable Long id) {
-        // Verifica se o cliente existe antes de tentar deletar
-        if (!clienteRepository.existsById(id)) {
-            return ResponseEntity.notFound().build();
+    @PatchMapping(value = "/{id}", consumes = {AtualizacaoParcialService.MERGE_PATCH_JSON, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<Void> atualizarParcial(@PathVariable Long id, @RequestBody JsonNode patch) {
+        String cpfAnterior = patch.has("cpf") ? clienteRepository.findCpfById(id) : null;
+        boolean alterado;
+        try {
+            alterado = atualizacaoParcialService.atualizarCliente(id, patch);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (DataIntegrityViolationException e) {
+            // CPF de outro cliente (restrição UNIQUE)
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         }
-
-        // deleteById() remove o registro do banco de dados
-        clienteRepository.deleteById(id);
-
-        // Retorna status 204 (No Content) - sucesso sem corpo na resposta
-        return ResponseEntity.noContent().build();
-    }
-}
-        Cliente clienteSalvo = clienteRepository.save(cliente);
-
-        // Retorna status 201 (Created) indicando que o recurso foi criado com sucesso
-        return ResponseEntity.status(HttpStatus.CREATED).body(clienteSalvo);
-    }
-
-    /**
-     * PUT /api/clientes/{id}
-     *
-     * Atualiza todos os dados de um cliente existente
-     *
-     * @param id - ID do cliente a ser atualizado
-     * @param cliente - novos dados do cliente
-     * @return ResponseEntity com status 200 (OK) e o cliente atualizado, ou 404 se não existir
-     */
-    @PutMapping("/{id}")
-    public ResponseEntity<Cliente> atualizar(@PathVariable Long id, @RequestBody Cliente cliente) {
-        // Verifica se o cliente existe antes de atualizar
-        if (!clienteRepository.existsById(id)) {
+        if (!alterado) {
             return ResponseEntity.notFound().build();
         }
 
-        // Define o ID do cliente para garantir que estamos atualizando o registro correto
-        cliente.setId(id);
-
-        // save() com ID existente faz UPDATE no banco de dados
-        Cliente clienteAtualizado = clienteRepository.save(cliente);
-
-        return ResponseEntity.ok(clienteAtualizado);
+        if (patch.has("cpf")) {
+            documentoUnicoService.trocarCpf(cpfAnterior, patch.get("cpf").isNull() ? null : patch.get("cpf").asString());
+        }
+        return ResponseEntity.noContent().build();
     }
 
     /**
@@ -193,8 +202,13 @@ public class ClienteController {
      *
      * Remove um cliente do banco de dados
      *
-     * @param id - ID do cliente a ser removido
-     * @return ResponseEntity com status 204 (No Content) se removido, ou 404 se não existir
+     * ATENÇÃO: Esta operação é irreversível!
+     *
+     * Em produção, considere usar "soft delete" (marcar como inativo ao invés de deletar)
+     * para manter histórico e integridade referencial
+     *
+     * @param id - ID do cliente a ser deletado
+     * @return ResponseEntity com status 204 (No Content) se deletado, ou 404 se não existir
      */
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deletar(@PathVariable Long id) {
@@ -203,10 +217,14 @@ public class ClienteController {
             return ResponseEntity.notFound().build();
         }
 
+        // Guarda o CPF antes de excluir, para retirá-lo do filtro de documentos
+        String cpf = clienteRepository.findCpfById(id);
+
         // deleteById() remove o registro do banco de dados
         clienteRepository.deleteById(id);
+        documentoUnicoService.removerCpf(cpf);
 
-        // Retorna status 204 (No Content) indicando sucesso sem corpo de resposta
+        // Retorna status 204 (No Content) - sucesso sem corpo na resposta
         return ResponseEntity.noContent().build();
     }
 }
@@ -1,8 +1,14 @@
 package api.comercio.local.controller;
 
+import api.comercio.local.dto.PaginaCursor;
 import api.comercio.local.model.Estoque;
 import api.comercio.local.repository.EstoqueRepository;
+import api.comercio.local.service.EstoqueInsuficienteException;
+import api.comercio.local.service.VendaService;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -36,20 +42,46 @@ public class EstoqueController {
     @Autowired
     private EstoqueRepository estoqueRepository;
 
+    @Autowired
+    private VendaService vendaService;
+
+    /**
+     * Tamanho máximo de página aceito na listagem, para limitar a memória por requisição
+     */
+    private static final int TAMANHO_MAXIMO_PAGINA = 500;
+
     /**
-     * GET /api/estoque
+     * GET /api/estoque?cursor=...&tamanho=50
      *
-     * Lista todos os itens de venda cadastrados
+     * Lista os itens de venda paginados por cursor (keyset pagination), em ordem de id
      *
-     * ATENÇÃO: pode retornar muitos registros em produção
-     * Considere implementar paginação usando Pageable
+     * Cada resposta traz no máximo "tamanho" itens e o cursor "next" para a
+     * página seguinte. Como a busca continua a partir do último id retornado,
+     * a página N custa o mesmo que a página 1.
      *
-     * @return ResponseEntity com status 200 e lista de itens
+     * @param cursor - cursor "next" da página anterior (ausente na primeira página)
+     * @param tamanho - quantidade de itens por página (padrão: 50, máximo: 500)
+     * @return ResponseEntity com status 200 e a página de itens, ou 400 se o cursor for inválido
      */
     @GetMapping
-    public ResponseEntity<List<Estoque>> listarTodos() {
-        List<Estoque> itens = estoqueRepository.findAll();
-        return ResponseEntity.ok(itens);
+    public ResponseEntity<PaginaCursor<Estoque>> listarTodos(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int tamanho) {
+        int limite = Math.max(1, Math.min(tamanho, TAMANHO_MAXIMO_PAGINA));
+
+        long ultimoId;
+        try {
+            ultimoId = (cursor == null || cursor.isBlank())
+                    ? 0L
+                    : Long.parseLong(PaginaCursor.decodificar(cursor, 1)[0]);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        // Busca um registro a mais para saber se existe próxima página
+        List<Estoque> itens = estoqueRepository.findByIdGreaterThanOrderByIdAsc(
+                ultimoId, PageRequest.ofSize(limite + 1));
+        return ResponseEntity.ok(PaginaCursor.de(itens, limite, item -> new Object[] { item.getId() }));
     }
 
     /**
@@ -129,6 +161,9 @@ public class EstoqueController {
      *
      * O subtotal pode ser calculado automaticamente pelo @PrePersist
      *
+     * A quantidade vendida é baixada do estoque do produto na mesma transação
+     * (ver VendaService.adicionarItem)
+     *
      * Exemplo de JSON:
      * {
      *   "venda": { "id": 1 },
@@ -138,13 +173,21 @@ public class EstoqueController {
      * }
      *
      * @param estoque - dados do item recebidos no corpo da requisição
-     * @return ResponseEntity com status 201 (Created) e o item salvo
+     * @return ResponseEntity com status 201 (Created) e o item salvo,
+     *         400 (Bad Request) se o item estiver incompleto ou a venda/produto não existir,
+     *         ou 409 (Conflict) se o produto não tiver estoque suficiente
      */
     @PostMapping
     public ResponseEntity<Estoque> criar(@RequestBody Estoque estoque) {
-        // O método @PrePersist da entidade irá calcular o subtotal automaticamente
-        Estoque estoqueSalvo = estoqueRepository.save(estoque);
-        return ResponseEntity.status(HttpStatus.CREATED).body(estoqueSalvo);
+        try {
+            // O método @PrePersist da entidade irá calcular o subtotal automaticamente
+            Estoque estoqueSalvo = vendaService.adicionarItem(estoque);
+            return ResponseEntity.status(HttpStatus.CREATED).body(estoqueSalvo);
+        } catch (EstoqueInsuficienteException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (IllegalArgumentException | DataIntegrityViolationException | ConstraintViolationException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     /**
@@ -161,13 +204,10 @@ public class EstoqueController {
      */
     @PutMapping("/{id}")
     public ResponseEntity<Estoque> atualizar(@PathVariable Long id, @RequestBody Estoque estoque) {
-        if (!estoqueRepository.existsById(id)) {
-            return ResponseEntity.notFound().build();
-        }
-
-        estoque.setId(id);
-        Estoque estoqueAtualizado = estoqueRepository.save(estoque);
-        return ResponseEntity.ok(estoqueAtualizado);
+        // VendaService: atualiza o item e ajusta os resumos diários na mesma transação
+        return vendaService.atualizarItem(id, estoque)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
     }
 
     /**
@@ -192,11 +232,9 @@ public class EstoqueController {
      */
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deletar(@PathVariable Long id) {
-        if (!estoqueRepository.existsById(id)) {
+        if (!vendaService.excluirItem(id)) {
             return ResponseEntity.notFound().build();
         }
-
-        estoqueRepository.deleteById(id);
         return ResponseEntity.noContent().build();
     }
 }
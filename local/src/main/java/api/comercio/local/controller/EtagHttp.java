@@ -0,0 +1,50 @@
+package api.comercio.local.controller;
+
+import org.springframework.http.ETag;
+
+/**
+ * GET CONDICIONAL (ETag / If-None-Match)
+ *
+ * Os controllers montam o ETag a partir das versões (@Version) antes de
+ * carregar os dados; se o cliente já tem essa versão, respondem 304 sem
+ * buscar as entidades nem gerar o JSON.
+ *
+ * O ETag é calculado ANTES da consulta dos dados: se uma alteração chegar
+ * entre as duas, o cliente recebe dados novos com o ETag antigo e, na
+ * próxima requisição, baixa tudo de novo (nunca fica com dados velhos).
+ */
+final class EtagHttp {
+
+    private EtagHttp() {
+    }
+
+    /**
+     * ETag forte (entre aspas), ex: "produto-7-v3"
+     */
+    static String forte(String valor) {
+        return "\"" + valor + "\"";
+    }
+
+    /**
+     * Verifica se o cabeçalho If-None-Match contém o ETag atual
+     *
+     * Aceita lista de ETags e "*"; a comparação é fraca (W/"x" vale como "x"),
+     * como pede a RFC 9110 para If-None-Match.
+     *
+     * @param ifNoneMatch - valor do cabeçalho (null se ausente)
+     * @param etag - ETag atual do recurso
+     * @return true se a resposta pode ser 304 (Not Modified)
+     */
+    static boolean naoModificado(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        ETag atual = ETag.create(etag);
+        for (ETag recebido : ETag.parse(ifNoneMatch)) {
+            if (recebido.isWildcard() || recebido.compare(atual, false)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,13 +1,24 @@
 package api.comercio.local.controller;
 
+import api.comercio.local.dto.FornecedorResumo;
 import api.comercio.local.model.Fornecedor;
 import api.comercio.local.repository.FornecedorRepository;
+import api.comercio.local.repository.ProdutoRepository;
+import api.comercio.local.service.AtualizacaoParcialService;
+import api.comercio.local.service.DocumentoUnicoService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import tools.jackson.databind.JsonNode;
 
 import java.util.List;
+import java.util.Optional;
 
 /**
  * CONTROLLER - FornecedorController
@@ -17,8 +28,10 @@ import java.util.List;
  *
  * Funcionalidades:
  *   - CRUD completo de fornecedores
+ *   - Alteração parcial (PATCH, JSON Merge Patch)
  *   - Busca por CNPJ
  *   - Validação de CNPJ duplicado
+ *   - GET condicional (ETag / If-None-Match) na listagem e no detalhe
  */
 @RestController
 @RequestMapping("/api/fornecedores")
@@ -31,17 +44,37 @@ public class FornecedorController {
     @Autowired
     private FornecedorRepository fornecedorRepository;
 
+    /**
+     * Verificação de CNPJ já cadastrado com filtro em memória (evita um SELECT por cadastro novo)
+     */
+    @Autowired
+    private DocumentoUnicoService documentoUnicoService;
+
+    @Autowired
+    private AtualizacaoParcialService atualizacaoParcialService;
+
     /**
      * GET /api/fornecedores
      *
-     * Lista todos os fornecedores cadastrados
+     * Lista todos os fornecedores cadastrados (visão resumida)
+     *
+     * Retorna apenas identificação e contato (FornecedorResumo).
+     * Para o cadastro completo com endereço, use GET /api/fornecedores/{id}
+     *
+     * ETag: quantidade, soma das versões e maior ID (uma consulta de agregação).
+     * Com If-None-Match igual ao ETag atual, responde 304 sem consultar a lista.
      *
-     * @return ResponseEntity com status 200 e lista de fornecedores
+     * @param ifNoneMatch - ETag da última resposta recebida pelo cliente (opcional)
+     * @return ResponseEntity com status 200 e lista de fornecedores, ou 304 se não mudou
      */
     @GetMapping
-    public ResponseEntity<List<Fornecedor>> listarTodos() {
-        List<Fornecedor> fornecedores = fornecedorRepository.findAll();
-        return ResponseEntity.ok(fornecedores);
+    public ResponseEntity<List<FornecedorResumo>> listarTodos(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = EtagHttp.forte("fornecedores-" + fornecedorRepository.findVersaoColecao().chave());
+        if (EtagHttp.naoModificado(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(fornecedorRepository.findAllResumo());
     }
 
     /**
@@ -49,13 +82,27 @@ public class FornecedorController {
      *
      * Busca um fornecedor específico pelo ID
      *
+     * ETag: versão do fornecedor, lida sozinha (SELECT versao ... WHERE id = ?).
+     * O fornecedor e o endereço só são carregados se o ETag mudou.
+     *
      * @param id - ID do fornecedor capturado da URL
-     * @return ResponseEntity com status 200 (OK) se encontrado, ou 404 (Not Found)
+     * @param ifNoneMatch - ETag da última resposta recebida pelo cliente (opcional)
+     * @return ResponseEntity com status 200 (OK) se encontrado, 304 se não mudou, ou 404 (Not Found)
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Fornecedor> buscarPorId(@PathVariable Long id) {
+    public ResponseEntity<Fornecedor> buscarPorId(@PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Optional<Long> versao = fornecedorRepository.findVersaoById(id);
+        if (versao.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        String etag = EtagHttp.forte("fornecedor-" + id + "-v" + versao.get());
+        if (EtagHttp.naoModificado(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
         return fornecedorRepository.findById(id)
-                .map(ResponseEntity::ok)
+                .map(fornecedor -> ResponseEntity.ok().eTag(etag).body(fornecedor))
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -104,12 +151,20 @@ public class FornecedorController {
     @PostMapping
     public ResponseEntity<Fornecedor> criar(@RequestBody Fornecedor fornecedor) {
         // Valida se o CNPJ já está cadastrado
-        if (fornecedorRepository.existsByCnpj(fornecedor.getCnpj())) {
+        // (CNPJ novo é confirmado pelo filtro em memória, sem consultar o banco)
+        if (documentoUnicoService.cnpjCadastrado(fornecedor.getCnpj())) {
             // Retorna status 409 (Conflict) - conflito de dados
             return ResponseEntity.status(HttpStatus.CONFLICT).build();
         }
 
-        Fornecedor fornecedorSalvo = fornecedorRepository.save(fornecedor);
+        Fornecedor fornecedorSalvo;
+        try {
+            fornecedorSalvo = fornecedorRepository.save(fornecedor);
+        } catch (DataIntegrityViolationException e) {
+            // Outro cadastro com o mesmo CNPJ foi gravado ao mesmo tempo (restrição UNIQUE)
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        documentoUnicoService.registrarCnpj(fornecedorSalvo.getCnpj());
         return ResponseEntity.status(HttpStatus.CREATED).body(fornecedorSalvo);
     }
 
@@ -118,21 +173,90 @@ public class FornecedorController {
      *
      * Atualiza os dados de um fornecedor existente
      *
+     * CONCORRÊNCIA OTIMISTA (como em PUT /api/produtos/{id}):
+     *   - com "versao" no JSON, responde 409 (Conflict) se o fornecedor mudou depois
+     *   - sem "versao", grava sobre a versão atual
+     *
+     * O PUT sempre muda a versão (e o ETag), mesmo quando só o endereço foi
+     * alterado. Os produtos em cache são descartados, pois trazem o fornecedor no JSON.
+     *
      * @param id - ID do fornecedor a ser atualizado
      * @param fornecedor - novos dados do fornecedor recebidos no corpo da requisição
-     * @return ResponseEntity com status 200 e fornecedor atualizado, ou 404 se não existir
+     * @return ResponseEntity com status 200 e fornecedor atualizado, 404 se não existir,
+     *         ou 409 (Conflict) se a versão enviada estiver desatualizada
      */
     @PutMapping("/{id}")
+    @CacheEvict(cacheNames = {ProdutoRepository.CACHE_PRODUTOS, ProdutoRepository.CACHE_PRODUTOS_POR_FORNECEDOR},
+            allEntries = true)
     public ResponseEntity<Fornecedor> atualizar(@PathVariable Long id, @RequestBody Fornecedor fornecedor) {
-        if (!fornecedorRepository.existsById(id)) {
+        Optional<Long> versaoAtual = fornecedorRepository.findVersaoById(id);
+        if (versaoAtual.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
 
         fornecedor.setId(id);
-        Fornecedor fornecedorAtualizado = fornecedorRepository.save(fornecedor);
+        if (fornecedor.getVersao() == null) {
+            fornecedor.setVersao(versaoAtual.get());
+        }
+        String cnpjAnterior = fornecedorRepository.findCnpjById(id);
+        Fornecedor fornecedorAtualizado;
+        try {
+            fornecedorAtualizado = fornecedorRepository.save(fornecedor);
+        } catch (OptimisticLockingFailureException e) {
+            // Outra gravação alterou o fornecedor depois da versão enviada pelo cliente
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+
+        // Só o endereço mudou (ou nada mudou): o Hibernate não incrementou a versão
+        if (fornecedorAtualizado.getVersao().equals(fornecedor.getVersao())) {
+            fornecedorRepository.incrementarVersao(id);
+            fornecedorAtualizado.setVersao(fornecedorAtualizado.getVersao() + 1);
+        }
+        documentoUnicoService.trocarCnpj(cnpjAnterior, fornecedorAtualizado.getCnpj());
         return ResponseEntity.ok(fornecedorAtualizado);
     }
 
+    /**
+     * PATCH /api/fornecedores/{id}
+     *
+     * Altera apenas os campos enviados (JSON Merge Patch, RFC 7396)
+     *
+     * Um UPDATE com as colunas do patch; o endereço só é alterado se vier no
+     * patch, e apenas nos campos enviados (não é regravado inteiro como no PUT).
+     *
+     * Exemplos de JSON:
+     *   { "telefone": "(11) 3333-4444" }
+     *   { "endereco": { "numero": "2100" }, "versao": 4 }
+     *
+     * @param id - ID do fornecedor
+     * @param patch - campos a alterar (null apaga o campo)
+     * @return 204 (No Content) se alterado, 404 se não existir, 400 se o patch for inválido,
+     *         ou 409 (Conflict) se o CNPJ já existir ou a versão estiver desatualizada
+     */
+    @PatchMapping(value = "/{id}", consumes = {AtualizacaoParcialService.MERGE_PATCH_JSON, MediaType.APPLICATION_JSON_VALUE})
+    @CacheEvict(cacheNames = {ProdutoRepository.CACHE_PRODUTOS, ProdutoRepository.CACHE_PRODUTOS_POR_FORNECEDOR},
+            allEntries = true)
+    public ResponseEntity<Void> atualizarParcial(@PathVariable Long id, @RequestBody JsonNode patch) {
+        String cnpjAnterior = patch.has("cnpj") ? fornecedorRepository.findCnpjById(id) : null;
+        boolean alterado;
+        try {
+            alterado = atualizacaoParcialService.atualizarFornecedor(id, patch);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (DataIntegrityViolationException | OptimisticLockingFailureException e) {
+            // CNPJ de outro fornecedor (restrição UNIQUE) ou versão desatualizada
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        if (!alterado) {
+            return ResponseEntity.notFound().build();
+        }
+
+        if (patch.has("cnpj")) {
+            documentoUnicoService.trocarCnpj(cnpjAnterior, patch.get("cnpj").isNull() ? null : patch.get("cnpj").asString());
+        }
+        return ResponseEntity.noContent().build();
+    }
+
     /**
      * DELETE /api/fornecedores/{id}
      *
@@ -155,7 +279,9 @@ public class FornecedorController {
             return ResponseEntity.notFound().build();
         }
 
+        String cnpj = fornecedorRepository.findCnpjById(id);
         fornecedorRepository.deleteById(id);
+        documentoUnicoService.removerCnpj(cnpj);
         return ResponseEntity.noContent().build();
     }
 }
@@ -1,13 +1,40 @@
 package api.comercio.local.controller;
 
+import api.comercio.local.dto.CacheEstatisticas;
+import api.comercio.local.dto.DisponibilidadeProduto;
+import api.comercio.local.dto.ProdutoDetalhe;
+import api.comercio.local.dto.ProdutoMaisVendido;
+import api.comercio.local.dto.ProdutoResumo;
+import api.comercio.local.dto.ProdutoSugestao;
+import api.comercio.local.dto.VersaoColecao;
+import api.comercio.local.evento.ProdutoAlteradoEvent;
 import api.comercio.local.model.Produto;
+import api.comercio.local.repository.FornecedorRepository;
 import api.comercio.local.repository.ProdutoRepository;
+import api.comercio.local.service.AtualizacaoParcialService;
+import api.comercio.local.service.AutocompleteProdutoService;
+import api.comercio.local.service.BuscaProdutoService;
+import api.comercio.local.service.EstoqueBaixoService;
+import api.comercio.local.service.EstoqueLedger;
+import api.comercio.local.service.JanelaVendas;
+import api.comercio.local.service.MaisVendidosService;
+import api.comercio.local.service.ProdutoCacheService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tools.jackson.databind.JsonNode;
 
 import java.util.List;
+import java.util.Optional;
 
 /**
  * CONTROLLER - ProdutoController
@@ -17,9 +44,21 @@ import java.util.List;
  *
  * Funcionalidades:
  *   - CRUD completo de produtos
+ *   - Alteração parcial (PATCH, JSON Merge Patch) para a sincronização de preço e estoque
  *   - Busca por nome (parcial, case-insensitive)
  *   - Busca por fornecedor
- *   - Listagem de produtos com estoque baixo
+ *   - Listagem de produtos com estoque baixo (e alertas em tempo real via SSE)
+ *   - Ranking de mais vendidos por janela de tempo (hora, dia, semana)
+ *
+ * CACHE:
+ *   GET /{id} e GET /fornecedor/{fornecedorId} são respondidos pelo cache em
+ *   memória, com cópias imutáveis do produto (ver ProdutoCacheService).
+ *   POST, PUT, PATCH e DELETE removem as entradas afetadas com @CacheEvict,
+ *   depois que o produto é gravado.
+ *
+ * GET CONDICIONAL:
+ *   GET / e GET /{id} devolvem ETag, montado a partir da versão (@Version).
+ *   Com If-None-Match igual ao ETag atual, a resposta é 304 sem corpo.
  */
 @RestController
 @RequestMapping("/api/produtos")
@@ -32,17 +71,76 @@ public class ProdutoController {
     @Autowired
     private ProdutoRepository produtoRepository;
 
+    /**
+     * Versão dos fornecedores (o nome do fornecedor aparece na listagem de produtos)
+     */
+    @Autowired
+    private FornecedorRepository fornecedorRepository;
+
+    /**
+     * Ledger de estoque em memória (opcional, comercio.estoque.ledger.habilitado=true)
+     */
+    @Autowired(required = false)
+    private EstoqueLedger estoqueLedger;
+
+    @Autowired
+    private ProdutoCacheService produtoCacheService;
+
+    @Autowired
+    private BuscaProdutoService buscaProdutoService;
+
+    @Autowired
+    private AutocompleteProdutoService autocompleteProdutoService;
+
+    @Autowired
+    private MaisVendidosService maisVendidosService;
+
+    @Autowired
+    private EstoqueBaixoService estoqueBaixoService;
+
+    @Autowired
+    private AtualizacaoParcialService atualizacaoParcialService;
+
+    /**
+     * Quantidade máxima de produtos retornados por GET /api/produtos/buscar
+     */
+    private static final int LIMITE_MAXIMO_BUSCA = 500;
+
+    /**
+     * Publica ProdutoAlteradoEvent após cada gravação (mantém o índice de busca atualizado)
+     */
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * GET /api/produtos
      *
-     * Lista todos os produtos cadastrados
+     * Lista todos os produtos cadastrados (visão resumida)
      *
-     * @return ResponseEntity com status 200 e lista de produtos
+     * Retorna preço, estoque e apenas ID/nome do fornecedor (ProdutoResumo).
+     * Para o produto completo, use GET /api/produtos/{id}
+     *
+     * ETag: quantidade, soma das versões e maior ID de produtos e de fornecedores
+     * (duas consultas de agregação, ver VersaoColecao). Qualquer cadastro,
+     * alteração ou baixa de estoque muda o ETag.
+     *
+     * Exemplo de uso:
+     *   GET /api/produtos                              200, ETag: "produtos-152.4810.160-f12.15.12"
+     *   GET /api/produtos  If-None-Match: (mesmo ETag)  304, sem corpo
+     *
+     * @param ifNoneMatch - ETag da última resposta recebida pelo cliente (opcional)
+     * @return ResponseEntity com status 200 e lista de produtos, ou 304 se não mudou
      */
     @GetMapping
-    public ResponseEntity<List<Produto>> listarTodos() {
-        List<Produto> produtos = produtoRepository.findAll();
-        return ResponseEntity.ok(produtos);
+    public ResponseEntity<List<ProdutoResumo>> listarTodos(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        VersaoColecao produtos = produtoRepository.findVersaoColecao();
+        VersaoColecao fornecedores = fornecedorRepository.findVersaoColecao();
+        String etag = EtagHttp.forte("produtos-" + produtos.chave() + "-f" + fornecedores.chave());
+        if (EtagHttp.naoModificado(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(produtoRepository.findAllResumo());
     }
 
     /**
@@ -50,39 +148,135 @@ public class ProdutoController {
      *
      * Busca um produto específico pelo ID
      *
+     * ETag: versão do produto e do fornecedor (o fornecedor vai junto no JSON).
+     * O produto vem do cache em memória, então o 304 evita a geração do JSON
+     * sem consultar o banco.
+     *
      * @param id - ID do produto capturado da URL
-     * @return ResponseEntity com status 200 (OK) se encontrado, ou 404 (Not Found)
+     * @param ifNoneMatch - ETag da última resposta recebida pelo cliente (opcional)
+     * @return ResponseEntity com status 200 (OK) se encontrado, 304 se não mudou, ou 404 (Not Found)
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Produto> buscarPorId(@PathVariable Long id) {
-        return produtoRepository.findById(id)
-                .map(ResponseEntity::ok)
+    public ResponseEntity<ProdutoDetalhe> buscarPorId(@PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Optional<ProdutoDetalhe> produto = produtoCacheService.buscar(id);
+        if (produto.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        String etag = EtagHttp.forte(versaoProduto(produto.get()));
+        if (EtagHttp.naoModificado(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(produto.get());
+    }
+
+    /**
+     * GET /api/produtos/{id}/disponibilidade
+     *
+     * Consulta a quantidade disponível para venda de um produto
+     *
+     * Com o ledger de estoque habilitado, a resposta vem da memória e já desconta
+     * as vendas que ainda não foram aplicadas no banco.
+     *
+     * @param id - ID do produto
+     * @return ResponseEntity com status 200 e a quantidade disponível, ou 404 se não existir
+     */
+    @GetMapping("/{id}/disponibilidade")
+    public ResponseEntity<DisponibilidadeProduto> consultarDisponibilidade(@PathVariable Long id) {
+        Optional<Integer> quantidade = estoqueLedger != null
+                ? estoqueLedger.disponivel(id)
+                : produtoRepository.findQuantidadeEstoqueById(id);
+        return quantidade
+                .map(disponivel -> ResponseEntity.ok(new DisponibilidadeProduto(id, disponivel)))
                 .orElse(ResponseEntity.notFound().build());
     }
 
     /**
-     * GET /api/produtos/buscar?nome=mouse
+     * GET /api/produtos/buscar?nome=mouse&limite=20
      *
-     * Busca produtos por nome (busca parcial, ignora maiúsculas/minúsculas)
+     * Busca produtos por nome ou descrição, do mais relevante para o menos relevante
      *
      * @RequestParam: captura parâmetro da query string (?nome=valor)
      *
+     * A busca usa um índice em memória (BuscaProdutoService), e não LIKE '%termo%' no banco:
+     *   - busca parcial, sem diferenciar maiúsculas e acentos ("cafe" encontra "Café")
+     *   - várias palavras: todas precisam aparecer ("mouse sem fio")
+     *   - produtos cujo nome começa com o termo vêm primeiro
+     *
      * Exemplo de uso:
      *   GET /api/produtos/buscar?nome=mouse
-     *   Retorna: ["Mouse Logitech", "Mouse Gamer", "Mouse USB"]
+     *   Retorna: ["Mouse USB", "Mouse Gamer", "Mouse Logitech", "Kit Teclado e Mouse"]
      *
      * @param nome - termo de busca (pode ser parte do nome)
+     * @param limite - quantidade máxima de produtos (padrão 50, máximo 500)
      * @return ResponseEntity com status 200 e lista de produtos encontrados
      */
     @GetMapping("/buscar")
-    public ResponseEntity<List<Produto>> buscarPorNome(@RequestParam String nome) {
-        // findByNomeContainingIgnoreCase: método gerado pelo Spring Data JPA
-        // - Containing: busca parcial (LIKE %nome%)
-        // - IgnoreCase: não diferencia maiúsculas de minúsculas
-        List<Produto> produtos = produtoRepository.findByNomeContainingIgnoreCase(nome);
+    public ResponseEntity<List<ProdutoResumo>> buscarPorNome(@RequestParam String nome,
+                                                             @RequestParam(defaultValue = "50") int limite) {
+        int limiteValido = Math.max(1, Math.min(limite, LIMITE_MAXIMO_BUSCA));
+        List<ProdutoResumo> produtos = buscaProdutoService.buscar(nome, limiteValido);
         return ResponseEntity.ok(produtos);
     }
 
+    /**
+     * GET /api/produtos/autocomplete?prefixo=mou&limite=10
+     *
+     * Sugestões para o campo de busca do PDV (uma requisição por tecla digitada)
+     *
+     * Respondido direto da memória (AutocompleteProdutoService), sem consultar o banco:
+     *   - o prefixo pode ser o início de qualquer palavra do nome
+     *   - sem diferenciar maiúsculas e acentos
+     *   - os produtos mais vendidos vêm primeiro
+     *
+     * Exemplo de uso:
+     *   GET /api/produtos/autocomplete?prefixo=mou
+     *   Retorna: [{ "id": 7, "nome": "Mouse Logitech", "quantidadeVendida": 1520 }, ...]
+     *
+     * @param prefixo - texto digitado
+     * @param limite - quantidade máxima de sugestões (padrão e máximo: 10)
+     * @return ResponseEntity com status 200 e as sugestões (lista vazia se nenhuma)
+     */
+    @GetMapping("/autocomplete")
+    public ResponseEntity<List<ProdutoSugestao>> autocomplete(
+            @RequestParam String prefixo,
+            @RequestParam(defaultValue = "10") int limite) {
+        int limiteValido = Math.max(1, Math.min(limite, AutocompleteProdutoService.MAXIMO_SUGESTOES));
+        return ResponseEntity.ok(autocompleteProdutoService.sugerir(prefixo, limiteValido));
+    }
+
+    /**
+     * GET /api/produtos/mais-vendidos?janela=dia&limite=10
+     *
+     * Ranking dos produtos mais vendidos na última hora, dia ou semana
+     *
+     * Respondido pelos contadores em memória (MaisVendidosService), atualizados
+     * a cada venda confirmada: o custo não depende de quantos itens foram vendidos.
+     * As quantidades são estimativas com erro máximo informado em cada linha.
+     *
+     * Exemplo de uso:
+     *   GET /api/produtos/mais-vendidos?janela=hora
+     *   Retorna: [{ "id": 7, "nome": "Mouse Logitech", "quantidadeVendida": 152, "erroMaximo": 0 }, ...]
+     *
+     * @param janela - hora, dia ou semana (padrão: dia)
+     * @param limite - quantidade máxima de produtos (padrão 10, máximo 500)
+     * @return ResponseEntity com status 200 e o ranking, ou 400 se a janela for inválida
+     */
+    @GetMapping("/mais-vendidos")
+    public ResponseEntity<List<ProdutoMaisVendido>> maisVendidos(
+            @RequestParam(defaultValue = "dia") String janela,
+            @RequestParam(defaultValue = "10") int limite) {
+        JanelaVendas janelaVendas;
+        try {
+            janelaVendas = JanelaVendas.porNome(janela);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        int limiteValido = Math.max(1, Math.min(limite, LIMITE_MAXIMO_BUSCA));
+        return ResponseEntity.ok(maisVendidosService.maisVendidos(janelaVendas, limiteValido));
+    }
+
     /**
      * GET /api/produtos/fornecedor/{fornecedorId}
      *
@@ -97,12 +291,24 @@ public class ProdutoController {
      * @return ResponseEntity com status 200 e lista de produtos do fornecedor
      */
     @GetMapping("/fornecedor/{fornecedorId}")
-    public ResponseEntity<List<Produto>> buscarPorFornecedor(@PathVariable Long fornecedorId) {
-        // Busca produtos onde fornecedor.id = fornecedorId
-        List<Produto> produtos = produtoRepository.findByFornecedorId(fornecedorId);
+    public ResponseEntity<List<ProdutoDetalhe>> buscarPorFornecedor(@PathVariable Long fornecedorId) {
+        // Busca produtos onde fornecedor.id = fornecedorId (cópias guardadas no cache)
+        List<ProdutoDetalhe> produtos = produtoCacheService.listarPorFornecedor(fornecedorId);
         return ResponseEntity.ok(produtos);
     }
 
+    /**
+     * GET /api/produtos/cache/estatisticas
+     *
+     * Estatísticas dos caches de produtos (acertos, erros, taxa de acerto, remoções)
+     *
+     * @return ResponseEntity com status 200 e as estatísticas de cada cache
+     */
+    @GetMapping("/cache/estatisticas")
+    public ResponseEntity<List<CacheEstatisticas>> estatisticasCache() {
+        return ResponseEntity.ok(produtoCacheService.estatisticas());
+    }
+
     /**
      * GET /api/produtos/estoque-baixo?quantidade=10
      *
@@ -125,11 +331,36 @@ public class ProdutoController {
     @GetMapping("/estoque-baixo")
     public ResponseEntity<List<Produto>> buscarEstoqueBaixo(
             @RequestParam(defaultValue = "10") Integer quantidade) {
-        // findByQuantidadeEstoqueLessThan: busca produtos onde quantidade_estoque < valor
-        List<Produto> produtos = produtoRepository.findByQuantidadeEstoqueLessThan(quantidade);
+        // Índice em memória ordenado por quantidade_estoque (ver EstoqueBaixoService)
+        List<Produto> produtos = estoqueBaixoService.buscarAbaixoDe(quantidade);
         return ResponseEntity.ok(produtos);
     }
 
+    /**
+     * GET /api/produtos/estoque-baixo/stream?quantidade=10
+     *
+     * Alertas de estoque baixo em tempo real (Server-Sent Events)
+     *
+     * Substitui a consulta periódica de GET /api/produtos/estoque-baixo: a conexão
+     * fica aberta e o servidor envia um evento quando um produto cruza o limite.
+     *
+     * Eventos:
+     *   - snapshot: lista de produtos já abaixo do limite (enviado ao conectar)
+     *   - estoque-baixo: produto ficou abaixo do limite (venda)
+     *   - estoque-normalizado: produto voltou ao limite ou acima (reposição)
+     *
+     * Exemplo de uso:
+     *   curl -N "http://localhost:8080/api/produtos/estoque-baixo/stream?quantidade=10"
+     *   No navegador: new EventSource("/api/produtos/estoque-baixo/stream?quantidade=10")
+     *
+     * @param quantidade - limite de estoque acompanhado (padrão: 10)
+     * @return conexão SSE (text/event-stream)
+     */
+    @GetMapping(value = "/estoque-baixo/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEstoqueBaixo(@RequestParam(defaultValue = "10") Integer quantidade) {
+        return estoqueBaixoService.assinar(quantidade);
+    }
+
     /**
      * POST /api/produtos
      *
@@ -151,8 +382,10 @@ public class ProdutoController {
      * @return ResponseEntity com status 201 (Created) e o produto salvo
      */
     @PostMapping
+    @CacheEvict(cacheNames = ProdutoRepository.CACHE_PRODUTOS_POR_FORNECEDOR, allEntries = true)
     public ResponseEntity<Produto> criar(@RequestBody Produto produto) {
         Produto produtoSalvo = produtoRepository.save(produto);
+        eventPublisher.publishEvent(new ProdutoAlteradoEvent(produtoSalvo.getId(), produtoSalvo));
         return ResponseEntity.status(HttpStatus.CREATED).body(produtoSalvo);
     }
 
@@ -161,21 +394,92 @@ public class ProdutoController {
      *
      * Atualiza os dados de um produto existente
      *
+     * CONCORRÊNCIA OTIMISTA:
+     *   - com "versao" no JSON (a recebida no GET), o PUT só grava se ninguém
+     *     alterou o produto depois; senão responde 409 (Conflict)
+     *   - sem "versao", grava sobre a versão atual (a última gravação prevalece)
+     *
      * @param id - ID do produto a ser atualizado
      * @param produto - novos dados do produto recebidos no corpo da requisição
-     * @return ResponseEntity com status 200 e produto atualizado, ou 404 se não existir
+     * @return ResponseEntity com status 200 e produto atualizado, 404 se não existir,
+     *         ou 409 (Conflict) se a versão enviada estiver desatualizada
      */
     @PutMapping("/{id}")
+    @Caching(evict = {
+            @CacheEvict(cacheNames = ProdutoRepository.CACHE_PRODUTOS, key = "#id"),
+            @CacheEvict(cacheNames = ProdutoRepository.CACHE_PRODUTOS_POR_FORNECEDOR, allEntries = true)
+    })
     public ResponseEntity<Produto> atualizar(@PathVariable Long id, @RequestBody Produto produto) {
-        if (!produtoRepository.existsById(id)) {
+        Optional<Long> versaoAtual = produtoRepository.findVersaoById(id);
+        if (versaoAtual.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
 
         produto.setId(id);
-        Produto produtoAtualizado = produtoRepository.save(produto);
+        if (produto.getVersao() == null) {
+            produto.setVersao(versaoAtual.get());
+        }
+        Produto produtoAtualizado;
+        try {
+            produtoAtualizado = produtoRepository.save(produto);
+        } catch (OptimisticLockingFailureException e) {
+            // Outra gravação alterou o produto depois da versão enviada pelo cliente
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        eventPublisher.publishEvent(new ProdutoAlteradoEvent(id, produtoAtualizado));
+
+        // O PUT grava a quantidade absoluta: o saldo em memória passa a partir dela
+        // (vendas reservadas ainda não aplicadas continuam sendo descontadas)
+        if (estoqueLedger != null) {
+            estoqueLedger.recarregar(id);
+        }
         return ResponseEntity.ok(produtoAtualizado);
     }
 
+    /**
+     * PATCH /api/produtos/{id}
+     *
+     * Altera apenas os campos enviados (JSON Merge Patch, RFC 7396)
+     *
+     * Um único UPDATE com as colunas do patch, sem consultar o produto antes:
+     * é o caminho da sincronização de preço e estoque do ERP.
+     *
+     * Exemplos de JSON (Content-Type: application/merge-patch+json ou application/json):
+     *   { "preco": 19.90 }
+     *   { "quantidadeEstoque": 120, "versao": 7 }     (só grava se ainda estiver na versão 7)
+     *   { "descricao": null, "fornecedor": { "id": 3 } }
+     *
+     * @param id - ID do produto
+     * @param patch - campos a alterar (null apaga o campo)
+     * @return 204 (No Content) se alterado, 404 se não existir, 400 se o patch for
+     *         inválido, ou 409 (Conflict) se a versão enviada estiver desatualizada
+     */
+    @PatchMapping(value = "/{id}", consumes = {AtualizacaoParcialService.MERGE_PATCH_JSON, MediaType.APPLICATION_JSON_VALUE})
+    @Caching(evict = {
+            @CacheEvict(cacheNames = ProdutoRepository.CACHE_PRODUTOS, key = "#id"),
+            @CacheEvict(cacheNames = ProdutoRepository.CACHE_PRODUTOS_POR_FORNECEDOR, allEntries = true)
+    })
+    public ResponseEntity<Void> atualizarParcial(@PathVariable Long id, @RequestBody JsonNode patch) {
+        boolean alterado;
+        try {
+            alterado = atualizacaoParcialService.atualizarProduto(id, patch);
+        } catch (IllegalArgumentException | DataIntegrityViolationException e) {
+            // Campo inválido ou fornecedor inexistente
+            return ResponseEntity.badRequest().build();
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        if (!alterado) {
+            return ResponseEntity.notFound().build();
+        }
+
+        // Mesmo tratamento do PUT: o saldo em memória passa a partir da quantidade gravada
+        if (estoqueLedger != null && patch.has("quantidadeEstoque")) {
+            estoqueLedger.recarregar(id);
+        }
+        return ResponseEntity.noContent().build();
+    }
+
     /**
      * DELETE /api/produtos/{id}
      *
@@ -190,13 +494,31 @@ public class ProdutoController {
      * @return ResponseEntity com status 204 (No Content) se deletado, ou 404 se não existir
      */
     @DeleteMapping("/{id}")
+    @Caching(evict = {
+            @CacheEvict(cacheNames = ProdutoRepository.CACHE_PRODUTOS, key = "#id"),
+            @CacheEvict(cacheNames = ProdutoRepository.CACHE_PRODUTOS_POR_FORNECEDOR, allEntries = true)
+    })
     public ResponseEntity<Void> deletar(@PathVariable Long id) {
         if (!produtoRepository.existsById(id)) {
             return ResponseEntity.notFound().build();
         }
 
         produtoRepository.deleteById(id);
+        eventPublisher.publishEvent(new ProdutoAlteradoEvent(id, null));
+        if (estoqueLedger != null) {
+            estoqueLedger.remover(id);
+        }
         return ResponseEntity.noContent().build();
     }
-}
 
+    /**
+     * Valor do ETag de um produto: ID e versão do produto e do fornecedor
+     */
+    private static String versaoProduto(ProdutoDetalhe produto) {
+        String valor = "produto-" + produto.id() + "-v" + produto.versao();
+        if (produto.fornecedor() != null) {
+            valor += "-f" + produto.fornecedor().id() + "v" + produto.fornecedor().versao();
+        }
+        return valor;
+    }
+}
@@ -0,0 +1,49 @@
+package api.comercio.local.controller;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * FILTER - TempoPrimeiraRequisicaoFilter
+ *
+ * Opcional: ativado com comercio.inicio.medir-primeira-requisicao=true
+ * (ligado no perfil inicio-rapido)
+ *
+ * Registra no log o tempo entre o início da JVM e o fim da primeira resposta.
+ * O "Started App in ..." do Spring mede só até o contexto subir; este tempo
+ * inclui a primeira requisição (DispatcherServlet, conversores JSON, pool de
+ * conexões), que é o que o caixa percebe depois de um deploy.
+ *
+ * Depois da primeira requisição, o custo é uma leitura de AtomicBoolean.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "comercio.inicio.medir-primeira-requisicao", havingValue = "true")
+public class TempoPrimeiraRequisicaoFilter extends OncePerRequestFilter {
+
+    private final AtomicBoolean medido = new AtomicBoolean();
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (!medido.get() && medido.compareAndSet(false, true)) {
+                long inicioJvm = ManagementFactory.getRuntimeMXBean().getStartTime();
+                log.info("Primeira requisição ({} {}) respondida {} ms após o início da JVM",
+                        request.getMethod(), request.getRequestURI(), System.currentTimeMillis() - inicioJvm);
+            }
+        }
+    }
+}
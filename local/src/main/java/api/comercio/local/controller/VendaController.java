@@ -1,14 +1,40 @@
 package api.comercio.local.controller;
 
+import api.comercio.local.dto.LoteVendasResultado;
+import api.comercio.local.dto.PaginaCursor;
+import api.comercio.local.dto.ResumoVendasMes;
+import api.comercio.local.dto.ResumoVendasProduto;
+import api.comercio.local.dto.SituacaoVendaFila;
+import api.comercio.local.dto.VendaResumo;
 import api.comercio.local.model.Venda;
+import api.comercio.local.model.VendaDiaria;
+import api.comercio.local.repository.VendaDiariaProdutoRepository;
+import api.comercio.local.repository.VendaDiariaRepository;
 import api.comercio.local.repository.VendaRepository;
+import api.comercio.local.service.AtualizacaoParcialService;
+import api.comercio.local.service.EstoqueInsuficienteException;
+import api.comercio.local.service.FilaVendasService;
+import api.comercio.local.service.IdempotenciaVendaService;
+import api.comercio.local.service.VendaExportacaoService;
+import api.comercio.local.service.VendaService;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.JsonNode;
 
+import java.net.URI;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 
 /**
@@ -19,8 +45,13 @@ import java.util.List;
  *
  * Funcionalidades:
  *   - CRUD completo de vendas
+ *   - Registro idempotente de vendas (cabeçalho Idempotency-Key)
+ *   - Registro assíncrono de vendas por fila (opcional, horários de pico)
  *   - Busca por cliente
  *   - Busca por período (data inicial e final)
+ *   - Exportação de vendas por período em streaming (NDJSON)
+ *   - Importação de vendas em lote (terminais de caixa offline)
+ *   - Resumos de vendas por dia, mês e produto
  */
 @RestController
 @RequestMapping("/api/vendas")
@@ -33,30 +64,96 @@ public class VendaController {
     @Autowired
     private VendaRepository vendaRepository;
 
+    @Autowired
+    private VendaExportacaoService vendaExportacaoService;
+
+    @Autowired
+    private VendaService vendaService;
+
+    @Autowired
+    private IdempotenciaVendaService idempotenciaVendaService;
+
+    /**
+     * Fila de gravação assíncrona (opcional, comercio.vendas.fila.habilitada=true)
+     */
+    @Autowired(required = false)
+    private FilaVendasService filaVendasService;
+
+    @Autowired
+    private VendaDiariaRepository vendaDiariaRepository;
+
+    @Autowired
+    private VendaDiariaProdutoRepository vendaDiariaProdutoRepository;
+
+    /**
+     * Quantidade máxima de vendas aceitas em uma única requisição de lote
+     */
+    @Value("${comercio.vendas.lote.tamanho-maximo:10000}")
+    private int tamanhoMaximoLote;
+
     /**
-     * GET /api/vendas
+     * Tamanho máximo de página aceito na listagem, para limitar a memória por requisição
+     */
+    private static final int TAMANHO_MAXIMO_PAGINA = 500;
+
+    /**
+     * GET /api/vendas?cursor=...&tamanho=50
+     *
+     * Lista as vendas paginadas por cursor (keyset pagination), em ordem de dataVenda
      *
-     * Lista todas as vendas cadastradas
+     * A tabela de vendas cresce sem limite, então a listagem nunca devolve a tabela
+     * inteira: cada resposta traz no máximo "tamanho" vendas e o cursor "next"
+     * para buscar a página seguinte.
      *
-     * @return ResponseEntity com status 200 e lista de vendas
+     * Cada venda vem resumida (VendaResumo): sem itens e só com ID/nome do cliente.
+     * Para o detalhe completo, use GET /api/vendas/{id}
+     *
+     * Exemplo de uso:
+     *   GET /api/vendas                         (primeira página)
+     *   GET /api/vendas?cursor=MjAyNC0xMS0y...  (página seguinte, usando o "next" recebido)
+     *
+     * @param cursor - cursor "next" da página anterior (ausente na primeira página)
+     * @param tamanho - quantidade de vendas por página (padrão: 50, máximo: 500)
+     * @return ResponseEntity com status 200 e a página de vendas, ou 400 se o cursor for inválido
      */
     @GetMapping
-    public ResponseEntity<List<Venda>> listarTodos() {
-        List<Venda> vendas = vendaRepository.findAll();
-        return ResponseEntity.ok(vendas);
+    public ResponseEntity<PaginaCursor<VendaResumo>> listarTodos(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int tamanho) {
+        int limite = Math.max(1, Math.min(tamanho, TAMANHO_MAXIMO_PAGINA));
+
+        // Busca um registro a mais para saber se existe próxima página
+        List<VendaResumo> vendas;
+        try {
+            if (cursor == null || cursor.isBlank()) {
+                vendas = vendaRepository.findPrimeiraPagina(PageRequest.ofSize(limite + 1));
+            } else {
+                String[] chave = PaginaCursor.decodificar(cursor, 2);
+                vendas = vendaRepository.findPaginaApos(
+                        LocalDateTime.parse(chave[0]), Long.valueOf(chave[1]), PageRequest.ofSize(limite + 1));
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            // Cursor adulterado ou de outro endpoint
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok(PaginaCursor.de(vendas, limite,
+                venda -> new Object[] { venda.dataVenda(), venda.id() }));
     }
 
     /**
      * GET /api/vendas/{id}
      *
-     * Busca uma venda específica pelo ID
+     * Busca uma venda específica pelo ID, com cliente, itens, produtos e fornecedores
+     *
+     * Usa findDetalheById: todo o detalhe da venda é carregado em um único SELECT
      *
      * @param id - ID da venda capturado da URL
      * @return ResponseEntity com status 200 (OK) se encontrado, ou 404 (Not Found)
      */
     @GetMapping("/{id}")
     public ResponseEntity<Venda> buscarPorId(@PathVariable Long id) {
-        return vendaRepository.findById(id)
+        return vendaRepository.findDetalheById(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -72,13 +169,15 @@ public class VendaController {
      *   - Programa de fidelidade
      *   - Relatórios de vendas por cliente
      *
+     * Retorna as vendas resumidas (VendaResumo), das mais recentes para as mais antigas
+     *
      * @param clienteId - ID do cliente
      * @return ResponseEntity com status 200 e lista de vendas do cliente
      */
     @GetMapping("/cliente/{clienteId}")
-    public ResponseEntity<List<Venda>> buscarPorCliente(@PathVariable Long clienteId) {
-        // Busca vendas onde cliente.id = clienteId
-        List<Venda> vendas = vendaRepository.findByClienteId(clienteId);
+    public ResponseEntity<List<VendaResumo>> buscarPorCliente(@PathVariable Long clienteId) {
+        // Busca vendas onde cliente.id = clienteId, selecionando só as colunas do resumo
+        List<VendaResumo> vendas = vendaRepository.findResumoByClienteId(clienteId);
         return ResponseEntity.ok(vendas);
     }
 
@@ -115,12 +214,100 @@ public class VendaController {
         return ResponseEntity.ok(vendas);
     }
 
+    /**
+     * GET /api/vendas/periodo/stream?inicio=2024-01-01T00:00:00&fim=2024-12-31T23:59:59
+     *
+     * Exporta as vendas de um período em NDJSON (uma venda JSON por linha, com os itens)
+     *
+     * Ao contrário de /api/vendas/periodo, a lista não é montada na memória:
+     * cada venda é escrita na resposta assim que é lida do banco.
+     * Indicado para fechamentos anuais e relatórios com muitas vendas.
+     *
+     * StreamingResponseBody:
+     *   - o corpo é escrito em uma thread separada, depois que o método retorna
+     *   - a conexão HTTP fica aberta até a última linha ser enviada
+     *
+     * Exemplo de uso:
+     *   curl -N "http://localhost:8080/api/vendas/periodo/stream?inicio=2024-01-01T00:00:00&fim=2024-12-31T23:59:59"
+     *
+     * @param inicio - data/hora inicial do período
+     * @param fim - data/hora final do período
+     * @return ResponseEntity com status 200 e o corpo em application/x-ndjson
+     */
+    @GetMapping(value = "/periodo/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportarPorPeriodo(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime inicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fim) {
+        StreamingResponseBody corpo = saida -> vendaExportacaoService.exportarPeriodo(inicio, fim, saida);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(corpo);
+    }
+
+    /**
+     * GET /api/vendas/resumo/diario?inicio=2024-11-01&fim=2024-11-30
+     *
+     * Totais de vendas por dia (quantidade de vendas, valor total e itens vendidos)
+     *
+     * Lê a tabela de resumos diários (VendaDiaria), mantida a cada venda gravada:
+     * o custo não depende de quantas vendas existem no período, só de quantos dias.
+     *
+     * @param inicio - primeiro dia do período (inclusivo)
+     * @param fim - último dia do período (inclusivo)
+     * @return ResponseEntity com status 200 e uma linha por dia com vendas
+     */
+    @GetMapping("/resumo/diario")
+    public ResponseEntity<List<VendaDiaria>> resumoDiario(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fim) {
+        return ResponseEntity.ok(vendaDiariaRepository.findByDiaBetweenOrderByDia(inicio, fim));
+    }
+
+    /**
+     * GET /api/vendas/resumo/mensal?ano=2024
+     *
+     * Totais de vendas por mês de um ano (soma dos resumos diários)
+     *
+     * @param ano - ano do relatório
+     * @return ResponseEntity com status 200 e uma linha por mês com vendas
+     */
+    @GetMapping("/resumo/mensal")
+    public ResponseEntity<List<ResumoVendasMes>> resumoMensal(@RequestParam int ano) {
+        LocalDate inicio = LocalDate.of(ano, 1, 1);
+        LocalDate fim = LocalDate.of(ano, 12, 31);
+        return ResponseEntity.ok(vendaDiariaRepository.resumirPorMes(inicio, fim));
+    }
+
+    /**
+     * GET /api/vendas/resumo/produtos?inicio=2024-11-01&fim=2024-11-30&limite=50
+     *
+     * Produtos que mais faturaram no período (soma dos resumos diários por produto)
+     *
+     * @param inicio - primeiro dia do período (inclusivo)
+     * @param fim - último dia do período (inclusivo)
+     * @param limite - quantidade máxima de produtos (padrão 50, máximo 500)
+     * @return ResponseEntity com status 200 e os produtos em ordem decrescente de valor vendido
+     */
+    @GetMapping("/resumo/produtos")
+    public ResponseEntity<List<ResumoVendasProduto>> resumoPorProduto(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fim,
+            @RequestParam(defaultValue = "50") int limite) {
+        int limiteEfetivo = Math.max(1, Math.min(limite, TAMANHO_MAXIMO_PAGINA));
+        return ResponseEntity.ok(vendaDiariaProdutoRepository.resumirPorProduto(
+                inicio, fim, PageRequest.ofSize(limiteEfetivo)));
+    }
+
     /**
      * POST /api/vendas
      *
-     * Cria uma nova venda no banco de dados
+     * Cria uma nova venda no banco de dados e dá baixa no estoque dos produtos vendidos
      *
      * A data da venda é preenchida automaticamente pelo @PrePersist na entidade
+     * Se "valorTotal" não for informado, é calculado a partir dos itens
+     *
+     * A baixa de estoque é feita na mesma transação da venda (ver VendaService.registrar):
+     * se algum produto não tiver estoque suficiente, a venda inteira é recusada.
      *
      * Exemplo de JSON SIMPLES (sem itens):
      * {
@@ -149,13 +336,172 @@ public class VendaController {
      * }
      *
      * @param venda - dados da venda recebidos no corpo da requisição
-     * @return ResponseEntity com status 201 (Created) e a venda salva
+     * @return ResponseEntity com status 201 (Created) e a venda salva,
+     *         400 (Bad Request) se a venda estiver incompleta ou o cliente/produto não existir,
+     *         ou 409 (Conflict) se algum produto não tiver estoque suficiente
      */
     @PostMapping
     public ResponseEntity<Venda> criar(@RequestBody Venda venda) {
-        // O método @PrePersist da entidade Venda irá preencher automaticamente a dataVenda
-        Venda vendaSalva = vendaRepository.save(venda);
-        return ResponseEntity.status(HttpStatus.CREATED).body(vendaSalva);
+        try {
+            // O método @PrePersist da entidade Venda irá preencher automaticamente a dataVenda
+            Venda vendaSalva = vendaService.registrar(venda);
+            return ResponseEntity.status(HttpStatus.CREATED).body(vendaSalva);
+        } catch (EstoqueInsuficienteException e) {
+            // Retorna status 409 (Conflict) - venda recusada, nada foi gravado
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (IllegalArgumentException | DataIntegrityViolationException | ConstraintViolationException e) {
+            // Cliente ou produto inexistente: a chave estrangeira é recusada no INSERT
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * POST /api/vendas (com cabeçalho Idempotency-Key)
+     *
+     * Mesmo registro de POST /api/vendas, mas cada chave grava no máximo uma venda
+     *
+     * O terminal gera uma chave por venda (ex: UUID) e repete a mesma chave
+     * quando reenvia a venda depois de um timeout. A repetição recebe a resposta
+     * original (201 e o mesmo JSON) sem gravar outra venda
+     * (ver IdempotenciaVendaService).
+     *
+     * Exemplo:
+     *   POST /api/vendas
+     *   Idempotency-Key: 5f0c6a1e-8d2b-4c4e-9a7f-2b1d3e4f5a6b
+     *
+     * Cabeçalho na resposta:
+     *   Idempotent-Replayed: true   (venda já gravada por uma tentativa anterior)
+     *
+     * @param chave - valor do cabeçalho Idempotency-Key (até 100 caracteres)
+     * @param venda - dados da venda recebidos no corpo da requisição
+     * @return ResponseEntity com status 201 (Created) e a venda gravada,
+     *         400 (Bad Request) se a venda ou a chave forem inválidas ou o cliente/produto não existir,
+     *         ou 409 (Conflict) se algum produto não tiver estoque suficiente
+     */
+    @PostMapping(headers = IdempotenciaVendaService.CABECALHO)
+    public ResponseEntity<byte[]> criarIdempotente(@RequestHeader(IdempotenciaVendaService.CABECALHO) String chave,
+                                                   @RequestBody Venda venda) {
+        try {
+            IdempotenciaVendaService.Resposta resposta = idempotenciaVendaService.registrar(chave, venda);
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .header("Idempotent-Replayed", String.valueOf(resposta.repetida()))
+                    .body(resposta.json());
+        } catch (EstoqueInsuficienteException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (IllegalArgumentException | DataIntegrityViolationException | ConstraintViolationException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * POST /api/vendas/fila
+     *
+     * Recebe uma venda para gravação assíncrona (ver FilaVendasService)
+     *
+     * A venda é validada e colocada na fila; a gravação é feita depois, junto
+     * com as outras vendas da fila, em uma única transação (group commit).
+     * Mesmo JSON de POST /api/vendas.
+     *
+     * Exemplo de resposta (202):
+     *   Location: /api/vendas/fila/3f1e0c2a-7b5d-4e8f-9a61-0d2c4b6e8f10
+     *   { "id": "3f1e0c2a-...", "estado": "PENDENTE", "vendaId": null, "motivo": null }
+     *
+     * @param venda - dados da venda recebidos no corpo da requisição
+     * @return ResponseEntity com status 202 (Accepted) e a situação da venda,
+     *         400 (Bad Request) se a venda estiver incompleta,
+     *         404 (Not Found) se a fila não estiver habilitada,
+     *         ou 503 (Service Unavailable) com Retry-After se a fila estiver cheia
+     */
+    @PostMapping("/fila")
+    public ResponseEntity<SituacaoVendaFila> enfileirar(@RequestBody Venda venda) {
+        if (filaVendasService == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        try {
+            return filaVendasService.enfileirar(venda)
+                    .map(id -> ResponseEntity.accepted()
+                            .location(URI.create("/api/vendas/fila/" + id))
+                            .body(SituacaoVendaFila.pendente(id)))
+                    .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                            .header(HttpHeaders.RETRY_AFTER, "1")
+                            .build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * GET /api/vendas/fila/{id}
+     *
+     * Situação de uma venda recebida por POST /api/vendas/fila
+     *
+     * @param id - ID de acompanhamento devolvido no 202
+     * @return ResponseEntity com status 200 e a situação (PENDENTE, GRAVADA ou RECUSADA),
+     *         ou 404 (Not Found) se o ID não existir, tiver expirado ou a fila não estiver habilitada
+     */
+    @GetMapping("/fila/{id}")
+    public ResponseEntity<SituacaoVendaFila> buscarSituacaoFila(@PathVariable String id) {
+        if (filaVendasService == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return filaVendasService.buscarSituacao(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * POST /api/vendas/lote
+     *
+     * Importa várias vendas em uma única requisição e uma única transação
+     *
+     * Usado pelos terminais de caixa (PDV) para sincronizar as vendas feitas offline.
+     * Ao invés de uma chamada HTTP (e um commit) por venda, as vendas são gravadas
+     * com INSERTs agrupados em lotes JDBC (ver VendaService.registrarLote).
+     *
+     * Regras:
+     *   - todas as vendas são gravadas, ou nenhuma (se alguma for inválida
+     *     ou se algum produto não tiver estoque para o lote inteiro)
+     *   - no máximo comercio.vendas.lote.tamanho-maximo vendas por requisição
+     *
+     * Exemplo de JSON:
+     * [
+     *   {
+     *     "cliente": { "id": 1 },
+     *     "dataVenda": "2024-11-28T10:30:00",
+     *     "itens": [ { "produto": { "id": 1 }, "quantidade": 2, "precoUnitario": 299.90 } ]
+     *   },
+     *   {
+     *     "cliente": { "id": 2 },
+     *     "itens": [ { "produto": { "id": 3 }, "quantidade": 1, "precoUnitario": 49.90 } ]
+     *   }
+     * ]
+     *
+     * @param vendas - lista de vendas recebida no corpo da requisição
+     * @return ResponseEntity com status 201 (Created) e os IDs gerados,
+     *         400 (Bad Request) se alguma venda for inválida, citar cliente/produto inexistente
+     *         ou a lista estiver vazia,
+     *         409 (Conflict) se algum produto não tiver estoque suficiente,
+     *         ou 413 (Content Too Large) se exceder o tamanho máximo do lote
+     */
+    @PostMapping("/lote")
+    public ResponseEntity<LoteVendasResultado> criarLote(@RequestBody List<Venda> vendas) {
+        if (vendas.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (vendas.size() > tamanhoMaximoLote) {
+            return ResponseEntity.status(HttpStatus.CONTENT_TOO_LARGE).build();
+        }
+
+        try {
+            List<Long> ids = vendaService.registrarLote(vendas);
+            return ResponseEntity.status(HttpStatus.CREATED).body(new LoteVendasResultado(ids.size(), ids));
+        } catch (EstoqueInsuficienteException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (IllegalArgumentException | DataIntegrityViolationException | ConstraintViolationException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     /**
@@ -172,13 +518,42 @@ public class VendaController {
      */
     @PutMapping("/{id}")
     public ResponseEntity<Venda> atualizar(@PathVariable Long id, @RequestBody Venda venda) {
-        if (!vendaRepository.existsById(id)) {
+        // VendaService: atualiza a venda e ajusta os resumos diários na mesma transação
+        return vendaService.atualizar(id, venda)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * PATCH /api/vendas/{id}
+     *
+     * Altera apenas os campos enviados (JSON Merge Patch, RFC 7396)
+     *
+     * Campos aceitos: dataVenda, valorTotal e cliente ({ "id": ... }).
+     * Os itens são alterados por /api/estoque.
+     *
+     * Exemplo de JSON:
+     *   { "cliente": { "id": 12 } }
+     *   { "dataVenda": "2024-03-10T14:30:00" }
+     *
+     * @param id - ID da venda
+     * @param patch - campos a alterar
+     * @return 204 (No Content) se alterada, 404 se não existir, ou 400 se o patch for inválido
+     */
+    @PatchMapping(value = "/{id}", consumes = {AtualizacaoParcialService.MERGE_PATCH_JSON, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<Void> atualizarParcial(@PathVariable Long id, @RequestBody JsonNode patch) {
+        boolean alterada;
+        try {
+            // VendaService: ajusta os resumos diários quando a data ou o valor mudam
+            alterada = vendaService.atualizarParcial(id, patch);
+        } catch (IllegalArgumentException | DataIntegrityViolationException e) {
+            // Campo inválido ou cliente inexistente
+            return ResponseEntity.badRequest().build();
+        }
+        if (!alterada) {
             return ResponseEntity.notFound().build();
         }
-
-        venda.setId(id);
-        Venda vendaAtualizada = vendaRepository.save(venda);
-        return ResponseEntity.ok(vendaAtualizada);
+        return ResponseEntity.noContent().build();
     }
 
     /**
@@ -205,11 +580,9 @@ public class VendaController {
      */
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deletar(@PathVariable Long id) {
-        if (!vendaRepository.existsById(id)) {
+        if (!vendaService.excluir(id)) {
             return ResponseEntity.notFound().build();
         }
-
-        vendaRepository.deleteById(id);
         return ResponseEntity.noContent().build();
     }
 }
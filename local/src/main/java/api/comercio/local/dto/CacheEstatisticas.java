@@ -0,0 +1,27 @@
+package api.comercio.local.dto;
+
+/**
+ * DTO - CacheEstatisticas
+ *
+ * Estatísticas de um cache em memória (GET /api/produtos/cache/estatisticas).
+ *
+ * Exemplo de resposta:
+ * {
+ *   "nome": "produtos",
+ *   "tamanho": 120,
+ *   "acertos": 9500,
+ *   "erros": 500,
+ *   "taxaAcerto": 0.95,
+ *   "remocoes": 12
+ * }
+ *
+ * @param nome - nome do cache
+ * @param tamanho - quantidade aproximada de entradas no cache
+ * @param acertos - consultas respondidas pela memória (hits)
+ * @param erros - consultas que precisaram ir ao banco (misses)
+ * @param taxaAcerto - acertos / total de consultas (0 a 1)
+ * @param remocoes - entradas removidas por limite de tamanho ou expiração
+ */
+public record CacheEstatisticas(String nome, long tamanho, long acertos, long erros,
+                                double taxaAcerto, long remocoes) {
+}
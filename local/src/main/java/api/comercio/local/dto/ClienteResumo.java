@@ -0,0 +1,24 @@
+package api.comercio.local.dto;
+
+/**
+ * DTO - ClienteResumo
+ *
+ * Visão resumida de um cliente para listagens: apenas os dados de contato,
+ * sem endereço e sem o histórico de vendas.
+ *
+ * É preenchido direto pela consulta (constructor expression do JPQL), então
+ * o banco lê somente estas colunas e nenhum relacionamento é carregado.
+ *
+ * @param id - ID do cliente
+ * @param nome - nome do cliente
+ * @param cpf - CPF do cliente
+ * @param telefone - telefone de contato
+ * @param email - e-mail de contato
+ */
+public record ClienteResumo(
+        Long id,
+        String nome,
+        String cpf,
+        String telefone,
+        String email) {
+}
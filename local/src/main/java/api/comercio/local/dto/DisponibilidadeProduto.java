@@ -0,0 +1,18 @@
+package api.comercio.local.dto;
+
+/**
+ * DTO - DisponibilidadeProduto
+ *
+ * Resposta de GET /api/produtos/{id}/disponibilidade.
+ *
+ * Exemplo de resposta:
+ * {
+ *   "produtoId": 7,
+ *   "quantidadeDisponivel": 42
+ * }
+ *
+ * @param produtoId - ID do produto
+ * @param quantidadeDisponivel - quantidade que ainda pode ser vendida
+ */
+public record DisponibilidadeProduto(Long produtoId, Integer quantidadeDisponivel) {
+}
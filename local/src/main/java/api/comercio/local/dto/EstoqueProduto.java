@@ -0,0 +1,22 @@
+package api.comercio.local.dto;
+
+/**
+ * DTO - EstoqueProduto
+ *
+ * Quantidade em estoque de um produto, usada pelo índice de estoque baixo
+ * e enviada nos eventos de GET /api/produtos/estoque-baixo/stream.
+
+A versão do produto (incrementada a cada baixa e a cada alteração) ordena
+as leituras: uma leitura mais antiga que a já indexada é descartada.
+ *
+ * Exemplo de evento:
+ *   event: estoque-baixo
+ *   data: { "id": 7, "nome": "Mouse Logitech", "quantidadeEstoque": 4, "versao": 12 }
+ *
+ * @param id - ID do produto
+ * @param nome - nome do produto
+ * @param quantidadeEstoque - quantidade em estoque
+ * @param versao - versão do produto quando a quantidade foi lida
+ */
+public record EstoqueProduto(Long id, String nome, Integer quantidadeEstoque, Long versao) {
+}
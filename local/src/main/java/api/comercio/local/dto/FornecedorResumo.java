@@ -0,0 +1,24 @@
+package api.comercio.local.dto;
+
+/**
+ * DTO - FornecedorResumo
+ *
+ * Visão resumida de um fornecedor para listagens: apenas identificação e contato,
+ * sem endereço e sem o catálogo de produtos.
+ *
+ * É preenchido direto pela consulta (constructor expression do JPQL), então
+ * o banco lê somente estas colunas e nenhum relacionamento é carregado.
+ *
+ * @param id - ID do fornecedor
+ * @param nome - razão social / nome do fornecedor
+ * @param cnpj - CNPJ do fornecedor
+ * @param telefone - telefone de contato
+ * @param email - e-mail de contato
+ */
+public record FornecedorResumo(
+        Long id,
+        String nome,
+        String cnpj,
+        String telefone,
+        String email) {
+}
@@ -0,0 +1,38 @@
+package api.comercio.local.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * DTO - ItemExportacao
+ *
+ * Uma linha da exportação de vendas: os dados da venda repetidos em cada
+ * item (venda JOIN itens), como vêm do banco.
+ *
+ * O VendaExportacaoService junta as linhas seguidas da mesma venda em um
+ * único VendaExportada. Uma venda sem itens vem em uma linha com os campos
+ * do item null (LEFT JOIN).
+ *
+ * @param vendaId - ID da venda
+ * @param dataVenda - data e hora da venda
+ * @param valorTotal - valor total da venda
+ * @param clienteId - ID do cliente que realizou a compra
+ * @param clienteNome - nome do cliente que realizou a compra
+ * @param produtoId - ID do produto do item (null se a venda não tem itens)
+ * @param produtoNome - nome do produto do item
+ * @param quantidade - quantidade vendida no item
+ * @param precoUnitario - preço unitário no momento da venda
+ * @param subtotal - quantidade x preço unitário
+ */
+public record ItemExportacao(
+        Long vendaId,
+        LocalDateTime dataVenda,
+        BigDecimal valorTotal,
+        Long clienteId,
+        String clienteNome,
+        Long produtoId,
+        String produtoNome,
+        Integer quantidade,
+        BigDecimal precoUnitario,
+        BigDecimal subtotal) {
+}
@@ -0,0 +1,15 @@
+package api.comercio.local.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO - ItemVendido
+ *
+ * Quantidade de um item de venda e a data da venda (sem carregar as entidades).
+ *
+ * @param produtoId - ID do produto
+ * @param quantidade - unidades vendidas no item
+ * @param dataVenda - data/hora da venda
+ */
+public record ItemVendido(Long produtoId, Integer quantidade, LocalDateTime dataVenda) {
+}
@@ -0,0 +1,20 @@
+package api.comercio.local.dto;
+
+import java.util.List;
+
+/**
+ * DTO - LoteVendasResultado
+ *
+ * Resposta da importação de vendas em lote (POST /api/vendas/lote).
+ *
+ * Exemplo de resposta:
+ * {
+ *   "quantidade": 3,
+ *   "ids": [101, 102, 103]
+ * }
+ *
+ * @param quantidade - número de vendas gravadas
+ * @param ids - IDs gerados, na mesma ordem das vendas enviadas
+ */
+public record LoteVendasResultado(int quantidade, List<Long> ids) {
+}
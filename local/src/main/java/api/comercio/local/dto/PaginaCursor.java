@@ -0,0 +1,98 @@
+package api.comercio.local.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * DTO - PaginaCursor
+ *
+ * Resposta das listagens paginadas por cursor (keyset pagination).
+ *
+ * Ao invés de usar OFFSET (que obriga o banco a percorrer e descartar todas as
+ * linhas das páginas anteriores), cada página continua a partir da chave do
+ * último registro retornado:
+ *
+ *   SELECT ... WHERE id > :ultimoId ORDER BY id LIMIT :tamanho
+ *
+ * Assim a página N custa o mesmo que a página 1 (busca direta pelo índice)
+ * e a memória por requisição fica limitada ao tamanho da página.
+ *
+ * Exemplo de resposta:
+ * {
+ *   "itens": [ ... ],
+ *   "next": "MjAyNC0xMS0yOFQxMDozMDowMHw0Mg"
+ * }
+ *
+ * "next" é nulo quando não há mais páginas. Para buscar a próxima página,
+ * basta repetir a requisição com ?cursor=<valor de next>.
+ *
+ * @param itens - registros da página atual
+ * @param next - cursor opaco da próxima página (null na última página)
+ */
+public record PaginaCursor<T>(List<T> itens, String next) {
+
+    /**
+     * Separador dos componentes da chave dentro do cursor
+     */
+    private static final String SEPARADOR = "|";
+
+    /**
+     * MONTA A PÁGINA A PARTIR DE UMA BUSCA COM UM REGISTRO A MAIS
+     *
+     * O repository deve buscar (tamanho + 1) registros: se o registro extra
+     * vier, existe próxima página e o cursor aponta para o último item exibido.
+     * Isso evita um COUNT(*) separado só para saber se há mais dados.
+     *
+     * @param buscados - resultado da consulta com até (tamanho + 1) registros
+     * @param tamanho - tamanho da página solicitado
+     * @param chave - extrai os componentes da chave de ordenação de um registro
+     * @return página com no máximo "tamanho" itens e o cursor da próxima
+     */
+    public static <T> PaginaCursor<T> de(List<T> buscados, int tamanho, Function<T, Object[]> chave) {
+        if (buscados.size() <= tamanho) {
+            return new PaginaCursor<>(buscados, null);
+        }
+
+        List<T> itens = buscados.subList(0, tamanho);
+        return new PaginaCursor<>(itens, codificar(chave.apply(itens.get(tamanho - 1))));
+    }
+
+    /**
+     * CODIFICA A CHAVE DE ORDENAÇÃO EM UM CURSOR OPACO
+     *
+     * Base64 URL-safe sem padding, para poder ser usado direto na query string.
+     *
+     * @param componentes - valores da chave (ex: dataVenda e id)
+     * @return cursor codificado
+     */
+    public static String codificar(Object... componentes) {
+        StringBuilder chave = new StringBuilder();
+        for (Object componente : componentes) {
+            if (!chave.isEmpty()) {
+                chave.append(SEPARADOR);
+            }
+            chave.append(componente);
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(chave.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * DECODIFICA UM CURSOR RECEBIDO NA REQUISIÇÃO
+     *
+     * @param cursor - valor recebido em ?cursor=
+     * @param quantidade - número esperado de componentes
+     * @return componentes da chave, como texto
+     * @throws IllegalArgumentException se o cursor for inválido ou adulterado
+     */
+    public static String[] decodificar(String cursor, int quantidade) {
+        String chave = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        String[] componentes = chave.split("\\" + SEPARADOR, -1);
+        if (componentes.length != quantidade) {
+            throw new IllegalArgumentException("Cursor inválido: " + cursor);
+        }
+        return componentes;
+    }
+}
@@ -0,0 +1,85 @@
+package api.comercio.local.dto;
+
+import api.comercio.local.model.Produto;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO - ProdutoDetalhe
+ *
+ * Cópia imutável de um produto com o fornecedor e o endereço, no mesmo
+ * formato de JSON da entidade. É o que fica guardado no cache de produtos
+ * (ver ProdutoCacheService): a entidade é mutável e um setter chamado por
+ * engano alteraria a cópia compartilhada por todas as requisições.
+ *
+ * @param id - ID do produto
+ * @param nome - nome do produto
+ * @param descricao - descrição do produto
+ * @param preco - preço atual de venda
+ * @param quantidadeEstoque - quantidade em estoque
+ * @param fornecedor - fornecedor do produto (null se não tiver)
+ * @param versao - versão do produto (@Version)
+ */
+public record ProdutoDetalhe(
+        Long id,
+        String nome,
+        String descricao,
+        BigDecimal preco,
+        Integer quantidadeEstoque,
+        Fornecedor fornecedor,
+        Long versao) {
+
+    /**
+     * Copia os campos da entidade (o fornecedor e o endereço já vêm carregados: EAGER)
+     */
+    public static ProdutoDetalhe de(Produto produto) {
+        api.comercio.local.model.Fornecedor fornecedor = produto.getFornecedor();
+        return new ProdutoDetalhe(produto.getId(), produto.getNome(), produto.getDescricao(),
+                produto.getPreco(), produto.getQuantidadeEstoque(),
+                fornecedor != null ? Fornecedor.de(fornecedor) : null, produto.getVersao());
+    }
+
+    /**
+     * @param id - ID do fornecedor
+     * @param nome - razão social ou nome fantasia
+     * @param cnpj - CNPJ do fornecedor
+     * @param telefone - telefone de contato
+     * @param email - e-mail de contato
+     * @param versao - versão do fornecedor (@Version)
+     * @param endereco - endereço do fornecedor (null se não tiver)
+     */
+    public record Fornecedor(
+            Long id,
+            String nome,
+            String cnpj,
+            String telefone,
+            String email,
+            Long versao,
+            Endereco endereco) {
+
+        static Fornecedor de(api.comercio.local.model.Fornecedor fornecedor) {
+            api.comercio.local.model.Endereco endereco = fornecedor.getEndereco();
+            return new Fornecedor(fornecedor.getId(), fornecedor.getNome(), fornecedor.getCnpj(),
+                    fornecedor.getTelefone(), fornecedor.getEmail(), fornecedor.getVersao(),
+                    endereco != null ? Endereco.de(endereco) : null);
+        }
+    }
+
+    public record Endereco(
+            Long id,
+            String cep,
+            String logradouro,
+            String numero,
+            String complemento,
+            String bairro,
+            String cidade,
+            String estado,
+            String pais) {
+
+        static Endereco de(api.comercio.local.model.Endereco endereco) {
+            return new Endereco(endereco.getId(), endereco.getCep(), endereco.getLogradouro(),
+                    endereco.getNumero(), endereco.getComplemento(), endereco.getBairro(),
+                    endereco.getCidade(), endereco.getEstado(), endereco.getPais());
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package api.comercio.local.dto;
+
+/**
+ * DTO - ProdutoMaisVendido
+ *
+ * Linha do ranking de mais vendidos (GET /api/produtos/mais-vendidos).
+ *
+ * As quantidades são estimativas dos contadores em memória:
+ *   quantidadeVendida - erroMaximo <= unidades realmente vendidas <= quantidadeVendida
+ *
+ * Exemplo de resposta:
+ * [
+ *   { "id": 7, "nome": "Mouse Logitech", "quantidadeVendida": 152, "erroMaximo": 0 },
+ *   { "id": 3, "nome": "Mouse Gamer", "quantidadeVendida": 31, "erroMaximo": 2 }
+ * ]
+ *
+ * @param id - ID do produto
+ * @param nome - nome do produto
+ * @param quantidadeVendida - unidades vendidas na janela (estimativa, limite superior)
+ * @param erroMaximo - quanto a estimativa pode estar acima do valor real
+ */
+public record ProdutoMaisVendido(Long id, String nome, long quantidadeVendida, long erroMaximo) {
+}
@@ -0,0 +1,28 @@
+package api.comercio.local.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO - ProdutoResumo
+ *
+ * Visão resumida de um produto para listagens e buscas: preço, estoque e
+ * apenas o ID/nome do fornecedor (não o fornecedor completo com endereço).
+ *
+ * É preenchido direto pela consulta (constructor expression do JPQL):
+ *   SELECT new api.comercio.local.dto.ProdutoResumo(p.id, p.nome, ...) FROM Produto p ...
+ *
+ * @param id - ID do produto
+ * @param nome - nome do produto
+ * @param preco - preço atual de venda
+ * @param quantidadeEstoque - quantidade disponível em estoque
+ * @param fornecedorId - ID do fornecedor (null se não tiver)
+ * @param fornecedorNome - nome do fornecedor (null se não tiver)
+ */
+public record ProdutoResumo(
+        Long id,
+        String nome,
+        BigDecimal preco,
+        Integer quantidadeEstoque,
+        Long fornecedorId,
+        String fornecedorNome) {
+}
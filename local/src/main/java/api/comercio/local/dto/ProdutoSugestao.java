@@ -0,0 +1,19 @@
+package api.comercio.local.dto;
+
+/**
+ * DTO - ProdutoSugestao
+ *
+ * Sugestão do autocomplete de produtos (GET /api/produtos/autocomplete).
+ *
+ * Exemplo de resposta:
+ * [
+ *   { "id": 7, "nome": "Mouse Logitech", "quantidadeVendida": 1520 },
+ *   { "id": 3, "nome": "Mouse Gamer", "quantidadeVendida": 310 }
+ * ]
+ *
+ * @param id - ID do produto
+ * @param nome - nome do produto
+ * @param quantidadeVendida - unidades vendidas (critério de ordenação)
+ */
+public record ProdutoSugestao(Long id, String nome, long quantidadeVendida) {
+}
@@ -0,0 +1,14 @@
+package api.comercio.local.dto;
+
+/**
+ * DTO - ProdutoTexto
+ *
+ * Apenas os campos de texto de um produto, usados para montar o índice de
+ * busca por nome (BuscaProdutoService) sem carregar as entidades.
+ *
+ * @param id - ID do produto
+ * @param nome - nome do produto
+ * @param descricao - descrição do produto (pode ser null)
+ */
+public record ProdutoTexto(Long id, String nome, String descricao) {
+}
@@ -0,0 +1,12 @@
+package api.comercio.local.dto;
+
+/**
+ * DTO - QuantidadeVendida
+ *
+ * Total de unidades vendidas de um produto (soma de Estoque.quantidade).
+ *
+ * @param produtoId - ID do produto
+ * @param quantidade - unidades vendidas
+ */
+public record QuantidadeVendida(Long produtoId, Long quantidade) {
+}
@@ -0,0 +1,22 @@
+package api.comercio.local.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO - ResumoVendasMes
+ *
+ * Totais de vendas de um mês, somados a partir do resumo diário (VendaDiaria).
+ *
+ * @param ano - ano
+ * @param mes - mês (1 a 12)
+ * @param quantidadeVendas - vendas realizadas no mês
+ * @param valorTotal - faturamento do mês
+ * @param itensVendidos - unidades vendidas no mês
+ */
+public record ResumoVendasMes(
+        Integer ano,
+        Integer mes,
+        Long quantidadeVendas,
+        BigDecimal valorTotal,
+        Long itensVendidos) {
+}
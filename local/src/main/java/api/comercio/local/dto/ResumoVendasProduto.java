@@ -0,0 +1,21 @@
+package api.comercio.local.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO - ResumoVendasProduto
+ *
+ * Totais de vendas de um produto em um período, somados a partir do
+ * resumo diário por produto (VendaDiariaProduto).
+ *
+ * @param produtoId - ID do produto
+ * @param produtoNome - nome do produto (null se o produto foi excluído)
+ * @param quantidadeVendida - unidades vendidas no período
+ * @param valorTotal - faturamento do produto no período
+ */
+public record ResumoVendasProduto(
+        Long produtoId,
+        String produtoNome,
+        Long quantidadeVendida,
+        BigDecimal valorTotal) {
+}
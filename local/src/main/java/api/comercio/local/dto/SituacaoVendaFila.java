@@ -0,0 +1,41 @@
+package api.comercio.local.dto;
+
+/**
+ * DTO - SituacaoVendaFila
+ *
+ * Situação de uma venda recebida pela fila de gravação assíncrona
+ * (POST /api/vendas/fila e GET /api/vendas/fila/{id}).
+ *
+ * Exemplo de resposta:
+ * {
+ *   "id": "3f1e0c2a-7b5d-4e8f-9a61-0d2c4b6e8f10",
+ *   "estado": "GRAVADA",
+ *   "vendaId": 1051,
+ *   "motivo": null
+ * }
+ *
+ * @param id - ID de acompanhamento devolvido no 202 (Accepted)
+ * @param estado - PENDENTE (na fila), GRAVADA ou RECUSADA
+ * @param vendaId - ID da venda gravada (só em GRAVADA)
+ * @param motivo - motivo da recusa (só em RECUSADA)
+ */
+public record SituacaoVendaFila(String id, Estado estado, Long vendaId, String motivo) {
+
+    public enum Estado {
+        PENDENTE,
+        GRAVADA,
+        RECUSADA
+    }
+
+    public static SituacaoVendaFila pendente(String id) {
+        return new SituacaoVendaFila(id, Estado.PENDENTE, null, null);
+    }
+
+    public static SituacaoVendaFila gravada(String id, Long vendaId) {
+        return new SituacaoVendaFila(id, Estado.GRAVADA, vendaId, null);
+    }
+
+    public static SituacaoVendaFila recusada(String id, String motivo) {
+        return new SituacaoVendaFila(id, Estado.RECUSADA, null, motivo);
+    }
+}
@@ -0,0 +1,41 @@
+package api.comercio.local.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTO - VendaExportada
+ *
+ * Uma linha do NDJSON de /api/vendas/periodo/stream: a venda com os seus itens.
+ *
+ * @param id - ID da venda
+ * @param dataVenda - data e hora da venda
+ * @param valorTotal - valor total da venda
+ * @param clienteId - ID do cliente que realizou a compra
+ * @param clienteNome - nome do cliente que realizou a compra
+ * @param itens - produtos vendidos (vazia se a venda não tem itens)
+ */
+public record VendaExportada(
+        Long id,
+        LocalDateTime dataVenda,
+        BigDecimal valorTotal,
+        Long clienteId,
+        String clienteNome,
+        List<Item> itens) {
+
+    /**
+     * @param produtoId - ID do produto
+     * @param produtoNome - nome do produto
+     * @param quantidade - quantidade vendida
+     * @param precoUnitario - preço unitário no momento da venda
+     * @param subtotal - quantidade x preço unitário
+     */
+    public record Item(
+            Long produtoId,
+            String produtoNome,
+            Integer quantidade,
+            BigDecimal precoUnitario,
+            BigDecimal subtotal) {
+    }
+}
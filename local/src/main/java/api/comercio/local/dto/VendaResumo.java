@@ -0,0 +1,30 @@
+package api.comercio.local.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * DTO - VendaResumo
+ *
+ * Visão resumida de uma venda: apenas as colunas necessárias para listagens
+ * e relatórios, sem carregar o cliente completo nem os itens.
+ *
+ * É preenchido direto pela consulta (constructor expression do JPQL):
+ *   SELECT new api.comercio.local.dto.VendaResumo(v.id, v.dataVenda, ...) FROM Venda v ...
+ *
+ * Como não é uma entidade, não fica no contexto de persistência do Hibernate,
+ * o que mantém a memória estável mesmo ao percorrer milhares de vendas.
+ *
+ * @param id - ID da venda
+ * @param dataVenda - data e hora da venda
+ * @param valorTotal - valor total da venda
+ * @param clienteId - ID do cliente que realizou a compra
+ * @param clienteNome - nome do cliente que realizou a compra
+ */
+public record VendaResumo(
+        Long id,
+        LocalDateTime dataVenda,
+        BigDecimal valorTotal,
+        Long clienteId,
+        String clienteNome) {
+}
@@ -0,0 +1,31 @@
+package api.comercio.local.dto;
+
+/**
+ * DTO - VersaoColecao
+ *
+ * Resumo de uma tabela inteira usado para montar o ETag das listagens
+ * (GET /api/produtos, GET /api/fornecedores) sem ler nenhuma linha completa.
+ *
+ * É preenchido por uma única consulta de agregação:
+ *   SELECT COUNT(*), SUM(versao), MAX(id) FROM ...
+ *
+ * Qualquer alteração muda pelo menos um dos três valores:
+ *   - UPDATE: a versão do registro aumenta, então a soma aumenta
+ *   - INSERT: o novo ID é maior que todos os anteriores (IDENTITY)
+ *   - DELETE: a quantidade diminui (e um INSERT junto muda o maior ID)
+ * A maior versão sozinha não basta: alterar um registro de versão 3 não
+ * muda o máximo se outro registro já estiver na versão 10.
+ *
+ * @param quantidade - quantidade de registros
+ * @param somaVersoes - soma das versões de todos os registros
+ * @param maiorId - maior ID (0 se a tabela estiver vazia)
+ */
+public record VersaoColecao(Long quantidade, Long somaVersoes, Long maiorId) {
+
+    /**
+     * Valor usado no ETag (ex: "152.4810.160")
+     */
+    public String chave() {
+        return quantidade + "." + somaVersoes + "." + maiorId;
+    }
+}
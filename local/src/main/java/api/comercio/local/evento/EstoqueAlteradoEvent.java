@@ -0,0 +1,17 @@
+package api.comercio.local.evento;
+
+import java.util.Set;
+
+/**
+ * EVENTO - EstoqueAlteradoEvent
+ *
+ * Publicado quando a quantidade em estoque de produtos muda fora do CRUD de
+ * produtos: baixa de estoque de uma venda ou descarga do ledger de estoque.
+ *
+ * Publicado dentro da transação que alterou o estoque; os listeners usam
+ * @TransactionalEventListener para agir somente após o commit.
+ *
+ * @param produtoIds - IDs dos produtos com estoque alterado
+ */
+public record EstoqueAlteradoEvent(Set<Long> produtoIds) {
+}
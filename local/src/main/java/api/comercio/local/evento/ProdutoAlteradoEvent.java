@@ -0,0 +1,24 @@
+package api.comercio.local.evento;
+
+import api.comercio.local.model.Produto;
+
+/**
+ * EVENTO - ProdutoAlteradoEvent
+ *
+ * Publicado quando um produto é cadastrado, alterado ou excluído pela API.
+ * Usado pelas estruturas em memória que dependem do cadastro de produtos
+ * (ex: índice de busca por nome).
+ *
+ * Os listeners usam @TransactionalEventListener(fallbackExecution = true):
+ * se o evento for publicado dentro de uma transação, só agem após o commit;
+ * fora de uma transação, agem na hora.
+ *
+ * @param produtoId - ID do produto
+ * @param produto - dados gravados do produto, ou null se o produto foi excluído
+ */
+public record ProdutoAlteradoEvent(Long produtoId, Produto produto) {
+
+    public boolean excluido() {
+        return produto == null;
+    }
+}
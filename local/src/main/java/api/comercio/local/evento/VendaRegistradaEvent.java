@@ -0,0 +1,35 @@
+package api.comercio.local.evento;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * EVENTO - VendaRegistradaEvent
+ *
+ * Publicado pelo VendaService quando itens são vendidos (venda, lote de vendas
+ * ou item adicionado a uma venda existente), dentro da transação da venda.
+ *
+ * Os listeners usam @TransactionalEventListener para agir somente após o commit.
+ *
+ * @param quantidadesPorProduto - unidades vendidas de cada produto (por ID), somando todas as vendas
+ * @param vendas - unidades de cada venda com a sua data (um lote importado pode ter vendas de dias anteriores)
+ */
+public record VendaRegistradaEvent(Map<Long, Integer> quantidadesPorProduto, List<ItensVenda> vendas) {
+
+    /**
+     * Unidades vendidas de cada produto em uma venda
+     *
+     * @param dataVenda - data da venda (não a do registro)
+     * @param quantidadesPorProduto - unidades vendidas de cada produto (por ID)
+     */
+    public record ItensVenda(LocalDateTime dataVenda, Map<Long, Integer> quantidadesPorProduto) {
+    }
+
+    /**
+     * Evento de uma única venda
+     */
+    public static VendaRegistradaEvent daVenda(LocalDateTime dataVenda, Map<Long, Integer> quantidadesPorProduto) {
+        return new VendaRegistradaEvent(quantidadesPorProduto, List.of(new ItensVenda(dataVenda, quantidadesPorProduto)));
+    }
+}
@@ -0,0 +1,20 @@
+package api.comercio.local.evento;
+
+import api.comercio.local.model.Venda;
+
+import java.util.List;
+
+/**
+ * EVENTO - VendasGravadasEvent
+ *
+ * Publicado pelo VendaService com as vendas novas (venda avulsa ou lote),
+ * dentro da transação que as gravou. As vendas já têm ID, e os itens têm ID e subtotal.
+ *
+ * Os listeners usam @TransactionalEventListener para agir junto do commit
+ * (ex: DiarioVendasService, que acrescenta as vendas ao diário antes do commit
+ * e o desfecho da transação depois dele).
+ *
+ * @param vendas - vendas gravadas
+ */
+public record VendasGravadasEvent(List<Venda> vendas) {
+}
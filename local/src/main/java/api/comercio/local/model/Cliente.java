@@ -1,5 +1,7 @@
 package api.comercio.local.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -28,6 +30,10 @@ import java.util.List;
  *                                     .nome("João")
  *                                     .cpf("123.456.789-00")
  *                                     .build();
+ *
+ * @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"}):
+ *   quando a entidade é referenciada só pelo ID (EntityManager.getReference),
+ *   o Hibernate cria um proxy; estes campos internos do proxy não vão para o JSON
  */
 @Entity
 @Table(name = "clientes")
@@ -36,6 +42,7 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Cliente {
 
     /**
@@ -156,7 +163,13 @@ public class Cliente {
      *   private List<Venda> vendas;
      *
      * IMPORTANTE: inicializar a lista para evitar NullPointerException
+     *
+     * @JsonIgnore: a lista NÃO é enviada no JSON do cliente
+     *   - evita recursão infinita (Cliente -> Venda -> Cliente -> ...)
+     *   - evita carregar todo o histórico de vendas a cada leitura do cliente
+     *   - para o histórico, use GET /api/vendas/cliente/{clienteId}
      */
+    @JsonIgnore
     @OneToMany(mappedBy = "cliente")
     private List<Venda> vendas = new ArrayList<>();
 
@@ -1,5 +1,6 @@
 package api.comercio.local.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -45,10 +46,21 @@ import java.math.BigDecimal;
 public class Estoque {
 
     /**
-     * CHAVE PRIMÁRIA com auto-incremento
+     * CHAVE PRIMÁRIA gerada por SEQUENCE
+     *
+     * strategy = GenerationType.SEQUENCE (ao invés de IDENTITY):
+     *   - com IDENTITY o ID só é conhecido após cada INSERT, o que impede o
+     *     Hibernate de agrupar vários INSERTs em um único lote (JDBC batch)
+     *   - com SEQUENCE o ID é obtido antes do INSERT
+     *
+     * allocationSize = 50 (otimizador "pooled"):
+     *   - cada consulta à sequence reserva 50 IDs de uma vez
+     *   - na importação em lote (POST /api/vendas/lote) são 1 consulta
+     *     à sequence a cada 50 registros, e os INSERTs vão em lotes
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "estoque_seq")
+    @SequenceGenerator(name = "estoque_seq", sequenceName = "estoque_seq", allocationSize = 50)
     private Long id;
 
     /**
@@ -56,7 +68,13 @@ public class Estoque {
      *
      * Vários itens podem pertencer à mesma venda
      * Este lado contém a FK venda_id
+     *
+     * @JsonIgnoreProperties("itens"): no JSON do item, a venda aparece sem a
+     * lista de itens, evitando recursão infinita (Venda -> Item -> Venda -> ...)
+     * allowSetters: só a escrita do JSON ignora a lista; sem isso a leitura de
+     * { "venda": { "id": ... } } em POST/PUT /api/estoque falha (400)
      */
+    @JsonIgnoreProperties(value = {"itens"}, allowSetters = true)
     @ManyToOne
     @JoinColumn(name = "venda_id", nullable = false)
     private Venda venda;
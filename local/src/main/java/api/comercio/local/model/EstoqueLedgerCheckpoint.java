@@ -0,0 +1,48 @@
+package api.comercio.local.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * ENTITY - EstoqueLedgerCheckpoint
+ *
+ * Registra o último segmento do diário do ledger de estoque que já foi
+ * aplicado na tabela produtos (ver service.EstoqueLedger).
+ *
+ * É atualizado na MESMA transação que aplica as baixas do segmento. Assim, se
+ * a aplicação cair depois do commit mas antes de apagar o arquivo do segmento,
+ * a recuperação sabe que ele já foi aplicado e não desconta o estoque duas vezes.
+ *
+ * A tabela tem uma única linha (id = 1).
+ *
+ * Estrutura no banco:
+ *   estoque_ledger_checkpoint (
+ *     id BIGINT PRIMARY KEY,
+ *     ultimo_segmento BIGINT NOT NULL
+ *   )
+ */
+@Entity
+@Table(name = "estoque_ledger_checkpoint")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class EstoqueLedgerCheckpoint {
+
+    /**
+     * ID fixo da única linha da tabela
+     */
+    public static final Long ID_UNICO = 1L;
+
+    /**
+     * CHAVE PRIMÁRIA (sempre 1)
+     */
+    @Id
+    private Long id;
+
+    /**
+     * Número do último segmento do diário aplicado no banco
+     */
+    @Column(nullable = false)
+    private Long ultimoSegmento;
+}
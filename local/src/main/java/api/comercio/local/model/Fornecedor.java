@@ -1,7 +1,9 @@
 package api.comercio.local.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -63,6 +65,19 @@ public class Fornecedor {
      */
     private String email;
 
+    /**
+     * VERSÃO DO REGISTRO (controle de concorrência otimista e ETag)
+     *
+     * @Version: o Hibernate incrementa a cada UPDATE do fornecedor e recusa a
+     *   gravação (OptimisticLockException) se outra alteração chegou antes
+     *
+     * @ColumnDefault("0"): fornecedores já gravados antes desta coluna começam na versão 0
+     */
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long versao;
+
     /**
      * RELACIONAMENTO ONE-TO-ONE (Um Fornecedor tem Um Endereço)
      *
@@ -120,7 +135,12 @@ public class Fornecedor {
      * @Builder.Default:
      *   - inicializa a lista vazia quando usar o Builder
      *   - evita NullPointerException
+     *
+     * @JsonIgnore: a lista NÃO é enviada no JSON do fornecedor
+     *   - evita recursão infinita (Fornecedor -> Produto -> Fornecedor -> ...)
+     *   - para o catálogo, use GET /api/produtos/fornecedor/{fornecedorId}
      */
+    @JsonIgnore
     @OneToMany(mappedBy = "fornecedor")
     @Builder.Default
     private List<Produto> produtos = new ArrayList<>();
@@ -1,7 +1,9 @@
 package api.comercio.local.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.math.BigDecimal;
 
@@ -13,25 +15,91 @@ import java.math.BigDecimal;
  *
  * RELACIONAMENTO:
  * - ManyToOne com Fornecedor: vários produtos podem ser do mesmo fornecedor
+ *
+ * @JsonIgnoreProperties: ao registrar uma venda, o produto de cada item é um
+ *   proxy do Hibernate (só o ID); os campos internos do proxy ficam fora do JSON
  */
+@Entity
+@Table(name = "produtos")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+public class Produto {
+
+    /**
+     * CHAVE PRIMÁRIA auto-incrementada
+     */
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    /**
+     * NOME DO PRODUTO (obrigatório)
+     *
+     * Exemplos: "Notebook Dell", "Mouse Logitech", "Teclado Mecânico"
+     */
     @Column(nullable = false)
     private String nome;
 
+    /**
+     * DESCRIÇÃO DETALHADA (opcional)
+     *
+     * Exemplo: "Mouse sem fio, 1600 DPI, bateria de longa duração"
+     */
     private String descricao;
 
     /**
-     * CHAVE PRIMÁRIA auto-incrementada
+     * PREÇO ATUAL DE VENDA (obrigatório)
+     *
+     * BigDecimal: tipo recomendado para valores monetários
+     * (evita erros de arredondamento do double/float)
+     */
+    @Column(nullable = false)
+    private BigDecimal preco;
+
+    /**
+     * QUANTIDADE DISPONÍVEL EM ESTOQUE (obrigatório)
      */
     @Column(nullable = false)
     private Integer quantidadeEstoque;
 
+    /**
+     * RELACIONAMENTO MANY-TO-ONE (Vários Produtos para Um Fornecedor)
+     *
+     * @ManyToOne: este lado contém a FOREIGN KEY (fornecedor_id) na tabela produtos
+     *
+     * @JoinColumn(name = "fornecedor_id"):
+     *   - define o nome da coluna FK na tabela produtos
+     *   - nullable (padrão): o produto pode ser cadastrado sem fornecedor
+     *
+     * Estrutura no banco:
+     *   produtos (
+     *     id BIGINT PRIMARY KEY,
+     *     fornecedor_id BIGINT,
+     *     FOREIGN KEY (fornecedor_id) REFERENCES fornecedores(id)
+     *   )
+     */
     @ManyToOne
+    @JoinColumn(name = "fornecedor_id")
+    private Fornecedor fornecedor;
+
     /**
-     * NOME DO PRODUTO (obrigatório)
+     * VERSÃO DO REGISTRO (controle de concorrência otimista e ETag)
      *
-     * Exemplos: "Notebook Dell", "Mouse Logitech", "Teclado Mecânico"
+     * @Version: o Hibernate incrementa a cada UPDATE da entidade e inclui
+     *   "WHERE versao = ?" no comando; se outra gravação chegou antes, lança
+     *   OptimisticLockException em vez de sobrescrever os dados
+     *
+     * Os UPDATEs em massa de estoque (ProdutoRepository) incrementam a versão
+     * explicitamente, pois não passam pela entidade.
+     *
+     * @ColumnDefault("0"): produtos já gravados antes desta coluna começam na versão 0
      */
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long versao;
+}
@@ -1,7 +1,10 @@
 package api.comercio.local.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -17,21 +20,46 @@ import java.util.List;
  * RELACIONAMENTOS:
  * - ManyToOne com Cliente: várias vendas podem pertencer a um mesmo cliente
  * - OneToMany com Estoque: uma venda pode ter vários itens
+ *
+ * ÍNDICE:
+ * - idx_vendas_data_venda_id (data_venda, id): atende a listagem paginada por
+ *   cursor e as buscas por período sem varrer a tabela inteira
+ * - uk_vendas_chave_idempotencia: uma única venda por Idempotency-Key
+ *   (ver IdempotenciaVendaService)
+ *
+ * @JsonIgnoreProperties: em POST /api/estoque a venda do item é só uma referência
+ *   (proxy do Hibernate); os campos internos do proxy ficam fora do JSON
  */
 @Entity
-@Table(name = "vendas")
+@Table(name = "vendas", indexes = {
+        @Index(name = "idx_vendas_data_venda_id", columnList = "data_venda, id")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uk_vendas_chave_idempotencia", columnNames = "chave_idempotencia")
+})
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Venda {
 
     /**
-     * CHAVE PRIMÁRIA com auto-incremento
+     * CHAVE PRIMÁRIA gerada por SEQUENCE
+     *
+     * strategy = GenerationType.SEQUENCE (ao invés de IDENTITY):
+     *   - com IDENTITY o ID só é conhecido após cada INSERT, o que impede o
+     *     Hibernate de agrupar vários INSERTs em um único lote (JDBC batch)
+     *   - com SEQUENCE o ID é obtido antes do INSERT
+     *
+     * allocationSize = 50 (otimizador "pooled"):
+     *   - cada consulta à sequence reserva 50 IDs de uma vez
+     *   - na importação em lote (POST /api/vendas/lote) são 1 consulta
+     *     à sequence a cada 50 registros, e os INSERTs vão em lotes
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "vendas_seq")
+    @SequenceGenerator(name = "vendas_seq", sequenceName = "vendas_seq", allocationSize = 50)
     private Long id;
 
     /**
@@ -70,6 +98,19 @@ public class Venda {
     @Column(nullable = false)
     private BigDecimal valorTotal;
 
+    /**
+     * Chave enviada pelo terminal no cabeçalho Idempotency-Key (POST /api/vendas)
+     *
+     * Com a restrição UNIQUE, uma nova tentativa com a mesma chave nunca grava
+     * uma segunda venda, mesmo depois que a chave saiu da memória do servidor.
+     * Vendas sem chave ficam com NULL (o UNIQUE aceita vários NULLs).
+     *
+     * @JsonIgnore: vem só do cabeçalho, não faz parte do JSON da venda
+     */
+    @JsonIgnore
+    @Column(name = "chave_idempotencia", length = 100)
+    private String chaveIdempotencia;
+
     /**
      * RELACIONAMENTO ONE-TO-MANY (Uma Venda tem Vários Itens)
      *
@@ -88,7 +129,12 @@ public class Venda {
      * @Builder.Default:
      *   - inicializa a lista vazia quando usar o Builder do Lombok
      *   - evita NullPointerException
+     *
+     * @BatchSize(size = 50):
+     *   - ao listar várias vendas, os itens são carregados em lotes de até 50 vendas
+     *     (WHERE venda_id IN (?, ?, ...)) ao invés de um SELECT por venda (problema N+1)
      */
+    @BatchSize(size = 50)
     @OneToMany(mappedBy = "venda", cascade = CascadeType.ALL, orphanRemoval = true)
     @Builder.Default
     private List<Estoque> itens = new ArrayList<>();
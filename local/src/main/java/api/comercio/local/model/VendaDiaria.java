@@ -0,0 +1,53 @@
+package api.comercio.local.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * ENTITY - VendaDiaria
+ *
+ * Resumo (rollup) das vendas de um dia: uma linha por dia com vendas.
+ *
+ * Os painéis de faturamento somavam valorTotal de todas as vendas do período
+ * a cada atualização. Com o resumo diário, o faturamento de um ano inteiro é
+ * a soma de no máximo 366 linhas.
+ *
+ * A tabela é mantida pelo ResumoVendaService na MESMA transação que grava,
+ * altera ou exclui vendas e itens: o resumo nunca fica diferente das vendas.
+ */
+@Entity
+@Table(name = "vendas_diarias")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class VendaDiaria {
+
+    /**
+     * CHAVE PRIMÁRIA: o próprio dia (data da venda, sem horário)
+     */
+    @Id
+    private LocalDate dia;
+
+    /**
+     * Quantidade de vendas realizadas no dia
+     */
+    @Column(nullable = false)
+    private Long quantidadeVendas;
+
+    /**
+     * Faturamento do dia (soma do valorTotal das vendas)
+     */
+    @Column(nullable = false)
+    private BigDecimal valorTotal;
+
+    /**
+     * Unidades vendidas no dia (soma da quantidade dos itens)
+     */
+    @Column(nullable = false)
+    private Long itensVendidos;
+}
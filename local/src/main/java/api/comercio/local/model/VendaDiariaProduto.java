@@ -0,0 +1,55 @@
+package api.comercio.local.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * ENTITY - VendaDiariaProduto
+ *
+ * Resumo (rollup) das vendas de cada produto em cada dia.
+ * Mantido junto com VendaDiaria (ver ResumoVendaService).
+ *
+ * CHAVE PRIMÁRIA COMPOSTA (dia, produto_id) com @IdClass
+ *
+ * produtoId é uma coluna simples (sem @ManyToOne): o histórico de vendas
+ * continua no resumo mesmo que o produto seja excluído depois.
+ */
+@Entity
+@Table(name = "vendas_diarias_produto")
+@IdClass(VendaDiariaProduto.Chave.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class VendaDiariaProduto {
+
+    @Id
+    private LocalDate dia;
+
+    @Id
+    @Column(name = "produto_id")
+    private Long produtoId;
+
+    /**
+     * Unidades do produto vendidas no dia
+     */
+    @Column(nullable = false)
+    private Long quantidadeVendida;
+
+    /**
+     * Faturamento do produto no dia (soma de quantidade x preço unitário dos itens)
+     */
+    @Column(nullable = false)
+    private BigDecimal valorTotal;
+
+    /**
+     * Chave primária composta: dia + produto
+     */
+    public record Chave(LocalDate dia, Long produtoId) implements Serializable {
+    }
+}
@@ -1,11 +1,19 @@
 package api.comercio.local.repository;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import api.comercio.local.dto.ClienteResumo;
 import api.comercio.local.model.Cliente;
+import jakarta.persistence.QueryHint;
 
 /**
  * REPOSITORY - Camada de Persistência de Dados
@@ -89,26 +97,45 @@ public interface ClienteRepository extends JpaRepository<Cliente, Long> {
      * @return Optional contendo o Cliente se encontrado, ou Optional.empty() se não existir
      */
     Optional<Cliente> findByCpf(String cpf);
-}
+
+    /**
+     * LISTAGEM RESUMIDA (PROJEÇÃO DTO)
      *
-     * "findByCpf" é traduzido para:
-     * SELECT * FROM clientes WHERE cpf = ?
+     * Ao invés de carregar entidades completas (com endereço e vendas),
+     * seleciona apenas as colunas usadas na listagem:
+     *   SELECT id, nome, cpf, telefone, email FROM clientes ORDER BY nome
      *
-     * Optional<Cliente>: representa um container que pode ou não conter um valor.
-     * É uma boa prática para evitar NullPointerException.
+     * @return lista de clientes resumidos, em ordem alfabética
+     */
+    @Query("""
+            SELECT new api.comercio.local.dto.ClienteResumo(c.id, c.nome, c.cpf, c.telefone, c.email)
+            FROM Cliente c
+            ORDER BY c.nome
+            """)
+    List<ClienteResumo> findAllResumo();
+
+    /**
+     * PERCORRE TODOS OS CPFs CADASTRADOS (STREAMING)
      *
-     * Uso:
-     *   Optional<Cliente> resultado = repository.findByCpf("123.456.789-00");
-     *   if (resultado.isPresent()) {
-     *       Cliente cliente = resultado.get();
-     *   }
+     * Usado para montar o filtro de documentos (DocumentoUnicoService) sem
+     * carregar as entidades: apenas a coluna cpf, em blocos de "fetch size" linhas.
      *
-     * Ou de forma funcional:
-     *   repository.findByCpf("123.456.789-00")
-     *       .ifPresent(cliente -> System.out.println(cliente.getNome()));
+     * IMPORTANTE: deve ser chamado dentro de uma transação e o Stream deve ser fechado
      *
-     * @param cpf - valor do CPF a ser buscado
-     * @return Optional contendo o Cliente se encontrado, ou Optional.empty() se não existir
+     * @return Stream com o CPF de cada cliente (sem valores nulos)
      */
-    Optional<Cliente> findByCpf(String cpf);
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT c.cpf FROM Cliente c WHERE c.cpf IS NOT NULL")
+    Stream<String> streamCpfs();
+
+    /**
+     * BUSCA SOMENTE O CPF DE UM CLIENTE
+     *
+     * Usado antes da exclusão, para retirar o documento do filtro de documentos.
+     *
+     * @param id - ID do cliente
+     * @return CPF do cliente, ou null se não existir (ou não tiver CPF)
+     */
+    @Query("SELECT c.cpf FROM Cliente c WHERE c.id = :id")
+    String findCpfById(@Param("id") Long id);
 }
@@ -0,0 +1,15 @@
+package api.comercio.local.repository;
+
+import api.comercio.local.model.EstoqueLedgerCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * REPOSITORY - EstoqueLedgerCheckpointRepository
+ *
+ * Persistência do checkpoint do ledger de estoque (último segmento do diário
+ * já aplicado na tabela produtos). Os métodos CRUD do JpaRepository bastam.
+ */
+@Repository
+public interface EstoqueLedgerCheckpointRepository extends JpaRepository<EstoqueLedgerCheckpoint, Long> {
+}
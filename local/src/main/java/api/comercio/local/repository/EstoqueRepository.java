@@ -1,10 +1,21 @@
 package api.comercio.local.repository;
 
+import api.comercio.local.dto.ItemVendido;
+import api.comercio.local.dto.QuantidadeVendida;
 import api.comercio.local.model.Estoque;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * REPOSITORY - EstoqueRepository
@@ -73,5 +84,67 @@ public interface EstoqueRepository extends JpaRepository<Estoque, Long> {
      * @return lista de registros de venda deste produto
      */
     List<Estoque> findByProdutoId(Long produtoId);
-}
 
+    /**
+     * PÁGINA DA LISTAGEM POR CURSOR (KEYSET PAGINATION)
+     *
+     * "findByIdGreaterThanOrderByIdAsc" é traduzido para:
+     * SELECT * FROM estoque WHERE id > ? ORDER BY id ASC LIMIT ?
+     *
+     * A busca começa direto na chave primária, então a página N custa o mesmo
+     * que a página 1. Para a primeira página, basta informar id = 0.
+     *
+     * @param id - id do último item já retornado (0 para a primeira página)
+     * @param limite - quantidade máxima de itens (use PageRequest.ofSize(...))
+     * @return itens seguintes em ordem crescente de id
+     */
+    List<Estoque> findByIdGreaterThanOrderByIdAsc(Long id, Pageable limite);
+
+    /**
+     * TOTAL VENDIDO DE CADA PRODUTO
+     *
+     * SELECT produto_id, SUM(quantidade) FROM estoque GROUP BY produto_id
+     *
+     * Usado para ordenar o autocomplete de produtos pelos mais vendidos.
+     *
+     * @return unidades vendidas por produto (apenas produtos com vendas)
+     */
+    @Query("""
+            SELECT new api.comercio.local.dto.QuantidadeVendida(e.produto.id, SUM(e.quantidade))
+            FROM Estoque e
+            GROUP BY e.produto.id
+            """)
+    List<QuantidadeVendida> somarQuantidadesVendidas();
+
+    /**
+     * PERCORRE OS ITENS VENDIDOS A PARTIR DE UMA DATA (STREAMING)
+     *
+     * Usado para preencher o ranking de mais vendidos na inicialização.
+     *
+     * IMPORTANTE: deve ser chamado dentro de uma transação e o Stream deve ser fechado
+     *
+     * @param inicio - data/hora inicial (inclusiva)
+     * @return Stream com produto, quantidade e data da venda de cada item
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("""
+            SELECT new api.comercio.local.dto.ItemVendido(e.produto.id, e.quantidade, v.dataVenda)
+            FROM Estoque e JOIN e.venda v
+            WHERE v.dataVenda >= :inicio
+            """)
+    Stream<ItemVendido> streamItensVendidosDesde(@Param("inicio") LocalDateTime inicio);
+
+    /**
+     * FILTRA OS IDS DE ITENS QUE EXISTEM NO BANCO
+     *
+     * SELECT id FROM estoque WHERE id IN (...)
+     *
+     * Usado na recuperação do ledger de estoque: uma baixa do diário só é
+     * aplicada se o seu item existe (a venda chegou ao commit).
+     *
+     * @param ids - IDs a conferir
+     * @return os IDs da lista que existem na tabela estoque
+     */
+    @Query("SELECT e.id FROM Estoque e WHERE e.id IN :ids")
+    List<Long> findIdsExistentes(@Param("ids") Collection<Long> ids);
+}
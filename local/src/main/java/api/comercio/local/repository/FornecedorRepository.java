@@ -1,10 +1,21 @@
 package api.comercio.local.repository;
 
+import api.comercio.local.dto.FornecedorResumo;
+import api.comercio.local.dto.VersaoColecao;
 import api.comercio.local.model.Fornecedor;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * REPOSITORY - FornecedorRepository
@@ -70,5 +81,89 @@ public interface FornecedorRepository extends JpaRepository<Fornecedor, Long> {
      * @return Optional contendo o Fornecedor se encontrado, ou Optional.empty()
      */
     Optional<Fornecedor> findByCnpj(String cnpj);
-}
 
+    /**
+     * LISTAGEM RESUMIDA (PROJEÇÃO DTO)
+     *
+     * Seleciona apenas as colunas usadas na listagem, sem carregar
+     * o endereço nem a lista de produtos de cada fornecedor.
+     *
+     * @return lista de fornecedores resumidos, em ordem alfabética
+     */
+    @Query("""
+            SELECT new api.comercio.local.dto.FornecedorResumo(f.id, f.nome, f.cnpj, f.telefone, f.email)
+            FROM Fornecedor f
+            ORDER BY f.nome
+            """)
+    List<FornecedorResumo> findAllResumo();
+
+    /**
+     * PERCORRE TODOS OS CNPJs CADASTRADOS (STREAMING)
+     *
+     * Usado para montar o filtro de documentos (DocumentoUnicoService) sem
+     * carregar as entidades: apenas a coluna cnpj, em blocos de "fetch size" linhas.
+     *
+     * IMPORTANTE: deve ser chamado dentro de uma transação e o Stream deve ser fechado
+     *
+     * @return Stream com o CNPJ de cada fornecedor (sem valores nulos)
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT f.cnpj FROM Fornecedor f WHERE f.cnpj IS NOT NULL")
+    Stream<String> streamCnpjs();
+
+    /**
+     * BUSCA SOMENTE O CNPJ DE UM FORNECEDOR
+     *
+     * Usado antes da exclusão, para retirar o documento do filtro de documentos.
+     *
+     * @param id - ID do fornecedor
+     * @return CNPJ do fornecedor, ou null se não existir (ou não tiver CNPJ)
+     */
+    @Query("SELECT f.cnpj FROM Fornecedor f WHERE f.id = :id")
+    String findCnpjById(@Param("id") Long id);
+
+    /**
+     * VERSÃO DA TABELA DE FORNECEDORES (ETAG DAS LISTAGENS)
+     *
+     * SELECT COUNT(*), SUM(versao), MAX(id) FROM fornecedores
+     *
+     * Também entra no ETag de GET /api/produtos, que mostra o nome do fornecedor.
+     *
+     * @return quantidade, soma das versões e maior ID dos fornecedores
+     */
+    @Query("""
+            SELECT new api.comercio.local.dto.VersaoColecao(COUNT(f), COALESCE(SUM(f.versao), 0L), COALESCE(MAX(f.id), 0L))
+            FROM Fornecedor f
+            """)
+    VersaoColecao findVersaoColecao();
+
+    /**
+     * BUSCA SOMENTE A VERSÃO DE UM FORNECEDOR
+     *
+     * SELECT versao FROM fornecedores WHERE id = ?
+     *
+     * Usado no GET /api/fornecedores/{id} com If-None-Match: se o ETag
+     * não mudou, a resposta 304 sai sem carregar o fornecedor e o endereço.
+     *
+     * @param id - ID do fornecedor
+     * @return Optional com a versão, ou Optional.empty() se o fornecedor não existir
+     */
+    @Query("SELECT f.versao FROM Fornecedor f WHERE f.id = :id")
+    Optional<Long> findVersaoById(@Param("id") Long id);
+
+    /**
+     * INCREMENTA A VERSÃO DE UM FORNECEDOR
+     *
+     * UPDATE fornecedores SET versao = versao + 1 WHERE id = ?
+     *
+     * O endereço não tem versão própria: se o PUT altera só o endereço, o
+     * Hibernate não incrementa a versão do fornecedor e o ETag não mudaria.
+     *
+     * @param id - ID do fornecedor
+     * @return número de linhas alteradas
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Fornecedor f SET f.versao = f.versao + 1 WHERE f.id = :id")
+    int incrementarVersao(@Param("id") Long id);
+}
@@ -1,10 +1,23 @@
 package api.comercio.local.repository;
 
+import api.comercio.local.dto.EstoqueProduto;
+import api.comercio.local.dto.ProdutoResumo;
+import api.comercio.local.dto.ProdutoTexto;
+import api.comercio.local.dto.VersaoColecao;
 import api.comercio.local.model.Produto;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * REPOSITORY - ProdutoRepository
@@ -14,10 +27,21 @@ import java.util.List;
  *
  * MÉTODOS CUSTOMIZADOS:
  * Define métodos de busca específicos usando Query Methods do Spring Data JPA
+ *
+ * CACHE:
+ * As consultas por ID e por fornecedor da API passam pelo cache em memória
+ * (Caffeine) do ProdutoCacheService, que guarda cópias imutáveis
+ * (ProdutoDetalhe) e não as entidades devolvidas aqui.
  */
 @Repository
 public interface ProdutoRepository extends JpaRepository<Produto, Long> {
-    
+
+    /**
+     * Nomes dos caches (configurados em spring.cache.cache-names)
+     */
+    String CACHE_PRODUTOS = "produtos";
+    String CACHE_PRODUTOS_POR_FORNECEDOR = "produtosPorFornecedor";
+
     /**
      * BUSCA POR NOME (case-insensitive, busca parcial)
      *
@@ -97,42 +121,190 @@ public interface ProdutoRepository extends JpaRepository<Produto, Long> {
      * @return lista de produtos com estoque abaixo do limite
      */
     List<Produto> findByQuantidadeEstoqueLessThan(Integer quantidade);
-}
+
+    /**
+     * LISTAGEM RESUMIDA (PROJEÇÃO DTO)
      *
-     * Spring Data JPA navega automaticamente pelo relacionamento:
-     *   Produto.fornecedor.id
+     * Seleciona apenas as colunas usadas na listagem. O fornecedor entra por
+     * LEFT JOIN só com ID e nome (sem endereço, sem lista de produtos).
      *
-     * @param fornecedorId - ID do fornecedor
-     * @return lista de produtos fornecidos por este fornecedor
+     * @return lista de produtos resumidos, em ordem alfabética
      */
-    List<Produto> findByFornecedorId(Long fornecedorId);
-    
+    @Query("""
+            SELECT new api.comercio.local.dto.ProdutoResumo(p.id, p.nome, p.preco, p.quantidadeEstoque, f.id, f.nome)
+            FROM Produto p LEFT JOIN p.fornecedor f
+            ORDER BY p.nome
+            """)
+    List<ProdutoResumo> findAllResumo();
+
     /**
-     * BUSCA PRODUTOS COM ESTOQUE BAIXO
+     * BUSCA RESUMIDA POR NOME (case-insensitive, busca parcial)
      *
-     * "findByQuantidadeEstoqueLessThan" é traduzido para:
-     * SELECT * FROM produtos WHERE quantidade_estoque < ?
+     * Mesmo critério de findByNomeContainingIgnoreCase, mas retornando
+     * a projeção ProdutoResumo ao invés da entidade completa.
      *
-     * Padrão:
-     *   - findBy: indica busca
-     *   - QuantidadeEstoque: propriedade da entidade
-     *   - LessThan: operador de comparação (<)
+     * @param nome - termo de busca (pode ser parcial)
+     * @return lista de produtos resumidos cujo nome contém o termo buscado
+     */
+    @Query("""
+            SELECT new api.comercio.local.dto.ProdutoResumo(p.id, p.nome, p.preco, p.quantidadeEstoque, f.id, f.nome)
+            FROM Produto p LEFT JOIN p.fornecedor f
+            WHERE LOWER(p.nome) LIKE LOWER(CONCAT('%', :nome, '%'))
+            ORDER BY p.nome
+            """)
+    List<ProdutoResumo> findResumoByNome(@Param("nome") String nome);
+
+    /**
+     * BUSCA RESUMIDA POR UMA LISTA DE IDs
      *
-     * Outros operadores disponíveis:
-     *   - GreaterThan: maior que (>)
-     *   - LessThanEqual: menor ou igual (<=)
-     *   - GreaterThanEqual: maior ou igual (>=)
-     *   - Between: entre dois valores
+     * SELECT ... FROM produtos WHERE id IN (?, ?, ...)
      *
-     * Útil para alertas de reposição de estoque.
+     * Usado pela busca indexada (BuscaProdutoService): o índice decide quais
+     * produtos entram no resultado e em que ordem; o banco só devolve preço
+     * e estoque atualizados, buscando pela chave primária.
      *
-     * Exemplo de uso:
-     *   repository.findByQuantidadeEstoqueLessThan(10)
-     *   Retorna produtos com menos de 10 unidades em estoque
+     * @param ids - IDs dos produtos
+     * @return produtos resumidos encontrados (sem ordem definida)
+     */
+    @Query("""
+            SELECT new api.comercio.local.dto.ProdutoResumo(p.id, p.nome, p.preco, p.quantidadeEstoque, f.id, f.nome)
+            FROM Produto p LEFT JOIN p.fornecedor f
+            WHERE p.id IN :ids
+            """)
+    List<ProdutoResumo> findResumoByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * PERCORRE NOME E DESCRIÇÃO DE TODOS OS PRODUTOS (STREAMING)
      *
-     * @param quantidade - limite de estoque
-     * @return lista de produtos com estoque abaixo do limite
+     * Usado para montar o índice de busca na inicialização.
+     *
+     * IMPORTANTE: deve ser chamado dentro de uma transação e o Stream deve ser fechado
+     *
+     * @return Stream com ID, nome e descrição de cada produto
      */
-    List<Produto> findByQuantidadeEstoqueLessThan(Integer quantidade);
-}
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new api.comercio.local.dto.ProdutoTexto(p.id, p.nome, p.descricao) FROM Produto p")
+    Stream<ProdutoTexto> streamTextos();
 
+    /**
+     * PERCORRE A QUANTIDADE EM ESTOQUE DE TODOS OS PRODUTOS (STREAMING)
+     *
+     * Usado para montar o índice de estoque baixo na inicialização.
+     *
+     * IMPORTANTE: deve ser chamado dentro de uma transação e o Stream deve ser fechado
+     *
+     * @return Stream com ID, nome e quantidade em estoque de cada produto
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new api.comercio.local.dto.EstoqueProduto(p.id, p.nome, p.quantidadeEstoque, p.versao) FROM Produto p")
+    Stream<EstoqueProduto> streamEstoques();
+
+    /**
+     * QUANTIDADE EM ESTOQUE DE VÁRIOS PRODUTOS PELA CHAVE PRIMÁRIA
+     *
+     * Usado para atualizar o índice de estoque baixo depois de uma venda.
+     *
+     * @param ids - IDs dos produtos
+     * @return ID, nome, quantidade em estoque e versão dos produtos encontrados (sem ordem definida)
+     */
+    @Query("SELECT new api.comercio.local.dto.EstoqueProduto(p.id, p.nome, p.quantidadeEstoque, p.versao) FROM Produto p WHERE p.id IN :ids")
+    List<EstoqueProduto> findEstoqueByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * VERSÃO DA TABELA DE PRODUTOS (ETAG DA LISTAGEM)
+     *
+     * SELECT COUNT(*), SUM(versao), MAX(id) FROM produtos
+     *
+     * Uma única linha de agregação: nenhum produto é carregado.
+     * Ver VersaoColecao para o motivo dos três valores.
+     *
+     * @return quantidade, soma das versões e maior ID dos produtos
+     */
+    @Query("""
+            SELECT new api.comercio.local.dto.VersaoColecao(COUNT(p), COALESCE(SUM(p.versao), 0L), COALESCE(MAX(p.id), 0L))
+            FROM Produto p
+            """)
+    VersaoColecao findVersaoColecao();
+
+    /**
+     * BUSCA SOMENTE A VERSÃO DE UM PRODUTO
+     *
+     * Usado pelo PUT quando o cliente não envia a versão: a gravação parte
+     * da versão atual (a última gravação prevalece, como antes do @Version).
+     *
+     * @param id - ID do produto
+     * @return Optional com a versão, ou Optional.empty() se o produto não existir
+     */
+    @Query("SELECT p.versao FROM Produto p WHERE p.id = :id")
+    Optional<Long> findVersaoById(@Param("id") Long id);
+
+    /**
+     * BAIXA DE ESTOQUE ATÔMICA (UPDATE CONDICIONAL)
+     *
+     * Executa um único comando no banco:
+     *   UPDATE produtos SET quantidade_estoque = quantidade_estoque - ?
+     *   WHERE id = ? AND quantidade_estoque >= ?
+     *
+     * Por que não buscar o produto, subtrair e salvar (findById + save)?
+     *   - entre a leitura e a gravação, outra venda pode alterar o estoque
+     *     e uma das baixas se perde (lost update)
+     *   - a linha fica bloqueada desde a leitura até o commit
+     *
+     * Com o UPDATE condicional, o banco subtrai e valida na mesma operação:
+     *   - retorna 1 se a baixa foi feita
+     *   - retorna 0 se não há estoque suficiente (ou o produto não existe)
+     *
+     * O UPDATE em massa não passa pela entidade, então a versão (@Version) é
+     * incrementada aqui: o estoque aparece no JSON e o ETag precisa mudar.
+     *
+     * @Modifying: indica que a consulta altera dados (UPDATE/DELETE)
+     * Deve ser chamado dentro de uma transação (@Transactional).
+     *
+     * @param id - ID do produto
+     * @param quantidade - quantidade a ser baixada (maior que zero)
+     * @return número de linhas alteradas (1 = sucesso, 0 = estoque insuficiente)
+     */
+    @Modifying
+    @Query("""
+            UPDATE Produto p
+            SET p.quantidadeEstoque = p.quantidadeEstoque - :quantidade, p.versao = p.versao + 1
+            WHERE p.id = :id AND p.quantidadeEstoque >= :quantidade
+            """)
+    int baixarEstoque(@Param("id") Long id, @Param("quantidade") int quantidade);
+
+    /**
+     * BUSCA SOMENTE A QUANTIDADE EM ESTOQUE DE UM PRODUTO
+     *
+     * SELECT quantidade_estoque FROM produtos WHERE id = ?
+     *
+     * Usado pelo ledger de estoque em memória para carregar o saldo inicial
+     * de um produto sem carregar a entidade inteira.
+     *
+     * @param id - ID do produto
+     * @return Optional com a quantidade em estoque, ou Optional.empty() se o produto não existir
+     */
+    @Query("SELECT p.quantidadeEstoque FROM Produto p WHERE p.id = :id")
+    Optional<Integer> findQuantidadeEstoqueById(@Param("id") Long id);
+
+    /**
+     * APLICA UM MOVIMENTO DE ESTOQUE JÁ VALIDADO
+     *
+     * UPDATE produtos SET quantidade_estoque = quantidade_estoque - ? WHERE id = ?
+     *
+     * Diferente de baixarEstoque, não verifica se há saldo: é usado pelo ledger
+     * de estoque em memória, que já validou cada reserva antes de aceitá-la e
+     * aqui apenas grava no banco a soma das baixas de um intervalo.
+     * Assim como em baixarEstoque, a versão do produto é incrementada.
+     *
+     * @param id - ID do produto
+     * @param quantidade - total a subtrair (negativo para devolver ao estoque)
+     * @return número de linhas alteradas (0 se o produto não existir mais)
+     */
+    @Modifying
+    @Query("""
+            UPDATE Produto p
+            SET p.quantidadeEstoque = p.quantidadeEstoque - :quantidade, p.versao = p.versao + 1
+            WHERE p.id = :id
+            """)
+    int aplicarMovimentoEstoque(@Param("id") Long id, @Param("quantidade") int quantidade);
+}
@@ -0,0 +1,83 @@
+package api.comercio.local.repository;
+
+import api.comercio.local.dto.ResumoVendasProduto;
+import api.comercio.local.model.VendaDiariaProduto;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * REPOSITORY - VendaDiariaProdutoRepository
+ *
+ * Persistência do resumo diário de vendas por produto (VendaDiariaProduto).
+ */
+@Repository
+public interface VendaDiariaProdutoRepository extends JpaRepository<VendaDiariaProduto, VendaDiariaProduto.Chave> {
+
+    /**
+     * TOTAIS POR PRODUTO EM UM PERÍODO
+     *
+     * LEFT JOIN com Produto apenas para trazer o nome (produtos excluídos
+     * continuam no resultado, com nome null).
+     *
+     * @param inicio - primeiro dia (inclusivo)
+     * @param fim - último dia (inclusivo)
+     * @param limite - quantidade máxima de produtos (use PageRequest.ofSize(...))
+     * @return produtos em ordem decrescente de faturamento
+     */
+    @Query("""
+            SELECT new api.comercio.local.dto.ResumoVendasProduto(
+                r.produtoId, p.nome, SUM(r.quantidadeVendida), SUM(r.valorTotal))
+            FROM VendaDiariaProduto r LEFT JOIN Produto p ON p.id = r.produtoId
+            WHERE r.dia BETWEEN :inicio AND :fim
+            GROUP BY r.produtoId, p.nome
+            ORDER BY SUM(r.valorTotal) DESC, r.produtoId
+            """)
+    List<ResumoVendasProduto> resumirPorProduto(@Param("inicio") LocalDate inicio,
+                                                @Param("fim") LocalDate fim,
+                                                Pageable limite);
+
+    /**
+     * SOMA UMA CONTRIBUIÇÃO AO RESUMO DE UM PRODUTO EM UM DIA (UPSERT)
+     *
+     * Mesmo MERGE de VendaDiariaRepository.acumular, com chave (dia, produto_id).
+     */
+    @Modifying
+    @Query(value = """
+            MERGE INTO vendas_diarias_produto r
+            USING (VALUES (CAST(:dia AS DATE), CAST(:produtoId AS BIGINT),
+                           CAST(:quantidade AS BIGINT), CAST(:valor AS NUMERIC(38, 2))))
+                  AS n(dia, produto_id, quantidade, valor)
+            ON r.dia = n.dia AND r.produto_id = n.produto_id
+            WHEN MATCHED THEN UPDATE SET
+                quantidade_vendida = r.quantidade_vendida + n.quantidade,
+                valor_total = r.valor_total + n.valor
+            WHEN NOT MATCHED THEN INSERT (dia, produto_id, quantidade_vendida, valor_total)
+                VALUES (n.dia, n.produto_id, n.quantidade, n.valor)
+            """, nativeQuery = true)
+    int acumular(@Param("dia") LocalDate dia,
+                 @Param("produtoId") Long produtoId,
+                 @Param("quantidade") long quantidade,
+                 @Param("valor") BigDecimal valor);
+
+    /**
+     * RECONSTRÓI O RESUMO POR PRODUTO A PARTIR DOS ITENS DE VENDA
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO vendas_diarias_produto (dia, produto_id, quantidade_vendida, valor_total)
+            SELECT CAST(v.data_venda AS DATE), e.produto_id,
+                   SUM(e.quantidade), SUM(e.quantidade * e.preco_unitario)
+            FROM estoque e
+            JOIN vendas v ON v.id = e.venda_id
+            GROUP BY CAST(v.data_venda AS DATE), e.produto_id
+            """, nativeQuery = true)
+    int reconstruir();
+}
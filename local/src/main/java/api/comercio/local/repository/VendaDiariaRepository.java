@@ -0,0 +1,96 @@
+package api.comercio.local.repository;
+
+import api.comercio.local.dto.ResumoVendasMes;
+import api.comercio.local.model.VendaDiaria;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * REPOSITORY - VendaDiariaRepository
+ *
+ * Persistência do resumo diário de vendas (VendaDiaria).
+ */
+@Repository
+public interface VendaDiariaRepository extends JpaRepository<VendaDiaria, LocalDate> {
+
+    /**
+     * RESUMO DIÁRIO DE UM PERÍODO
+     *
+     * @param inicio - primeiro dia (inclusivo)
+     * @param fim - último dia (inclusivo)
+     * @return uma linha por dia com vendas, em ordem de data
+     */
+    List<VendaDiaria> findByDiaBetweenOrderByDia(LocalDate inicio, LocalDate fim);
+
+    /**
+     * RESUMO MENSAL DE UM PERÍODO
+     *
+     * Soma as linhas diárias de cada mês (no máximo 366 linhas por ano).
+     *
+     * @param inicio - primeiro dia (inclusivo)
+     * @param fim - último dia (inclusivo)
+     * @return uma linha por mês com vendas, em ordem de data
+     */
+    @Query("""
+            SELECT new api.comercio.local.dto.ResumoVendasMes(
+                YEAR(d.dia), MONTH(d.dia), SUM(d.quantidadeVendas), SUM(d.valorTotal), SUM(d.itensVendidos))
+            FROM VendaDiaria d
+            WHERE d.dia BETWEEN :inicio AND :fim
+            GROUP BY YEAR(d.dia), MONTH(d.dia)
+            ORDER BY YEAR(d.dia), MONTH(d.dia)
+            """)
+    List<ResumoVendasMes> resumirPorMes(@Param("inicio") LocalDate inicio, @Param("fim") LocalDate fim);
+
+    /**
+     * SOMA UMA CONTRIBUIÇÃO AO RESUMO DE UM DIA (UPSERT)
+     *
+     * MERGE ... USING: em um único comando, cria a linha do dia se ela não
+     * existir ou soma os valores à linha existente. Valores negativos
+     * desfazem a contribuição de vendas alteradas ou excluídas.
+     *
+     * @Modifying: deve ser chamado dentro da transação que gravou a venda
+     */
+    @Modifying
+    @Query(value = """
+            MERGE INTO vendas_diarias d
+            USING (VALUES (CAST(:dia AS DATE), CAST(:vendas AS BIGINT),
+                           CAST(:valor AS NUMERIC(38, 2)), CAST(:itens AS BIGINT)))
+                  AS n(dia, vendas, valor, itens)
+            ON d.dia = n.dia
+            WHEN MATCHED THEN UPDATE SET
+                quantidade_vendas = d.quantidade_vendas + n.vendas,
+                valor_total = d.valor_total + n.valor,
+                itens_vendidos = d.itens_vendidos + n.itens
+            WHEN NOT MATCHED THEN INSERT (dia, quantidade_vendas, valor_total, itens_vendidos)
+                VALUES (n.dia, n.vendas, n.valor, n.itens)
+            """, nativeQuery = true)
+    int acumular(@Param("dia") LocalDate dia,
+                 @Param("vendas") long vendas,
+                 @Param("valor") BigDecimal valor,
+                 @Param("itens") long itens);
+
+    /**
+     * RECONSTRÓI O RESUMO DIÁRIO A PARTIR DAS VENDAS
+     *
+     * Os itens são somados por venda antes do JOIN, para que o valor de cada
+     * venda não seja contado uma vez por item.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO vendas_diarias (dia, quantidade_vendas, valor_total, itens_vendidos)
+            SELECT CAST(v.data_venda AS DATE), COUNT(*),
+                   COALESCE(SUM(v.valor_total), 0), COALESCE(SUM(i.itens), 0)
+            FROM vendas v
+            LEFT JOIN (SELECT venda_id, SUM(quantidade) AS itens FROM estoque GROUP BY venda_id) i
+                   ON i.venda_id = v.id
+            GROUP BY CAST(v.data_venda AS DATE)
+            """, nativeQuery = true)
+    int reconstruir();
+}
@@ -1,11 +1,22 @@
 package api.comercio.local.repository;
 
+import api.comercio.local.dto.ItemExportacao;
+import api.comercio.local.dto.VendaResumo;
 import api.comercio.local.model.Venda;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * REPOSITORY - VendaRepository
@@ -29,9 +40,13 @@ public interface VendaRepository extends JpaRepository<Venda, Long> {
      *   - Relatório de vendas por cliente
      *   - Análise de comportamento de compra
      *
+     * @EntityGraph: o cliente (e seu endereço) vem no mesmo SELECT das vendas;
+     * os itens são carregados depois em lotes (@BatchSize em Venda.itens)
+     *
      * @param clienteId - ID do cliente
      * @return lista de vendas realizadas por este cliente
      */
+    @EntityGraph(attributePaths = {"cliente", "cliente.endereco"})
     List<Venda> findByClienteId(Long clienteId);
     
     /**
@@ -60,26 +75,172 @@ public interface VendaRepository extends JpaRepository<Venda, Long> {
      *   List<Venda> vendas = repository.findByDataVendaBetween(inicio, fim);
      *   // Retorna todas as vendas de novembro/2024
      *
+     * @EntityGraph: o cliente (e seu endereço) vem no mesmo SELECT das vendas;
+     * os itens são carregados depois em lotes (@BatchSize em Venda.itens)
+     *
      * @param inicio - data/hora inicial do período (inclusivo)
      * @param fim - data/hora final do período (inclusivo)
      * @return lista de vendas realizadas no período especificado
      */
+    @EntityGraph(attributePaths = {"cliente", "cliente.endereco"})
     List<Venda> findByDataVendaBetween(LocalDateTime inicio, LocalDateTime fim);
-}
-     *   - Análise de vendas por período
-     *   - Fechamento de caixa
-     *   - Relatórios gerenciais
+
+    /**
+     * BUSCA O DETALHE COMPLETO DE UMA VENDA EM UMA ÚNICA CONSULTA
+     *
+     * Sem um plano de busca, ler uma venda gera vários SELECTs:
+     *   1 para a venda + 1 para o cliente + 1 para o endereço do cliente
+     *   + 1 para os itens + 1 por produto + 1 por fornecedor + 1 por endereço de fornecedor
+     *
+     * JOIN FETCH: traz os relacionamentos no mesmo SELECT da venda
+     *   - cliente e seu endereço
+     *   - itens, o produto de cada item, o fornecedor do produto e seu endereço
+     *
+     * LEFT JOIN FETCH: mantém a venda no resultado mesmo sem itens/fornecedor/endereço
+     *
+     * Útil para:
+     *   - Tela de detalhe da venda
+     *   - Emissão de nota fiscal / comprovante
+     *
+     * @param id - ID da venda
+     * @return Optional com a venda e todo o seu grafo carregado, ou Optional.empty()
+     */
+    @Query("""
+            SELECT v FROM Venda v
+            JOIN FETCH v.cliente c
+            LEFT JOIN FETCH c.endereco
+            LEFT JOIN FETCH v.itens i
+            LEFT JOIN FETCH i.produto p
+            LEFT JOIN FETCH p.fornecedor f
+            LEFT JOIN FETCH f.endereco
+            WHERE v.id = :id
+            """)
+    Optional<Venda> findDetalheById(@Param("id") Long id);
+
+    /**
+     * Busca a venda gravada com uma Idempotency-Key, com o mesmo grafo de findDetalheById
+     *
+     * Usado só quando a chave já saiu da memória (IdempotenciaVendaService) e o
+     * INSERT da nova tentativa foi recusado pela restrição UNIQUE.
+     *
+     * @param chave - valor do cabeçalho Idempotency-Key
+     * @return Optional com a venda, ou Optional.empty() se nenhuma venda usou a chave
+     */
+    @Query("""
+            SELECT v FROM Venda v
+            JOIN FETCH v.cliente c
+            LEFT JOIN FETCH c.endereco
+            LEFT JOIN FETCH v.itens i
+            LEFT JOIN FETCH i.produto p
+            LEFT JOIN FETCH p.fornecedor f
+            LEFT JOIN FETCH f.endereco
+            WHERE v.chaveIdempotencia = :chave
+            """)
+    Optional<Venda> findDetalheByChaveIdempotencia(@Param("chave") String chave);
+
+    /**
+     * PRIMEIRA PÁGINA DA LISTAGEM POR CURSOR (KEYSET PAGINATION)
+     *
+     * Ordena pela chave composta (dataVenda, id): a data define a ordem de negócio
+     * e o id desempata vendas registradas no mesmo instante.
+     *
+     * O Pageable é usado apenas para limitar o número de linhas (LIMIT),
+     * sempre com PageRequest.ofSize(...) - nunca com número de página/OFFSET.
+     *
+     * @param limite - quantidade máxima de vendas retornadas
+     * @return primeiras vendas (resumidas) na ordem (dataVenda, id)
+     */
+    @Query("""
+            SELECT new api.comercio.local.dto.VendaResumo(v.id, v.dataVenda, v.valorTotal, c.id, c.nome)
+            FROM Venda v JOIN v.cliente c
+            ORDER BY v.dataVenda, v.id
+            """)
+    List<VendaResumo> findPrimeiraPagina(Pageable limite);
+
+    /**
+     * PRÓXIMA PÁGINA DA LISTAGEM POR CURSOR
+     *
+     * Continua a partir da chave (dataVenda, id) da última venda da página anterior:
+     *   WHERE (data_venda, id) > (:dataVenda, :id)
+     *
+     * A condição "dataVenda >= :dataVenda" permite que o banco comece a leitura
+     * direto no índice idx_vendas_data_venda_id, sem percorrer as páginas anteriores.
+     * Por isso a página N custa o mesmo que a página 1, ao contrário do OFFSET.
+     *
+     * @param dataVenda - dataVenda da última venda já retornada
+     * @param id - id da última venda já retornada
+     * @param limite - quantidade máxima de vendas retornadas
+     * @return vendas seguintes (resumidas) na ordem (dataVenda, id)
+     */
+    @Query("""
+            SELECT new api.comercio.local.dto.VendaResumo(v.id, v.dataVenda, v.valorTotal, c.id, c.nome)
+            FROM Venda v JOIN v.cliente c
+            WHERE v.dataVenda >= :dataVenda
+              AND (v.dataVenda > :dataVenda OR v.id > :id)
+            ORDER BY v.dataVenda, v.id
+            """)
+    List<VendaResumo> findPaginaApos(@Param("dataVenda") LocalDateTime dataVenda,
+                                     @Param("id") Long id,
+                                     Pageable limite);
+
+    /**
+     * PERCORRE AS VENDAS DE UM PERÍODO, COM OS ITENS, SOB DEMANDA (STREAMING)
+     *
+     * Diferente de findByDataVendaBetween (que monta uma List com todas as vendas),
+     * o Stream entrega as linhas conforme são lidas do ResultSet, em blocos de
+     * "fetch size" linhas. Assim um relatório anual não precisa do ano inteiro na memória.
+     *
+     * Cada linha é um item (venda JOIN itens JOIN produto), com os dados da venda
+     * repetidos; os itens de uma venda vêm em linhas seguidas (ORDER BY venda, item).
+     * Vendas sem itens aparecem uma vez, com os campos do item null (LEFT JOIN).
+     *
+     * Retorna ItemExportacao (e não a entidade Venda) para que as linhas lidas
+     * não se acumulem no contexto de persistência do Hibernate.
+     *
+     * IMPORTANTE:
+     *   - deve ser chamado dentro de uma transação (@Transactional)
+     *   - o Stream deve ser fechado após o uso (try-with-resources)
      *
      * Exemplo de uso:
-     *   LocalDateTime inicio = LocalDateTime.of(2024, 1, 1, 0, 0);
-     *   LocalDateTime fim = LocalDateTime.of(2024, 1, 31, 23, 59);
-     *   repository.findByDataVendaBetween(inicio, fim)
-     *   Retorna todas as vendas de janeiro de 2024
+     *   try (Stream<ItemExportacao> itens = repository.streamItensPorPeriodo(inicio, fim)) {
+     *       itens.forEach(item -> escrever(item));
+     *   }
      *
      * @param inicio - data/hora inicial do período (inclusivo)
      * @param fim - data/hora final do período (inclusivo)
-     * @return lista de vendas realizadas no período especificado
+     * @return Stream de itens do período, em ordem de (dataVenda, id da venda, id do item)
      */
-    List<Venda> findByDataVendaBetween(LocalDateTime inicio, LocalDateTime fim);
-}
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            SELECT new api.comercio.local.dto.ItemExportacao(
+                       v.id, v.dataVenda, v.valorTotal, c.id, c.nome,
+                       p.id, p.nome, e.quantidade, e.precoUnitario, e.subtotal)
+            FROM Venda v JOIN v.cliente c
+                 LEFT JOIN v.itens e
+                 LEFT JOIN e.produto p
+            WHERE v.dataVenda BETWEEN :inicio AND :fim
+            ORDER BY v.dataVenda, v.id, e.id
+            """)
+    Stream<ItemExportacao> streamItensPorPeriodo(@Param("inicio") LocalDateTime inicio,
+                                                 @Param("fim") LocalDateTime fim);
 
+    /**
+     * HISTÓRICO RESUMIDO DE UM CLIENTE (PROJEÇÃO DTO)
+     *
+     * Seleciona apenas as colunas da venda usadas no histórico, sem carregar
+     * os itens, produtos ou o endereço do cliente. Vendas mais recentes primeiro.
+     *
+     * @param clienteId - ID do cliente
+     * @return lista de vendas resumidas deste cliente
+     */
+    @Query("""
+            SELECT new api.comercio.local.dto.VendaResumo(v.id, v.dataVenda, v.valorTotal, c.id, c.nome)
+            FROM Venda v JOIN v.cliente c
+            WHERE c.id = :clienteId
+            ORDER BY v.dataVenda DESC, v.id DESC
+            """)
+    List<VendaResumo> findResumoByClienteId(@Param("clienteId") Long clienteId);
+}
@@ -0,0 +1,190 @@
+package api.comercio.local.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
+import org.springframework.dao.DataAccessException;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * UPDATE PARCIAL A PARTIR DE UM JSON MERGE PATCH (RFC 7396)
+ *
+ * Monta um único UPDATE (CriteriaUpdate) com apenas os campos presentes no patch:
+ *   { "preco": 19.90 }  ->  UPDATE produtos SET preco = ? WHERE id = ?
+ *
+ * Regras do Merge Patch:
+ *   - campo ausente: não muda
+ *   - campo com valor: substitui
+ *   - campo com null: apaga (recusado em colunas obrigatórias)
+ *
+ * A entidade não é carregada: a existência é conferida pelo número de linhas
+ * alteradas (0 = não existe). Como o UPDATE não passa pelo contexto de
+ * persistência, quem usa esta classe cuida da versão (@Version), dos caches
+ * e dos eventos, como nos UPDATEs em massa do ProdutoRepository.
+ *
+ * @param <T> - entidade alterada
+ */
+final class AtualizacaoParcial<T> {
+
+    /**
+     * Converte as exceções do Hibernate para as do Spring (ex: UNIQUE violada ->
+     * DataIntegrityViolationException), como os repositories fazem
+     */
+    private static final HibernateJpaDialect TRADUTOR_EXCECOES = new HibernateJpaDialect();
+
+    private final EntityManager entityManager;
+    private final CriteriaBuilder criteriaBuilder;
+    private final CriteriaUpdate<T> update;
+    private final Root<T> raiz;
+    /**
+     * Campos incluídos no SET, com o valor gravado
+     */
+    private final Map<String, Object> alterados = new LinkedHashMap<>();
+
+    AtualizacaoParcial(EntityManager entityManager, Class<T> entidade) {
+        this.entityManager = entityManager;
+        this.criteriaBuilder = entityManager.getCriteriaBuilder();
+        this.update = criteriaBuilder.createCriteriaUpdate(entidade);
+        this.raiz = update.from(entidade);
+    }
+
+    /**
+     * Copia para o UPDATE os campos simples do patch
+     *
+     * "id" é ignorado (o ID vem da URL). Campos fora de "campos" e de
+     * "tratadosAParte" são recusados.
+     *
+     * @param patch - corpo do PATCH (objeto JSON)
+     * @param campos - campos simples que podem ser alterados, com o tipo Java de cada um
+     * @param obrigatorios - campos que não aceitam null
+     * @param tratadosAParte - campos lidos por quem chama (ex: "versao", relacionamentos)
+     * @param objectMapper - converte os valores JSON para os tipos Java
+     * @throws IllegalArgumentException se o patch não for um objeto, tiver campo
+     *         desconhecido, valor inválido ou null em campo obrigatório
+     */
+    void aplicar(JsonNode patch, Map<String, Class<?>> campos, Set<String> obrigatorios,
+                 Set<String> tratadosAParte, ObjectMapper objectMapper) {
+        if (patch == null || !patch.isObject()) {
+            throw new IllegalArgumentException("O corpo do PATCH deve ser um objeto JSON");
+        }
+
+        for (Map.Entry<String, JsonNode> campo : patch.properties()) {
+            String nome = campo.getKey();
+            if (nome.equals("id") || tratadosAParte.contains(nome)) {
+                continue;
+            }
+            Class<?> tipo = campos.get(nome);
+            if (tipo == null) {
+                throw new IllegalArgumentException("Campo não pode ser alterado por PATCH: " + nome);
+            }
+
+            JsonNode valor = campo.getValue();
+            if (valor.isNull()) {
+                if (obrigatorios.contains(nome)) {
+                    throw new IllegalArgumentException("Campo obrigatório não pode ser null: " + nome);
+                }
+                definir(nome, null);
+            } else {
+                try {
+                    definir(nome, objectMapper.treeToValue(valor, tipo));
+                } catch (JacksonException e) {
+                    throw new IllegalArgumentException("Valor inválido para " + nome, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Inclui um campo no SET (valor null grava NULL)
+     */
+    void definir(String atributo, Object valor) {
+        Path<Object> caminho = raiz.get(atributo);
+        // valor é Object: resolve para set(Path<Y>, X), que o Hibernate liga como parâmetro (inclusive null)
+        update.set(caminho, valor);
+        alterados.put(atributo, valor);
+    }
+
+    /**
+     * SET versao = versao + 1 (não conta como campo alterado)
+     */
+    void incrementarVersao() {
+        Path<Long> versao = raiz.get("versao");
+        update.set(versao, criteriaBuilder.sum(versao, 1L));
+    }
+
+    boolean alterou(String atributo) {
+        return alterados.containsKey(atributo);
+    }
+
+    /**
+     * Valor gravado em um campo (já convertido para o tipo Java)
+     */
+    @SuppressWarnings("unchecked")
+    <V> V valor(String atributo) {
+        return (V) alterados.get(atributo);
+    }
+
+    boolean vazia() {
+        return alterados.isEmpty();
+    }
+
+    /**
+     * Executa o UPDATE ... WHERE id = ? [AND versao = ?]
+     *
+     * @param id - ID do registro
+     * @param versaoEsperada - versão enviada pelo cliente, ou null para não conferir
+     * @return linhas alteradas (0 = registro não existe ou está em outra versão)
+     */
+    int executar(Long id, Long versaoEsperada) {
+        if (versaoEsperada == null) {
+            update.where(criteriaBuilder.equal(raiz.get("id"), id));
+        } else {
+            update.where(criteriaBuilder.equal(raiz.get("id"), id),
+                    criteriaBuilder.equal(raiz.get("versao"), versaoEsperada));
+        }
+        try {
+            return entityManager.createQuery(update).executeUpdate();
+        } catch (PersistenceException e) {
+            DataAccessException traduzida = TRADUTOR_EXCECOES.translateExceptionIfPossible(e);
+            throw traduzida != null ? traduzida : e;
+        }
+    }
+
+    /**
+     * Versão enviada no patch ("versao"), ou null se o cliente não enviou
+     */
+    static Long versaoEsperada(JsonNode patch) {
+        JsonNode versao = patch.get("versao");
+        if (versao == null || versao.isNull()) {
+            return null;
+        }
+        if (!versao.canConvertToLong()) {
+            throw new IllegalArgumentException("Versão inválida");
+        }
+        return versao.asLong();
+    }
+
+    /**
+     * ID de um relacionamento no patch: { "id": 3 } ou null
+     */
+    static Long idReferencia(JsonNode valor, String campo) {
+        if (valor.isNull()) {
+            return null;
+        }
+        JsonNode id = valor.get("id");
+        if (!valor.isObject() || valor.size() != 1 || id == null || !id.canConvertToLong()) {
+            throw new IllegalArgumentException("Informe apenas o ID em " + campo + ": { \"id\": ... }");
+        }
+        return id.asLong();
+    }
+}
@@ -0,0 +1,267 @@
+package api.comercio.local.service;
+
+import api.comercio.local.evento.EstoqueAlteradoEvent;
+import api.comercio.local.evento.ProdutoAlteradoEvent;
+import api.comercio.local.model.Cliente;
+import api.comercio.local.model.Endereco;
+import api.comercio.local.model.Fornecedor;
+import api.comercio.local.model.Produto;
+import api.comercio.local.repository.ClienteRepository;
+import api.comercio.local.repository.FornecedorRepository;
+import api.comercio.local.repository.ProdutoRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * SERVICE - AtualizacaoParcialService
+ *
+ * PATCH de produtos, fornecedores e clientes com JSON Merge Patch (RFC 7396).
+ *
+ * Cada PATCH vira um UPDATE só com as colunas enviadas (AtualizacaoParcial),
+ * sem SELECT antes: a sincronização de preço e estoque do ERP custa um
+ * comando por produto, em vez de existsById + SELECT + UPDATE de todas as colunas.
+ *
+ * O endereço (cliente e fornecedor) é alterado à parte, só quando vem no patch:
+ *   - objeto: atualiza apenas os campos enviados do endereço atual (ou cria um)
+ *   - null: remove o endereço
+ *
+ * Versão (@Version) de produtos e fornecedores:
+ *   - todo PATCH incrementa a versão (o ETag muda)
+ *   - com "versao" no patch, o UPDATE só é feito se a versão for a mesma;
+ *     senão lança ObjectOptimisticLockingFailureException (409 no controller)
+ */
+@Service
+public class AtualizacaoParcialService {
+
+    /**
+     * Tipo de conteúdo do JSON Merge Patch (o PATCH também aceita application/json)
+     */
+    public static final String MERGE_PATCH_JSON = "application/merge-patch+json";
+
+    /**
+     * Campos simples aceitos no PATCH de cada entidade (nome -> tipo)
+     */
+    private static final Map<String, Class<?>> CAMPOS_PRODUTO = Map.of(
+            "nome", String.class,
+            "descricao", String.class,
+            "preco", BigDecimal.class,
+            "quantidadeEstoque", Integer.class);
+    private static final Set<String> OBRIGATORIOS_PRODUTO = Set.of("nome", "preco", "quantidadeEstoque");
+
+    private static final Map<String, Class<?>> CAMPOS_FORNECEDOR = Map.of(
+            "nome", String.class,
+            "cnpj", String.class,
+            "telefone", String.class,
+            "email", String.class);
+
+    private static final Map<String, Class<?>> CAMPOS_CLIENTE = Map.of(
+            "nome", String.class,
+            "cpf", String.class,
+            "telefone", String.class,
+            "email", String.class);
+
+    private static final Map<String, Class<?>> CAMPOS_ENDERECO = Map.of(
+            "cep", String.class,
+            "logradouro", String.class,
+            "numero", String.class,
+            "complemento", String.class,
+            "bairro", String.class,
+            "cidade", String.class,
+            "estado", String.class,
+            "pais", String.class);
+
+    private static final Set<String> OBRIGATORIOS_NOME = Set.of("nome");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private FornecedorRepository fornecedorRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    /**
+     * PATCH DE PRODUTO
+     *
+     * Além dos campos simples, aceita "fornecedor": { "id": 3 } ou null.
+     *
+     * Eventos (após o commit):
+     *   - quantidadeEstoque alterada: EstoqueAlteradoEvent (cache e estoque baixo)
+     *   - nome ou descrição alterados: o produto é relido e publicado em
+     *     ProdutoAlteradoEvent (índices de busca); preço e estoque não precisam
+     *
+     * @param id - ID do produto
+     * @param patch - JSON Merge Patch
+     * @return true se alterado, false se o produto não existir
+     * @throws IllegalArgumentException se o patch for inválido
+     * @throws ObjectOptimisticLockingFailureException se "versao" estiver desatualizada
+     */
+    @Transactional
+    public boolean atualizarProduto(Long id, JsonNode patch) {
+        AtualizacaoParcial<Produto> update = new AtualizacaoParcial<>(entityManager, Produto.class);
+        update.aplicar(patch, CAMPOS_PRODUTO, OBRIGATORIOS_PRODUTO, Set.of("versao", "fornecedor"), objectMapper);
+        if (patch.has("fornecedor")) {
+            Long fornecedorId = AtualizacaoParcial.idReferencia(patch.get("fornecedor"), "fornecedor");
+            update.definir("fornecedor", fornecedorId == null ? null : entityManager.getReference(Fornecedor.class, fornecedorId));
+        }
+        update.incrementarVersao();
+
+        Long versao = AtualizacaoParcial.versaoEsperada(patch);
+        if (update.executar(id, versao) == 0) {
+            return verificarConflito(Produto.class, id, versao, produtoRepository.findVersaoById(id));
+        }
+
+        if (update.alterou("quantidadeEstoque")) {
+            eventPublisher.publishEvent(new EstoqueAlteradoEvent(Set.of(id)));
+        }
+        if (update.alterou("nome") || update.alterou("descricao")) {
+            eventPublisher.publishEvent(new ProdutoAlteradoEvent(id, entityManager.find(Produto.class, id)));
+        }
+        return true;
+    }
+
+    /**
+     * PATCH DE FORNECEDOR
+     *
+     * Aceita também "endereco" (objeto com os campos a alterar, ou null).
+     *
+     * @param id - ID do fornecedor
+     * @param patch - JSON Merge Patch
+     * @return true se alterado, false se o fornecedor não existir
+     * @throws IllegalArgumentException se o patch for inválido
+     * @throws ObjectOptimisticLockingFailureException se "versao" estiver desatualizada
+     */
+    @Transactional
+    public boolean atualizarFornecedor(Long id, JsonNode patch) {
+        AtualizacaoParcial<Fornecedor> update = new AtualizacaoParcial<>(entityManager, Fornecedor.class);
+        update.aplicar(patch, CAMPOS_FORNECEDOR, OBRIGATORIOS_NOME, Set.of("versao", "endereco"), objectMapper);
+        update.incrementarVersao();
+
+        Long versao = AtualizacaoParcial.versaoEsperada(patch);
+        if (update.executar(id, versao) == 0) {
+            return verificarConflito(Fornecedor.class, id, versao, fornecedorRepository.findVersaoById(id));
+        }
+        if (patch.has("endereco")) {
+            atualizarEndereco(Fornecedor.class, id, patch.get("endereco"));
+        }
+        return true;
+    }
+
+    /**
+     * PATCH DE CLIENTE
+     *
+     * Aceita também "endereco" (objeto com os campos a alterar, ou null).
+     * Um patch só com o endereço não altera a linha do cliente.
+     *
+     * @param id - ID do cliente
+     * @param patch - JSON Merge Patch
+     * @return true se alterado, false se o cliente não existir
+     * @throws IllegalArgumentException se o patch for inválido
+     */
+    @Transactional
+    public boolean atualizarCliente(Long id, JsonNode patch) {
+        AtualizacaoParcial<Cliente> update = new AtualizacaoParcial<>(entityManager, Cliente.class);
+        update.aplicar(patch, CAMPOS_CLIENTE, OBRIGATORIOS_NOME, Set.of("endereco"), objectMapper);
+
+        if (!update.vazia() && update.executar(id, null) == 0) {
+            return false;
+        }
+        if (patch.has("endereco")) {
+            return atualizarEndereco(Cliente.class, id, patch.get("endereco"));
+        }
+        return !update.vazia() || clienteRepository.existsById(id);
+    }
+
+    /**
+     * Aplica o patch do endereço de um cliente ou fornecedor
+     *
+     * Lê só o ID do endereço atual (LEFT JOIN, pela chave primária) e então:
+     *   - patch null: desliga o endereço e apaga a linha
+     *   - sem endereço: cria um com os campos do patch
+     *   - com endereço: UPDATE só dos campos enviados
+     *
+     * @return false se o dono (cliente/fornecedor) não existir
+     */
+    private boolean atualizarEndereco(Class<?> dono, Long donoId, JsonNode patch) {
+        List<Long> atual = entityManager.createQuery(
+                        "SELECT e.id FROM " + dono.getSimpleName() + " d LEFT JOIN d.endereco e WHERE d.id = :id", Long.class)
+                .setParameter("id", donoId)
+                .getResultList();
+        if (atual.isEmpty()) {
+            return false;
+        }
+        Long enderecoId = atual.getFirst();
+
+        if (patch.isNull()) {
+            if (enderecoId != null) {
+                entityManager.createQuery("UPDATE " + dono.getSimpleName() + " d SET d.endereco = NULL WHERE d.id = :id")
+                        .setParameter("id", donoId)
+                        .executeUpdate();
+                entityManager.createQuery("DELETE FROM Endereco e WHERE e.id = :id")
+                        .setParameter("id", enderecoId)
+                        .executeUpdate();
+            }
+            return true;
+        }
+
+        AtualizacaoParcial<Endereco> update = new AtualizacaoParcial<>(entityManager, Endereco.class);
+        update.aplicar(patch, CAMPOS_ENDERECO, Set.of(), Set.of(), objectMapper);
+        if (enderecoId != null) {
+            if (!update.vazia()) {
+                update.executar(enderecoId, null);
+            }
+            return true;
+        }
+
+        Endereco novo;
+        try {
+            novo = objectMapper.treeToValue(patch, Endereco.class);
+        } catch (JacksonException e) {
+            throw new IllegalArgumentException("Endereço inválido", e);
+        }
+        novo.setId(null);
+        entityManager.persist(novo);
+        entityManager.createQuery("UPDATE " + dono.getSimpleName() + " d SET d.endereco = :endereco WHERE d.id = :id")
+                .setParameter("endereco", novo)
+                .setParameter("id", donoId)
+                .executeUpdate();
+        return true;
+    }
+
+    /**
+     * Nenhuma linha alterada: o registro não existe (false) ou está em outra versão (exceção)
+     *
+     * Só roda quando o UPDATE falha, então o caminho normal continua com um único comando.
+     */
+    private static boolean verificarConflito(Class<?> entidade, Long id, Long versaoEsperada, Optional<Long> versaoAtual) {
+        if (versaoAtual.isEmpty()) {
+            return false;
+        }
+        throw new ObjectOptimisticLockingFailureException(entidade, id,
+                new IllegalStateException("Versão " + versaoEsperada + " desatualizada (atual: " + versaoAtual.get() + ")"));
+    }
+}
@@ -0,0 +1,533 @@
+package api.comercio.local.service;
+
+import api.comercio.local.dto.ProdutoSugestao;
+import api.comercio.local.dto.ProdutoTexto;
+import api.comercio.local.dto.QuantidadeVendida;
+import api.comercio.local.evento.ProdutoAlteradoEvent;
+import api.comercio.local.evento.VendaRegistradaEvent;
+import api.comercio.local.repository.EstoqueRepository;
+import api.comercio.local.repository.ProdutoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * SERVICE - AutocompleteProdutoService (AUTOCOMPLETE POR PREFIXO)
+ *
+ * O campo de busca do PDV faz uma requisição a cada tecla digitada. Para
+ * responder sem ir ao banco, os nomes dos produtos ficam em uma TRIE COMPACTA
+ * (árvore de prefixos, radix/Patricia) em memória:
+ *
+ *   raiz ── "mouse " ── "logitech"   "mouse logitech"
+ *       │            └─ "gamer"      "mouse gamer"
+ *       └── "logitech"               "logitech" (cada palavra do nome também é uma entrada)
+ *
+ * Cada nó tem um rótulo com o trecho inteiro até a próxima bifurcação: uma
+ * sequência de caracteres sem ramificação (o fim de quase todo nome) ocupa um
+ * único nó, e não um nó por caractere.
+ *
+ * Cada nó guarda os K produtos MAIS VENDIDOS entre todos os nomes abaixo dele.
+ * Consultar "mou" é descer até o nó cujo caminho cobre o prefixo e devolver a
+ * lista pronta: o custo depende do tamanho do prefixo, e não do tamanho do catálogo.
+ *
+ * ATUALIZAÇÃO:
+ *   - montada na inicialização (ApplicationReadyEvent); até lá devolve lista vazia
+ *   - ProdutoAlteradoEvent: cadastro, alteração de nome e exclusão
+ *   - VendaRegistradaEvent: soma as unidades vendidas e reposiciona o produto
+ *     nas listas dos nós do seu nome
+ *
+ * Com o volume de vendas só aumentando, basta "subir" o produto em cada lista
+ * do caminho (oferecer). Na exclusão, as listas que continham o produto são
+ * recalculadas a partir dos filhos (recalcular).
+ */
+@Slf4j
+@Service
+public class AutocompleteProdutoService {
+
+    /**
+     * K: quantidade de produtos guardada em cada nó (máximo de sugestões por consulta)
+     */
+    public static final int MAXIMO_SUGESTOES = 10;
+
+    private static final long[] VAZIO = new long[0];
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private EstoqueRepository estoqueRepository;
+
+    /**
+     * Consultas em paralelo (leitura); alterações da trie com exclusividade (escrita)
+     */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final No raiz = new No("");
+    private final Map<Long, String> nomes = new HashMap<>();
+    private final Map<Long, Long> quantidadesVendidas = new HashMap<>();
+
+    /**
+     * Mais vendido primeiro; empate por nome e depois por ID
+     */
+    private final Comparator<Long> maisVendidoPrimeiro = Comparator
+            .comparingLong((Long id) -> quantidadesVendidas.getOrDefault(id, 0L)).reversed()
+            .thenComparing(nomes::get)
+            .thenComparing(Comparator.naturalOrder());
+
+    /**
+     * Produtos alterados enquanto a trie era montada (a montagem não os sobrescreve)
+     */
+    private final Set<Long> alteradosDuranteMontagem = ConcurrentHashMap.newKeySet();
+    private volatile boolean pronto;
+
+    /**
+     * NÓ DA TRIE
+     *
+     * Filhos em arrays ordenados pelo primeiro caractere do rótulo (busca binária),
+     * mais compactos que um HashMap por nó. Dois filhos nunca começam com o mesmo
+     * caractere: o trecho em comum vira um nó intermediário (dividir).
+     */
+    private static final class No {
+
+        /**
+         * Trecho da entrada entre o nó pai e este nó (vazio só na raiz)
+         */
+        private String rotulo;
+        private char[] caracteres = new char[0];
+        private No[] filhos = new No[0];
+
+        /**
+         * Os K mais vendidos entre os nomes abaixo deste nó, do maior para o menor
+         */
+        private long[] melhores = VAZIO;
+
+        /**
+         * Produtos cuja entrada termina exatamente neste nó (null se nenhum)
+         */
+        private Set<Long> terminais;
+
+        private No(String rotulo) {
+            this.rotulo = rotulo;
+        }
+
+        private No filho(char caractere) {
+            int posicao = Arrays.binarySearch(caracteres, caractere);
+            return posicao >= 0 ? filhos[posicao] : null;
+        }
+
+        private void adicionarFilho(No novo) {
+            int insercao = -Arrays.binarySearch(caracteres, novo.rotulo.charAt(0)) - 1;
+            caracteres = inserir(caracteres, insercao, novo.rotulo.charAt(0));
+            No[] novosFilhos = new No[filhos.length + 1];
+            System.arraycopy(filhos, 0, novosFilhos, 0, insercao);
+            novosFilhos[insercao] = novo;
+            System.arraycopy(filhos, insercao, novosFilhos, insercao + 1, filhos.length - insercao);
+            filhos = novosFilhos;
+        }
+
+        /**
+         * Coloca "novo" no lugar do filho que começa com o mesmo caractere
+         */
+        private void trocarFilho(No novo) {
+            filhos[Arrays.binarySearch(caracteres, novo.rotulo.charAt(0))] = novo;
+        }
+
+        private void removerFilho(char caractere) {
+            int posicao = Arrays.binarySearch(caracteres, caractere);
+            if (posicao < 0) {
+                return;
+            }
+            char[] novosCaracteres = new char[caracteres.length - 1];
+            No[] novosFilhos = new No[filhos.length - 1];
+            System.arraycopy(caracteres, 0, novosCaracteres, 0, posicao);
+            System.arraycopy(caracteres, posicao + 1, novosCaracteres, posicao, caracteres.length - posicao - 1);
+            System.arraycopy(filhos, 0, novosFilhos, 0, posicao);
+            System.arraycopy(filhos, posicao + 1, novosFilhos, posicao, filhos.length - posicao - 1);
+            caracteres = novosCaracteres;
+            filhos = novosFilhos;
+        }
+
+        private boolean vazio() {
+            return filhos.length == 0 && (terminais == null || terminais.isEmpty());
+        }
+
+        private static char[] inserir(char[] origem, int posicao, char valor) {
+            char[] destino = new char[origem.length + 1];
+            System.arraycopy(origem, 0, destino, 0, posicao);
+            destino[posicao] = valor;
+            System.arraycopy(origem, posicao, destino, posicao + 1, origem.length - posicao);
+            return destino;
+        }
+    }
+
+    /**
+     * MONTA A TRIE COM TODOS OS PRODUTOS E O TOTAL VENDIDO DE CADA UM
+     *
+     * Os produtos são inseridos sem manter as listas dos nós; no final, uma única
+     * passada de baixo para cima (recalcularTudo) monta todas as listas.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void reconstruir() {
+        List<QuantidadeVendida> vendidos = estoqueRepository.somarQuantidadesVendidas();
+        lock.writeLock().lock();
+        try {
+            vendidos.forEach(vendido -> quantidadesVendidas.merge(vendido.produtoId(), vendido.quantidade(), Long::sum));
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try (Stream<ProdutoTexto> produtos = produtoRepository.streamTextos()) {
+            produtos.forEach(produto -> {
+                if (alteradosDuranteMontagem.contains(produto.id())) {
+                    return;
+                }
+                lock.writeLock().lock();
+                try {
+                    if (!nomes.containsKey(produto.id())) {
+                        inserir(produto.id(), produto.nome());
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            });
+        }
+
+        lock.writeLock().lock();
+        try {
+            recalcularTudo(raiz);
+            pronto = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        alteradosDuranteMontagem.clear();
+        log.info("Autocomplete de produtos montado: {} produto(s)", nomes.size());
+    }
+
+    /**
+     * SUGESTÕES PARA UM PREFIXO
+     *
+     * Responde só com dados em memória (sem consulta ao banco).
+     * Acentos e maiúsculas são ignorados; o prefixo pode ser o início de
+     * qualquer palavra do nome ("logi" sugere "Mouse Logitech").
+     *
+     * @param prefixo - texto digitado
+     * @param limite - quantidade máxima de sugestões (até MAXIMO_SUGESTOES)
+     * @return produtos mais vendidos que começam com o prefixo
+     */
+    public List<ProdutoSugestao> sugerir(String prefixo, int limite) {
+        String chave = NormalizadorTexto.normalizar(prefixo);
+        if (chave.isEmpty() || !pronto) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            No no = localizar(chave);
+            if (no == null) {
+                return List.of();
+            }
+
+            List<ProdutoSugestao> sugestoes = new ArrayList<>(Math.min(limite, no.melhores.length));
+            for (int i = 0; i < no.melhores.length && i < limite; i++) {
+                long id = no.melhores[i];
+                sugestoes.add(new ProdutoSugestao(id, nomes.get(id), quantidadesVendidas.getOrDefault(id, 0L)));
+            }
+            return sugestoes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Cadastro, alteração ou exclusão de produto
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarProduto(ProdutoAlteradoEvent evento) {
+        if (!pronto) {
+            alteradosDuranteMontagem.add(evento.produtoId());
+        }
+
+        lock.writeLock().lock();
+        try {
+            remover(evento.produtoId());
+            if (evento.excluido()) {
+                quantidadesVendidas.remove(evento.produtoId());
+            } else {
+                inserir(evento.produtoId(), evento.produto().getNome());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Venda confirmada: soma as unidades e sobe o produto nas listas do caminho
+     */
+    @TransactionalEventListener
+    public void aoRegistrarVenda(VendaRegistradaEvent evento) {
+        lock.writeLock().lock();
+        try {
+            evento.quantidadesPorProduto().forEach((produtoId, quantidade) -> {
+                quantidadesVendidas.merge(produtoId, (long) quantidade, Long::sum);
+                String nome = nomes.get(produtoId);
+                if (pronto && nome != null) {
+                    for (String chave : chaves(nome)) {
+                        caminho(chave).forEach(no -> oferecer(no, produtoId));
+                    }
+                }
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Insere as entradas de um produto; deve ser chamado com o lock de escrita
+     */
+    private void inserir(Long id, String nome) {
+        if (nome == null) {
+            return;
+        }
+        nomes.put(id, nome);
+        for (String chave : chaves(nome)) {
+            No no = raiz;
+            int posicao = 0;
+            while (posicao < chave.length()) {
+                No filho = no.filho(chave.charAt(posicao));
+                if (filho == null) {
+                    filho = new No(chave.substring(posicao));
+                    no.adicionarFilho(filho);
+                } else {
+                    int comum = prefixoComum(filho.rotulo, chave, posicao);
+                    if (comum < filho.rotulo.length()) {
+                        filho = dividir(no, filho, comum);
+                    }
+                }
+                no = filho;
+                posicao += no.rotulo.length();
+                if (pronto) {
+                    oferecer(no, id);
+                }
+            }
+            if (no.terminais == null) {
+                no.terminais = new HashSet<>(2);
+            }
+            no.terminais.add(id);
+        }
+    }
+
+    /**
+     * DIVIDE UM NÓ: os "tamanho" primeiros caracteres do rótulo viram um nó
+     * intermediário, com o nó original (e o resto do rótulo) como único filho
+     *
+     * Todos os nomes abaixo do intermediário estão abaixo do original, então
+     * a lista de mais vendidos é a mesma.
+     *
+     * @return o nó intermediário, já no lugar do original entre os filhos do pai
+     */
+    private static No dividir(No pai, No filho, int tamanho) {
+        No intermediario = new No(filho.rotulo.substring(0, tamanho));
+        intermediario.melhores = filho.melhores.clone();
+        filho.rotulo = filho.rotulo.substring(tamanho);
+        intermediario.adicionarFilho(filho);
+        pai.trocarFilho(intermediario);
+        return intermediario;
+    }
+
+    /**
+     * Remove as entradas de um produto; deve ser chamado com o lock de escrita
+     *
+     * O caminho é percorrido de baixo para cima: nós que ficaram vazios são
+     * retirados da trie, um nó sem entrada própria que ficou com um único filho
+     * é unido a ele (a trie continua compacta) e as listas que continham o
+     * produto são recalculadas.
+     */
+    private void remover(Long id) {
+        String nome = nomes.get(id);
+        if (nome == null) {
+            return;
+        }
+        for (String chave : chaves(nome)) {
+            List<No> caminho = caminho(chave);
+            if (caminho.isEmpty() || caminho.getLast().terminais == null) {
+                continue;
+            }
+            caminho.getLast().terminais.remove(id);
+
+            for (int i = caminho.size() - 1; i >= 0; i--) {
+                No no = caminho.get(i);
+                No pai = i > 0 ? caminho.get(i - 1) : raiz;
+                if (no.vazio()) {
+                    pai.removerFilho(no.rotulo.charAt(0));
+                } else if (no.filhos.length == 1 && (no.terminais == null || no.terminais.isEmpty())) {
+                    No unico = no.filhos[0];
+                    unico.rotulo = no.rotulo + unico.rotulo;
+                    pai.trocarFilho(unico);
+                } else if (contem(no.melhores, id)) {
+                    recalcular(no);
+                }
+            }
+        }
+        // Só sai do mapa no final: enquanto outras entradas do mesmo nome não
+        // foram removidas, o produto ainda pode voltar nas listas recalculadas
+        nomes.remove(id);
+    }
+
+    /**
+     * Nó que reúne todas as entradas que começam com o prefixo (null se nenhuma)
+     *
+     * O prefixo pode terminar no meio do rótulo de um nó: as entradas abaixo
+     * dele são as mesmas.
+     */
+    private No localizar(String prefixo) {
+        No no = raiz;
+        int posicao = 0;
+        while (posicao < prefixo.length()) {
+            No filho = no.filho(prefixo.charAt(posicao));
+            if (filho == null) {
+                return null;
+            }
+            int comum = prefixoComum(filho.rotulo, prefixo, posicao);
+            if (posicao + comum == prefixo.length()) {
+                return filho;
+            }
+            if (comum < filho.rotulo.length()) {
+                return null;
+            }
+            no = filho;
+            posicao += comum;
+        }
+        return no;
+    }
+
+    /**
+     * Nós do caminho de uma entrada inteira, sem a raiz (lista vazia se a entrada não existe)
+     */
+    private List<No> caminho(String chave) {
+        List<No> caminho = new ArrayList<>();
+        No no = raiz;
+        int posicao = 0;
+        while (posicao < chave.length()) {
+            no = no.filho(chave.charAt(posicao));
+            if (no == null || !chave.startsWith(no.rotulo, posicao)) {
+                return List.of();
+            }
+            caminho.add(no);
+            posicao += no.rotulo.length();
+        }
+        return caminho;
+    }
+
+    /**
+     * Quantidade de caracteres iguais no início do rótulo e de texto[inicio..]
+     */
+    private static int prefixoComum(String rotulo, String texto, int inicio) {
+        int limite = Math.min(rotulo.length(), texto.length() - inicio);
+        int i = 0;
+        while (i < limite && rotulo.charAt(i) == texto.charAt(inicio + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Coloca o produto na posição certa da lista do nó, se ele estiver entre os K melhores
+     */
+    private void oferecer(No no, long id) {
+        long[] melhores = no.melhores;
+        int posicao = indice(melhores, id);
+        if (posicao < 0) {
+            if (melhores.length < MAXIMO_SUGESTOES) {
+                melhores = Arrays.copyOf(melhores, melhores.length + 1);
+                no.melhores = melhores;
+            } else if (maisVendidoPrimeiro.compare(id, melhores[melhores.length - 1]) >= 0) {
+                return;
+            }
+            posicao = melhores.length - 1;
+            melhores[posicao] = id;
+        }
+        while (posicao > 0 && maisVendidoPrimeiro.compare(melhores[posicao], melhores[posicao - 1]) < 0) {
+            long anterior = melhores[posicao - 1];
+            melhores[posicao - 1] = melhores[posicao];
+            melhores[posicao] = anterior;
+            posicao--;
+        }
+    }
+
+    /**
+     * Recalcula a lista do nó a partir dos produtos que terminam nele e das listas dos filhos
+     */
+    private void recalcular(No no) {
+        Set<Long> candidatos = new HashSet<>();
+        if (no.terminais != null) {
+            candidatos.addAll(no.terminais);
+        }
+        for (No filho : no.filhos) {
+            for (long id : filho.melhores) {
+                candidatos.add(id);
+            }
+        }
+        no.melhores = candidatos.stream()
+                .sorted(maisVendidoPrimeiro)
+                .limit(MAXIMO_SUGESTOES)
+                .mapToLong(Long::longValue)
+                .toArray();
+    }
+
+    /**
+     * Recalcula todas as listas, dos nós mais profundos para a raiz
+     */
+    private void recalcularTudo(No no) {
+        for (No filho : no.filhos) {
+            recalcularTudo(filho);
+        }
+        recalcular(no);
+    }
+
+    /**
+     * ENTRADAS DE UM NOME: o nome normalizado a partir do início de cada palavra
+     *
+     *   "Mouse Sem Fio" -> "mouse sem fio", "sem fio", "fio"
+     */
+    private static Set<String> chaves(String nome) {
+        String normalizado = NormalizadorTexto.normalizar(nome);
+        Set<String> chaves = new LinkedHashSet<>();
+        for (int i = 0; i < normalizado.length(); i++) {
+            if (i == 0 || normalizado.charAt(i - 1) == ' ') {
+                chaves.add(normalizado.substring(i));
+            }
+        }
+        return chaves;
+    }
+
+    private static int indice(long[] ids, long id) {
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean contem(long[] ids, long id) {
+        return indice(ids, id) >= 0;
+    }
+}
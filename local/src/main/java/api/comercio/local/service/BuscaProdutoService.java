@@ -0,0 +1,435 @@
+package api.comercio.local.service;
+
+import api.comercio.local.dto.ProdutoResumo;
+import api.comercio.local.dto.ProdutoTexto;
+import api.comercio.local.evento.ProdutoAlteradoEvent;
+import api.comercio.local.repository.ProdutoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * SERVICE - BuscaProdutoService (BUSCA DE PRODUTOS POR NOME/DESCRIÇÃO)
+ *
+ * A busca antiga usava LOWER(nome) LIKE '%termo%': o banco lê a tabela inteira
+ * a cada busca. Aqui mantemos em memória um ÍNDICE INVERTIDO DE TRIGRAMAS:
+ *
+ *   "mouse" -> trigramas "mou", "ous", "use"
+ *   índice:  "mou" -> [produtos cujo nome/descrição contém "mou"]
+ *            "ous" -> [...]
+ *
+ * Para buscar "mouse", basta cruzar (interseção) as listas dos seus trigramas,
+ * começando pela menor, e confirmar o termo apenas nesses candidatos.
+ *
+ * CARACTERÍSTICAS:
+ *   - sem diferença de acentos e maiúsculas ("cafe" encontra "Café")
+ *   - várias palavras: todas precisam aparecer ("mouse sem fio")
+ *   - palavras com menos de 3 letras não têm trigrama: são conferidas nos
+ *     candidatos; se o termo só tiver palavras curtas ("tv", "hd"), os candidatos
+ *     vêm do índice de prefixos curtos (produtos com uma palavra que começa assim)
+ *   - resultado ordenado por relevância e limitado (ver ranquear)
+ *
+ * ATUALIZAÇÃO:
+ *   - montado na inicialização (ApplicationReadyEvent); até lá a busca usa o banco
+ *   - atualizado pelo ProdutoAlteradoEvent (cadastro, alteração e exclusão)
+ *
+ * ESTRUTURA INTERNA:
+ *   cada produto indexado recebe um número sequencial (ordinal). As listas dos
+ *   índices guardam ordinais em ordem crescente (int[]), o que permite a
+ *   interseção por merge. Um produto alterado recebe um novo ordinal e o antigo
+ *   vira lacuna; quando as lacunas passam de 25% o índice é recompactado.
+ */
+@Slf4j
+@Service
+public class BuscaProdutoService {
+
+    private static final int TAMANHO_TRIGRAMA = 3;
+
+    /**
+     * Produtos lidos do banco por aquisição do lock de escrita na montagem do índice
+     */
+    private static final int LOTE_MONTAGEM = 1000;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    /**
+     * Buscas em paralelo (leitura); alterações do índice com exclusividade (escrita)
+     */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Produto indexado em cada ordinal (null = lacuna de um produto alterado/excluído)
+     */
+    private final List<Documento> documentos = new ArrayList<>();
+    private final Map<Long, Integer> ordinalPorId = new HashMap<>();
+    private final Map<Long, ListaOrdinais> indice = new HashMap<>();
+
+    /**
+     * Prefixos de 1 e 2 letras de cada palavra -> produtos (buscas só com palavras curtas)
+     */
+    private final Map<String, ListaOrdinais> indicePrefixos = new HashMap<>();
+    private int lacunas;
+
+    /**
+     * Produtos alterados enquanto o índice era montado: a montagem não
+     * sobrescreve esses produtos com a versão (mais antiga) lida do banco
+     */
+    private final Set<Long> alteradosDuranteMontagem = ConcurrentHashMap.newKeySet();
+    private volatile boolean pronto;
+
+    /**
+     * Texto normalizado de um produto indexado
+     */
+    private record Documento(Long id, String nome, String descricao) {
+    }
+
+    /**
+     * Produto candidato com sua pontuação (usado na ordenação do resultado)
+     */
+    private record Candidato(Documento documento, int pontuacao) {
+    }
+
+    /**
+     * Lista crescente de ordinais (cresce como um ArrayList, sem caixas de Integer)
+     */
+    private static final class ListaOrdinais {
+        private int[] ordinais = new int[4];
+        private int tamanho;
+
+        private void adicionar(int ordinal) {
+            if (tamanho == ordinais.length) {
+                ordinais = Arrays.copyOf(ordinais, tamanho * 2);
+            }
+            ordinais[tamanho++] = ordinal;
+        }
+
+        private int[] copia() {
+            return Arrays.copyOf(ordinais, tamanho);
+        }
+    }
+
+    /**
+     * MONTA O ÍNDICE COM TODOS OS PRODUTOS DO BANCO
+     *
+     * Os produtos são indexados em lotes: o lock de escrita é adquirido uma vez
+     * por lote, e não por produto (as buscas esperam no máximo um lote).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void reconstruir() {
+        List<ProdutoTexto> lote = new ArrayList<>(LOTE_MONTAGEM);
+        try (Stream<ProdutoTexto> produtos = produtoRepository.streamTextos()) {
+            produtos.forEach(produto -> {
+                lote.add(produto);
+                if (lote.size() == LOTE_MONTAGEM) {
+                    indexarLote(lote);
+                    lote.clear();
+                }
+            });
+        }
+        indexarLote(lote);
+        pronto = true;
+        alteradosDuranteMontagem.clear();
+        log.info("Índice de busca de produtos montado: {} produto(s), {} trigrama(s)",
+                ordinalPorId.size(), indice.size());
+    }
+
+    /**
+     * Indexa um lote da montagem, sem sobrescrever produtos já indexados pelos eventos
+     */
+    private void indexarLote(List<ProdutoTexto> lote) {
+        if (lote.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (ProdutoTexto produto : lote) {
+                if (!alteradosDuranteMontagem.contains(produto.id()) && !ordinalPorId.containsKey(produto.id())) {
+                    indexar(produto.id(), produto.nome(), produto.descricao());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * MANTÉM O ÍNDICE ATUALIZADO
+     *
+     * fallbackExecution = true: também recebe eventos publicados fora de transação
+     * (ex: ProdutoController, depois do save)
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarProduto(ProdutoAlteradoEvent evento) {
+        if (!pronto) {
+            alteradosDuranteMontagem.add(evento.produtoId());
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (evento.excluido()) {
+                desindexar(evento.produtoId());
+            } else {
+                indexar(evento.produtoId(), evento.produto().getNome(), evento.produto().getDescricao());
+            }
+            if (lacunas > 1000 && lacunas > documentos.size() / 4) {
+                compactar();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * BUSCA PRODUTOS PELO NOME OU DESCRIÇÃO
+     *
+     * O índice escolhe e ordena os produtos; preço e estoque vêm do banco em uma
+     * única consulta pela chave primária (findResumoByIdIn).
+     *
+     * @param termo - texto buscado (uma ou mais palavras, parciais)
+     * @param limite - quantidade máxima de produtos retornados
+     * @return produtos encontrados, do mais relevante para o menos relevante
+     */
+    public List<ProdutoResumo> buscar(String termo, int limite) {
+        List<String> palavras = NormalizadorTexto.palavras(NormalizadorTexto.normalizar(termo));
+        if (palavras.isEmpty()) {
+            return List.of();
+        }
+        if (!pronto) {
+            return produtoRepository.findResumoByNome(termo).stream().limit(limite).toList();
+        }
+
+        List<Long> ids;
+        lock.readLock().lock();
+        try {
+            ids = ranquear(candidatos(palavras), palavras, limite);
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, ProdutoResumo> porId = produtoRepository.findResumoByIdIn(ids).stream()
+                .collect(Collectors.toMap(ProdutoResumo::id, Function.identity()));
+        return ids.stream().map(porId::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * CANDIDATOS: produtos que contêm todos os trigramas das palavras buscadas
+     *
+     * As listas são cruzadas da menor para a maior, então o custo depende do
+     * trigrama mais raro do termo, e não do tamanho do catálogo.
+     *
+     * Termo só com palavras curtas (sem trigrama): cada palavra precisa ser o
+     * início de alguma palavra do produto (índice de prefixos), e não um trecho
+     * qualquer; assim a busca nunca percorre o catálogo inteiro.
+     */
+    private IntStream candidatos(List<String> palavras) {
+        Set<Long> trigramas = new HashSet<>();
+        palavras.forEach(palavra -> adicionarTrigramas(palavra, trigramas));
+
+        List<ListaOrdinais> listas = new ArrayList<>();
+        if (trigramas.isEmpty()) {
+            for (String palavra : new HashSet<>(palavras)) {
+                ListaOrdinais lista = indicePrefixos.get(palavra);
+                if (lista == null) {
+                    return IntStream.empty();
+                }
+                listas.add(lista);
+            }
+        } else {
+            for (Long trigrama : trigramas) {
+                ListaOrdinais lista = indice.get(trigrama);
+                if (lista == null) {
+                    return IntStream.empty();
+                }
+                listas.add(lista);
+            }
+        }
+        listas.sort(Comparator.comparingInt(lista -> lista.tamanho));
+
+        int[] resultado = listas.getFirst().copia();
+        int tamanho = resultado.length;
+        for (int i = 1; i < listas.size() && tamanho > 0; i++) {
+            tamanho = intersecao(resultado, tamanho, listas.get(i));
+        }
+        return Arrays.stream(resultado, 0, tamanho);
+    }
+
+    /**
+     * Interseção de duas listas crescentes; o resultado fica no início de "atual"
+     *
+     * @return tamanho do resultado
+     */
+    private static int intersecao(int[] atual, int tamanhoAtual, ListaOrdinais outra) {
+        int i = 0, j = 0, k = 0;
+        while (i < tamanhoAtual && j < outra.tamanho) {
+            int a = atual[i], b = outra.ordinais[j];
+            if (a == b) {
+                atual[k++] = a;
+                i++;
+                j++;
+            } else if (a < b) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return k;
+    }
+
+    /**
+     * RANKING DOS CANDIDATOS
+     *
+     * Cada palavra buscada precisa aparecer no nome ou na descrição. Pontuação por palavra:
+     *   3 - o nome começa com a palavra
+     *   2 - alguma palavra do nome começa com ela
+     *   1 - aparece no meio de uma palavra do nome
+     *   0 - aparece só na descrição
+     * Empates: nome mais curto primeiro, depois ordem alfabética.
+     *
+     * Mantém apenas os "limite" melhores em uma fila de prioridade
+     * (não ordena todos os candidatos).
+     */
+    private List<Long> ranquear(IntStream ordinais, List<String> palavras, int limite) {
+        Comparator<Candidato> melhorPrimeiro = Comparator
+                .comparingInt(Candidato::pontuacao).reversed()
+                .thenComparingInt(candidato -> candidato.documento().nome().length())
+                .thenComparing(candidato -> candidato.documento().nome())
+                .thenComparing(candidato -> candidato.documento().id());
+        PriorityQueue<Candidato> melhores = new PriorityQueue<>(limite + 1, melhorPrimeiro.reversed());
+
+        ordinais.forEach(ordinal -> {
+            Documento documento = documentos.get(ordinal);
+            if (documento == null) {
+                return;
+            }
+            int pontuacao = pontuar(documento, palavras);
+            if (pontuacao < 0) {
+                return;
+            }
+            melhores.add(new Candidato(documento, pontuacao));
+            if (melhores.size() > limite) {
+                melhores.poll();
+            }
+        });
+
+        return melhores.stream()
+                .sorted(melhorPrimeiro)
+                .map(candidato -> candidato.documento().id())
+                .toList();
+    }
+
+    /**
+     * @return pontuação do produto, ou -1 se alguma palavra não aparece
+     */
+    private static int pontuar(Documento documento, List<String> palavras) {
+        int total = 0;
+        for (String palavra : palavras) {
+            if (documento.nome().startsWith(palavra)) {
+                total += 3;
+            } else if (documento.nome().contains(" " + palavra)) {
+                total += 2;
+            } else if (documento.nome().contains(palavra)) {
+                total += 1;
+            } else if (!documento.descricao().contains(palavra)) {
+                return -1;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Indexa (ou reindexa) um produto; deve ser chamado com o lock de escrita
+     */
+    private void indexar(Long id, String nome, String descricao) {
+        desindexar(id);
+        adicionarAoIndice(new Documento(id,
+                NormalizadorTexto.normalizar(nome), NormalizadorTexto.normalizar(descricao)));
+    }
+
+    /**
+     * Remove um produto do índice (a posição vira lacuna); deve ser chamado com o lock de escrita
+     */
+    private void desindexar(Long id) {
+        Integer ordinal = ordinalPorId.remove(id);
+        if (ordinal != null) {
+            documentos.set(ordinal, null);
+            lacunas++;
+        }
+    }
+
+    /**
+     * Reconstrói o índice só com os produtos ativos, eliminando as lacunas
+     */
+    private void compactar() {
+        List<Documento> ativos = documentos.stream().filter(Objects::nonNull).toList();
+        documentos.clear();
+        ordinalPorId.clear();
+        indice.clear();
+        indicePrefixos.clear();
+        lacunas = 0;
+        ativos.forEach(this::adicionarAoIndice);
+    }
+
+    /**
+     * Dá ao produto o próximo ordinal e o inclui na lista de cada um dos seus
+     * trigramas e dos prefixos curtos das suas palavras
+     */
+    private void adicionarAoIndice(Documento documento) {
+        int ordinal = documentos.size();
+        documentos.add(documento);
+        ordinalPorId.put(documento.id(), ordinal);
+
+        Set<Long> trigramas = new HashSet<>();
+        Set<String> prefixos = new HashSet<>();
+        Stream.concat(NormalizadorTexto.palavras(documento.nome()).stream(),
+                        NormalizadorTexto.palavras(documento.descricao()).stream())
+                .forEach(palavra -> {
+                    adicionarTrigramas(palavra, trigramas);
+                    for (int tamanho = 1; tamanho < TAMANHO_TRIGRAMA && tamanho <= palavra.length(); tamanho++) {
+                        prefixos.add(palavra.substring(0, tamanho));
+                    }
+                });
+        for (Long trigrama : trigramas) {
+            indice.computeIfAbsent(trigrama, chave -> new ListaOrdinais()).adicionar(ordinal);
+        }
+        for (String prefixo : prefixos) {
+            indicePrefixos.computeIfAbsent(prefixo, chave -> new ListaOrdinais()).adicionar(ordinal);
+        }
+    }
+
+    /**
+     * Trigramas de uma palavra, codificados em um long (3 caracteres de 16 bits)
+     */
+    private static void adicionarTrigramas(String palavra, Set<Long> trigramas) {
+        for (int i = 0; i + TAMANHO_TRIGRAMA <= palavra.length(); i++) {
+            trigramas.add(((long) palavra.charAt(i) << 32)
+                    | ((long) palavra.charAt(i + 1) << 16)
+                    | palavra.charAt(i + 2));
+        }
+    }
+}
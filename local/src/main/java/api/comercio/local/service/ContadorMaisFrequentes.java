@@ -0,0 +1,83 @@
+package api.comercio.local.service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * CONTADOR DOS ITENS MAIS FREQUENTES (ALGORITMO SPACE-SAVING)
+ *
+ * Conta as unidades vendidas por produto usando no máximo "capacidade"
+ * contadores, não importa quantos produtos diferentes sejam vendidos:
+ *   - produto já monitorado: soma a quantidade ao seu contador
+ *   - há contador livre: começa a monitorar o produto
+ *   - todos ocupados: o produto com a MENOR contagem é substituído pelo novo,
+ *     que herda essa contagem como "erro" (pode ter sido vendido até essa
+ *     quantidade antes de ser monitorado)
+ *
+ * Garantias:
+ *   - quantidade - erro <= unidades realmente vendidas <= quantidade
+ *   - todo produto com mais de (total vendido / capacidade) unidades está monitorado
+ *
+ * Não é thread-safe: quem usa controla o acesso (ver MaisVendidosService).
+ */
+class ContadorMaisFrequentes {
+
+    private final int capacidade;
+    private final Map<Long, Contador> contadores;
+
+    /**
+     * Contagem estimada de um produto e o erro máximo dessa estimativa
+     */
+    private static final class Contador {
+        private long quantidade;
+        private long erro;
+    }
+
+    ContadorMaisFrequentes(int capacidade) {
+        this.capacidade = capacidade;
+        this.contadores = HashMap.newHashMap(capacidade);
+    }
+
+    /**
+     * SOMA UNIDADES VENDIDAS DE UM PRODUTO
+     *
+     * A busca do menor contador (O(capacidade)) só acontece quando um produto
+     * novo chega com todos os contadores ocupados.
+     */
+    void adicionar(long produtoId, long quantidade) {
+        Contador contador = contadores.get(produtoId);
+        if (contador == null) {
+            if (contadores.size() < capacidade) {
+                contador = new Contador();
+            } else {
+                Map.Entry<Long, Contador> menor = null;
+                for (Map.Entry<Long, Contador> entrada : contadores.entrySet()) {
+                    if (menor == null || entrada.getValue().quantidade < menor.getValue().quantidade) {
+                        menor = entrada;
+                    }
+                }
+                contador = contadores.remove(menor.getKey());
+                contador.erro = contador.quantidade;
+            }
+            contadores.put(produtoId, contador);
+        }
+        contador.quantidade += quantidade;
+    }
+
+    /**
+     * SOMA OS CONTADORES EM UM MAPA DE TOTAIS (junção de vários intervalos de tempo)
+     *
+     * @param totais - por ID de produto: [0] quantidade estimada, [1] erro máximo
+     */
+    void somarEm(Map<Long, long[]> totais) {
+        contadores.forEach((produtoId, contador) -> {
+            long[] total = totais.computeIfAbsent(produtoId, id -> new long[2]);
+            total[0] += contador.quantidade;
+            total[1] += contador.erro;
+        });
+    }
+
+    void limpar() {
+        contadores.clear();
+    }
+}
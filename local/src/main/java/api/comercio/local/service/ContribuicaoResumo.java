@@ -0,0 +1,98 @@
+package api.comercio.local.service;
+
+import api.comercio.local.model.Estoque;
+import api.comercio.local.model.Venda;
+import api.comercio.local.model.VendaDiariaProduto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * CONTRIBUIÇÃO DE UMA OPERAÇÃO PARA OS RESUMOS DIÁRIOS
+ *
+ * Soma em memória o efeito de uma ou mais vendas/itens em cada dia e em cada
+ * (dia, produto). Depois, ResumoVendaService.aplicar envia um único MERGE por
+ * chave (ex: um lote de 5.000 vendas do mesmo dia vira 1 MERGE no resumo diário).
+ *
+ * sinal = +1 para vendas/itens gravados, -1 para desfazer o valor anterior
+ * de vendas/itens alterados ou excluídos.
+ *
+ * TreeMap: as linhas do resumo são atualizadas sempre na mesma ordem (dia, produto),
+ * o que evita deadlocks entre transações concorrentes.
+ */
+class ContribuicaoResumo {
+
+    /**
+     * Totais de um dia
+     */
+    static final class TotaisDia {
+        long vendas;
+        BigDecimal valor = BigDecimal.ZERO;
+        long itens;
+
+        boolean vazio() {
+            return vendas == 0 && itens == 0 && valor.signum() == 0;
+        }
+    }
+
+    /**
+     * Totais de um produto em um dia
+     */
+    static final class TotaisProduto {
+        long quantidade;
+        BigDecimal valor = BigDecimal.ZERO;
+
+        boolean vazio() {
+            return quantidade == 0 && valor.signum() == 0;
+        }
+    }
+
+    private final Map<LocalDate, TotaisDia> dias = new TreeMap<>();
+    private final Map<VendaDiariaProduto.Chave, TotaisProduto> produtos = new TreeMap<>(
+            Comparator.comparing(VendaDiariaProduto.Chave::dia).thenComparing(VendaDiariaProduto.Chave::produtoId));
+
+    /**
+     * Soma uma venda inteira (a venda e todos os seus itens)
+     */
+    void venda(Venda venda, int sinal) {
+        LocalDate dia = venda.getDataVenda().toLocalDate();
+        TotaisDia totais = dias.computeIfAbsent(dia, chave -> new TotaisDia());
+        totais.vendas += sinal;
+        if (venda.getValorTotal() != null) {
+            totais.valor = totais.valor.add(venda.getValorTotal().multiply(BigDecimal.valueOf(sinal)));
+        }
+        if (venda.getItens() != null) {
+            venda.getItens().forEach(item -> item(dia, item, sinal));
+        }
+    }
+
+    /**
+     * Soma um item avulso (o valor total da venda não muda)
+     */
+    void item(Estoque item, int sinal) {
+        item(item.getVenda().getDataVenda().toLocalDate(), item, sinal);
+    }
+
+    Map<LocalDate, TotaisDia> dias() {
+        return dias;
+    }
+
+    Map<VendaDiariaProduto.Chave, TotaisProduto> produtos() {
+        return produtos;
+    }
+
+    private void item(LocalDate dia, Estoque item, int sinal) {
+        long quantidade = (long) item.getQuantidade() * sinal;
+        BigDecimal valor = item.getPrecoUnitario().multiply(BigDecimal.valueOf(quantidade));
+
+        dias.computeIfAbsent(dia, chave -> new TotaisDia()).itens += quantidade;
+
+        TotaisProduto totais = produtos.computeIfAbsent(
+                new VendaDiariaProduto.Chave(dia, item.getProduto().getId()), chave -> new TotaisProduto());
+        totais.quantidade += quantidade;
+        totais.valor = totais.valor.add(valor);
+    }
+}
@@ -0,0 +1,388 @@
+package api.comercio.local.service;
+
+import api.comercio.local.model.Estoque;
+import api.comercio.local.model.Venda;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * DIÁRIO DE VENDAS (APPEND-ONLY, ARQUIVOS MAPEADOS EM MEMÓRIA)
+ *
+ * Guarda cada venda gravada (com os itens) em arquivos binários, sem passar
+ * pelo banco. Serve de trilha de auditoria e de origem para reconstruir as
+ * tabelas de vendas (DiarioVendasReplay).
+ *
+ * A venda é gravada ANTES do commit no banco; depois do commit (ou do
+ * rollback) um registro de DESFECHO informa o resultado das vendas da
+ * transação. Venda sem desfecho: o servidor caiu entre as duas gravações.
+ *
+ * O diário é dividido em SEGMENTOS de tamanho fixo, mapeados em memória
+ * (MappedByteBuffer): gravar um registro é copiar bytes para a memória, e o
+ * sistema operacional leva as páginas para o disco.
+ *   vendas-00000000000000000001.diario
+ *   vendas-00000000000000000002.diario  <- segmento atual (recebendo registros)
+ *
+ * Quando um registro não cabe no espaço restante, o segmento é fechado e o
+ * próximo é aberto. O espaço não usado no fim do segmento fica com zeros.
+ *
+ * Cada registro:
+ *   [tamanho: int][crc32c do conteúdo: int][conteúdo: tamanho bytes]
+ *
+ * Conteúdo (números inteiros em big-endian, valores como [sem escala: long][escala: int]):
+ *   venda:    id, clienteId, dataVenda (segundos UTC: long, nanos: int), valorTotal,
+ *             chaveIdempotencia (tamanho: int, -1 = null; bytes UTF-8), quantidade de itens: int
+ *   item:     id, produtoId, quantidade: int, precoUnitario, subtotal
+ *   desfecho: MARCA_DESFECHO (-1: long, no lugar do ID positivo da venda),
+ *             confirmada (1 = commit, 0 = rollback: byte), quantidade de vendas: int, IDs das vendas: long
+ *
+ * A leitura de um segmento para no primeiro registro com tamanho 0 (fim dos
+ * registros) ou com CRC diferente (gravação interrompida por uma queda).
+ */
+class DiarioVendas {
+
+    private static final String PREFIXO = "vendas-";
+    private static final String SUFIXO = ".diario";
+    private static final int TAMANHO_CABECALHO = 2 * Integer.BYTES;
+    private static final int TAMANHO_VENDA = 3 * Long.BYTES + Integer.BYTES + (Long.BYTES + Integer.BYTES) + 2 * Integer.BYTES;
+    private static final int TAMANHO_ITEM = 2 * Long.BYTES + Integer.BYTES + 2 * (Long.BYTES + Integer.BYTES);
+    private static final long MARCA_DESFECHO = -1;
+    private static final int TAMANHO_DESFECHO = Long.BYTES + 1 + Integer.BYTES;
+
+    /**
+     * Venda lida do diário
+     */
+    record VendaDiario(long id, long clienteId, LocalDateTime dataVenda, BigDecimal valorTotal,
+                       String chaveIdempotencia, List<ItemDiario> itens) {
+    }
+
+    /**
+     * Item de venda lido do diário
+     */
+    record ItemDiario(long id, long produtoId, int quantidade, BigDecimal precoUnitario, BigDecimal subtotal) {
+    }
+
+    /**
+     * Resultado da transação que gravou as vendas (commit ou rollback)
+     */
+    record Desfecho(List<Long> vendaIds, boolean confirmada) {
+    }
+
+    private final Path diretorio;
+    private final int tamanhoSegmento;
+
+    /**
+     * true: força a gravação em disco (msync) a cada registro
+     * false: a gravação é forçada por sincronizar() (periódico) e ao fechar o segmento
+     */
+    private final boolean fsyncPorRegistro;
+
+    /**
+     * ReentrantLock ao invés de synchronized: não prende a thread de plataforma
+     * quando a requisição roda em uma virtual thread
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final CRC32C crc = new CRC32C();
+
+    /**
+     * Conteúdo do registro sendo gravado (cresce para vendas com muitos itens)
+     */
+    private ByteBuffer conteudo = ByteBuffer.allocate(TAMANHO_VENDA + 16 * TAMANHO_ITEM);
+
+    private MappedByteBuffer segmentoAtual;
+    private long numeroAtual;
+
+    /**
+     * Posição até onde o segmento atual já foi forçado para o disco
+     */
+    private int posicaoSincronizada;
+
+    DiarioVendas(Path diretorio, int tamanhoSegmento, boolean fsyncPorRegistro) {
+        this.diretorio = diretorio;
+        this.tamanhoSegmento = tamanhoSegmento;
+        this.fsyncPorRegistro = fsyncPorRegistro;
+    }
+
+    /**
+     * Lista os segmentos existentes no diretório, em ordem crescente de número
+     */
+    List<Long> listarSegmentos() {
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            return arquivos
+                    .map(arquivo -> arquivo.getFileName().toString())
+                    .filter(nome -> nome.startsWith(PREFIXO) && nome.endsWith(SUFIXO))
+                    .map(nome -> Long.parseLong(nome.substring(PREFIXO.length(), nome.length() - SUFIXO.length())))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Abre um novo segmento para receber registros
+     *
+     * @param numero - número do novo segmento (maior que todos os existentes)
+     * @param tamanho - tamanho do arquivo (pelo menos tamanhoSegmento)
+     */
+    void abrir(long numero, int tamanho) throws IOException {
+        Files.createDirectories(diretorio);
+        try (FileChannel canal = FileChannel.open(caminho(numero),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // O mapeamento continua válido depois que o canal é fechado
+            segmentoAtual = canal.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(tamanho, tamanhoSegmento));
+        }
+        numeroAtual = numero;
+        posicaoSincronizada = 0;
+    }
+
+    /**
+     * ACRESCENTA UMA VENDA (COM OS ITENS) AO SEGMENTO ATUAL
+     *
+     * @param venda - venda já gravada no banco (com ID e subtotais calculados)
+     */
+    void registrar(Venda venda) {
+        lock.lock();
+        try {
+            codificar(venda);
+            gravar();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao gravar o diário de vendas", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * ACRESCENTA O DESFECHO DE VENDAS JÁ REGISTRADAS
+     *
+     * @param vendaIds - IDs das vendas da transação
+     * @param confirmada - true se a transação teve commit, false se foi desfeita
+     */
+    void registrarDesfecho(List<Long> vendaIds, boolean confirmada) {
+        lock.lock();
+        try {
+            reservar(TAMANHO_DESFECHO + vendaIds.size() * Long.BYTES);
+            conteudo.putLong(MARCA_DESFECHO).put((byte) (confirmada ? 1 : 0)).putInt(vendaIds.size());
+            vendaIds.forEach(conteudo::putLong);
+            conteudo.flip();
+            gravar();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao gravar o diário de vendas", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Força para o disco os registros gravados desde a última sincronização
+     */
+    void sincronizar() {
+        lock.lock();
+        try {
+            if (segmentoAtual == null) {
+                return;
+            }
+            int posicao = segmentoAtual.position();
+            if (posicao > posicaoSincronizada) {
+                segmentoAtual.force(posicaoSincronizada, posicao - posicaoSincronizada);
+                posicaoSincronizada = posicao;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * LÊ AS VENDAS DE UM SEGMENTO, EM ORDEM DE GRAVAÇÃO (sem os desfechos)
+     *
+     * @param numero - número do segmento
+     * @param consumidor - recebe cada venda lida
+     * @return quantidade de vendas lidas
+     */
+    long ler(long numero, Consumer<VendaDiario> consumidor) throws IOException {
+        return ler(numero, consumidor, desfecho -> { });
+    }
+
+    /**
+     * LÊ AS VENDAS E OS DESFECHOS DE UM SEGMENTO, EM ORDEM DE GRAVAÇÃO
+     *
+     * O desfecho de uma venda vem depois dela, no mesmo segmento ou em um
+     * dos seguintes.
+     *
+     * @param numero - número do segmento
+     * @param vendas - recebe cada venda lida
+     * @param desfechos - recebe cada desfecho lido
+     * @return quantidade de vendas lidas
+     */
+    long ler(long numero, Consumer<VendaDiario> vendas, Consumer<Desfecho> desfechos) throws IOException {
+        MappedByteBuffer segmento;
+        try (FileChannel canal = FileChannel.open(caminho(numero), StandardOpenOption.READ)) {
+            segmento = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+        }
+
+        CRC32C verificacao = new CRC32C();
+        long lidas = 0;
+        while (segmento.remaining() >= TAMANHO_CABECALHO) {
+            int tamanho = segmento.getInt();
+            int esperado = segmento.getInt();
+            if (tamanho <= 0 || tamanho > segmento.remaining()) {
+                break;
+            }
+            ByteBuffer registro = segmento.slice(segmento.position(), tamanho);
+            verificacao.reset();
+            verificacao.update(registro.duplicate());
+            if ((int) verificacao.getValue() != esperado) {
+                break;
+            }
+            if (registro.getLong(0) == MARCA_DESFECHO) {
+                desfechos.accept(decodificarDesfecho(registro));
+            } else {
+                vendas.accept(decodificar(registro));
+                lidas++;
+            }
+            segmento.position(segmento.position() + tamanho);
+        }
+        return lidas;
+    }
+
+    /**
+     * Fecha o segmento atual (encerramento da aplicação)
+     */
+    void fechar() {
+        lock.lock();
+        try {
+            if (segmentoAtual != null) {
+                segmentoAtual.force();
+                segmentoAtual = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Grava o conteúdo codificado como um registro do segmento atual
+     */
+    private void gravar() throws IOException {
+        int tamanho = TAMANHO_CABECALHO + conteudo.remaining();
+        if (segmentoAtual.remaining() < tamanho) {
+            rotacionar(tamanho);
+        }
+
+        crc.reset();
+        crc.update(conteudo.duplicate());
+        int inicio = segmentoAtual.position();
+        segmentoAtual.putInt(conteudo.remaining()).putInt((int) crc.getValue()).put(conteudo);
+        if (fsyncPorRegistro) {
+            segmentoAtual.force(inicio, tamanho);
+            posicaoSincronizada = segmentoAtual.position();
+        }
+    }
+
+    /**
+     * Prepara o buffer de conteúdo para um registro de "tamanho" bytes
+     */
+    private void reservar(int tamanho) {
+        if (conteudo.capacity() < tamanho) {
+            conteudo = ByteBuffer.allocate(Math.max(tamanho, conteudo.capacity() * 2));
+        }
+        conteudo.clear();
+    }
+
+    /**
+     * Fecha o segmento atual e abre o próximo, com espaço para pelo menos "tamanho" bytes
+     */
+    private void rotacionar(int tamanho) throws IOException {
+        segmentoAtual.force();
+        abrir(numeroAtual + 1, tamanho);
+    }
+
+    private void codificar(Venda venda) {
+        List<Estoque> itens = venda.getItens();
+        byte[] chave = venda.getChaveIdempotencia() == null
+                ? null
+                : venda.getChaveIdempotencia().getBytes(StandardCharsets.UTF_8);
+        reservar(TAMANHO_VENDA + (chave == null ? 0 : chave.length) + itens.size() * TAMANHO_ITEM);
+        conteudo.putLong(venda.getId()).putLong(venda.getCliente().getId());
+        conteudo.putLong(venda.getDataVenda().toEpochSecond(ZoneOffset.UTC)).putInt(venda.getDataVenda().getNano());
+        putValor(venda.getValorTotal());
+        if (chave == null) {
+            conteudo.putInt(-1);
+        } else {
+            conteudo.putInt(chave.length).put(chave);
+        }
+        conteudo.putInt(itens.size());
+        for (Estoque item : itens) {
+            conteudo.putLong(item.getId()).putLong(item.getProduto().getId()).putInt(item.getQuantidade());
+            putValor(item.getPrecoUnitario());
+            putValor(item.getSubtotal());
+        }
+        conteudo.flip();
+    }
+
+    private static VendaDiario decodificar(ByteBuffer registro) {
+        long id = registro.getLong();
+        long clienteId = registro.getLong();
+        LocalDateTime dataVenda = LocalDateTime.ofEpochSecond(registro.getLong(), registro.getInt(), ZoneOffset.UTC);
+        BigDecimal valorTotal = getValor(registro);
+        int tamanhoChave = registro.getInt();
+        String chave = null;
+        if (tamanhoChave >= 0) {
+            byte[] bytes = new byte[tamanhoChave];
+            registro.get(bytes);
+            chave = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        int quantidadeItens = registro.getInt();
+        List<ItemDiario> itens = new ArrayList<>(quantidadeItens);
+        for (int i = 0; i < quantidadeItens; i++) {
+            itens.add(new ItemDiario(registro.getLong(), registro.getLong(), registro.getInt(),
+                    getValor(registro), getValor(registro)));
+        }
+        return new VendaDiario(id, clienteId, dataVenda, valorTotal, chave, itens);
+    }
+
+    private static Desfecho decodificarDesfecho(ByteBuffer registro) {
+        registro.getLong();
+        boolean confirmada = registro.get() == 1;
+        int quantidade = registro.getInt();
+        List<Long> vendaIds = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            vendaIds.add(registro.getLong());
+        }
+        return new Desfecho(vendaIds, confirmada);
+    }
+
+    /**
+     * Valor monetário: [sem escala: long][escala: int] (ex: 19.90 -> 1990, 2)
+     */
+    private void putValor(BigDecimal valor) {
+        conteudo.putLong(valor.unscaledValue().longValueExact()).putInt(valor.scale());
+    }
+
+    private static BigDecimal getValor(ByteBuffer registro) {
+        return BigDecimal.valueOf(registro.getLong(), registro.getInt());
+    }
+
+    private Path caminho(long numero) {
+        return diretorio.resolve(String.format("%s%020d%s", PREFIXO, numero, SUFIXO));
+    }
+}
@@ -0,0 +1,200 @@
+package api.comercio.local.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * FERRAMENTA - DiarioVendasReplay (RECONSTRUÇÃO DAS VENDAS A PARTIR DO DIÁRIO)
+ *
+ * Opcional: executada com comercio.vendas.diario.reconstruir=true
+ *
+ * Lê todos os segmentos do diário de vendas (DiarioVendas), grava vendas e
+ * itens no banco, reconstrói os resumos diários e encerra a aplicação,
+ * informando a vazão da reconstrução:
+ *
+ *   mvn spring-boot:run -Dspring-boot.run.profiles=h2-arquivo \
+ *       -Dspring-boot.run.arguments="--comercio.vendas.diario.reconstruir=true --spring.main.web-application-type=none"
+ *
+ * As vendas são gravadas com MERGE ... KEY (id), com o ID original, em lotes
+ * JDBC de TAMANHO_LOTE vendas por transação. Clientes e produtos não estão no
+ * diário e precisam existir no banco (ex: restaurados de um backup do cadastro).
+ *
+ * Só roda com as tabelas vendas e estoque VAZIAS: o diário guarda apenas as
+ * vendas novas (sem as alterações e exclusões feitas depois por PUT/PATCH/DELETE),
+ * então aplicá-lo sobre um banco existente traria de volta vendas excluídas e
+ * gravaria valores antigos por cima dos alterados. Se a reconstrução parar no
+ * meio, esvazie as duas tabelas antes de rodar de novo.
+ *
+ * Só as vendas com desfecho "confirmada" são gravadas. O diário é lido duas
+ * vezes: a primeira leitura junta os desfechos (que vêm depois das vendas).
+ * Vendas sem desfecho (queda entre a gravação no diário e o commit) não são
+ * gravadas e têm os IDs informados no log para conferência (ver DiarioVendasService).
+ *
+ * No fim, as sequences de vendas e itens passam a gerar IDs maiores que os reconstruídos.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "comercio.vendas.diario.reconstruir", havingValue = "true")
+public class DiarioVendasReplay implements ApplicationRunner {
+
+    private static final int TAMANHO_LOTE = 1_000;
+
+    /**
+     * Mesmo allocationSize das sequences de Venda e Estoque (otimizador "pooled")
+     */
+    private static final int INCREMENTO_SEQUENCE = 50;
+
+    private static final String MERGE_VENDA = """
+            MERGE INTO vendas (id, cliente_id, data_venda, valor_total, chave_idempotencia)
+            KEY (id) VALUES (?, ?, ?, ?, ?)""";
+
+    private static final String MERGE_ITEM = """
+            MERGE INTO estoque (id, venda_id, produto_id, quantidade, preco_unitario, subtotal)
+            KEY (id) VALUES (?, ?, ?, ?, ?, ?)""";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ResumoVendaService resumoVendaService;
+
+    @Autowired
+    private ConfigurableApplicationContext contexto;
+
+    @Value("${comercio.vendas.diario.diretorio:./diario-vendas}")
+    private String diretorio;
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        exigirTabelasVazias();
+
+        DiarioVendas diario = new DiarioVendas(Path.of(diretorio), 0, false);
+        TransactionTemplate transacao = new TransactionTemplate(transactionManager);
+        long inicio = System.nanoTime();
+        List<Long> segmentos = diario.listarSegmentos();
+
+        Set<Long> confirmadas = new HashSet<>();
+        Set<Long> desfeitas = new HashSet<>();
+        for (Long numero : segmentos) {
+            diario.ler(numero, venda -> { },
+                    desfecho -> (desfecho.confirmada() ? confirmadas : desfeitas).addAll(desfecho.vendaIds()));
+        }
+
+        long vendas = 0;
+        AtomicLong itens = new AtomicLong();
+        AtomicLong ignoradas = new AtomicLong();
+        List<Long> semDesfecho = new ArrayList<>();
+        List<DiarioVendas.VendaDiario> lote = new ArrayList<>(TAMANHO_LOTE);
+        for (Long numero : segmentos) {
+            long lidas = diario.ler(numero, venda -> {
+                if (!confirmadas.contains(venda.id())) {
+                    ignoradas.incrementAndGet();
+                    if (!desfeitas.contains(venda.id())) {
+                        semDesfecho.add(venda.id());
+                    }
+                    return;
+                }
+                lote.add(venda);
+                itens.addAndGet(venda.itens().size());
+                if (lote.size() == TAMANHO_LOTE) {
+                    transacao.executeWithoutResult(status -> gravar(lote));
+                    lote.clear();
+                }
+            });
+            vendas += lidas;
+            log.info("Diário de vendas: segmento {} com {} venda(s)", numero, lidas);
+        }
+        if (!lote.isEmpty()) {
+            transacao.executeWithoutResult(status -> gravar(lote));
+        }
+        vendas -= ignoradas.get();
+        log.info("Diário de vendas: {} venda(s) desfeita(s) ignorada(s)", ignoradas.get() - semDesfecho.size());
+        if (!semDesfecho.isEmpty()) {
+            log.warn("Diário de vendas: {} venda(s) sem desfecho não gravada(s), conferir no banco anterior: {}",
+                    semDesfecho.size(), semDesfecho);
+        }
+        double segundosGravacao = (System.nanoTime() - inicio) / 1e9;
+
+        ajustarSequence("vendas_seq", "vendas");
+        ajustarSequence("estoque_seq", "estoque");
+        resumoVendaService.reconstruir();
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+
+        log.info("Diário de vendas reconstruído: {} segmento(s), {} venda(s), {} item(ns) em {} s "
+                        + "({} vendas/s e {} itens/s na gravação; {} s incluindo os resumos)",
+                segmentos.size(), vendas, itens.get(), String.format("%.2f", segundosGravacao),
+                String.format("%.0f", vendas / segundosGravacao), String.format("%.0f", itens.get() / segundosGravacao),
+                String.format("%.2f", segundos));
+
+        System.exit(SpringApplication.exit(contexto, () -> 0));
+    }
+
+    /**
+     * Recusa a reconstrução se já houver vendas ou itens no banco
+     *
+     * @throws IllegalStateException se vendas ou estoque tiverem linhas
+     */
+    private void exigirTabelasVazias() {
+        Long vendas = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM vendas", Long.class);
+        Long itens = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM estoque", Long.class);
+        if (vendas > 0 || itens > 0) {
+            throw new IllegalStateException("Reconstrução pelo diário exige as tabelas vendas e estoque vazias "
+                    + "(encontradas " + vendas + " venda(s) e " + itens + " item(ns)): o diário não registra "
+                    + "alterações nem exclusões e sobrescreveria os dados atuais");
+        }
+    }
+
+    /**
+     * Grava um lote de vendas e os seus itens (dois lotes JDBC, na transação de quem chama)
+     */
+    private void gravar(List<DiarioVendas.VendaDiario> lote) {
+        List<Object[]> vendas = new ArrayList<>(lote.size());
+        List<Object[]> itens = new ArrayList<>();
+        for (DiarioVendas.VendaDiario venda : lote) {
+            vendas.add(new Object[]{venda.id(), venda.clienteId(), Timestamp.valueOf(venda.dataVenda()),
+                    venda.valorTotal(), venda.chaveIdempotencia()});
+            for (DiarioVendas.ItemDiario item : venda.itens()) {
+                itens.add(new Object[]{item.id(), venda.id(), item.produtoId(), item.quantidade(),
+                        item.precoUnitario(), item.subtotal()});
+            }
+        }
+        jdbcTemplate.batchUpdate(MERGE_VENDA, vendas);
+        if (!itens.isEmpty()) {
+            jdbcTemplate.batchUpdate(MERGE_ITEM, itens);
+        }
+    }
+
+    /**
+     * Faz a sequence gerar IDs maiores que o maior ID da tabela
+     *
+     * Com o otimizador "pooled", o valor lido da sequence é o MAIOR ID do bloco
+     * reservado (valor - 49 até valor), então o próximo valor precisa ser
+     * pelo menos o maior ID + 50.
+     */
+    private void ajustarSequence(String sequence, String tabela) {
+        Long maiorId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + tabela, Long.class);
+        jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + (maiorId + INCREMENTO_SEQUENCE));
+    }
+}
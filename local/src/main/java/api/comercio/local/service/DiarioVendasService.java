@@ -0,0 +1,129 @@
+package api.comercio.local.service;
+
+import api.comercio.local.evento.VendasGravadasEvent;
+import api.comercio.local.model.Venda;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * SERVICE - DiarioVendasService (DIÁRIO DE VENDAS EM DISCO)
+ *
+ * Opcional: ativado com comercio.vendas.diario.habilitado=true
+ *
+ * Acrescenta cada venda nova (com os itens) ao diário binário (DiarioVendas)
+ * ANTES do commit, e o desfecho da transação depois dele:
+ *
+ *   POST /api/vendas ──> diário: venda ──> commit ──> diário: desfecho ──> 201
+ *
+ * O diário não lê nem grava nas tabelas: serve de registro das vendas
+ * recebidas e de origem para reconstruir vendas, itens e resumos num banco
+ * vazio (DiarioVendasReplay).
+ *
+ * Toda venda com commit está no diário: se a gravação no diário falhar, a
+ * transação é desfeita (a venda não é gravada no banco). Com
+ * comercio.vendas.diario.fsync-por-registro=true, a venda já está no disco
+ * quando o commit acontece, e o 201 só sai depois do desfecho também estar.
+ *
+ *   - desfecho "confirmada": a venda está no banco
+ *   - desfecho "desfeita": o commit falhou (a venda não está no banco)
+ *   - sem desfecho: o servidor caiu entre a gravação no diário e o desfecho;
+ *     o cliente não recebeu resposta e a venda precisa ser conferida no banco
+ *
+ * Apenas vendas novas são registradas (POST /api/vendas, /lote e /fila);
+ * alterações e exclusões posteriores não entram no diário.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "comercio.vendas.diario.habilitado", havingValue = "true")
+public class DiarioVendasService {
+
+    @Value("${comercio.vendas.diario.diretorio:./diario-vendas}")
+    private String diretorio;
+
+    @Value("${comercio.vendas.diario.tamanho-segmento-mb:64}")
+    private int tamanhoSegmentoMb;
+
+    @Value("${comercio.vendas.diario.fsync-por-registro:false}")
+    private boolean fsyncPorRegistro;
+
+    private DiarioVendas diario;
+
+    /**
+     * INICIALIZAÇÃO: abre um novo segmento depois dos existentes
+     *
+     * Os segmentos anteriores ficam como estão (somente leitura).
+     */
+    @PostConstruct
+    void iniciar() throws IOException {
+        // o segmento é mapeado em memória de uma vez: no máximo Integer.MAX_VALUE bytes
+        long tamanhoSegmento = tamanhoSegmentoMb * 1024L * 1024L;
+        if (tamanhoSegmentoMb <= 0 || tamanhoSegmento > Integer.MAX_VALUE) {
+            throw new IllegalStateException("comercio.vendas.diario.tamanho-segmento-mb deve estar entre 1 e "
+                    + Integer.MAX_VALUE / (1024 * 1024) + " (informado: " + tamanhoSegmentoMb + ")");
+        }
+        diario = new DiarioVendas(Path.of(diretorio), (int) tamanhoSegmento, fsyncPorRegistro);
+        List<Long> segmentos = diario.listarSegmentos();
+        long proximo = segmentos.isEmpty() ? 1 : segmentos.getLast() + 1;
+        diario.abrir(proximo, 0);
+        log.info("Diário de vendas: gravando no segmento {} ({} segmento(s) anterior(es))", proximo, segmentos.size());
+    }
+
+    /**
+     * ACRESCENTA AS VENDAS GRAVADAS AO DIÁRIO
+     *
+     * BEFORE_COMMIT: roda na mesma thread, dentro da transação da venda; uma
+     * exceção aqui desfaz a transação. O desfecho é registrado em afterCompletion,
+     * também antes da resposta HTTP (STATUS_UNKNOWN não registra desfecho: a
+     * venda fica para conferência, como numa queda).
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void aoGravarVendas(VendasGravadasEvent evento) {
+        List<Long> vendaIds = evento.vendas().stream().map(Venda::getId).toList();
+        // registrado antes das vendas: uma falha no meio do lote também recebe o desfecho
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_UNKNOWN) {
+                    diario.registrarDesfecho(vendaIds, status == STATUS_COMMITTED);
+                }
+            }
+        });
+        for (Venda venda : evento.vendas()) {
+            diario.registrar(venda);
+        }
+    }
+
+    /**
+     * SINCRONIZAÇÃO PERIÓDICA
+     *
+     * Força para o disco os registros gravados desde a última execução (quando
+     * não há fsync por registro). Uma queda do sistema operacional perde no
+     * máximo este intervalo; uma queda só da aplicação não perde nada, porque as
+     * páginas mapeadas já pertencem ao sistema operacional.
+     */
+    @Scheduled(fixedDelayString = "${comercio.vendas.diario.intervalo-fsync-ms:200}")
+    public void sincronizar() {
+        diario.sincronizar();
+    }
+
+    /**
+     * ENCERRAMENTO: força para o disco o que restou no segmento atual
+     */
+    @PreDestroy
+    void encerrar() {
+        diario.fechar();
+    }
+}
@@ -0,0 +1,215 @@
+package api.comercio.local.service;
+
+import api.comercio.local.repository.ClienteRepository;
+import api.comercio.local.repository.FornecedorRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Objects;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * SERVICE - DocumentoUnicoService
+ *
+ * Verificação rápida de CPF (clientes) e CNPJ (fornecedores) já cadastrados.
+ *
+ * Antes de cada cadastro, a API verificava no banco se o documento já existia
+ * (existsByCpf / existsByCnpj). Em importações de muitos clientes novos, quase
+ * todas essas consultas respondem "não existe".
+ *
+ * Com um filtro de Bloom em memória (FiltroBloomContagem):
+ *   - "com certeza novo": responde sem consultar o banco
+ *   - "talvez já cadastrado": confirma com existsByCpf / existsByCnpj
+ *
+ * O filtro é montado com todos os documentos do banco quando a aplicação fica
+ * pronta (ApplicationReadyEvent). Até lá, toda verificação vai ao banco.
+ *
+ * A restrição UNIQUE das colunas cpf/cnpj continua sendo a garantia final:
+ * os controllers tratam DataIntegrityViolationException como 409 (Conflict).
+ *
+ * MÉTRICAS (Micrometer, tag "documento" = cpf | cnpj):
+ *   - documentos.filtro.tamanho: posições do filtro
+ *   - documentos.filtro.elementos: documentos adicionados
+ *   - documentos.filtro.falso.positivo.estimado: taxa estimada pela ocupação
+ *   - documentos.filtro.falso.positivo: consultas ao banco em que o documento não existia
+ */
+@Slf4j
+@Service
+public class DocumentoUnicoService {
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private FornecedorRepository fornecedorRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${comercio.documentos.filtro.capacidade:100000}")
+    private int capacidade;
+
+    @Value("${comercio.documentos.filtro.taxa-falso-positivo:0.01}")
+    private double taxaFalsoPositivo;
+
+    private FiltroBloomContagem cpfs;
+    private FiltroBloomContagem cnpjs;
+
+    private Counter falsosPositivosCpf;
+    private Counter falsosPositivosCnpj;
+
+    /**
+     * false até o filtro ser montado com os documentos do banco
+     */
+    private volatile boolean pronto;
+
+    @PostConstruct
+    void iniciar() {
+        cpfs = new FiltroBloomContagem(capacidade, taxaFalsoPositivo);
+        cnpjs = new FiltroBloomContagem(capacidade, taxaFalsoPositivo);
+        falsosPositivosCpf = registrarMetricas("cpf", cpfs);
+        falsosPositivosCnpj = registrarMetricas("cnpj", cnpjs);
+    }
+
+    /**
+     * MONTA OS FILTROS COM OS DOCUMENTOS JÁ CADASTRADOS
+     *
+     * Os CPFs e CNPJs são lidos em Stream (sem carregar as entidades).
+     * Cadastros feitos durante a montagem também entram no filtro
+     * (cpfCadastrado/cnpjCadastrado), então nada se perde.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void reconstruir() {
+        try (Stream<String> documentos = clienteRepository.streamCpfs()) {
+            documentos.forEach(cpfs::adicionar);
+        }
+        try (Stream<String> documentos = fornecedorRepository.streamCnpjs()) {
+            documentos.forEach(cnpjs::adicionar);
+        }
+        pronto = true;
+        log.info("Filtro de documentos montado: {} CPF(s), {} CNPJ(s)", cpfs.elementos(), cnpjs.elementos());
+    }
+
+    /**
+     * VERIFICA SE O CPF JÁ ESTÁ CADASTRADO
+     *
+     * @param cpf - CPF informado no cadastro
+     * @return true se existe um cliente com este CPF
+     */
+    public boolean cpfCadastrado(String cpf) {
+        return verificar(cpf, cpfs, clienteRepository::existsByCpf, falsosPositivosCpf);
+    }
+
+    /**
+     * VERIFICA SE O CNPJ JÁ ESTÁ CADASTRADO
+     *
+     * @param cnpj - CNPJ informado no cadastro
+     * @return true se existe um fornecedor com este CNPJ
+     */
+    public boolean cnpjCadastrado(String cnpj) {
+        return verificar(cnpj, cnpjs, fornecedorRepository::existsByCnpj, falsosPositivosCnpj);
+    }
+
+    /**
+     * Adiciona ao filtro o CPF de um cliente cadastrado
+     */
+    public void registrarCpf(String cpf) {
+        if (cpf != null) {
+            cpfs.adicionar(cpf);
+        }
+    }
+
+    /**
+     * Remove do filtro o CPF de um cliente excluído
+     */
+    public void removerCpf(String cpf) {
+        if (cpf != null) {
+            cpfs.remover(cpf);
+        }
+    }
+
+    /**
+     * Atualiza o filtro quando o CPF de um cliente muda (PUT)
+     */
+    public void trocarCpf(String anterior, String atual) {
+        if (!Objects.equals(anterior, atual)) {
+            removerCpf(anterior);
+            registrarCpf(atual);
+        }
+    }
+
+    /**
+     * Adiciona ao filtro o CNPJ de um fornecedor cadastrado
+     */
+    public void registrarCnpj(String cnpj) {
+        if (cnpj != null) {
+            cnpjs.adicionar(cnpj);
+        }
+    }
+
+    /**
+     * Remove do filtro o CNPJ de um fornecedor excluído
+     */
+    public void removerCnpj(String cnpj) {
+        if (cnpj != null) {
+            cnpjs.remover(cnpj);
+        }
+    }
+
+    /**
+     * Atualiza o filtro quando o CNPJ de um fornecedor muda (PUT)
+     */
+    public void trocarCnpj(String anterior, String atual) {
+        if (!Objects.equals(anterior, atual)) {
+            removerCnpj(anterior);
+            registrarCnpj(atual);
+        }
+    }
+
+    /**
+     * Documento nulo vai direto ao banco (mantém o comportamento de existsByCpf/existsByCnpj)
+     */
+    private boolean verificar(String documento, FiltroBloomContagem filtro,
+                              Predicate<String> existeNoBanco, Counter falsosPositivos) {
+        boolean consultouFiltro = pronto && documento != null;
+        if (consultouFiltro && !filtro.possivelmenteContem(documento)) {
+            return false;
+        }
+
+        boolean existe = existeNoBanco.test(documento);
+        if (consultouFiltro && !existe) {
+            falsosPositivos.increment();
+        }
+        return existe;
+    }
+
+    private Counter registrarMetricas(String documento, FiltroBloomContagem filtro) {
+        Gauge.builder("documentos.filtro.tamanho", filtro, FiltroBloomContagem::tamanho)
+                .tag("documento", documento)
+                .description("Posições (contadores) do filtro de Bloom")
+                .register(meterRegistry);
+        Gauge.builder("documentos.filtro.elementos", filtro, FiltroBloomContagem::elementos)
+                .tag("documento", documento)
+                .description("Documentos adicionados ao filtro de Bloom")
+                .register(meterRegistry);
+        Gauge.builder("documentos.filtro.falso.positivo.estimado", filtro, FiltroBloomContagem::taxaFalsoPositivoEstimada)
+                .tag("documento", documento)
+                .description("Taxa de falso positivo estimada pela ocupação do filtro")
+                .register(meterRegistry);
+        return Counter.builder("documentos.filtro.falso.positivo")
+                .tag("documento", documento)
+                .description("Documentos apontados pelo filtro que não existiam no banco")
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,372 @@
+package api.comercio.local.service;
+
+import api.comercio.local.dto.EstoqueProduto;
+import api.comercio.local.evento.EstoqueAlteradoEvent;
+import api.comercio.local.evento.ProdutoAlteradoEvent;
+import api.comercio.local.model.Produto;
+import api.comercio.local.repository.ProdutoRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * SERVICE - EstoqueBaixoService (ÍNDICE E ALERTAS DE ESTOQUE BAIXO)
+ *
+ * Mantém em memória os produtos ORDENADOS pela quantidade em estoque:
+ *
+ *   (2, #15) (4, #7) (4, #9) (11, #3) (40, #1) ...
+ *   └──── estoque < 10 ────┘
+ *
+ * "Produtos com estoque abaixo de N" é o início do conjunto ordenado
+ * (headSet): O(log n) para achar o ponto de corte, sem varrer a tabela.
+ *
+ * ALERTAS (Server-Sent Events):
+ *   Cada assinante informa o seu limite. Quando uma alteração de estoque faz
+ *   um produto cruzar esse limite, o assinante recebe:
+ *     - "estoque-baixo": o produto ficou abaixo do limite
+ *     - "estoque-normalizado": o produto voltou ao limite ou acima (reposição)
+ *   Ao assinar, o cliente recebe "snapshot" com os produtos já abaixo do limite.
+ *
+ * ATUALIZAÇÃO DO ÍNDICE:
+ *   - montado na inicialização (ApplicationReadyEvent); até lá a consulta vai ao banco
+ *   - ProdutoAlteradoEvent: cadastro, alteração e exclusão de produtos
+ *   - EstoqueAlteradoEvent: baixas de estoque das vendas (ou do ledger de estoque)
+ *
+ * Os eventos de commits diferentes chegam em threads diferentes e podem ser
+ * aplicados fora de ordem (a leitura do banco é feita fora do lock): cada
+ * leitura traz a versão do produto, e uma versão menor ou igual à indexada
+ * é descartada. Produtos excluídos não voltam ao índice por uma leitura
+ * feita antes da exclusão.
+ *
+ * Os envios aos assinantes são feitos por uma thread própria, em ordem: uma
+ * conexão lenta não atrasa o commit das vendas.
+ */
+@Slf4j
+@Service
+public class EstoqueBaixoService {
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    /**
+     * Tempo máximo de uma conexão SSE; o navegador (EventSource) reconecta sozinho
+     */
+    @Value("${comercio.produtos.estoque-baixo.sse-timeout-ms:1800000}")
+    private long timeoutSse;
+
+    /**
+     * Posição de um produto no índice: ordenado por quantidade e depois por ID
+     */
+    private record Posicao(int quantidade, long produtoId) {
+    }
+
+    private static final Comparator<Posicao> POR_QUANTIDADE = Comparator
+            .comparingInt(Posicao::quantidade)
+            .thenComparingLong(Posicao::produtoId);
+
+    /**
+     * Consultas em paralelo (leitura); alterações do índice com exclusividade (escrita)
+     */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final NavigableSet<Posicao> porQuantidade = new TreeSet<>(POR_QUANTIDADE);
+    private final Map<Long, EstoqueProduto> produtos = new HashMap<>();
+
+    /**
+     * IDs de produtos excluídos (os IDs não são reaproveitados pelo banco)
+     */
+    private final Set<Long> removidos = new HashSet<>();
+
+    /**
+     * Produtos alterados enquanto o índice era montado (a montagem não os sobrescreve)
+     */
+    private final Set<Long> alteradosDuranteMontagem = ConcurrentHashMap.newKeySet();
+    private volatile boolean pronto;
+
+    /**
+     * Conexão SSE de um assinante e o limite de estoque que ele acompanha
+     */
+    private record Assinatura(SseEmitter emitter, int limite) {
+    }
+
+    private final List<Assinatura> assinaturas = new CopyOnWriteArrayList<>();
+
+    private final ExecutorService envios = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("estoque-baixo-sse").daemon().factory());
+
+    /**
+     * MONTA O ÍNDICE COM A QUANTIDADE EM ESTOQUE DE TODOS OS PRODUTOS
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void reconstruir() {
+        try (Stream<EstoqueProduto> estoques = produtoRepository.streamEstoques()) {
+            estoques.forEach(estoque -> {
+                if (alteradosDuranteMontagem.contains(estoque.id())) {
+                    return;
+                }
+                lock.writeLock().lock();
+                try {
+                    if (!produtos.containsKey(estoque.id()) && !removidos.contains(estoque.id())) {
+                        indexar(estoque);
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            });
+        }
+        pronto = true;
+        alteradosDuranteMontagem.clear();
+        log.info("Índice de estoque baixo montado: {} produto(s)", produtos.size());
+    }
+
+    /**
+     * PRODUTOS COM ESTOQUE ABAIXO DE UM LIMITE
+     *
+     * O índice escolhe e ordena os produtos; os produtos completos vêm do banco
+     * em uma única consulta pela chave primária.
+     *
+     * @param limite - quantidade de estoque (exclusiva)
+     * @return produtos com quantidadeEstoque < limite, do menor estoque para o maior
+     */
+    public List<Produto> buscarAbaixoDe(int limite) {
+        if (!pronto) {
+            return produtoRepository.findByQuantidadeEstoqueLessThan(limite);
+        }
+
+        List<Long> ids;
+        lock.readLock().lock();
+        try {
+            ids = abaixoDe(limite).stream().map(EstoqueProduto::id).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Produto> porId = produtoRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Produto::getId, Function.identity()));
+        return ids.stream().map(porId::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * ASSINA OS ALERTAS DE UM LIMITE DE ESTOQUE
+     *
+     * O snapshot é enfileirado com o lock de leitura: nenhuma alteração do índice
+     * acontece entre a montagem do snapshot e o registro do assinante, então
+     * nenhum alerta é perdido ou chega antes do snapshot.
+     *
+     * @param limite - quantidade de estoque acompanhada (alerta quando estoque < limite)
+     * @return conexão SSE do assinante
+     */
+    public SseEmitter assinar(int limite) {
+        SseEmitter emitter = new SseEmitter(timeoutSse);
+        Assinatura assinatura = new Assinatura(emitter, limite);
+        emitter.onCompletion(() -> assinaturas.remove(assinatura));
+        emitter.onError(erro -> assinaturas.remove(assinatura));
+        emitter.onTimeout(emitter::complete);
+
+        lock.readLock().lock();
+        try {
+            List<EstoqueProduto> snapshot = pronto
+                    ? abaixoDe(limite)
+                    : produtoRepository.findByQuantidadeEstoqueLessThan(limite).stream()
+                            .map(EstoqueBaixoService::estoqueDe)
+                            .toList();
+            assinaturas.add(assinatura);
+            enviar(assinatura, SseEmitter.event().name("snapshot").data(snapshot));
+        } finally {
+            lock.readLock().unlock();
+        }
+        return emitter;
+    }
+
+    /**
+     * Cadastro, alteração ou exclusão de produto
+     *
+     * fallbackExecution = true: também recebe eventos publicados fora de transação
+     * (ex: ProdutoController, depois do save)
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarProduto(ProdutoAlteradoEvent evento) {
+        if (!pronto) {
+            alteradosDuranteMontagem.add(evento.produtoId());
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (evento.excluido()) {
+                remover(evento.produtoId());
+            } else {
+                Produto produto = evento.produto();
+                atualizar(estoqueDe(produto));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Baixa de estoque confirmada: relê a quantidade dos produtos alterados
+     *
+     * A leitura fica fora do lock (não segura as consultas durante o acesso
+     * ao banco); leituras que chegarem atrasadas são descartadas pela versão
+     */
+    @TransactionalEventListener
+    public void aoAlterarEstoque(EstoqueAlteradoEvent evento) {
+        if (!pronto) {
+            alteradosDuranteMontagem.addAll(evento.produtoIds());
+        }
+
+        List<EstoqueProduto> atuais = produtoRepository.findEstoqueByIdIn(evento.produtoIds());
+        Set<Long> excluidos = new HashSet<>(evento.produtoIds());
+
+        lock.writeLock().lock();
+        try {
+            for (EstoqueProduto atual : atuais) {
+                excluidos.remove(atual.id());
+                atualizar(atual);
+            }
+            excluidos.forEach(this::remover);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Comentário SSE periódico: mantém a conexão aberta em proxies que
+     * derrubam conexões ociosas e detecta assinantes desconectados
+     */
+    @Scheduled(fixedRateString = "${comercio.produtos.estoque-baixo.sse-heartbeat-ms:30000}")
+    public void manterConexoes() {
+        assinaturas.forEach(assinatura -> enviar(assinatura, SseEmitter.event().comment("ping")));
+    }
+
+    /**
+     * Encerra as conexões SSE no início do desligamento
+     *
+     * ContextClosedEvent chega antes da parada do servidor: o desligamento
+     * gracioso não fica esperando as conexões abertas terminarem (só
+     * terminariam pelo timeout de 30 minutos)
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void fecharConexoes() {
+        assinaturas.forEach(assinatura -> assinatura.emitter().complete());
+    }
+
+    @PreDestroy
+    void encerrar() {
+        fecharConexoes();
+        envios.shutdown();
+    }
+
+    /**
+     * Produtos abaixo do limite, do menor estoque para o maior; deve ser chamado com o lock
+     */
+    private List<EstoqueProduto> abaixoDe(int limite) {
+        return porQuantidade.headSet(new Posicao(limite, Long.MIN_VALUE), false).stream()
+                .map(posicao -> produtos.get(posicao.produtoId()))
+                .toList();
+    }
+
+    /**
+     * Grava a nova quantidade e avisa os assinantes cujo limite foi cruzado;
+     * deve ser chamado com o lock de escrita
+     *
+     * Ignora leituras de produtos já excluídos e leituras com versão menor ou
+     * igual à indexada (outro evento já aplicou um estado igual ou mais novo)
+     */
+    private void atualizar(EstoqueProduto atual) {
+        if (removidos.contains(atual.id())) {
+            return;
+        }
+        EstoqueProduto indexado = produtos.get(atual.id());
+        if (indexado != null && indexado.versao() != null && atual.versao() != null
+                && atual.versao() <= indexado.versao()) {
+            return;
+        }
+        EstoqueProduto anterior = indexar(atual);
+        for (Assinatura assinatura : assinaturas) {
+            boolean estavaBaixo = anterior != null && anterior.quantidadeEstoque() < assinatura.limite();
+            boolean estaBaixo = atual.quantidadeEstoque() < assinatura.limite();
+            if (!estavaBaixo && estaBaixo) {
+                enviar(assinatura, SseEmitter.event().name("estoque-baixo").data(atual));
+            } else if (estavaBaixo && !estaBaixo) {
+                enviar(assinatura, SseEmitter.event().name("estoque-normalizado").data(atual));
+            }
+        }
+    }
+
+    /**
+     * Grava a nova quantidade no índice, sem avisar os assinantes; deve ser
+     * chamado com o lock de escrita
+     *
+     * @return quantidade anterior do produto, ou null se ainda não estava no índice
+     */
+    private EstoqueProduto indexar(EstoqueProduto atual) {
+        EstoqueProduto anterior = produtos.put(atual.id(), atual);
+        if (anterior != null) {
+            porQuantidade.remove(new Posicao(anterior.quantidadeEstoque(), anterior.id()));
+        }
+        porQuantidade.add(new Posicao(atual.quantidadeEstoque(), atual.id()));
+        return anterior;
+    }
+
+    /**
+     * Remove um produto excluído; deve ser chamado com o lock de escrita
+     */
+    private void remover(Long produtoId) {
+        removidos.add(produtoId);
+        EstoqueProduto anterior = produtos.remove(produtoId);
+        if (anterior != null) {
+            porQuantidade.remove(new Posicao(anterior.quantidadeEstoque(), anterior.id()));
+        }
+    }
+
+    private static EstoqueProduto estoqueDe(Produto produto) {
+        return new EstoqueProduto(produto.getId(), produto.getNome(), produto.getQuantidadeEstoque(), produto.getVersao());
+    }
+
+    /**
+     * Enfileira um envio; assinantes desconectados são removidos
+     */
+    private void enviar(Assinatura assinatura, SseEmitter.SseEventBuilder evento) {
+        envios.execute(() -> {
+            try {
+                assinatura.emitter().send(evento);
+            } catch (IOException | IllegalStateException e) {
+                assinaturas.remove(assinatura);
+                assinatura.emitter().completeWithError(e);
+            }
+        });
+    }
+}
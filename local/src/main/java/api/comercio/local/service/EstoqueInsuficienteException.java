@@ -0,0 +1,31 @@
+package api.comercio.local.service;
+
+import lombok.Getter;
+
+/**
+ * EXCEÇÃO - EstoqueInsuficienteException
+ *
+ * Lançada quando uma venda pede mais unidades de um produto do que há em estoque.
+ *
+ * Por ser uma RuntimeException, o Spring desfaz (rollback) a transação inteira:
+ * nenhuma venda, item ou baixa de estoque fica gravada.
+ */
+@Getter
+public class EstoqueInsuficienteException extends RuntimeException {
+
+    /**
+     * ID do produto sem estoque suficiente
+     */
+    private final Long produtoId;
+
+    /**
+     * Quantidade solicitada na venda
+     */
+    private final int quantidade;
+
+    public EstoqueInsuficienteException(Long produtoId, int quantidade) {
+        super("Estoque insuficiente para o produto " + produtoId + " (solicitado: " + quantidade + ")");
+        this.produtoId = produtoId;
+        this.quantidade = quantidade;
+    }
+}
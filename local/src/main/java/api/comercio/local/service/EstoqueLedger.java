@@ -0,0 +1,404 @@
+package api.comercio.local.service;
+
+import api.comercio.local.evento.EstoqueAlteradoEvent;
+import api.comercio.local.model.EstoqueLedgerCheckpoint;
+import api.comercio.local.repository.EstoqueLedgerCheckpointRepository;
+import api.comercio.local.repository.EstoqueRepository;
+import api.comercio.local.repository.ProdutoRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * SERVICE - EstoqueLedger (LEDGER DE ESTOQUE EM MEMÓRIA)
+ *
+ * Opcional: ativado com comercio.estoque.ledger.habilitado=true
+ *
+ * Em dias de promoção, poucos produtos recebem milhares de baixas por segundo.
+ * Com o ledger ativo, a verificação de disponibilidade e a reserva de estoque
+ * acontecem na memória, e o banco recebe apenas a SOMA das baixas de cada
+ * intervalo (write-behind):
+ *
+ *   venda ──> reservar() ──> saldo em memória (compare-and-set, sem lock)
+ *         ──> registrar() ──> diário em disco (append-only), ANTES do commit
+ *
+ *   a cada N ms ──> descarregar() ──> UPDATE produtos SET quantidade_estoque = quantidade_estoque - <soma>
+ *
+ * RECUPERAÇÃO APÓS QUEDA:
+ *   Cada baixa vai para o diário (EstoqueLedgerDiario) antes do commit da venda,
+ *   com o ID do item de venda. Na inicialização, os segmentos do diário ainda não
+ *   aplicados são lidos e só entram as baixas cujo item existe no banco: o item
+ *   existe se, e somente se, a venda chegou ao commit. A recuperação depende
+ *   apenas do que está em disco (diário e banco). O checkpoint
+ *   (EstoqueLedgerCheckpoint) é atualizado na mesma transação que aplica um
+ *   segmento, então nenhum segmento é aplicado duas vezes.
+ *
+ *   Durante a execução, o resultado de cada transação é conhecido em memória:
+ *   um segmento só é aplicado depois que todas as suas transações terminaram,
+ *   e os itens das transações desfeitas são ignorados.
+ *
+ *   Limites: com fsync-por-registro=false, os registros ainda não forçados em
+ *   disco se perdem se o sistema operacional cair (uma queda só da aplicação não
+ *   perde nada). Um item excluído entre a queda e a recuperação não é aplicado.
+ *
+ * SALDO EM MEMÓRIA:
+ *   disponivel = quantidade_estoque no banco - baixas ainda não aplicadas (pendente)
+ *
+ *   Os dois contadores ficam em um único AtomicLong, alterado com compare-and-set:
+ *   uma reserva e uma recarga nunca veem um sem o outro.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "comercio.estoque.ledger.habilitado", havingValue = "true")
+public class EstoqueLedger {
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private EstoqueRepository estoqueRepository;
+
+    @Autowired
+    private EstoqueLedgerCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${comercio.estoque.ledger.diretorio:./ledger}")
+    private String diretorio;
+
+    @Value("${comercio.estoque.ledger.fsync-por-registro:false}")
+    private boolean fsyncPorRegistro;
+
+    /**
+     * Saldo de cada produto já consultado, por ID
+     */
+    private final Map<Long, Saldo> saldos = new ConcurrentHashMap<>();
+
+    /**
+     * Impede que duas descargas (ou uma descarga e uma recarga) rodem ao mesmo tempo.
+     * As reservas NÃO usam este lock.
+     */
+    private final ReentrantLock lockDescarga = new ReentrantLock();
+
+    private EstoqueLedgerDiario diario;
+    private TransactionTemplate transacao;
+
+    /**
+     * Itens consultados por comando na recuperação (WHERE id IN (...))
+     */
+    private static final int ITENS_POR_CONSULTA = 1_000;
+
+    /**
+     * SALDO DE UM PRODUTO
+     *
+     * Um único long com os dois contadores (alterados juntos com compare-and-set):
+     *   32 bits altos: disponivel - quantidade que ainda pode ser vendida
+     *   32 bits baixos: pendente - baixas aceitas que ainda não foram aplicadas no banco
+     */
+    private static final class Saldo {
+        private final AtomicLong estado;
+
+        private Saldo(int quantidadeEstoque) {
+            this.estado = new AtomicLong(estado(quantidadeEstoque, 0));
+        }
+
+        private static long estado(int disponivel, int pendente) {
+            return ((long) disponivel << 32) | (pendente & 0xFFFFFFFFL);
+        }
+
+        private static int disponivel(long estado) {
+            return (int) (estado >> 32);
+        }
+
+        private static int pendente(long estado) {
+            return (int) estado;
+        }
+
+        /**
+         * Soma aos dois contadores de uma vez
+         */
+        private void somar(int disponivel, int pendente) {
+            estado.getAndUpdate(atual ->
+                    estado(disponivel(atual) + disponivel, pendente(atual) + pendente));
+        }
+    }
+
+    /**
+     * INICIALIZAÇÃO: aplica os segmentos que ficaram no diário e abre um novo segmento
+     */
+    @PostConstruct
+    void iniciar() throws IOException {
+        transacao = new TransactionTemplate(transactionManager);
+
+        Path pasta = Path.of(diretorio);
+        Files.createDirectories(pasta);
+        diario = new EstoqueLedgerDiario(pasta, fsyncPorRegistro);
+
+        List<Long> segmentos = diario.listarSegmentos();
+        for (Long numero : segmentos) {
+            aplicarSegmento(numero, true);
+        }
+        if (!segmentos.isEmpty()) {
+            log.info("Ledger de estoque: {} segmento(s) do diário recuperado(s)", segmentos.size());
+        }
+
+        // O próximo segmento precisa ser maior que qualquer um já aplicado
+        long ultimo = Math.max(segmentos.isEmpty() ? 0 : segmentos.getLast(), ultimoSegmentoAplicado());
+        diario.abrir(ultimo + 1);
+    }
+
+    /**
+     * RESERVA ESTOQUE DE UM PRODUTO
+     *
+     * Verifica e desconta o saldo em memória com compare-and-set (sem bloquear
+     * outras threads). O movimento vai para o diário em registrar(), ainda
+     * dentro da transação da venda.
+     *
+     * @param produtoId - ID do produto
+     * @param quantidade - quantidade a reservar
+     * @return true se a reserva foi aceita, false se não há saldo (ou o produto não existe)
+     */
+    public boolean reservar(Long produtoId, int quantidade) {
+        Saldo saldo = saldo(produtoId);
+        if (saldo == null) {
+            return false;
+        }
+
+        long atual;
+        do {
+            atual = saldo.estado.get();
+            if (Saldo.disponivel(atual) < quantidade) {
+                return false;
+            }
+        } while (!saldo.estado.compareAndSet(atual,
+                Saldo.estado(Saldo.disponivel(atual) - quantidade, Saldo.pendente(atual) + quantidade)));
+        return true;
+    }
+
+    /**
+     * GRAVA NO DIÁRIO AS BAIXAS JÁ RESERVADAS DE UMA TRANSAÇÃO (antes do commit)
+     *
+     * @param movimentos - uma baixa por item de venda (o item já tem ID)
+     * @return número do segmento, a ser informado em concluir()
+     */
+    long registrar(List<EstoqueLedgerDiario.Movimento> movimentos) {
+        return diario.registrar(movimentos);
+    }
+
+    /**
+     * INFORMA O FIM DA TRANSAÇÃO QUE CHAMOU registrar()
+     *
+     * Se a transação foi desfeita, os itens não são aplicados no banco; as
+     * reservas são devolvidas por quem as fez (devolver()).
+     *
+     * @param segmento - número devolvido por registrar()
+     * @param movimentos - os mesmos movimentos registrados
+     * @param confirmada - true se houve commit
+     */
+    void concluir(long segmento, List<EstoqueLedgerDiario.Movimento> movimentos, boolean confirmada) {
+        diario.concluir(segmento, movimentos, confirmada);
+    }
+
+    /**
+     * DEVOLVE UMA RESERVA NÃO CONFIRMADA (ex: a transação da venda foi desfeita)
+     *
+     * Só altera o saldo em memória.
+     *
+     * @param produtoId - ID do produto
+     * @param quantidade - quantidade reservada anteriormente
+     */
+    public void devolver(Long produtoId, int quantidade) {
+        Saldo saldo = saldos.get(produtoId);
+        if (saldo != null) {
+            saldo.somar(quantidade, -quantidade);
+        }
+    }
+
+    /**
+     * CONSULTA A QUANTIDADE DISPONÍVEL (sem ir ao banco, exceto na primeira consulta do produto)
+     *
+     * @param produtoId - ID do produto
+     * @return Optional com a quantidade disponível, ou Optional.empty() se o produto não existir
+     */
+    public Optional<Integer> disponivel(Long produtoId) {
+        return Optional.ofNullable(saldo(produtoId)).map(saldo -> Saldo.disponivel(saldo.estado.get()));
+    }
+
+    /**
+     * RECARREGA O SALDO DE UM PRODUTO APÓS UMA ALTERAÇÃO DIRETA NO BANCO
+     *
+     * Chamado quando o produto é atualizado pela API (ex: reposição de estoque via PUT).
+     * O novo saldo continua descontando as baixas ainda não aplicadas.
+     *
+     * lockDescarga: nenhum segmento é aplicado entre a leitura do banco e a
+     * troca do saldo. O disponível é recalculado com o pendente do momento da
+     * troca (no mesmo compare-and-set), então uma reserva feita no meio continua descontada.
+     *
+     * @param produtoId - ID do produto alterado
+     */
+    public void recarregar(Long produtoId) {
+        lockDescarga.lock();
+        try {
+            Saldo saldo = saldos.get(produtoId);
+            if (saldo == null) {
+                return;
+            }
+            produtoRepository.findQuantidadeEstoqueById(produtoId).ifPresentOrElse(
+                    quantidade -> saldo.estado.getAndUpdate(atual ->
+                            Saldo.estado(quantidade - Saldo.pendente(atual), Saldo.pendente(atual))),
+                    () -> saldos.remove(produtoId));
+        } finally {
+            lockDescarga.unlock();
+        }
+    }
+
+    /**
+     * Remove o saldo de um produto excluído
+     */
+    public void remover(Long produtoId) {
+        saldos.remove(produtoId);
+    }
+
+    /**
+     * DESCARGA PERIÓDICA (WRITE-BEHIND)
+     *
+     * @Scheduled(fixedDelay): roda a cada N ms, contados do fim da execução anterior
+     *
+     * Fecha o segmento atual do diário e aplica no banco os segmentos fechados,
+     * em ordem. Para no primeiro segmento com transações ainda abertas (ele e os
+     * seguintes ficam para a próxima execução). Se o banco estiver indisponível,
+     * os segmentos continuam em disco e são aplicados na próxima execução.
+     */
+    @Scheduled(fixedDelayString = "${comercio.estoque.ledger.intervalo-flush-ms:200}")
+    public void descarregar() {
+        lockDescarga.lock();
+        try {
+            diario.rotacionar();
+            for (Long numero : diario.listarSegmentos()) {
+                if (numero >= diario.getNumeroAtual() || !diario.pronto(numero)) {
+                    break;
+                }
+                aplicarSegmento(numero, false);
+            }
+        } catch (Exception e) {
+            log.warn("Ledger de estoque: falha ao aplicar o diário no banco, nova tentativa no próximo ciclo", e);
+        } finally {
+            lockDescarga.unlock();
+        }
+    }
+
+    /**
+     * ENCERRAMENTO: aplica o que restou no diário antes de desligar
+     */
+    @PreDestroy
+    void encerrar() throws IOException {
+        descarregar();
+        diario.fechar();
+    }
+
+    /**
+     * APLICA UM SEGMENTO DO DIÁRIO NO BANCO
+     *
+     * Em uma única transação:
+     *   - um UPDATE por produto com a soma dos movimentos do segmento
+     *   - atualização do checkpoint com o número do segmento
+     *   - EstoqueAlteradoEvent com os produtos alterados (tratado após o commit)
+     * Segmentos com número menor ou igual ao checkpoint já foram aplicados e são só apagados.
+     *
+     * @param numero - número do segmento
+     * @param recuperacao - true na inicialização: só entram os itens que existem no banco;
+     *                      false durante a execução: entram todos, exceto os de transações desfeitas
+     */
+    private void aplicarSegmento(long numero, boolean recuperacao) throws IOException {
+        List<EstoqueLedgerDiario.Movimento> movimentos = diario.ler(numero);
+        Set<Long> desfeitos = recuperacao ? Set.of() : diario.desfeitos(numero);
+
+        Map<Long, Integer> totais = new TreeMap<>();
+        Boolean aplicado = transacao.execute(status -> {
+            EstoqueLedgerCheckpoint checkpoint = checkpointRepository.findById(EstoqueLedgerCheckpoint.ID_UNICO)
+                    .orElseGet(() -> new EstoqueLedgerCheckpoint(EstoqueLedgerCheckpoint.ID_UNICO, 0L));
+            if (checkpoint.getUltimoSegmento() >= numero) {
+                return false;
+            }
+
+            Set<Long> gravados = recuperacao ? itensGravados(movimentos) : null;
+            for (EstoqueLedgerDiario.Movimento movimento : movimentos) {
+                boolean aplicar = recuperacao
+                        ? gravados.contains(movimento.itemId())
+                        : !desfeitos.contains(movimento.itemId());
+                if (aplicar) {
+                    totais.merge(movimento.produtoId(), movimento.quantidade(), Integer::sum);
+                }
+            }
+            totais.values().removeIf(total -> total == 0);
+
+            totais.forEach(produtoRepository::aplicarMovimentoEstoque);
+            checkpoint.setUltimoSegmento(numero);
+            checkpointRepository.save(checkpoint);
+            eventPublisher.publishEvent(new EstoqueAlteradoEvent(Set.copyOf(totais.keySet())));
+            return true;
+        });
+
+        if (Boolean.TRUE.equals(aplicado)) {
+            totais.forEach((produtoId, total) -> {
+                Saldo saldo = saldos.get(produtoId);
+                if (saldo != null) {
+                    saldo.somar(0, -total);
+                }
+            });
+        }
+        diario.apagar(numero);
+    }
+
+    /**
+     * IDs dos itens do segmento que existem no banco (vendas que chegaram ao commit)
+     */
+    private Set<Long> itensGravados(List<EstoqueLedgerDiario.Movimento> movimentos) {
+        List<Long> ids = movimentos.stream().map(EstoqueLedgerDiario.Movimento::itemId).distinct().toList();
+        Set<Long> gravados = new HashSet<>();
+        for (int inicio = 0; inicio < ids.size(); inicio += ITENS_POR_CONSULTA) {
+            gravados.addAll(estoqueRepository.findIdsExistentes(
+                    ids.subList(inicio, Math.min(inicio + ITENS_POR_CONSULTA, ids.size()))));
+        }
+        return gravados;
+    }
+
+    private long ultimoSegmentoAplicado() {
+        return checkpointRepository.findById(EstoqueLedgerCheckpoint.ID_UNICO)
+                .map(EstoqueLedgerCheckpoint::getUltimoSegmento)
+                .orElse(0L);
+    }
+
+    /**
+     * Busca o saldo em memória; na primeira consulta do produto, carrega do banco
+     */
+    private Saldo saldo(Long produtoId) {
+        return saldos.computeIfAbsent(produtoId, id ->
+                produtoRepository.findQuantidadeEstoqueById(id).map(Saldo::new).orElse(null));
+    }
+}
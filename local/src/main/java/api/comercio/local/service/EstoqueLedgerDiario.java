@@ -0,0 +1,272 @@
+package api.comercio.local.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * DIÁRIO (APPEND-ONLY LOG) DO LEDGER DE ESTOQUE
+ *
+ * Guarda em disco cada baixa reservada ANTES do commit da venda, identificada
+ * pelo ID do item de venda (estoque.id). Se a aplicação cair, os movimentos
+ * ainda não aplicados são lidos daqui na próxima inicialização, e só entram
+ * os itens que existem no banco (a venda chegou ao commit).
+ *
+ * O diário é dividido em SEGMENTOS (um arquivo por intervalo de flush):
+ *   estoque-ledger-00000000000000000001.log
+ *   estoque-ledger-00000000000000000002.log  <- segmento atual (recebendo registros)
+ *
+ * Cada registro tem tamanho fixo de 20 bytes:
+ *   [itemId: long (8 bytes)][produtoId: long (8 bytes)][quantidade: int (4 bytes)]
+ *
+ * Um registro incompleto no fim do arquivo (queda no meio da escrita) é ignorado.
+ *
+ * Em memória, cada segmento guarda quantas transações gravaram nele e ainda não
+ * terminaram, e os itens das que foram desfeitas (rollback): um segmento só é
+ * aplicado quando todas as suas transações terminaram.
+ */
+class EstoqueLedgerDiario {
+
+    private static final String PREFIXO = "estoque-ledger-";
+    private static final String SUFIXO = ".log";
+    private static final int TAMANHO_REGISTRO = Long.BYTES + Long.BYTES + Integer.BYTES;
+
+    /**
+     * Uma baixa do diário
+     *
+     * @param itemId - ID do item de venda (estoque.id) que gerou a baixa
+     * @param produtoId - ID do produto
+     * @param quantidade - quantidade baixada
+     */
+    record Movimento(long itemId, long produtoId, int quantidade) {
+    }
+
+    /**
+     * Situação em memória de um segmento gravado por esta execução
+     */
+    private static final class EstadoSegmento {
+        private int emAndamento;
+        private final Set<Long> desfeitos = new HashSet<>();
+    }
+
+    private final Path diretorio;
+
+    /**
+     * true: força a gravação em disco (fsync) a cada venda, antes do commit - baixa durável, mais lenta
+     * false: força a gravação apenas ao fechar o segmento (a cada flush do ledger)
+     */
+    private final boolean fsyncPorRegistro;
+
+    /**
+     * ReentrantLock ao invés de synchronized: não prende a thread de plataforma
+     * quando a requisição roda em uma virtual thread
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Segmentos com transações ainda abertas ou desfeitas (protegido por "lock")
+     */
+    private final Map<Long, EstadoSegmento> estados = new HashMap<>();
+
+    private FileChannel segmentoAtual;
+    private long numeroAtual;
+
+    EstoqueLedgerDiario(Path diretorio, boolean fsyncPorRegistro) {
+        this.diretorio = diretorio;
+        this.fsyncPorRegistro = fsyncPorRegistro;
+    }
+
+    /**
+     * Lista os segmentos existentes no diretório, em ordem crescente de número
+     */
+    List<Long> listarSegmentos() {
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            return arquivos
+                    .map(arquivo -> arquivo.getFileName().toString())
+                    .filter(nome -> nome.startsWith(PREFIXO) && nome.endsWith(SUFIXO))
+                    .map(nome -> Long.parseLong(nome.substring(PREFIXO.length(), nome.length() - SUFIXO.length())))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Abre um novo segmento para receber registros
+     *
+     * @param numero - número do novo segmento (maior que todos os existentes)
+     */
+    void abrir(long numero) throws IOException {
+        Files.createDirectories(diretorio);
+        segmentoAtual = FileChannel.open(caminho(numero),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        numeroAtual = numero;
+    }
+
+    /**
+     * ACRESCENTA AS BAIXAS DE UMA TRANSAÇÃO AO SEGMENTO ATUAL
+     *
+     * Chamado antes do commit. Quem grava chama concluir() quando a transação
+     * termina; até lá o segmento não é aplicado no banco.
+     *
+     * @param movimentos - baixas da transação (uma por item de venda)
+     * @return número do segmento em que os movimentos foram gravados
+     */
+    long registrar(List<Movimento> movimentos) {
+        ByteBuffer buffer = ByteBuffer.allocate(movimentos.size() * TAMANHO_REGISTRO);
+        for (Movimento movimento : movimentos) {
+            buffer.putLong(movimento.itemId()).putLong(movimento.produtoId()).putInt(movimento.quantidade());
+        }
+        buffer.flip();
+
+        lock.lock();
+        try {
+            while (buffer.hasRemaining()) {
+                segmentoAtual.write(buffer);
+            }
+            if (fsyncPorRegistro) {
+                segmentoAtual.force(false);
+            }
+            estados.computeIfAbsent(numeroAtual, numero -> new EstadoSegmento()).emAndamento++;
+            return numeroAtual;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao gravar o diário do ledger de estoque", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * REGISTRA O FIM DA TRANSAÇÃO QUE GRAVOU MOVIMENTOS
+     *
+     * @param segmento - número devolvido por registrar()
+     * @param movimentos - os mesmos movimentos gravados
+     * @param confirmada - true se houve commit; false se foi desfeita (os itens são ignorados na aplicação)
+     */
+    void concluir(long segmento, List<Movimento> movimentos, boolean confirmada) {
+        lock.lock();
+        try {
+            EstadoSegmento estado = estados.get(segmento);
+            estado.emAndamento--;
+            if (!confirmada) {
+                movimentos.forEach(movimento -> estado.desfeitos.add(movimento.itemId()));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * true se todas as transações que gravaram no segmento já terminaram
+     */
+    boolean pronto(long numero) {
+        lock.lock();
+        try {
+            EstadoSegmento estado = estados.get(numero);
+            return estado == null || estado.emAndamento == 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Itens de transações desfeitas gravados no segmento (não devem ser aplicados)
+     */
+    Set<Long> desfeitos(long numero) {
+        lock.lock();
+        try {
+            EstadoSegmento estado = estados.get(numero);
+            return estado == null ? Set.of() : Set.copyOf(estado.desfeitos);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * FECHA O SEGMENTO ATUAL E ABRE O PRÓXIMO
+     *
+     * Os registros seguintes vão para o novo segmento; o segmento fechado
+     * fica pronto para ser aplicado no banco.
+     *
+     * @return número do segmento fechado, ou -1 se o segmento atual estava vazio
+     */
+    long rotacionar() throws IOException {
+        lock.lock();
+        try {
+            if (segmentoAtual.size() == 0) {
+                return -1;
+            }
+            long fechado = numeroAtual;
+            segmentoAtual.force(false);
+            segmentoAtual.close();
+            abrir(fechado + 1);
+            return fechado;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * LÊ OS MOVIMENTOS DE UM SEGMENTO, NA ORDEM EM QUE FORAM GRAVADOS
+     *
+     * @param numero - número do segmento
+     * @return movimentos completos do segmento
+     */
+    List<Movimento> ler(long numero) throws IOException {
+        ByteBuffer conteudo = ByteBuffer.wrap(Files.readAllBytes(caminho(numero)));
+        List<Movimento> movimentos = new ArrayList<>(conteudo.remaining() / TAMANHO_REGISTRO);
+        while (conteudo.remaining() >= TAMANHO_REGISTRO) {
+            movimentos.add(new Movimento(conteudo.getLong(), conteudo.getLong(), conteudo.getInt()));
+        }
+        return movimentos;
+    }
+
+    /**
+     * Apaga um segmento já aplicado no banco
+     */
+    void apagar(long numero) throws IOException {
+        Files.deleteIfExists(caminho(numero));
+        lock.lock();
+        try {
+            estados.remove(numero);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Fecha o segmento atual (encerramento da aplicação)
+     */
+    void fechar() throws IOException {
+        lock.lock();
+        try {
+            if (segmentoAtual != null && segmentoAtual.isOpen()) {
+                segmentoAtual.force(false);
+                segmentoAtual.close();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long getNumeroAtual() {
+        return numeroAtual;
+    }
+
+    private Path caminho(long numero) {
+        return diretorio.resolve(String.format("%s%020d%s", PREFIXO, numero, SUFIXO));
+    }
+}
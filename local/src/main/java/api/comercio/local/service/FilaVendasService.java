@@ -0,0 +1,273 @@
+package api.comercio.local.service;
+
+import api.comercio.local.dto.SituacaoVendaFila;
+import api.comercio.local.model.Venda;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SERVICE - FilaVendasService (GRAVAÇÃO ASSÍNCRONA DE VENDAS COM GROUP COMMIT)
+ *
+ * Opcional: ativado com comercio.vendas.fila.habilitada=true
+ *
+ * Em POST /api/vendas cada venda paga o seu próprio commit (e o fsync do banco).
+ * Nos horários de pico, POST /api/vendas/fila apenas valida a venda, coloca na
+ * fila em memória e responde 202 (Accepted) com um ID de acompanhamento:
+ *
+ *   requisição ──> validar ──> fila (limitada) ──> 202 + ID
+ *
+ *   escritor (uma thread) ──> retira TODAS as vendas que chegaram enquanto
+ *                             gravava o lote anterior (até lote-maximo)
+ *                         ──> VendaService.registrarLote: um único commit
+ *
+ * O lote cresce sozinho com a carga: com pouco movimento cada venda é gravada
+ * logo (lote de 1); com muito movimento, centenas de vendas dividem o mesmo commit.
+ *
+ * CONTROLE DE FLUXO: a fila tem capacidade fixa. Cheia, a venda é recusada na
+ * hora (503 + Retry-After no controller) em vez de acumular memória.
+ *
+ * VENDA RECUSADA NO LOTE: registrarLote é tudo ou nada. Se o lote falhar
+ * (ex: estoque insuficiente em uma venda), as vendas do lote são gravadas uma
+ * a uma, e só a venda com problema fica RECUSADA.
+ *
+ * ATENÇÃO: as vendas na fila ficam só em memória até o commit. Se o servidor
+ * cair, as vendas ainda PENDENTES são perdidas; o terminal deve consultar
+ * GET /api/vendas/fila/{id} e reenviar o que não chegou a GRAVADA.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "comercio.vendas.fila.habilitada", havingValue = "true")
+public class FilaVendasService {
+
+    @Autowired
+    private VendaService vendaService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Quantidade máxima de vendas aguardando gravação
+     */
+    @Value("${comercio.vendas.fila.capacidade:10000}")
+    private int capacidade;
+
+    /**
+     * Quantidade máxima de vendas por transação
+     */
+    @Value("${comercio.vendas.fila.lote-maximo:500}")
+    private int loteMaximo;
+
+    /**
+     * Tempo que a situação de cada venda fica disponível para consulta
+     */
+    @Value("${comercio.vendas.fila.situacao-validade-minutos:60}")
+    private long situacaoValidadeMinutos;
+
+    private BlockingQueue<Pendente> fila;
+
+    /**
+     * ID de acompanhamento -> situação da venda
+     */
+    private Cache<String, SituacaoVendaFila> situacoes;
+
+    private Thread escritor;
+    private volatile boolean ativa;
+
+    private Counter transacoes;
+    private Counter gravadas;
+    private Counter recusadas;
+    private DistributionSummary tamanhoLote;
+
+    /**
+     * Venda aguardando gravação
+     *
+     * @param id - ID de acompanhamento
+     * @param venda - venda validada
+     * @param concluida - completado com a situação final (GRAVADA ou RECUSADA)
+     */
+    record Pendente(String id, Venda venda, CompletableFuture<SituacaoVendaFila> concluida) {
+    }
+
+    @PostConstruct
+    void iniciar() {
+        fila = new ArrayBlockingQueue<>(capacidade);
+        situacoes = Caffeine.newBuilder()
+                .maximumSize(Math.max(capacidade * 10L, 100_000L))
+                .expireAfterWrite(Duration.ofMinutes(situacaoValidadeMinutos))
+                .build();
+
+        Gauge.builder("vendas.fila.tamanho", fila, BlockingQueue::size)
+                .description("Vendas aguardando gravação")
+                .register(meterRegistry);
+        transacoes = Counter.builder("vendas.fila.transacoes")
+                .description("Transações (commits) feitas pelo escritor da fila")
+                .register(meterRegistry);
+        gravadas = Counter.builder("vendas.fila.gravadas")
+                .description("Vendas da fila gravadas")
+                .register(meterRegistry);
+        recusadas = Counter.builder("vendas.fila.recusadas")
+                .description("Vendas da fila recusadas na gravação")
+                .register(meterRegistry);
+        tamanhoLote = DistributionSummary.builder("vendas.fila.lote")
+                .description("Vendas gravadas por transação")
+                .register(meterRegistry);
+
+        ativa = true;
+        escritor = Thread.ofPlatform().name("fila-vendas").start(this::gravarContinuamente);
+    }
+
+    /**
+     * ENCERRAMENTO: para de aceitar vendas e espera o escritor gravar o que restou na fila
+     */
+    @PreDestroy
+    void encerrar() throws InterruptedException {
+        ativa = false;
+        escritor.join();
+    }
+
+    /**
+     * VALIDA A VENDA E COLOCA NA FILA
+     *
+     * @param venda - venda recebida no corpo da requisição
+     * @return ID de acompanhamento, ou Optional.empty() se a fila estiver cheia
+     * @throws IllegalArgumentException se a venda estiver incompleta
+     */
+    public Optional<String> enfileirar(Venda venda) {
+        return colocarNaFila(venda).map(Pendente::id);
+    }
+
+    /**
+     * Mesmo que enfileirar, devolvendo também o aviso de conclusão (usado pelo benchmark)
+     */
+    Optional<Pendente> colocarNaFila(Venda venda) {
+        vendaService.validarVenda(venda);
+        if (!ativa) {
+            return Optional.empty();
+        }
+
+        Pendente pendente = new Pendente(UUID.randomUUID().toString(), venda, new CompletableFuture<>());
+        situacoes.put(pendente.id(), SituacaoVendaFila.pendente(pendente.id()));
+        if (!fila.offer(pendente)) {
+            situacoes.invalidate(pendente.id());
+            return Optional.empty();
+        }
+        return Optional.of(pendente);
+    }
+
+    /**
+     * Situação de uma venda recebida pela fila
+     *
+     * @param id - ID de acompanhamento
+     * @return situação, ou Optional.empty() se o ID não existir ou já tiver expirado
+     */
+    public Optional<SituacaoVendaFila> buscarSituacao(String id) {
+        return Optional.ofNullable(situacoes.getIfPresent(id));
+    }
+
+    /**
+     * Laço do escritor: espera a primeira venda e leva junto todas as que já estão na fila
+     */
+    private void gravarContinuamente() {
+        List<Pendente> lote = new ArrayList<>(loteMaximo);
+        while (ativa || !fila.isEmpty()) {
+            Pendente primeira;
+            try {
+                primeira = fila.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (primeira == null) {
+                continue;
+            }
+
+            lote.add(primeira);
+            fila.drainTo(lote, loteMaximo - 1);
+            try {
+                gravar(lote);
+            } catch (RuntimeException e) {
+                // Não deveria acontecer (gravarSozinha trata as falhas), mas o escritor não pode parar
+                log.error("Fila de vendas: falha inesperada ao gravar um lote de {} venda(s)", lote.size(), e);
+            }
+            lote.clear();
+        }
+    }
+
+    /**
+     * Grava o lote em uma única transação; se falhar, grava uma venda por vez
+     */
+    private void gravar(List<Pendente> lote) {
+        List<Venda> vendas = lote.stream().map(Pendente::venda).toList();
+        List<Long> ids;
+        try {
+            ids = vendaService.registrarLote(vendas);
+        } catch (RuntimeException e) {
+            log.debug("Fila de vendas: lote de {} venda(s) recusado, gravando uma a uma", lote.size(), e);
+            lote.forEach(this::gravarSozinha);
+            return;
+        }
+
+        transacoes.increment();
+        tamanhoLote.record(lote.size());
+        for (int i = 0; i < lote.size(); i++) {
+            concluir(lote.get(i), SituacaoVendaFila.gravada(lote.get(i).id(), ids.get(i)));
+        }
+    }
+
+    private void gravarSozinha(Pendente pendente) {
+        Venda venda = pendente.venda();
+        // IDs reservados pela tentativa em lote (desfeita no rollback)
+        venda.setId(null);
+        venda.getItens().forEach(item -> item.setId(null));
+
+        SituacaoVendaFila situacao;
+        try {
+            situacao = SituacaoVendaFila.gravada(pendente.id(), vendaService.registrar(venda).getId());
+            transacoes.increment();
+            tamanhoLote.record(1);
+        } catch (EstoqueInsuficienteException e) {
+            situacao = SituacaoVendaFila.recusada(pendente.id(), "Estoque insuficiente");
+        } catch (IllegalArgumentException e) {
+            situacao = SituacaoVendaFila.recusada(pendente.id(), e.getMessage());
+        } catch (DataIntegrityViolationException | ConstraintViolationException e) {
+            situacao = SituacaoVendaFila.recusada(pendente.id(), "Cliente ou produto inexistente");
+        } catch (RuntimeException e) {
+            log.error("Fila de vendas: falha ao gravar a venda {}", pendente.id(), e);
+            situacao = SituacaoVendaFila.recusada(pendente.id(), "Falha ao gravar a venda");
+        }
+        concluir(pendente, situacao);
+    }
+
+    private void concluir(Pendente pendente, SituacaoVendaFila situacao) {
+        if (situacao.estado() == SituacaoVendaFila.Estado.GRAVADA) {
+            gravadas.increment();
+        } else {
+            recusadas.increment();
+        }
+        situacoes.put(pendente.id(), situacao);
+        pendente.concluida().complete(situacao);
+    }
+}
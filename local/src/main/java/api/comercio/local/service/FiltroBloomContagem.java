@@ -0,0 +1,162 @@
+package api.comercio.local.service;
+
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * FILTRO DE BLOOM COM CONTADORES (COUNTING BLOOM FILTER)
+ *
+ * Estrutura probabilística que responde "este valor já foi adicionado?" usando
+ * pouca memória e sem acessar o banco:
+ *   - false: o valor com certeza NUNCA foi adicionado
+ *   - true: o valor PROVAVELMENTE foi adicionado (pode ser um falso positivo)
+ *
+ * Cada valor marca "funcoesHash" posições do vetor. Ao invés de 1 bit por posição,
+ * cada posição guarda um contador (1 byte), o que permite REMOVER valores
+ * (ex: cliente excluído) decrementando os mesmos contadores.
+ *
+ * Dimensionamento (fórmulas clássicas):
+ *   posições = -capacidade * ln(taxaFalsoPositivo) / (ln 2)²
+ *   funcoesHash = posições / capacidade * ln 2
+ *
+ * Um contador que chega a 255 fica fixo (não é mais decrementado).
+ * Acima da capacidade prevista a taxa de falso positivo cresce (ver taxaFalsoPositivoEstimada).
+ */
+class FiltroBloomContagem {
+
+    private static final int CONTADOR_MAXIMO = 0xFF;
+
+    private final byte[] contadores;
+    private final int funcoesHash;
+
+    /**
+     * Leitura (consulta) em paralelo; adição e remoção com exclusividade
+     */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private long elementos;
+
+    /**
+     * @param capacidade - quantidade de valores prevista
+     * @param taxaFalsoPositivo - taxa de falso positivo desejada na capacidade prevista (ex: 0.01 = 1%)
+     */
+    FiltroBloomContagem(int capacidade, double taxaFalsoPositivo) {
+        double ln2 = Math.log(2);
+        long posicoes = (long) Math.ceil(-capacidade * Math.log(taxaFalsoPositivo) / (ln2 * ln2));
+        this.contadores = new byte[(int) Math.max(64, Math.min(posicoes, Integer.MAX_VALUE - 8))];
+        this.funcoesHash = Math.max(1, (int) Math.round((double) contadores.length / capacidade * ln2));
+    }
+
+    void adicionar(String valor) {
+        long hash = hash(valor);
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < funcoesHash; i++) {
+                int posicao = posicao(hash, i);
+                if (Byte.toUnsignedInt(contadores[posicao]) < CONTADOR_MAXIMO) {
+                    contadores[posicao]++;
+                }
+            }
+            elementos++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove um valor adicionado anteriormente
+     *
+     * Remover um valor que nunca foi adicionado pode gerar falsos negativos para
+     * outros valores; por isso quem usa o filtro não pode depender só dele
+     * (a restrição UNIQUE do banco continua sendo a garantia final).
+     */
+    void remover(String valor) {
+        long hash = hash(valor);
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < funcoesHash; i++) {
+                int posicao = posicao(hash, i);
+                int contador = Byte.toUnsignedInt(contadores[posicao]);
+                if (contador > 0 && contador < CONTADOR_MAXIMO) {
+                    contadores[posicao]--;
+                }
+            }
+            elementos = Math.max(0, elementos - 1);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return false se o valor com certeza não foi adicionado; true se provavelmente foi
+     */
+    boolean possivelmenteContem(String valor) {
+        long hash = hash(valor);
+        lock.readLock().lock();
+        try {
+            for (int i = 0; i < funcoesHash; i++) {
+                if (contadores[posicao(hash, i)] == 0) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Quantidade de posições (contadores) do filtro
+     */
+    int tamanho() {
+        return contadores.length;
+    }
+
+    long elementos() {
+        lock.readLock().lock();
+        try {
+            return elementos;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * TAXA DE FALSO POSITIVO ESTIMADA com a quantidade atual de elementos
+     *
+     *   (1 - e^(-funcoesHash * elementos / posições)) ^ funcoesHash
+     */
+    double taxaFalsoPositivoEstimada() {
+        double ocupacao = 1 - Math.exp(-(double) funcoesHash * elementos() / contadores.length);
+        return Math.pow(ocupacao, funcoesHash);
+    }
+
+    /**
+     * Duplo hashing (Kirsch-Mitzenmacher): as "funcoesHash" posições saem de um
+     * único hash de 64 bits, dividido em duas metades de 32 bits
+     */
+    private int posicao(long hash, int i) {
+        int combinado = (int) hash + i * (int) (hash >>> 32);
+        if (combinado < 0) {
+            combinado = ~combinado;
+        }
+        return combinado % contadores.length;
+    }
+
+    /**
+     * FNV-1a de 64 bits, seguido da finalização do MurmurHash3 (fmix64)
+     * para espalhar bem os bits de textos curtos e parecidos (CPFs, CNPJs)
+     */
+    private static long hash(String valor) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < valor.length(); i++) {
+            h ^= valor.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,181 @@
+package api.comercio.local.service;
+
+import api.comercio.local.model.Venda;
+import api.comercio.local.repository.VendaRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.PersistenceException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.ObjectMapper;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * SERVICE - IdempotenciaVendaService
+ *
+ * Evita vendas duplicadas quando o terminal de caixa repete POST /api/vendas
+ * (ex: timeout de rede depois que a venda já tinha sido gravada).
+ *
+ * O terminal envia um cabeçalho Idempotency-Key (ex: um UUID) por venda e
+ * repete a mesma chave em cada nova tentativa.
+ *
+ * Duas camadas:
+ *   1. Memória (Caffeine, limitada pelo total de bytes e por tempo): a resposta
+ *      JSON de cada chave. Uma repetição devolve a resposta original sem
+ *      nenhum comando no banco.
+ *   2. Banco (Venda.chaveIdempotencia, UNIQUE): se a chave já saiu da memória
+ *      (validade, limite ou reinício), o INSERT repetido é recusado e a venda
+ *      original é lida pela chave.
+ *
+ * Requisições simultâneas com a mesma chave: a primeira grava a venda e as
+ * demais esperam o resultado dela (um único INSERT).
+ *
+ * Só respostas de sucesso ficam guardadas: se a venda for recusada (estoque
+ * insuficiente, venda incompleta), quem estava esperando recebe o mesmo erro
+ * e uma nova tentativa com a chave é processada de novo.
+ *
+ * O corpo da repetição não é comparado com o original: a chave identifica a venda.
+ */
+@Service
+public class IdempotenciaVendaService {
+
+    /**
+     * Nome do cabeçalho HTTP com a chave
+     */
+    public static final String CABECALHO = "Idempotency-Key";
+
+    /**
+     * Tamanho máximo da chave (mesmo tamanho da coluna chave_idempotencia)
+     */
+    static final int TAMANHO_MAXIMO_CHAVE = 100;
+
+    @Autowired
+    private VendaService vendaService;
+
+    @Autowired
+    private VendaRepository vendaRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Total máximo (MB) das respostas em memória (as chaves menos usadas saem primeiro)
+     *
+     * Limite em bytes, não em chaves: a resposta traz cliente, endereço e, por
+     * item, produto e fornecedor, então cada chave pode ocupar dezenas de KB.
+     */
+    @Value("${comercio.vendas.idempotencia.capacidade-mb:64}")
+    private long capacidadeMb;
+
+    /**
+     * Tempo que cada chave fica em memória depois de gravada a venda
+     */
+    @Value("${comercio.vendas.idempotencia.validade-minutos:1440}")
+    private long validadeMinutos;
+
+    /**
+     * Chave -> resposta JSON da venda (ainda em andamento enquanto o futuro não terminar)
+     */
+    private Cache<String, CompletableFuture<byte[]>> respostas;
+
+    /**
+     * Resultado de um POST com Idempotency-Key
+     *
+     * @param json - corpo da resposta (venda gravada)
+     * @param repetida - true se a venda já existia (resposta original devolvida de novo)
+     */
+    public record Resposta(byte[] json, boolean repetida) {
+    }
+
+    @PostConstruct
+    void iniciar() {
+        respostas = Caffeine.<String, CompletableFuture<byte[]>>newBuilder()
+                .maximumWeight(capacidadeMb * 1024 * 1024)
+                .weigher(IdempotenciaVendaService::peso)
+                .expireAfterWrite(Duration.ofMinutes(validadeMinutos))
+                .build();
+    }
+
+    /**
+     * REGISTRA UMA VENDA UMA ÚNICA VEZ POR CHAVE
+     *
+     * @param chave - valor do cabeçalho Idempotency-Key
+     * @param venda - venda recebida no corpo da requisição
+     * @return resposta JSON da venda (nova ou original)
+     * @throws IllegalArgumentException se a chave for inválida ou a venda estiver incompleta
+     * @throws EstoqueInsuficienteException se algum produto não tiver estoque suficiente
+     */
+    public Resposta registrar(String chave, Venda venda) {
+        if (chave.isBlank() || chave.length() > TAMANHO_MAXIMO_CHAVE) {
+            throw new IllegalArgumentException("Idempotency-Key inválida");
+        }
+
+        CompletableFuture<byte[]> nova = new CompletableFuture<>();
+        CompletableFuture<byte[]> existente = respostas.asMap().putIfAbsent(chave, nova);
+        if (existente != null) {
+            return new Resposta(aguardar(existente), true);
+        }
+
+        try {
+            Resposta resposta = gravar(chave, venda);
+            nova.complete(resposta.json());
+            // Regrava a mesma entrada para o Caffeine recalcular o peso com a resposta pronta
+            respostas.asMap().replace(chave, nova, nova);
+            return resposta;
+        } catch (RuntimeException e) {
+            // Recusada: a chave sai da memória e quem estava esperando recebe o mesmo erro
+            respostas.asMap().remove(chave, nova);
+            nova.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Grava a venda com a chave; se a chave já estiver no banco, devolve a venda original
+     *
+     * A resposta é serializada aqui, ainda na requisição que gravou a venda:
+     * as repetições reenviam os mesmos bytes, sem carregar nada do banco.
+     */
+    private Resposta gravar(String chave, Venda venda) {
+        venda.setChaveIdempotencia(chave);
+        try {
+            return new Resposta(objectMapper.writeValueAsBytes(vendaService.registrar(venda)), false);
+        } catch (DataIntegrityViolationException | PersistenceException e) {
+            Optional<Venda> original = vendaRepository.findDetalheByChaveIdempotencia(chave);
+            if (original.isEmpty()) {
+                throw e;
+            }
+            return new Resposta(objectMapper.writeValueAsBytes(original.get()), true);
+        }
+    }
+
+    /**
+     * Peso de uma chave no limite da memória: bytes da chave e da resposta
+     * (enquanto a venda está sendo gravada, só a chave)
+     */
+    private static int peso(String chave, CompletableFuture<byte[]> resposta) {
+        byte[] json = resposta.isDone() && !resposta.isCompletedExceptionally() ? resposta.join() : null;
+        return chave.length() + (json == null ? 0 : json.length);
+    }
+
+    /**
+     * Espera a requisição que está gravando a mesma chave
+     */
+    private static byte[] aguardar(CompletableFuture<byte[]> resposta) {
+        try {
+            return resposta.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+}
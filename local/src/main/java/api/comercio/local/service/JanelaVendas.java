@@ -0,0 +1,43 @@
+package api.comercio.local.service;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * JANELAS DE TEMPO DO RANKING DE MAIS VENDIDOS
+ *
+ * Cada janela é formada pelos últimos "baldes" intervalos de "duracaoBalde":
+ * a janela desliza de um intervalo em um intervalo (ex: HORA = últimos 60 minutos,
+ * atualizada a cada minuto).
+ */
+public enum JanelaVendas {
+
+    HORA(Duration.ofMinutes(1), 60),
+    DIA(Duration.ofHours(1), 24),
+    SEMANA(Duration.ofHours(1), 24 * 7);
+
+    private final Duration duracaoBalde;
+    private final int baldes;
+
+    JanelaVendas(Duration duracaoBalde, int baldes) {
+        this.duracaoBalde = duracaoBalde;
+        this.baldes = baldes;
+    }
+
+    Duration getDuracaoBalde() {
+        return duracaoBalde;
+    }
+
+    int getBaldes() {
+        return baldes;
+    }
+
+    /**
+     * Converte o parâmetro da requisição ("hora", "dia" ou "semana")
+     *
+     * @throws IllegalArgumentException se a janela não existir
+     */
+    public static JanelaVendas porNome(String nome) {
+        return valueOf(nome.trim().toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,234 @@
+package api.comercio.local.service;
+
+import api.comercio.local.dto.ItemVendido;
+import api.comercio.local.dto.ProdutoMaisVendido;
+import api.comercio.local.dto.ProdutoResumo;
+import api.comercio.local.evento.VendaRegistradaEvent;
+import api.comercio.local.repository.EstoqueRepository;
+import api.comercio.local.repository.ProdutoRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * SERVICE - MaisVendidosService (RANKING DE MAIS VENDIDOS POR JANELA DE TEMPO)
+ *
+ * Responde "quais produtos mais venderam na última hora / dia / semana" sem
+ * somar os itens de venda no banco.
+ *
+ * Cada janela é um ANEL de intervalos (baldes), e cada balde tem um
+ * ContadorMaisFrequentes (Space-Saving) com no máximo "capacidade" produtos:
+ *
+ *   minutos: [m0][m1]...[m59]    últimos 60 minutos   -> janela HORA
+ *   horas:   [h0][h1]...[h167]   últimas 168 horas    -> janelas DIA (24 baldes) e SEMANA (168)
+ *
+ * Quando o tempo avança para um balde antigo, ele é zerado e reaproveitado:
+ * a memória não cresce com o volume de vendas. A consulta soma no máximo
+ * (baldes x capacidade) contadores, não importa quantos itens foram vendidos.
+ *
+ * ATUALIZAÇÃO:
+ *   - VendaRegistradaEvent (após o commit): soma as unidades de cada venda no
+ *     balde da data da venda (um lote de vendas offline de dias anteriores não
+ *     cai todo na hora atual); vendas mais antigas que o anel são ignoradas
+ *   - inicialização: preenche os anéis com os itens vendidos na última semana
+ */
+@Slf4j
+@Service
+public class MaisVendidosService {
+
+    @Autowired
+    private EstoqueRepository estoqueRepository;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    /**
+     * Produtos monitorados em cada balde (memória por balde: O(capacidade))
+     */
+    @Value("${comercio.produtos.mais-vendidos.capacidade:100}")
+    private int capacidade;
+
+    /**
+     * Registro de vendas com exclusividade (escrita); consultas em paralelo (leitura)
+     */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Um anel por duração de balde, com o tamanho da maior janela que o usa
+     */
+    private final Map<Duration, Anel> aneis = new HashMap<>();
+
+    /**
+     * ANEL DE BALDES DE MESMA DURAÇÃO
+     *
+     * indices[i]: número do intervalo (instante / duração) guardado no balde i;
+     * o intervalo n fica sempre no balde n % tamanho.
+     */
+    static final class Anel {
+        private final long duracaoMs;
+        private final long[] indices;
+        private final ContadorMaisFrequentes[] baldes;
+
+        Anel(Duration duracao, int tamanho, int capacidade) {
+            this.duracaoMs = duracao.toMillis();
+            this.indices = new long[tamanho];
+            this.baldes = new ContadorMaisFrequentes[tamanho];
+            Arrays.fill(indices, -1);
+            for (int i = 0; i < tamanho; i++) {
+                baldes[i] = new ContadorMaisFrequentes(capacidade);
+            }
+        }
+
+        void registrar(long produtoId, long quantidade, long instanteMs, long agoraMs) {
+            long atual = agoraMs / duracaoMs;
+            // data futura (relógio do terminal adiantado) conta no intervalo atual
+            long indice = Math.min(instanteMs / duracaoMs, atual);
+            if (indice <= atual - baldes.length) {
+                return; // mais antiga que o anel
+            }
+            int posicao = (int) (indice % baldes.length);
+            if (indices[posicao] != indice) {
+                if (indices[posicao] > indice) {
+                    return; // o balde já foi reaproveitado por um intervalo mais recente
+                }
+                baldes[posicao].limpar();
+                indices[posicao] = indice;
+            }
+            baldes[posicao].adicionar(produtoId, quantidade);
+        }
+
+        /**
+         * Soma os últimos "quantidade" baldes, incluindo o intervalo atual
+         */
+        void somarEm(Map<Long, long[]> totais, long agoraMs, int quantidade) {
+            long atual = agoraMs / duracaoMs;
+            for (long indice = atual - quantidade + 1; indice <= atual; indice++) {
+                int posicao = (int) (indice % baldes.length);
+                if (indices[posicao] == indice) {
+                    baldes[posicao].somarEm(totais);
+                }
+            }
+        }
+    }
+
+    @PostConstruct
+    void iniciar() {
+        Map<Duration, Integer> tamanhos = new HashMap<>();
+        for (JanelaVendas janela : JanelaVendas.values()) {
+            tamanhos.merge(janela.getDuracaoBalde(), janela.getBaldes(), Math::max);
+        }
+        tamanhos.forEach((duracao, tamanho) -> aneis.put(duracao, new Anel(duracao, tamanho, capacidade)));
+    }
+
+    /**
+     * PREENCHE OS ANÉIS COM AS VENDAS DA MAIOR JANELA
+     *
+     * Vendas confirmadas durante o preenchimento chegam também pelo evento;
+     * só uma venda que ainda estava em andamento no início da leitura pode
+     * ser contada duas vezes.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void carregar() {
+        Duration maiorJanela = Arrays.stream(JanelaVendas.values())
+                .map(janela -> janela.getDuracaoBalde().multipliedBy(janela.getBaldes()))
+                .max(Comparator.naturalOrder())
+                .orElseThrow();
+        LocalDateTime inicio = LocalDateTime.now().minus(maiorJanela);
+
+        long itens = 0;
+        try (Stream<ItemVendido> vendidos = estoqueRepository.streamItensVendidosDesde(inicio)) {
+            for (ItemVendido item : (Iterable<ItemVendido>) vendidos::iterator) {
+                long instante = item.dataVenda().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                registrar(item.produtoId(), item.quantidade(), instante, System.currentTimeMillis());
+                itens++;
+            }
+        }
+        log.info("Ranking de mais vendidos carregado: {} item(ns) vendido(s) desde {}", itens, inicio);
+    }
+
+    /**
+     * Vendas confirmadas: soma as unidades de cada venda no intervalo da sua data, em cada anel
+     */
+    @TransactionalEventListener
+    public void aoRegistrarVenda(VendaRegistradaEvent evento) {
+        long agora = System.currentTimeMillis();
+        for (VendaRegistradaEvent.ItensVenda venda : evento.vendas()) {
+            long instante = venda.dataVenda().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            venda.quantidadesPorProduto().forEach((produtoId, quantidade) ->
+                    registrar(produtoId, quantidade, instante, agora));
+        }
+    }
+
+    /**
+     * PRODUTOS MAIS VENDIDOS EM UMA JANELA
+     *
+     * Produtos excluídos do cadastro ficam fora da resposta e não ocupam
+     * lugar no limite (o próximo do ranking entra no lugar deles).
+     *
+     * @param janela - última hora, dia ou semana
+     * @param limite - quantidade máxima de produtos
+     * @return produtos em ordem decrescente de unidades vendidas (estimadas)
+     */
+    public List<ProdutoMaisVendido> maisVendidos(JanelaVendas janela, int limite) {
+        Map<Long, long[]> totais = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            aneis.get(janela.getDuracaoBalde()).somarEm(totais, System.currentTimeMillis(), janela.getBaldes());
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Map.Entry<Long, long[]>> candidatos = totais.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<Long, long[]> entrada) -> entrada.getValue()[0]).reversed()
+                        .thenComparing(Map.Entry::getKey))
+                .toList();
+
+        // os excluídos saem antes do limite: os nomes são buscados em blocos, na
+        // ordem do ranking, até completar o limite ou acabarem os candidatos
+        List<ProdutoMaisVendido> ranking = new ArrayList<>(Math.min(limite, candidatos.size()));
+        for (int inicio = 0; inicio < candidatos.size() && ranking.size() < limite; inicio += limite) {
+            List<Map.Entry<Long, long[]>> bloco = candidatos.subList(inicio, Math.min(inicio + limite, candidatos.size()));
+            Map<Long, String> nomes = produtoRepository.findResumoByIdIn(bloco.stream().map(Map.Entry::getKey).toList())
+                    .stream()
+                    .collect(Collectors.toMap(ProdutoResumo::id, ProdutoResumo::nome));
+            for (Map.Entry<Long, long[]> entrada : bloco) {
+                String nome = nomes.get(entrada.getKey());
+                if (nome != null && ranking.size() < limite) {
+                    ranking.add(new ProdutoMaisVendido(entrada.getKey(), nome, entrada.getValue()[0], entrada.getValue()[1]));
+                }
+            }
+        }
+        return ranking;
+    }
+
+    private void registrar(long produtoId, long quantidade, long instanteMs, long agoraMs) {
+        lock.writeLock().lock();
+        try {
+            for (Anel anel : aneis.values()) {
+                anel.registrar(produtoId, quantidade, instanteMs, agoraMs);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
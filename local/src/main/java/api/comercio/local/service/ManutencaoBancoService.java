@@ -0,0 +1,44 @@
+package api.comercio.local.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * SERVICE - ManutencaoBancoService
+ *
+ * Opcional: ativado com comercio.banco.checkpoint.habilitado=true
+ * (ligado no perfil h2-arquivo)
+ *
+ * Com o banco em arquivo, o H2 grava as alterações em segundo plano (WRITE_DELAY).
+ * O CHECKPOINT periódico força a gravação de tudo o que está pendente, o que
+ * limita o trabalho de recuperação na próxima abertura do banco após uma queda.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "comercio.banco.checkpoint.habilitado", havingValue = "true")
+public class ManutencaoBancoService {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * CHECKPOINT PERIÓDICO
+     *
+     * @Scheduled(fixedDelay): roda a cada N ms, contados do fim da execução anterior
+     */
+    @Scheduled(fixedDelayString = "${comercio.banco.checkpoint.intervalo-ms:300000}",
+            initialDelayString = "${comercio.banco.checkpoint.intervalo-ms:300000}")
+    public void checkpoint() {
+        long inicio = System.nanoTime();
+        try {
+            jdbcTemplate.execute("CHECKPOINT");
+            log.debug("CHECKPOINT do banco concluído em {} ms", (System.nanoTime() - inicio) / 1_000_000);
+        } catch (Exception e) {
+            log.warn("Falha no CHECKPOINT do banco, nova tentativa no próximo ciclo", e);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package api.comercio.local.service;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * NORMALIZAÇÃO DE TEXTO PARA BUSCA
+ *
+ * Deixa nomes e termos de busca comparáveis sem depender de acentos,
+ * maiúsculas ou pontuação:
+ *   "Café  Pilão - 500g" -> "cafe pilao 500g"
+ *
+ * Passos:
+ *   1. Normalizer (NFD): separa a letra do acento ("é" -> "e" + "´")
+ *   2. remove os acentos (marcas combinantes, \p{M})
+ *   3. minúsculas (Locale.ROOT, independente do idioma do servidor)
+ *   4. tudo que não é letra ou número vira espaço; espaços repetidos viram um só
+ */
+final class NormalizadorTexto {
+
+    private static final Pattern ACENTOS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private NormalizadorTexto() {
+    }
+
+    static String normalizar(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return "";
+        }
+        String semAcentos = ACENTOS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARADORES.matcher(semAcentos.toLowerCase(Locale.ROOT)).replaceAll(" ").strip();
+    }
+
+    /**
+     * Palavras do texto já normalizado
+     */
+    static List<String> palavras(String normalizado) {
+        if (normalizado.isEmpty()) {
+            return List.of();
+        }
+        return Arrays.asList(normalizado.split(" "));
+    }
+}
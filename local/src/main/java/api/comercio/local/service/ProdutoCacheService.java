@@ -0,0 +1,116 @@
+package api.comercio.local.service;
+
+import api.comercio.local.dto.CacheEstatisticas;
+import api.comercio.local.dto.ProdutoDetalhe;
+import api.comercio.local.evento.EstoqueAlteradoEvent;
+import api.comercio.local.repository.ProdutoRepository;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * SERVICE - ProdutoCacheService
+ *
+ * Consultas de produtos com cache em memória (Caffeine), a remoção das entradas
+ * quando o estoque muda e as estatísticas de uso do cache.
+ *
+ * O cache guarda cópias imutáveis (ProdutoDetalhe), e não as entidades: o mesmo
+ * objeto é entregue a todas as requisições, e uma entidade alterada por engano
+ * (um setter, um merge) mudaria o JSON e o ETag servidos aos outros clientes.
+ *
+ * Alterações feitas pelo CRUD de produtos são tratadas no próprio ProdutoController
+ * (@CacheEvict). Aqui tratamos as alterações de estoque feitas pelas vendas.
+ */
+@Service
+public class ProdutoCacheService {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    /**
+     * BUSCA POR ID (COM CACHE)
+     *
+     * @Cacheable: na primeira chamada busca no banco e guarda a cópia do produto;
+     * nas seguintes devolve direto da memória, sem usar conexão do pool.
+     * unless: produto inexistente não é guardado (um POST logo em seguida
+     * não ficaria invisível até a entrada expirar)
+     *
+     * @param id - ID do produto
+     * @return Optional com o produto, ou Optional.empty() se não existir
+     */
+    @Cacheable(cacheNames = ProdutoRepository.CACHE_PRODUTOS, unless = "#result == null")
+    public Optional<ProdutoDetalhe> buscar(Long id) {
+        return produtoRepository.findById(id).map(ProdutoDetalhe::de);
+    }
+
+    /**
+     * PRODUTOS DE UM FORNECEDOR (COM CACHE)
+     *
+     * @param fornecedorId - ID do fornecedor
+     * @return lista imutável com os produtos do fornecedor
+     */
+    @Cacheable(ProdutoRepository.CACHE_PRODUTOS_POR_FORNECEDOR)
+    public List<ProdutoDetalhe> listarPorFornecedor(Long fornecedorId) {
+        return produtoRepository.findByFornecedorId(fornecedorId).stream()
+                .map(ProdutoDetalhe::de)
+                .toList();
+    }
+
+    /**
+     * REMOVE DO CACHE OS PRODUTOS QUE TIVERAM O ESTOQUE ALTERADO
+     *
+     * @TransactionalEventListener (AFTER_COMMIT, padrão): só executa depois do
+     * commit da venda. Se o produto fosse removido antes, uma consulta
+     * concorrente poderia recolocar no cache o estoque antigo.
+     *
+     * As listas por fornecedor são descartadas inteiras: o evento não traz o
+     * fornecedor de cada produto.
+     */
+    @TransactionalEventListener
+    public void aoAlterarEstoque(EstoqueAlteradoEvent evento) {
+        Cache produtos = cacheManager.getCache(ProdutoRepository.CACHE_PRODUTOS);
+        if (produtos != null) {
+            evento.produtoIds().forEach(produtos::evict);
+        }
+
+        Cache porFornecedor = cacheManager.getCache(ProdutoRepository.CACHE_PRODUTOS_POR_FORNECEDOR);
+        if (porFornecedor != null) {
+            porFornecedor.clear();
+        }
+    }
+
+    /**
+     * ESTATÍSTICAS DOS CACHES DE PRODUTOS
+     *
+     * Acertos, erros e remoções são contados pelo Caffeine (recordStats em
+     * spring.cache.caffeine.spec) desde o início da aplicação.
+     *
+     * @return estatísticas de cada cache de produtos
+     */
+    public List<CacheEstatisticas> estatisticas() {
+        return Stream.of(ProdutoRepository.CACHE_PRODUTOS, ProdutoRepository.CACHE_PRODUTOS_POR_FORNECEDOR)
+                .map(cacheManager::getCache)
+                .filter(Objects::nonNull)
+                .filter(CaffeineCache.class::isInstance)
+                .map(CaffeineCache.class::cast)
+                .map(cache -> {
+                    CacheStats stats = cache.getNativeCache().stats();
+                    return new CacheEstatisticas(cache.getName(), cache.getNativeCache().estimatedSize(),
+                            stats.hitCount(), stats.missCount(), stats.hitRate(), stats.evictionCount());
+                })
+                .toList();
+    }
+}
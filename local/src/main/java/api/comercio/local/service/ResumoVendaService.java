@@ -0,0 +1,140 @@
+package api.comercio.local.service;
+
+import api.comercio.local.repository.VendaDiariaProdutoRepository;
+import api.comercio.local.repository.VendaDiariaRepository;
+import api.comercio.local.repository.VendaRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.IntStream;
+
+/**
+ * SERVICE - ResumoVendaService
+ *
+ * Mantém os resumos diários de vendas (VendaDiaria e VendaDiariaProduto).
+ *
+ * O VendaService monta uma ContribuicaoResumo a cada venda gravada, alterada
+ * ou excluída e chama aplicar() dentro da mesma transação: se a venda for
+ * desfeita (rollback), a atualização do resumo também é.
+ *
+ * A primeira venda de um dia faz o MERGE inserir a linha do dia; duas
+ * transações fazendo isso ao mesmo tempo não se veem (a linha da outra ainda
+ * não tem commit) e a segunda falha por chave duplicada. Por isso os dias
+ * tocados por uma transação ficam travados em memória até o commit/rollback.
+ */
+@Slf4j
+@Service
+public class ResumoVendaService {
+
+    @Autowired
+    private VendaRepository vendaRepository;
+
+    @Autowired
+    private VendaDiariaRepository vendaDiariaRepository;
+
+    @Autowired
+    private VendaDiariaProdutoRepository vendaDiariaProdutoRepository;
+
+    /**
+     * Locks por dia, distribuídos em faixas (hash do dia): dias diferentes
+     * quase nunca disputam o mesmo lock, e o número de locks não cresce
+     */
+    private static final int FAIXAS = 64;
+
+    private final ReentrantLock[] locksDia = IntStream.range(0, FAIXAS)
+            .mapToObj(i -> new ReentrantLock())
+            .toArray(ReentrantLock[]::new);
+
+    /**
+     * APLICA UMA CONTRIBUIÇÃO NOS RESUMOS (um MERGE por dia e por dia+produto)
+     *
+     * Propagation.MANDATORY: exige a transação de quem gravou as vendas
+     * (lança exceção se chamado fora de uma transação)
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    void aplicar(ContribuicaoResumo contribuicao) {
+        SortedSet<Integer> faixas = new TreeSet<>();
+        contribuicao.dias().keySet().forEach(dia -> faixas.add(faixa(dia)));
+        contribuicao.produtos().keySet().forEach(chave -> faixas.add(faixa(chave.dia())));
+        travarAteOFim(faixas);
+
+        contribuicao.dias().forEach((dia, totais) -> {
+            if (!totais.vazio()) {
+                vendaDiariaRepository.acumular(dia, totais.vendas, totais.valor, totais.itens);
+            }
+        });
+        contribuicao.produtos().forEach((chave, totais) -> {
+            if (!totais.vazio()) {
+                vendaDiariaProdutoRepository.acumular(chave.dia(), chave.produtoId(), totais.quantidade, totais.valor);
+            }
+        });
+    }
+
+    /**
+     * RECONSTRÓI OS RESUMOS A PARTIR DAS VENDAS GRAVADAS
+     *
+     * Apaga os resumos e soma novamente todas as vendas e itens (INSERT ... SELECT).
+     * Usado na inicialização quando há vendas sem resumo (ex: banco anterior a esta versão).
+     */
+    @Transactional
+    public void reconstruir() {
+        travarAteOFim(new TreeSet<>(IntStream.range(0, FAIXAS).boxed().toList()));
+        vendaDiariaProdutoRepository.deleteAllInBatch();
+        vendaDiariaRepository.deleteAllInBatch();
+        int dias = vendaDiariaRepository.reconstruir();
+        vendaDiariaProdutoRepository.reconstruir();
+        log.info("Resumos diários de vendas reconstruídos: {} dia(s)", dias);
+    }
+
+    /**
+     * Na inicialização, monta os resumos se existirem vendas e nenhum resumo
+     *
+     * @Transactional aqui também: a chamada a reconstruir() é interna (não passa
+     * pelo proxy do Spring), então a transação precisa começar neste método
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void reconstruirSeVazio() {
+        if (vendaDiariaRepository.count() == 0 && vendaRepository.count() > 0) {
+            reconstruir();
+        }
+    }
+
+    private static int faixa(LocalDate dia) {
+        return Math.floorMod(dia.hashCode(), FAIXAS);
+    }
+
+    /**
+     * TRAVA AS FAIXAS ATÉ O FIM DA TRANSAÇÃO
+     *
+     * - as faixas são travadas em ordem crescente (sem deadlock entre transações
+     *   que tocam os mesmos dias em ordens diferentes)
+     * - afterCompletion libera os locks depois do commit ou do rollback: a
+     *   próxima transação do mesmo dia já vê a linha gravada e o MERGE vira UPDATE
+     * - os locks são reentrantes: uma transação que chama aplicar() mais de uma
+     *   vez não espera por ela mesma (cada chamada libera as suas travas)
+     */
+    private void travarAteOFim(SortedSet<Integer> faixas) {
+        if (faixas.isEmpty()) {
+            return;
+        }
+        faixas.forEach(faixa -> locksDia[faixa].lock());
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                faixas.forEach(faixa -> locksDia[faixa].unlock());
+            }
+        });
+    }
+}
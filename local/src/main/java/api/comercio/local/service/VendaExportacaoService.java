@@ -0,0 +1,108 @@
+package api.comercio.local.service;
+
+import api.comercio.local.dto.ItemExportacao;
+import api.comercio.local.dto.VendaExportada;
+import api.comercio.local.repository.VendaRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * SERVICE - VendaExportacaoService
+ *
+ * Exporta vendas em NDJSON (newline-delimited JSON): um objeto JSON por linha.
+ *
+ * Exemplo de saída (uma venda por linha, com os itens):
+ *   {"id":1,"dataVenda":"2024-11-28T10:30:00","valorTotal":899.80,"clienteId":1,"clienteNome":"João",
+ *    "itens":[{"produtoId":5,"produtoNome":"Mouse","quantidade":2,"precoUnitario":25.00,"subtotal":50.00}, ...]}
+ *   {"id":2,"dataVenda":"2024-11-28T11:02:13","valorTotal":59.90,"clienteId":3,"clienteNome":"Maria","itens":[...]}
+ *
+ * O banco devolve uma linha por item (venda JOIN itens, ordenado por venda);
+ * as linhas seguidas da mesma venda são juntadas em uma linha do NDJSON.
+ * Só os itens da venda atual ficam na memória.
+ *
+ * Cada venda é escrita na resposta assim que o seu último item é lido, então:
+ *   - a memória usada não depende do tamanho do período
+ *   - o cliente recebe os primeiros bytes antes de a consulta terminar
+ */
+@Service
+public class VendaExportacaoService {
+
+    /**
+     * A cada quantas linhas os dados acumulados são enviados ao cliente
+     */
+    private static final int LINHAS_POR_FLUSH = 500;
+
+    @Autowired
+    private VendaRepository vendaRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * ESCREVE AS VENDAS DO PERÍODO NA SAÍDA, UMA POR LINHA
+     *
+     * @Transactional(readOnly = true): mantém a conexão aberta enquanto o Stream
+     * é percorrido e evita o dirty checking do Hibernate (somente leitura)
+     *
+     * @param inicio - data/hora inicial do período (inclusivo)
+     * @param fim - data/hora final do período (inclusivo)
+     * @param saida - corpo da resposta HTTP
+     * @return quantidade de vendas exportadas
+     * @throws IOException se o cliente encerrar a conexão no meio da exportação
+     */
+    @Transactional(readOnly = true)
+    public long exportarPeriodo(LocalDateTime inicio, LocalDateTime fim, OutputStream saida) throws IOException {
+        long linhas = 0;
+
+        try (Stream<ItemExportacao> itens = vendaRepository.streamItensPorPeriodo(inicio, fim)) {
+            Iterator<ItemExportacao> iterator = itens.iterator();
+            ItemExportacao venda = null;
+            List<VendaExportada.Item> itensVenda = new ArrayList<>();
+            while (iterator.hasNext()) {
+                ItemExportacao item = iterator.next();
+                if (venda != null && !venda.vendaId().equals(item.vendaId())) {
+                    escrever(venda, itensVenda, saida);
+                    itensVenda = new ArrayList<>();
+
+                    // Envia a primeira venda imediatamente e depois em blocos
+                    linhas++;
+                    if (linhas == 1 || linhas % LINHAS_POR_FLUSH == 0) {
+                        saida.flush();
+                    }
+                }
+                venda = item;
+                if (item.produtoId() != null) {
+                    itensVenda.add(new VendaExportada.Item(item.produtoId(), item.produtoNome(),
+                            item.quantidade(), item.precoUnitario(), item.subtotal()));
+                }
+            }
+            if (venda != null) {
+                escrever(venda, itensVenda, saida);
+                linhas++;
+            }
+        }
+
+        saida.flush();
+        return linhas;
+    }
+
+    /**
+     * Escreve uma venda (com os itens) e a quebra de linha
+     */
+    private void escrever(ItemExportacao venda, List<VendaExportada.Item> itens, OutputStream saida)
+            throws IOException {
+        saida.write(objectMapper.writeValueAsBytes(new VendaExportada(venda.vendaId(), venda.dataVenda(),
+                venda.valorTotal(), venda.clienteId(), venda.clienteNome(), itens)));
+        saida.write('\n');
+    }
+}
@@ -0,0 +1,551 @@
+package api.comercio.local.service;
+
+import api.comercio.local.evento.EstoqueAlteradoEvent;
+import api.comercio.local.evento.VendaRegistradaEvent;
+import api.comercio.local.evento.VendasGravadasEvent;
+import api.comercio.local.model.Cliente;
+import api.comercio.local.model.Estoque;
+import api.comercio.local.model.Produto;
+import api.comercio.local.model.Venda;
+import api.comercio.local.repository.EstoqueRepository;
+import api.comercio.local.repository.ProdutoRepository;
+import api.comercio.local.repository.VendaRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * SERVICE - VendaService
+ *
+ * Regras de negócio para o registro de vendas.
+ *
+ * Funcionalidades:
+ *   - Registro de venda com baixa de estoque dos produtos vendidos
+ *   - Importação de vendas em lote (sincronização dos terminais de caixa offline)
+ *   - Inclusão de item em uma venda existente
+ *   - Alteração e exclusão de vendas e itens
+ *   - Alteração parcial de vendas (PATCH, JSON Merge Patch)
+ *
+ * Toda baixa de estoque acontece na mesma transação da venda: se algum produto
+ * não tiver estoque suficiente, nada é gravado (EstoqueInsuficienteException).
+ *
+ * Cada operação também atualiza os resumos diários de vendas (ResumoVendaService)
+ * na mesma transação.
+ *
+ * Cada venda registrada publica VendaRegistradaEvent com as unidades vendidas
+ * de cada produto (usado, após o commit, por rankings de produtos), e
+ * VendasGravadasEvent com as vendas novas (diário de vendas).
+ */
+@Service
+public class VendaService {
+
+    /**
+     * EntityManager: usado diretamente para controlar quando o Hibernate
+     * envia os INSERTs ao banco (flush) e libera a memória (clear)
+     */
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private VendaRepository vendaRepository;
+
+    @Autowired
+    private EstoqueRepository estoqueRepository;
+
+    /**
+     * Resumos diários de vendas, atualizados na mesma transação de cada operação
+     */
+    @Autowired
+    private ResumoVendaService resumoVendaService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Quantidade de vendas gravadas por lote (mesmo valor do JDBC batch do Hibernate)
+     */
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int tamanhoLote;
+
+    /**
+     * Ledger de estoque em memória (opcional, comercio.estoque.ledger.habilitado=true)
+     * Quando ausente, a baixa é feita direto no banco.
+     */
+    @Autowired(required = false)
+    private EstoqueLedger estoqueLedger;
+
+    /**
+     * Converte os valores do JSON Merge Patch (PATCH /api/vendas/{id})
+     */
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Campos simples aceitos no PATCH de venda (todos obrigatórios)
+     */
+    private static final Map<String, Class<?>> CAMPOS_PATCH = Map.of(
+            "dataVenda", LocalDateTime.class,
+            "valorTotal", BigDecimal.class);
+
+    /**
+     * REGISTRA UMA VENDA E DÁ BAIXA NO ESTOQUE DOS ITENS
+     *
+     * Ordem das operações:
+     *   1. INSERT da venda e dos itens (flush)
+     *   2. UPDATE condicional do estoque de cada produto (ver ProdutoRepository.baixarEstoque)
+     *   3. commit
+     *
+     * A baixa fica por último para que a linha do produto fique bloqueada
+     * pelo menor tempo possível: em produtos muito vendidos, vários caixas
+     * disputam a mesma linha ao mesmo tempo.
+     *
+     * @param venda - venda recebida no corpo da requisição
+     * @return venda gravada, com ID
+     * @throws IllegalArgumentException se a venda estiver incompleta
+     * @throws EstoqueInsuficienteException se algum produto não tiver estoque suficiente
+     */
+    @Transactional
+    public Venda registrar(Venda venda) {
+        prepararVenda(venda);
+        entityManager.persist(venda);
+        entityManager.flush();
+
+        Map<Long, Integer> quantidades = somarQuantidades(venda.getItens());
+        baixarEstoque(quantidades, venda.getItens());
+
+        ContribuicaoResumo contribuicao = new ContribuicaoResumo();
+        contribuicao.venda(venda, 1);
+        resumoVendaService.aplicar(contribuicao);
+
+        eventPublisher.publishEvent(VendaRegistradaEvent.daVenda(venda.getDataVenda(), quantidades));
+        eventPublisher.publishEvent(new VendasGravadasEvent(List.of(venda)));
+        return venda;
+    }
+
+    /**
+     * REGISTRA VÁRIAS VENDAS EM UMA ÚNICA TRANSAÇÃO
+     *
+     * Como os IDs de Venda e Estoque vêm de SEQUENCE (pooled), o Hibernate agrupa
+     * os INSERTs em lotes JDBC (hibernate.jdbc.batch_size) e, com
+     * hibernate.order_inserts, envia primeiro todas as vendas e depois todos os itens.
+     *
+     * A cada "tamanhoLote" vendas:
+     *   - flush(): envia os INSERTs pendentes ao banco
+     *   - clear(): remove as vendas já gravadas do contexto de persistência,
+     *     mantendo a memória estável mesmo com milhares de vendas
+     *
+     * A baixa de estoque é feita uma única vez por produto, somando as
+     * quantidades de todas as vendas do lote. O mesmo vale para os resumos
+     * diários: um MERGE por dia e por (dia, produto), não por venda.
+     *
+     * @param vendas - vendas recebidas do terminal
+     * @return IDs gerados, na mesma ordem das vendas recebidas
+     * @throws IllegalArgumentException se alguma venda estiver incompleta
+     * @throws EstoqueInsuficienteException se algum produto não tiver estoque suficiente
+     */
+    @Transactional
+    public List<Long> registrarLote(List<Venda> vendas) {
+        List<Long> ids = new ArrayList<>(vendas.size());
+        Map<Long, Integer> quantidades = new TreeMap<>();
+        List<Estoque> itens = new ArrayList<>();
+        List<VendaRegistradaEvent.ItensVenda> itensPorVenda = new ArrayList<>(vendas.size());
+        ContribuicaoResumo contribuicao = new ContribuicaoResumo();
+
+        int pendentes = 0;
+        for (Venda venda : vendas) {
+            prepararVenda(venda);
+            Map<Long, Integer> quantidadesVenda = somarQuantidades(venda.getItens());
+            quantidadesVenda.forEach((produtoId, quantidade) -> quantidades.merge(produtoId, quantidade, Integer::sum));
+
+            entityManager.persist(venda);
+            ids.add(venda.getId());
+            itens.addAll(venda.getItens());
+            itensPorVenda.add(new VendaRegistradaEvent.ItensVenda(venda.getDataVenda(), quantidadesVenda));
+            contribuicao.venda(venda, 1);
+
+            pendentes++;
+            if (pendentes == tamanhoLote) {
+                entityManager.flush();
+                entityManager.clear();
+                pendentes = 0;
+            }
+        }
+        entityManager.flush();
+
+        baixarEstoque(quantidades, itens);
+        resumoVendaService.aplicar(contribuicao);
+        eventPublisher.publishEvent(new VendaRegistradaEvent(quantidades, itensPorVenda));
+        eventPublisher.publishEvent(new VendasGravadasEvent(List.copyOf(vendas)));
+        return ids;
+    }
+
+    /**
+     * ADICIONA UM ITEM A UMA VENDA JÁ EXISTENTE E DÁ BAIXA NO ESTOQUE
+     *
+     * O JSON traz apenas { "id": ... } para a venda e o produto.
+     *
+     * @param item - item recebido no corpo da requisição
+     * @return item gravado, com ID e subtotal calculado
+     * @throws IllegalArgumentException se o item estiver incompleto
+     * @throws EstoqueInsuficienteException se o produto não tiver estoque suficiente
+     */
+    @Transactional
+    public Estoque adicionarItem(Estoque item) {
+        if (item.getVenda() == null || item.getVenda().getId() == null) {
+            throw new IllegalArgumentException("Item sem venda");
+        }
+        validarItem(item);
+
+        item.setVenda(entityManager.getReference(Venda.class, item.getVenda().getId()));
+        item.setProduto(entityManager.getReference(Produto.class, item.getProduto().getId()));
+        entityManager.persist(item);
+        entityManager.flush();
+
+        Map<Long, Integer> quantidades = somarQuantidades(List.of(item));
+        baixarEstoque(quantidades, List.of(item));
+
+        ContribuicaoResumo contribuicao = new ContribuicaoResumo();
+        contribuicao.item(item, 1);
+        resumoVendaService.aplicar(contribuicao);
+
+        eventPublisher.publishEvent(VendaRegistradaEvent.daVenda(item.getVenda().getDataVenda(), quantidades));
+        return item;
+    }
+
+    /**
+     * ATUALIZA UMA VENDA (PUT) E AJUSTA OS RESUMOS DIÁRIOS
+     *
+     * A contribuição antiga da venda (data, valor e itens) é subtraída dos
+     * resumos e a nova é somada, na mesma transação.
+     *
+     * @param id - ID da venda
+     * @param venda - novos dados da venda
+     * @return venda atualizada, ou Optional.empty() se não existir
+     */
+    @Transactional
+    public Optional<Venda> atualizar(Long id, Venda venda) {
+        Optional<Venda> atual = vendaRepository.findDetalheById(id);
+        if (atual.isEmpty()) {
+            return Optional.empty();
+        }
+
+        ContribuicaoResumo contribuicao = new ContribuicaoResumo();
+        contribuicao.venda(atual.get(), -1);
+
+        venda.setId(id);
+        if (venda.getItens() != null) {
+            for (Estoque item : venda.getItens()) {
+                item.setVenda(venda);
+                referenciarProduto(item);
+            }
+        }
+        Venda vendaAtualizada = vendaRepository.save(venda);
+        entityManager.flush();
+
+        contribuicao.venda(vendaAtualizada, 1);
+        resumoVendaService.aplicar(contribuicao);
+        return Optional.of(vendaAtualizada);
+    }
+
+    /**
+     * ALTERA PARTE DE UMA VENDA (PATCH, JSON MERGE PATCH)
+     *
+     * Campos aceitos: dataVenda, valorTotal e cliente ({ "id": ... }).
+     * Um único UPDATE só com as colunas enviadas (ver AtualizacaoParcial).
+     *
+     * A data e o valor entram nos resumos diários: quando um deles muda, a
+     * venda é lida antes (com os itens) para subtrair a contribuição antiga.
+     * A troca de cliente não mexe nos resumos e não lê nada antes do UPDATE.
+     *
+     * @param id - ID da venda
+     * @param patch - JSON Merge Patch
+     * @return true se alterada, false se a venda não existir
+     * @throws IllegalArgumentException se o patch for inválido
+     */
+    @Transactional
+    public boolean atualizarParcial(Long id, JsonNode patch) {
+        AtualizacaoParcial<Venda> update = new AtualizacaoParcial<>(entityManager, Venda.class);
+        update.aplicar(patch, CAMPOS_PATCH, CAMPOS_PATCH.keySet(), Set.of("cliente"), objectMapper);
+        if (patch.has("cliente")) {
+            Long clienteId = AtualizacaoParcial.idReferencia(patch.get("cliente"), "cliente");
+            if (clienteId == null) {
+                throw new IllegalArgumentException("Venda sem cliente");
+            }
+            update.definir("cliente", entityManager.getReference(Cliente.class, clienteId));
+        }
+        if (update.vazia()) {
+            return vendaRepository.existsById(id);
+        }
+        if (!update.alterou("dataVenda") && !update.alterou("valorTotal")) {
+            return update.executar(id, null) > 0;
+        }
+
+        Optional<Venda> atual = vendaRepository.findDetalheById(id);
+        if (atual.isEmpty()) {
+            return false;
+        }
+        Venda venda = atual.get();
+        // Sem vínculo com o contexto: as alterações abaixo são só para calcular a nova contribuição
+        entityManager.detach(venda);
+
+        ContribuicaoResumo contribuicao = new ContribuicaoResumo();
+        contribuicao.venda(venda, -1);
+        update.executar(id, null);
+
+        if (update.alterou("dataVenda")) {
+            venda.setDataVenda(update.valor("dataVenda"));
+        }
+        if (update.alterou("valorTotal")) {
+            venda.setValorTotal(update.valor("valorTotal"));
+        }
+        contribuicao.venda(venda, 1);
+        resumoVendaService.aplicar(contribuicao);
+        return true;
+    }
+
+    /**
+     * EXCLUI UMA VENDA (E SEUS ITENS) E AJUSTA OS RESUMOS DIÁRIOS
+     *
+     * @param id - ID da venda
+     * @return true se excluída, false se não existir
+     */
+    @Transactional
+    public boolean excluir(Long id) {
+        Optional<Venda> venda = vendaRepository.findDetalheById(id);
+        if (venda.isEmpty()) {
+            return false;
+        }
+
+        ContribuicaoResumo contribuicao = new ContribuicaoResumo();
+        contribuicao.venda(venda.get(), -1);
+
+        vendaRepository.delete(venda.get());
+        resumoVendaService.aplicar(contribuicao);
+        return true;
+    }
+
+    /**
+     * ATUALIZA UM ITEM DE VENDA (PUT) E AJUSTA OS RESUMOS DIÁRIOS
+     *
+     * @param id - ID do item
+     * @param item - novos dados do item
+     * @return item atualizado, ou Optional.empty() se não existir
+     */
+    @Transactional
+    public Optional<Estoque> atualizarItem(Long id, Estoque item) {
+        Optional<Estoque> atual = estoqueRepository.findById(id);
+        if (atual.isEmpty()) {
+            return Optional.empty();
+        }
+
+        ContribuicaoResumo contribuicao = new ContribuicaoResumo();
+        contribuicao.item(atual.get(), -1);
+
+        item.setId(id);
+        if (item.getVenda() != null && item.getVenda().getId() != null) {
+            item.setVenda(entityManager.getReference(Venda.class, item.getVenda().getId()));
+        }
+        referenciarProduto(item);
+        Estoque itemAtualizado = estoqueRepository.save(item);
+        entityManager.flush();
+
+        contribuicao.item(itemAtualizado, 1);
+        resumoVendaService.aplicar(contribuicao);
+        return Optional.of(itemAtualizado);
+    }
+
+    /**
+     * EXCLUI UM ITEM DE VENDA E AJUSTA OS RESUMOS DIÁRIOS
+     *
+     * @param id - ID do item
+     * @return true se excluído, false se não existir
+     */
+    @Transactional
+    public boolean excluirItem(Long id) {
+        Optional<Estoque> item = estoqueRepository.findById(id);
+        if (item.isEmpty()) {
+            return false;
+        }
+
+        ContribuicaoResumo contribuicao = new ContribuicaoResumo();
+        contribuicao.item(item.get(), -1);
+
+        estoqueRepository.delete(item.get());
+        resumoVendaService.aplicar(contribuicao);
+        return true;
+    }
+
+    /**
+     * PREPARA A VENDA RECEBIDA NO JSON PARA SER GRAVADA
+     *
+     *   - o JSON traz apenas { "id": ... } para cliente e produtos, então usamos
+     *     getReference(): o Hibernate usa só o ID na FK, sem fazer SELECT
+     *   - liga cada item à venda (lado dono do relacionamento, coluna venda_id)
+     *   - calcula o valor total pelos itens se ele não foi informado
+     *
+     * @param venda - venda recebida no corpo da requisição
+     * @throws IllegalArgumentException se faltar cliente, produto ou quantidade/preço dos itens
+     */
+    void prepararVenda(Venda venda) {
+        validarVenda(venda);
+        venda.setCliente(entityManager.getReference(Cliente.class, venda.getCliente().getId()));
+
+        BigDecimal total = BigDecimal.ZERO;
+        for (Estoque item : venda.getItens()) {
+            item.setVenda(venda);
+            item.setProduto(entityManager.getReference(Produto.class, item.getProduto().getId()));
+            total = total.add(item.getPrecoUnitario().multiply(BigDecimal.valueOf(item.getQuantidade())));
+        }
+
+        if (venda.getValorTotal() == null) {
+            venda.setValorTotal(total);
+        }
+    }
+
+    /**
+     * Troca o produto do JSON ({ "id": ... }) por uma referência gerenciada
+     *
+     * No merge (PUT), um produto só com o ID seria tratado como entidade
+     * desanexada sem versão (@Version null) e o Hibernate recusaria o item.
+     */
+    private void referenciarProduto(Estoque item) {
+        if (item.getProduto() != null && item.getProduto().getId() != null) {
+            item.setProduto(entityManager.getReference(Produto.class, item.getProduto().getId()));
+        }
+    }
+
+    /**
+     * VALIDA A VENDA RECEBIDA NO JSON, SEM CONSULTAR O BANCO
+     *
+     * Usado também pela fila de gravação (FilaVendasService), que recusa a venda
+     * com 400 antes de colocá-la na fila.
+     *
+     * @param venda - venda recebida no corpo da requisição
+     * @throws IllegalArgumentException se faltar cliente, produto ou quantidade/preço dos itens
+     */
+    void validarVenda(Venda venda) {
+        if (venda.getCliente() == null || venda.getCliente().getId() == null) {
+            throw new IllegalArgumentException("Venda sem cliente");
+        }
+        if (venda.getItens() == null) {
+            venda.setItens(new ArrayList<>());
+        }
+        for (Estoque item : venda.getItens()) {
+            validarItem(item);
+        }
+    }
+
+    /**
+     * Valida os campos obrigatórios de um item (produto, quantidade positiva e preço)
+     */
+    private void validarItem(Estoque item) {
+        if (item.getProduto() == null || item.getProduto().getId() == null
+                || item.getQuantidade() == null || item.getQuantidade() <= 0
+                || item.getPrecoUnitario() == null) {
+            throw new IllegalArgumentException("Item de venda incompleto");
+        }
+    }
+
+    /**
+     * SOMA AS QUANTIDADES POR PRODUTO
+     *
+     * TreeMap: mantém os produtos em ordem crescente de ID. Todas as transações
+     * bloqueiam as linhas de produtos na mesma ordem, o que evita deadlocks
+     * entre duas vendas com os mesmos produtos em ordens diferentes.
+     */
+    private Map<Long, Integer> somarQuantidades(List<Estoque> itens) {
+        Map<Long, Integer> quantidades = new TreeMap<>();
+        for (Estoque item : itens) {
+            quantidades.merge(item.getProduto().getId(), item.getQuantidade(), Integer::sum);
+        }
+        return quantidades;
+    }
+
+    /**
+     * DÁ BAIXA NO ESTOQUE DE CADA PRODUTO COM UM UPDATE CONDICIONAL
+     *
+     * Com o ledger habilitado, a baixa é reservada em memória (ver reservarNoLedger).
+     * Sem o ledger, publica EstoqueAlteradoEvent (os produtos saem do cache após o commit).
+     *
+     * @param quantidades - total por produto (somarQuantidades)
+     * @param itens - itens já gravados (com ID) que geraram as quantidades
+     * @throws EstoqueInsuficienteException no primeiro produto sem estoque
+     *         (a transação inteira é desfeita)
+     */
+    private void baixarEstoque(Map<Long, Integer> quantidades, List<Estoque> itens) {
+        if (estoqueLedger != null) {
+            reservarNoLedger(quantidades, itens);
+            return;
+        }
+        quantidades.forEach((produtoId, quantidade) -> {
+            if (produtoRepository.baixarEstoque(produtoId, quantidade) == 0) {
+                throw new EstoqueInsuficienteException(produtoId, quantidade);
+            }
+        });
+        eventPublisher.publishEvent(new EstoqueAlteradoEvent(Set.copyOf(quantidades.keySet())));
+    }
+
+    /**
+     * RESERVA O ESTOQUE NO LEDGER EM MEMÓRIA
+     *
+     * As reservas não fazem parte da transação do banco, então:
+     *   - se um produto não tiver saldo, as reservas anteriores desta venda são devolvidas
+     *   - as baixas vão para o diário do ledger ainda dentro da transação (uma por
+     *     item, com o ID do item): se o servidor cair logo após o commit, a
+     *     recuperação encontra o item no banco e aplica a baixa
+     *   - se a transação for desfeita (ex: erro no commit), afterCompletion
+     *     devolve as reservas e avisa o ledger para ignorar esses itens
+     */
+    private void reservarNoLedger(Map<Long, Integer> quantidades, List<Estoque> itens) {
+        Map<Long, Integer> reservadas = new TreeMap<>();
+        quantidades.forEach((produtoId, quantidade) -> {
+            if (!estoqueLedger.reservar(produtoId, quantidade)) {
+                reservadas.forEach(estoqueLedger::devolver);
+                throw new EstoqueInsuficienteException(produtoId, quantidade);
+            }
+            reservadas.put(produtoId, quantidade);
+        });
+
+        List<EstoqueLedgerDiario.Movimento> movimentos = itens.stream()
+                .map(item -> new EstoqueLedgerDiario.Movimento(item.getId(), item.getProduto().getId(), item.getQuantidade()))
+                .toList();
+        long segmento;
+        try {
+            segmento = estoqueLedger.registrar(movimentos);
+        } catch (RuntimeException e) {
+            reservadas.forEach(estoqueLedger::devolver);
+            throw e;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                boolean confirmada = status == STATUS_COMMITTED;
+                estoqueLedger.concluir(segmento, movimentos, confirmada);
+                if (!confirmada) {
+                    reservadas.forEach(estoqueLedger::devolver);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,132 @@
+package api.comercio.local;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import api.comercio.local.carga.GeradorCarga;
+import api.comercio.local.carga.OperacaoCarga;
+import api.comercio.local.carga.ResultadoCarga;
+import api.comercio.local.model.Cliente;
+import api.comercio.local.model.Endereco;
+import api.comercio.local.model.Estoque;
+import api.comercio.local.model.Produto;
+import api.comercio.local.model.Venda;
+import api.comercio.local.repository.ClienteRepository;
+import api.comercio.local.repository.ProdutoRepository;
+import api.comercio.local.repository.VendaRepository;
+
+/**
+ * Teste de carga: threads de plataforma (padrão) x perfil "virtual-threads".
+ *
+ * Sobe a aplicação duas vezes (uma por modo), cada uma com o seu banco H2 em
+ * memória, e mantém CONEXOES clientes simultâneos fazendo leituras que vão ao
+ * banco (detalhe da venda e histórico do cliente), usando o GeradorCarga.
+ * Imprime e grava em target/carga/ a vazão, os percentis e os erros de cada modo.
+ *
+ * Não roda no build normal. Para executar:
+ *   mvn test -Dtest=ThreadsVirtuaisCargaTests -Dcarga=true
+ *   mvn test -Dtest=ThreadsVirtuaisCargaTests -Dcarga=true -Dcarga.conexoes=2000 -Dcarga.segundos=60
+ */
+@EnabledIfSystemProperty(named = "carga", matches = "true")
+class ThreadsVirtuaisCargaTests {
+
+	private static final int CONEXOES = Integer.getInteger("carga.conexoes", 1000);
+	private static final Duration DURACAO = Duration.ofSeconds(Long.getLong("carga.segundos", 30));
+	private static final Duration AQUECIMENTO = Duration.ofSeconds(5);
+
+	@Test
+	void comparaThreadsDePlataformaComVirtualThreads() throws Exception {
+		ResultadoCarga plataforma = medir(false);
+		ResultadoCarga virtuais = medir(true);
+
+		Path diretorio = Path.of(System.getProperty("carga.relatorio", "target/carga"));
+		plataforma.gravar(diretorio);
+		virtuais.gravar(diretorio);
+		System.out.printf("%n%s%n%s", plataforma.tabela(), virtuais.tabela());
+
+		assertThat(plataforma.total().requisicoes()).isPositive();
+		assertThat(virtuais.total().requisicoes()).isPositive();
+	}
+
+	private ResultadoCarga medir(boolean virtual) throws Exception {
+		String modo = virtual ? "virtual" : "plataforma";
+		SpringApplicationBuilder aplicacao = new SpringApplicationBuilder(App.class);
+		if (virtual) {
+			aplicacao.profiles("virtual-threads");
+		}
+
+		// Argumentos (--chave=valor), e não SpringApplicationBuilder.properties(): aquelas
+		// são só valores padrão e perderiam para o application.properties (porta 8080, banco padrão)
+		try (ConfigurableApplicationContext contexto = aplicacao.run(
+				"--server.port=0",
+				"--spring.datasource.url=jdbc:h2:mem:carga_" + modo,
+				"--spring.jpa.show-sql=false",
+				"--logging.level.org.hibernate.SQL=WARN",
+				"--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN")) {
+			int porta = contexto.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+			List<URI> caminhos = semear(contexto, porta);
+			URI historico = caminhos.getFirst();
+			List<URI> detalhes = caminhos.subList(1, caminhos.size());
+			GeradorCarga gerador = new GeradorCarga(List.of(
+					new OperacaoCarga("historico-cliente", 1, aleatorio -> HttpRequest.newBuilder(historico).GET().build()),
+					new OperacaoCarga("detalhe-venda", detalhes.size(), aleatorio ->
+							HttpRequest.newBuilder(detalhes.get(aleatorio.nextInt(detalhes.size()))).GET().build())));
+			return gerador.executar(modo, CONEXOES, AQUECIMENTO, DURACAO);
+		}
+	}
+
+	/**
+	 * Um cliente com 20 vendas de 3 itens; devolve as URLs usadas pela carga
+	 * (histórico do cliente e, em seguida, o detalhe de cada venda)
+	 */
+	private List<URI> semear(ConfigurableApplicationContext contexto, int porta) {
+		ClienteRepository clienteRepository = contexto.getBean(ClienteRepository.class);
+		ProdutoRepository produtoRepository = contexto.getBean(ProdutoRepository.class);
+		VendaRepository vendaRepository = contexto.getBean(VendaRepository.class);
+
+		Cliente cliente = clienteRepository.save(Cliente.builder()
+				.nome("Cliente Carga")
+				.cpf("999.999.999-99")
+				.endereco(Endereco.builder().logradouro("Rua das Flores").numero("10").cidade("São Paulo").estado("SP").build())
+				.build());
+		List<Produto> produtos = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			produtos.add(produtoRepository.save(Produto.builder()
+					.nome("Produto " + i)
+					.preco(BigDecimal.TEN)
+					.quantidadeEstoque(1_000_000)
+					.build()));
+		}
+
+		String base = "http://localhost:" + porta;
+		List<URI> caminhos = new ArrayList<>();
+		caminhos.add(URI.create(base + "/api/vendas/cliente/" + cliente.getId()));
+		for (int i = 0; i < 20; i++) {
+			Venda venda = Venda.builder().cliente(cliente).dataVenda(LocalDateTime.now().minusDays(i)).valorTotal(BigDecimal.TEN).build();
+			for (Produto produto : produtos) {
+				venda.getItens().add(Estoque.builder()
+						.venda(venda)
+						.produto(produto)
+						.quantidade(1)
+						.precoUnitario(BigDecimal.TEN)
+						.build());
+			}
+			caminhos.add(URI.create(base + "/api/vendas/" + vendaRepository.save(venda).getId()));
+		}
+		return caminhos;
+	}
+
+}
@@ -0,0 +1,267 @@
+package api.comercio.local.carga;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.StringJoiner;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import api.comercio.local.App;
+import api.comercio.local.model.Cliente;
+import api.comercio.local.model.Endereco;
+import api.comercio.local.model.Estoque;
+import api.comercio.local.model.Produto;
+import api.comercio.local.model.Venda;
+import api.comercio.local.repository.ClienteRepository;
+import api.comercio.local.repository.ProdutoRepository;
+import api.comercio.local.service.VendaService;
+
+/**
+ * Teste de carga do perfil "h2-arquivo" (banco persistente em disco).
+ *
+ * Etapas:
+ *   1. Sobe a aplicação com o perfil h2-arquivo em um diretório próprio e
+ *      grava vendas em lote (VendaService.registrarLote) até o arquivo do
+ *      banco atingir carga.banco.gb GB
+ *   2. Mede a vazão sustentada de POST /api/vendas (vendas/s) com o GeradorCarga
+ *   3. Fecha a aplicação normalmente e mede o tempo de reinicialização
+ *   4. Grava uma rajada de lotes de vendas sem CHECKPOINT e, logo em seguida,
+ *      derruba o banco com SHUTDOWN IMMEDIATELY (sem gravar o que está
+ *      pendente, como em uma queda) e mede o tempo de recuperação
+ *
+ * Os tempos de inicialização incluem a reconstrução dos índices em memória
+ * (mais vendidos, estoque baixo) feita no ApplicationReadyEvent.
+ *
+ * Não roda no build normal. Para executar:
+ *   mvn test -Dtest=BancoArquivoCargaTests -Dcarga=true
+ *   mvn test -Dtest=BancoArquivoCargaTests -Dcarga=true -Dcarga.banco.gb=4 -Dcarga.conexoes=200
+ *
+ * Propriedades:
+ *   carga.banco.gb         tamanho do banco antes da medição (padrão 2)
+ *   carga.banco.diretorio  onde o banco é criado (padrão target/carga-banco; reaproveitado
+ *                          entre execuções, então a etapa 1 só grava o que faltar)
+ *   carga.conexoes         clientes simultâneos (padrão 100)
+ *   carga.segundos         duração da medição (padrão 60)
+ *   carga.aquecimento      segundos descartados no início (padrão 10)
+ *   carga.relatorio        diretório do relatório (padrão target/carga)
+ */
+@EnabledIfSystemProperty(named = "carga", matches = "true")
+class BancoArquivoCargaTests {
+
+	private static final int PRODUTOS = 1_000;
+	private static final int CLIENTES = 1_000;
+	private static final int VENDAS_POR_LOTE = 5_000;
+	/**
+	 * Lotes gravados logo antes da queda (etapa 4)
+	 */
+	private static final int LOTES_ANTES_DA_QUEDA = 4;
+	private static final long BYTES_POR_GB = 1024L * 1024 * 1024;
+
+	private final Path diretorio = Path.of(System.getProperty("carga.banco.diretorio", "target/carga-banco"));
+	private final Path arquivoBanco = diretorio.resolve("dados").resolve("comercio_local_db.mv.db");
+
+	@Test
+	void vazaoEReinicializacaoComBancoEmArquivo() throws Exception {
+		long tamanhoAlvo = (long) (Double.parseDouble(System.getProperty("carga.banco.gb", "2")) * BYTES_POR_GB);
+		StringBuilder relatorio = new StringBuilder();
+
+		ResultadoCarga resultado;
+		List<Long> produtoIds = new ArrayList<>();
+		List<Long> clienteIds = new ArrayList<>();
+		try (ConfigurableApplicationContext contexto = iniciar()) {
+			cadastrar(contexto, produtoIds, clienteIds);
+
+			long inicio = System.nanoTime();
+			long vendas = preencher(contexto, produtoIds, clienteIds, tamanhoAlvo);
+			double segundos = (System.nanoTime() - inicio) / 1e9;
+			relatorio.append(String.format("Carga inicial: %d vendas em lote em %.1f s (%.0f vendas/s), banco com %.2f GB%n",
+					vendas, segundos, vendas / Math.max(segundos, 1e-9), tamanho() / (double) BYTES_POR_GB));
+
+			int porta = contexto.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+			URI vendasUri = URI.create("http://localhost:" + porta + "/api/vendas");
+			GeradorCarga gerador = new GeradorCarga(List.of(
+					new OperacaoCarga("registrar-venda", 1, aleatorio -> HttpRequest.newBuilder(vendasUri)
+							.header("Content-Type", "application/json")
+							.POST(HttpRequest.BodyPublishers.ofString(novaVendaJson(clienteIds, produtoIds, aleatorio)))
+							.build())));
+			resultado = gerador.executar("h2-arquivo",
+					Integer.getInteger("carga.conexoes", 100),
+					Duration.ofSeconds(Long.getLong("carga.aquecimento", 10)),
+					Duration.ofSeconds(Long.getLong("carga.segundos", 60)));
+			relatorio.append(resultado.tabela());
+		}
+
+		relatorio.append(String.format("Reinicialização após encerramento normal: %d ms%n", reiniciar()));
+		derrubarAposGravacao(produtoIds, clienteIds);
+		relatorio.append(String.format("Reinicialização após queda (SHUTDOWN IMMEDIATELY após %d vendas sem CHECKPOINT): %d ms%n",
+				LOTES_ANTES_DA_QUEDA * VENDAS_POR_LOTE, reiniciar()));
+		relatorio.append(String.format("Tamanho final do banco: %.2f GB%n", tamanho() / (double) BYTES_POR_GB));
+
+		Path pastaRelatorio = Path.of(System.getProperty("carga.relatorio", "target/carga"));
+		Files.createDirectories(pastaRelatorio);
+		String quando = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+		Path arquivo = Files.writeString(pastaRelatorio.resolve("carga-h2-arquivo-" + quando + ".txt"), relatorio);
+		System.out.printf("%n%s%nRelatório gravado em %s%n", relatorio, arquivo.toAbsolutePath());
+
+		assertThat(resultado.total().requisicoes()).isPositive();
+	}
+
+	/**
+	 * Sobe a aplicação com o perfil h2-arquivo no diretório do teste
+	 *
+	 * As configurações vão como argumentos (--chave=valor): as de
+	 * SpringApplicationBuilder.properties() são só valores padrão e perderiam
+	 * para os arquivos application*.properties.
+	 */
+	private ConfigurableApplicationContext iniciar() {
+		return new SpringApplicationBuilder(App.class)
+				.profiles("h2-arquivo")
+				.run("--server.port=0",
+						"--comercio.dados.diretorio=" + diretorio.resolve("dados"),
+						"--comercio.logs.diretorio=" + diretorio.resolve("logs"));
+	}
+
+	/**
+	 * Sobe a aplicação sobre o banco existente e devolve o tempo até ela ficar pronta (ms)
+	 */
+	private long reiniciar() {
+		long inicio = System.nanoTime();
+		try (ConfigurableApplicationContext contexto = iniciar()) {
+			return (System.nanoTime() - inicio) / 1_000_000;
+		}
+	}
+
+	/**
+	 * Grava LOTES_ANTES_DA_QUEDA lotes de vendas sem CHECKPOINT e derruba o banco
+	 * logo depois, sem gravar as páginas pendentes: a abertura seguinte precisa
+	 * recuperar o arquivo a partir do último estado gravado
+	 */
+	private void derrubarAposGravacao(List<Long> produtoIds, List<Long> clienteIds) {
+		try (ConfigurableApplicationContext contexto = iniciar()) {
+			VendaService vendaService = contexto.getBean(VendaService.class);
+			SplittableRandom aleatorio = new SplittableRandom(7);
+			for (int i = 0; i < LOTES_ANTES_DA_QUEDA; i++) {
+				vendaService.registrarLote(novoLote(produtoIds, clienteIds, aleatorio));
+			}
+			contexto.getBean(JdbcTemplate.class).execute("SHUTDOWN IMMEDIATELY");
+		} catch (Exception e) {
+			// o pool fecha conexões que o banco já derrubou
+		}
+	}
+
+	/**
+	 * Produtos e clientes usados pelas vendas; se o banco já existe, reaproveita os cadastros
+	 */
+	private void cadastrar(ConfigurableApplicationContext contexto, List<Long> produtoIds, List<Long> clienteIds) {
+		ProdutoRepository produtoRepository = contexto.getBean(ProdutoRepository.class);
+		ClienteRepository clienteRepository = contexto.getBean(ClienteRepository.class);
+
+		if (produtoRepository.count() < PRODUTOS) {
+			List<Produto> produtos = new ArrayList<>();
+			for (int i = 0; i < PRODUTOS; i++) {
+				produtos.add(Produto.builder()
+						.nome("Produto carga " + i)
+						.preco(BigDecimal.valueOf(5 + i % 500))
+						.quantidadeEstoque(1_000_000_000)
+						.build());
+			}
+			produtoRepository.saveAll(produtos);
+		}
+		if (clienteRepository.count() < CLIENTES) {
+			for (int i = 0; i < CLIENTES; i++) {
+				clienteRepository.save(Cliente.builder()
+						.nome("Cliente carga " + i)
+						.cpf(String.format("%011d", i))
+						.endereco(Endereco.builder().logradouro("Rua " + i).numero("1").cidade("São Paulo").estado("SP").build())
+						.build());
+			}
+		}
+		produtoRepository.findAll().forEach(produto -> produtoIds.add(produto.getId()));
+		clienteRepository.findAll().forEach(cliente -> clienteIds.add(cliente.getId()));
+	}
+
+	/**
+	 * Grava lotes de vendas até o arquivo do banco atingir o tamanho alvo
+	 *
+	 * @return vendas gravadas
+	 */
+	private long preencher(ConfigurableApplicationContext contexto, List<Long> produtoIds, List<Long> clienteIds,
+			long tamanhoAlvo) throws IOException {
+		VendaService vendaService = contexto.getBean(VendaService.class);
+		JdbcTemplate jdbcTemplate = contexto.getBean(JdbcTemplate.class);
+		SplittableRandom aleatorio = new SplittableRandom(42);
+
+		long gravadas = 0;
+		while (tamanho() < tamanhoAlvo) {
+			vendaService.registrarLote(novoLote(produtoIds, clienteIds, aleatorio));
+			gravadas += VENDAS_POR_LOTE;
+			// o tamanho do arquivo só reflete o lote depois que o MVStore grava as páginas
+			jdbcTemplate.execute("CHECKPOINT");
+		}
+		return gravadas;
+	}
+
+	/**
+	 * VENDAS_POR_LOTE vendas com 1 a 5 itens, espalhadas pelo último ano
+	 */
+	private static List<Venda> novoLote(List<Long> produtoIds, List<Long> clienteIds, SplittableRandom aleatorio) {
+		List<Venda> lote = new ArrayList<>(VENDAS_POR_LOTE);
+		for (int i = 0; i < VENDAS_POR_LOTE; i++) {
+			Venda venda = Venda.builder()
+					.cliente(Cliente.builder().id(sortear(clienteIds, aleatorio)).build())
+					.dataVenda(LocalDateTime.now().minusMinutes(aleatorio.nextInt(525_600)))
+					.build();
+			int itens = 1 + aleatorio.nextInt(5);
+			for (int j = 0; j < itens; j++) {
+				venda.getItens().add(Estoque.builder()
+						.produto(Produto.builder().id(sortear(produtoIds, aleatorio)).build())
+						.quantidade(1 + aleatorio.nextInt(3))
+						.precoUnitario(BigDecimal.TEN)
+						.build());
+			}
+			lote.add(venda);
+		}
+		return lote;
+	}
+
+	private long tamanho() throws IOException {
+		if (!Files.exists(arquivoBanco)) {
+			return 0;
+		}
+		try (Stream<Path> arquivos = Files.list(arquivoBanco.getParent())) {
+			return arquivos.mapToLong(arquivo -> arquivo.toFile().length()).sum();
+		}
+	}
+
+	private static String novaVendaJson(List<Long> clienteIds, List<Long> produtoIds, SplittableRandom aleatorio) {
+		StringJoiner itens = new StringJoiner(",");
+		int quantidade = 1 + aleatorio.nextInt(5);
+		for (int i = 0; i < quantidade; i++) {
+			itens.add("{\"produto\":{\"id\":" + sortear(produtoIds, aleatorio)
+					+ "},\"quantidade\":1,\"precoUnitario\":10.00}");
+		}
+		return "{\"cliente\":{\"id\":" + sortear(clienteIds, aleatorio) + "},\"itens\":[" + itens + "]}";
+	}
+
+	private static <T> T sortear(List<T> lista, SplittableRandom aleatorio) {
+		return lista.get(aleatorio.nextInt(lista.size()));
+	}
+
+}
@@ -0,0 +1,231 @@
+package api.comercio.local.carga;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.StringJoiner;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import api.comercio.local.model.Cliente;
+import api.comercio.local.model.Endereco;
+import api.comercio.local.model.Estoque;
+import api.comercio.local.model.Produto;
+import api.comercio.local.model.Venda;
+import api.comercio.local.repository.ClienteRepository;
+import api.comercio.local.repository.ProdutoRepository;
+import api.comercio.local.repository.VendaRepository;
+import api.comercio.local.service.BuscaProdutoService;
+import api.comercio.local.service.ResumoVendaService;
+
+/**
+ * Teste de carga ponta a ponta com um mix de tráfego parecido com o da loja.
+ *
+ * Sobe a aplicação em uma porta aleatória com o H2 em memória, cadastra
+ * produtos, clientes e um histórico de vendas, reconstrói o índice de busca e
+ * os resumos diários (a semeadura grava direto pelos repositories, depois da
+ * inicialização) e executa em paralelo:
+ *   - 40% busca de produtos por nome        GET  /api/produtos/buscar
+ *   - 20% registro de venda com 1 a 5 itens POST /api/vendas
+ *   - 25% histórico de compras do cliente   GET  /api/vendas/cliente/{id}
+ *   - 10% resumo diário de um mês           GET  /api/vendas/resumo/diario
+ *   -  5% vendas de um dia (completas)      GET  /api/vendas/periodo
+ *
+ * O relatório (vazão, p50/p95/p99, máximo e erros por operação) é impresso e
+ * gravado em target/carga/.
+ *
+ * Não roda no build normal. Para executar:
+ *   mvn test -Dtest=CargaHttpTests -Dcarga=true
+ *   mvn test -Dtest=CargaHttpTests -Dcarga=true -Dcarga.conexoes=500 -Dcarga.segundos=120
+ *
+ * Propriedades:
+ *   carga.conexoes     clientes simultâneos (padrão 100)
+ *   carga.segundos     duração da medição (padrão 60)
+ *   carga.aquecimento  segundos descartados no início (padrão 10)
+ *   carga.relatorio    diretório do relatório (padrão target/carga)
+ */
+@EnabledIfSystemProperty(named = "carga", matches = "true")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = {
+				"spring.datasource.url=jdbc:h2:mem:carga_http",
+				"spring.jpa.show-sql=false",
+				"logging.level.org.hibernate.SQL=WARN",
+				"logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN"
+		})
+class CargaHttpTests {
+
+	private static final int PRODUTOS = 500;
+	private static final int CLIENTES = 200;
+	private static final int VENDAS_HISTORICO = 2_000;
+	private static final LocalDate PRIMEIRO_DIA = LocalDate.of(2024, 1, 1);
+	private static final int DIAS_HISTORICO = 90;
+
+	private static final List<String> PALAVRAS = List.of(
+			"mouse", "teclado", "monitor", "cabo", "caderno", "caneta", "café", "arroz",
+			"feijão", "sabão", "copo", "garrafa", "lâmpada", "pilha", "fone", "carregador");
+
+	@Value("${local.server.port}")
+	private int porta;
+
+	@Autowired
+	private ClienteRepository clienteRepository;
+
+	@Autowired
+	private ProdutoRepository produtoRepository;
+
+	@Autowired
+	private VendaRepository vendaRepository;
+
+	@Autowired
+	private BuscaProdutoService buscaProdutoService;
+
+	@Autowired
+	private ResumoVendaService resumoVendaService;
+
+	@Test
+	void mixDeTrafego() throws Exception {
+		List<Long> produtoIds = new ArrayList<>();
+		List<Long> clienteIds = new ArrayList<>();
+		semear(produtoIds, clienteIds);
+
+		String base = "http://localhost:" + porta;
+		conferirDadosSemeados(base);
+		GeradorCarga gerador = new GeradorCarga(List.of(
+				new OperacaoCarga("buscar-produto", 40, aleatorio -> get(base + "/api/produtos/buscar?limite=20&nome="
+						+ URLEncoder.encode(sortear(PALAVRAS, aleatorio), StandardCharsets.UTF_8))),
+				new OperacaoCarga("registrar-venda", 20, aleatorio -> post(base + "/api/vendas",
+						novaVendaJson(sortear(clienteIds, aleatorio), produtoIds, aleatorio))),
+				new OperacaoCarga("historico-cliente", 25, aleatorio -> get(base + "/api/vendas/cliente/"
+						+ sortear(clienteIds, aleatorio))),
+				new OperacaoCarga("resumo-diario", 10, aleatorio -> {
+					LocalDate inicio = PRIMEIRO_DIA.plusDays(aleatorio.nextInt(DIAS_HISTORICO - 30));
+					return get(base + "/api/vendas/resumo/diario?inicio=" + inicio + "&fim=" + inicio.plusDays(30));
+				}),
+				new OperacaoCarga("vendas-periodo", 5, aleatorio -> {
+					LocalDate dia = PRIMEIRO_DIA.plusDays(aleatorio.nextInt(DIAS_HISTORICO));
+					return get(base + "/api/vendas/periodo?inicio=" + dia.atStartOfDay()
+							+ "&fim=" + dia.atTime(23, 59, 59));
+				})));
+
+		ResultadoCarga resultado = gerador.executar("mix-http",
+				Integer.getInteger("carga.conexoes", 100),
+				Duration.ofSeconds(Long.getLong("carga.aquecimento", 10)),
+				Duration.ofSeconds(Long.getLong("carga.segundos", 60)));
+
+		Path arquivo = resultado.gravar(Path.of(System.getProperty("carga.relatorio", "target/carga")));
+		System.out.printf("%n%s%nRelatório gravado em %s%n", resultado.tabela(), arquivo.toAbsolutePath());
+
+		assertThat(resultado.total().requisicoes()).isPositive();
+	}
+
+	/**
+	 * Produtos com nomes do vocabulário de busca, clientes e vendas espalhadas
+	 * pelos DIAS_HISTORICO dias (sempre os mesmos dados)
+	 */
+	private void semear(List<Long> produtoIds, List<Long> clienteIds) {
+		SplittableRandom aleatorio = new SplittableRandom(42);
+
+		List<Produto> produtos = new ArrayList<>();
+		for (int i = 0; i < PRODUTOS; i++) {
+			produtos.add(Produto.builder()
+					.nome(PALAVRAS.get(i % PALAVRAS.size()) + " modelo " + i)
+					.descricao("Produto de teste de carga " + i)
+					.preco(BigDecimal.valueOf(5 + aleatorio.nextInt(500)))
+					.quantidadeEstoque(100_000_000)
+					.build());
+		}
+		produtoRepository.saveAll(produtos).forEach(produto -> produtoIds.add(produto.getId()));
+
+		List<Cliente> clientes = new ArrayList<>();
+		for (int i = 0; i < CLIENTES; i++) {
+			clientes.add(clienteRepository.save(Cliente.builder()
+					.nome("Cliente " + i)
+					.cpf(String.format("%011d", i))
+					.endereco(Endereco.builder().logradouro("Rua " + i).numero("1").cidade("São Paulo").estado("SP").build())
+					.build()));
+			clienteIds.add(clientes.getLast().getId());
+		}
+
+		List<Venda> vendas = new ArrayList<>();
+		for (int i = 0; i < VENDAS_HISTORICO; i++) {
+			LocalDateTime data = PRIMEIRO_DIA.plusDays(aleatorio.nextInt(DIAS_HISTORICO)).atTime(8 + aleatorio.nextInt(12), 0);
+			Venda venda = Venda.builder().cliente(sortear(clientes, aleatorio)).dataVenda(data).valorTotal(BigDecimal.ZERO).build();
+			int itens = 1 + aleatorio.nextInt(5);
+			for (int j = 0; j < itens; j++) {
+				Produto produto = sortear(produtos, aleatorio);
+				venda.getItens().add(Estoque.builder()
+						.venda(venda).produto(produto).quantidade(1).precoUnitario(produto.getPreco())
+						.build());
+				venda.setValorTotal(venda.getValorTotal().add(produto.getPreco()));
+			}
+			vendas.add(venda);
+		}
+		vendaRepository.saveAll(vendas);
+
+		// Os índices em memória e os resumos foram montados na inicialização, com
+		// o banco vazio, e os saves acima não passam pelos eventos que os atualizam
+		buscaProdutoService.reconstruir();
+		resumoVendaService.reconstruir();
+	}
+
+	/**
+	 * Garante que busca e resumo respondem com dados (senão a carga mediria
+	 * respostas vazias)
+	 */
+	private static void conferirDadosSemeados(String base) throws Exception {
+		try (HttpClient cliente = HttpClient.newHttpClient()) {
+			HttpResponse<String> busca = cliente.send(get(base + "/api/produtos/buscar?limite=20&nome="
+					+ URLEncoder.encode(PALAVRAS.getFirst(), StandardCharsets.UTF_8)), HttpResponse.BodyHandlers.ofString());
+			assertThat(busca.statusCode()).isEqualTo(200);
+			assertThat(busca.body()).isNotEqualTo("[]");
+
+			HttpResponse<String> resumo = cliente.send(get(base + "/api/vendas/resumo/diario?inicio=" + PRIMEIRO_DIA
+					+ "&fim=" + PRIMEIRO_DIA.plusDays(30)), HttpResponse.BodyHandlers.ofString());
+			assertThat(resumo.statusCode()).isEqualTo(200);
+			assertThat(resumo.body()).isNotEqualTo("[]");
+		}
+	}
+
+	private static String novaVendaJson(Long clienteId, List<Long> produtoIds, SplittableRandom aleatorio) {
+		StringJoiner itens = new StringJoiner(",");
+		int quantidade = 1 + aleatorio.nextInt(5);
+		for (int i = 0; i < quantidade; i++) {
+			itens.add("{\"produto\":{\"id\":" + sortear(produtoIds, aleatorio)
+					+ "},\"quantidade\":1,\"precoUnitario\":10.00}");
+		}
+		return "{\"cliente\":{\"id\":" + clienteId + "},\"itens\":[" + itens + "]}";
+	}
+
+	private static <T> T sortear(List<T> lista, SplittableRandom aleatorio) {
+		return lista.get(aleatorio.nextInt(lista.size()));
+	}
+
+	private static HttpRequest get(String url) {
+		return HttpRequest.newBuilder(URI.create(url)).GET().build();
+	}
+
+	private static HttpRequest post(String url, String json) {
+		return HttpRequest.newBuilder(URI.create(url))
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString(json))
+				.build();
+	}
+
+}
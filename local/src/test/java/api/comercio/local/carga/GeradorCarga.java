@@ -0,0 +1,159 @@
+package api.comercio.local.carga;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Gerador de carga HTTP sem ferramentas externas.
+ *
+ * Mantém "conexoes" clientes simultâneos (um por virtual thread), cada um em
+ * loop: sorteia uma operação pelos pesos, envia a requisição e mede o tempo
+ * até a resposta completa. Cada cliente usa o seu próprio gerador aleatório
+ * (semente = número do cliente), então o mix de requisições é reproduzível.
+ *
+ * As requisições feitas durante o aquecimento não entram nas medidas.
+ * Qualquer status fora de 2xx, ou exceção de rede, conta como erro.
+ */
+public class GeradorCarga {
+
+	private final List<OperacaoCarga> operacoes;
+	private final int[] pesosAcumulados;
+
+	public GeradorCarga(List<OperacaoCarga> operacoes) {
+		this.operacoes = List.copyOf(operacoes);
+		this.pesosAcumulados = new int[operacoes.size()];
+		int soma = 0;
+		for (int i = 0; i < operacoes.size(); i++) {
+			soma += operacoes.get(i).peso();
+			pesosAcumulados[i] = soma;
+		}
+	}
+
+	/**
+	 * Latências (ns) e erros de uma operação em um cliente
+	 */
+	private static final class Medidas {
+		private long[] latencias = new long[256];
+		private int quantidade;
+		private long erros;
+
+		private void registrar(long latencia, boolean ok) {
+			if (quantidade == latencias.length) {
+				latencias = Arrays.copyOf(latencias, quantidade * 2);
+			}
+			latencias[quantidade++] = latencia;
+			if (!ok) {
+				erros++;
+			}
+		}
+	}
+
+	/**
+	 * Executa a carga e calcula as estatísticas
+	 *
+	 * @param titulo - nome da execução no relatório
+	 * @param conexoes - clientes simultâneos
+	 * @param aquecimento - tempo inicial descartado (JIT, pools, caches)
+	 * @param duracao - tempo de medição
+	 */
+	public ResultadoCarga executar(String titulo, int conexoes, Duration aquecimento, Duration duracao) throws Exception {
+		long inicioMedicao = System.nanoTime() + aquecimento.toNanos();
+		long fim = inicioMedicao + duracao.toNanos();
+
+		List<Medidas[]> porCliente = new ArrayList<>(conexoes);
+		try (ExecutorService clientes = Executors.newVirtualThreadPerTaskExecutor();
+				HttpClient http = HttpClient.newBuilder()
+						.version(HttpClient.Version.HTTP_1_1)
+						.connectTimeout(Duration.ofSeconds(30))
+						.executor(clientes)
+						.build()) {
+			List<Future<Medidas[]>> tarefas = new ArrayList<>(conexoes);
+			for (int i = 0; i < conexoes; i++) {
+				SplittableRandom aleatorio = new SplittableRandom(i);
+				tarefas.add(clientes.submit(() -> {
+					Medidas[] medidas = new Medidas[operacoes.size()];
+					Arrays.setAll(medidas, n -> new Medidas());
+					while (System.nanoTime() < fim) {
+						int operacao = sortear(aleatorio);
+						var requisicao = operacoes.get(operacao).requisicao().apply(aleatorio);
+						long inicio = System.nanoTime();
+						boolean ok;
+						try {
+							int status = http.send(requisicao, HttpResponse.BodyHandlers.discarding()).statusCode();
+							ok = status >= 200 && status < 300;
+						} catch (Exception e) {
+							ok = false;
+						}
+						if (inicio >= inicioMedicao) {
+							medidas[operacao].registrar(System.nanoTime() - inicio, ok);
+						}
+					}
+					return medidas;
+				}));
+			}
+			for (Future<Medidas[]> tarefa : tarefas) {
+				porCliente.add(tarefa.get());
+			}
+		}
+
+		List<ResultadoCarga.Estatistica> estatisticas = new ArrayList<>();
+		List<Medidas> todas = new ArrayList<>();
+		for (int operacao = 0; operacao < operacoes.size(); operacao++) {
+			List<Medidas> daOperacao = new ArrayList<>(conexoes);
+			for (Medidas[] medidas : porCliente) {
+				daOperacao.add(medidas[operacao]);
+			}
+			todas.addAll(daOperacao);
+			estatisticas.add(estatistica(operacoes.get(operacao).nome(), daOperacao, duracao));
+		}
+		return new ResultadoCarga(titulo, conexoes, duracao, estatisticas, estatistica("total", todas, duracao));
+	}
+
+	private int sortear(SplittableRandom aleatorio) {
+		int valor = aleatorio.nextInt(pesosAcumulados[pesosAcumulados.length - 1]);
+		for (int i = 0; i < pesosAcumulados.length; i++) {
+			if (valor < pesosAcumulados[i]) {
+				return i;
+			}
+		}
+		return pesosAcumulados.length - 1;
+	}
+
+	private static ResultadoCarga.Estatistica estatistica(String nome, List<Medidas> medidas, Duration duracao) {
+		int total = 0;
+		long erros = 0;
+		for (Medidas medida : medidas) {
+			total += medida.quantidade;
+			erros += medida.erros;
+		}
+
+		long[] latencias = new long[total];
+		int posicao = 0;
+		for (Medidas medida : medidas) {
+			System.arraycopy(medida.latencias, 0, latencias, posicao, medida.quantidade);
+			posicao += medida.quantidade;
+		}
+		Arrays.sort(latencias);
+
+		return new ResultadoCarga.Estatistica(nome, total, erros, total / (double) duracao.toSeconds(),
+				percentil(latencias, 0.50), percentil(latencias, 0.95), percentil(latencias, 0.99),
+				total == 0 ? 0 : latencias[total - 1] / 1_000_000.0);
+	}
+
+	private static double percentil(long[] ordenadas, double fracao) {
+		if (ordenadas.length == 0) {
+			return 0;
+		}
+		int posicao = (int) Math.ceil(fracao * ordenadas.length) - 1;
+		return ordenadas[Math.max(0, Math.min(posicao, ordenadas.length - 1))] / 1_000_000.0;
+	}
+
+}
@@ -0,0 +1,16 @@
+package api.comercio.local.carga;
+
+import java.net.http.HttpRequest;
+import java.util.SplittableRandom;
+import java.util.function.Function;
+
+/**
+ * Uma operação do tráfego sintético.
+ *
+ * @param nome - nome da operação no relatório (ex: "buscar-produto")
+ * @param peso - participação no tráfego (ex: pesos 3 e 1 = 75% e 25% das requisições)
+ * @param requisicao - monta a próxima requisição; o gerador aleatório é do cliente
+ *                     que vai enviá-la (sequência reproduzível por cliente)
+ */
+public record OperacaoCarga(String nome, int peso, Function<SplittableRandom, HttpRequest> requisicao) {
+}
@@ -0,0 +1,70 @@
+package api.comercio.local.carga;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Resultado de uma execução do GeradorCarga: vazão, percentis de latência e
+ * erros de cada operação e do total.
+ *
+ * @param titulo - identifica a execução no relatório (ex: "mix-http", "virtual")
+ * @param conexoes - clientes simultâneos
+ * @param duracao - duração da medição (sem o aquecimento)
+ * @param operacoes - estatísticas por operação, na ordem em que foram declaradas
+ * @param total - estatísticas de todas as requisições juntas
+ */
+public record ResultadoCarga(String titulo, int conexoes, Duration duracao,
+		List<Estatistica> operacoes, Estatistica total) {
+
+	/**
+	 * Estatísticas de uma operação (latências em milissegundos)
+	 */
+	public record Estatistica(String nome, long requisicoes, long erros, double porSegundo,
+			double p50ms, double p95ms, double p99ms, double maximoMs) {
+
+		public double taxaErro() {
+			return requisicoes == 0 ? 0 : (double) erros / requisicoes;
+		}
+	}
+
+	/**
+	 * Tabela legível com a configuração e uma linha por operação
+	 */
+	public String tabela() {
+		StringBuilder texto = new StringBuilder();
+		texto.append(String.format("Carga \"%s\": %d conexões simultâneas, %d s de medição%n",
+				titulo, conexoes, duracao.toSeconds()));
+		texto.append(String.format("%-20s %12s %10s %9s %9s %9s %9s %8s %8s%n",
+				"operação", "requisições", "req/s", "p50 ms", "p95 ms", "p99 ms", "máx ms", "erros", "erro %"));
+		for (Estatistica estatistica : operacoes) {
+			linha(texto, estatistica);
+		}
+		linha(texto, total);
+		return texto.toString();
+	}
+
+	/**
+	 * Grava a tabela em diretorio/carga-{titulo}-{data e hora}.txt
+	 *
+	 * @return arquivo gravado
+	 */
+	public Path gravar(Path diretorio) throws IOException {
+		Files.createDirectories(diretorio);
+		String quando = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+		Path arquivo = diretorio.resolve("carga-" + titulo + "-" + quando + ".txt");
+		return Files.writeString(arquivo, tabela());
+	}
+
+	private static void linha(StringBuilder texto, Estatistica estatistica) {
+		texto.append(String.format("%-20s %12d %10.0f %9.1f %9.1f %9.1f %9.1f %8d %7.2f%%%n",
+				estatistica.nome(), estatistica.requisicoes(), estatistica.porSegundo(),
+				estatistica.p50ms(), estatistica.p95ms(), estatistica.p99ms(), estatistica.maximoMs(),
+				estatistica.erros(), estatistica.taxaErro() * 100));
+	}
+
+}
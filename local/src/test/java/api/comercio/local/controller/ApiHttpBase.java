@@ -0,0 +1,115 @@
+package api.comercio.local.controller;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import api.comercio.local.model.Cliente;
+import api.comercio.local.model.Endereco;
+import api.comercio.local.model.Fornecedor;
+import api.comercio.local.model.Produto;
+import api.comercio.local.repository.ClienteRepository;
+import api.comercio.local.repository.FornecedorRepository;
+import api.comercio.local.repository.ProdutoRepository;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Base dos testes que chamam a API pelo servidor real (porta aleatória).
+ *
+ * Oferece o cliente HTTP, as estatísticas do Hibernate (ligadas em
+ * application.properties) para contar comandos SQL de cada requisição e
+ * os cadastros usados pelos testes.
+ *
+ * Propriedades específicas de uma classe vão em @TestPropertySource
+ * (redeclarar @SpringBootTest trocaria o servidor real por um mock).
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+abstract class ApiHttpBase {
+
+	private final HttpClient http = HttpClient.newHttpClient();
+
+	@Value("${local.server.port}")
+	private int porta;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	protected ClienteRepository clienteRepository;
+
+	@Autowired
+	protected FornecedorRepository fornecedorRepository;
+
+	@Autowired
+	protected ProdutoRepository produtoRepository;
+
+	protected Statistics estatisticas;
+
+	@BeforeEach
+	void prepararEstatisticas() {
+		estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	/**
+	 * Requisição para um caminho da API (ex: "/api/produtos/1")
+	 */
+	protected HttpRequest.Builder requisicao(String caminho) {
+		return HttpRequest.newBuilder(URI.create("http://localhost:" + porta + caminho));
+	}
+
+	/**
+	 * Requisição com corpo JSON (Content-Type: application/json)
+	 */
+	protected HttpRequest.Builder requisicaoJson(String metodo, String caminho, String json) {
+		return requisicao(caminho)
+				.header("Content-Type", "application/json")
+				.method(metodo, HttpRequest.BodyPublishers.ofString(json));
+	}
+
+	protected HttpResponse<String> enviar(HttpRequest.Builder requisicao) throws Exception {
+		return http.send(requisicao.build(), HttpResponse.BodyHandlers.ofString());
+	}
+
+	protected HttpResponse<String> get(String caminho) throws Exception {
+		return enviar(requisicao(caminho).GET());
+	}
+
+	protected HttpClient http() {
+		return http;
+	}
+
+	protected Cliente novoCliente(String cpf) {
+		return clienteRepository.save(Cliente.builder()
+				.nome("Cliente " + cpf)
+				.cpf(cpf)
+				.endereco(Endereco.builder().logradouro("Rua das Flores").numero("10").cidade("São Paulo").estado("SP").build())
+				.build());
+	}
+
+	protected Fornecedor novoFornecedor(String cnpj) {
+		return fornecedorRepository.save(Fornecedor.builder()
+				.nome("Fornecedor " + cnpj)
+				.cnpj(cnpj)
+				.endereco(Endereco.builder().cidade("Campinas").estado("SP").build())
+				.build());
+	}
+
+	protected Produto novoProduto(String nome, Fornecedor fornecedor) {
+		return produtoRepository.save(Produto.builder()
+				.nome(nome)
+				.preco(BigDecimal.TEN)
+				.quantidadeEstoque(100)
+				.fornecedor(fornecedor)
+				.build());
+	}
+
+}
@@ -0,0 +1,53 @@
+package api.comercio.local.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.http.HttpResponse;
+
+import org.junit.jupiter.api.Test;
+
+import api.comercio.local.model.Produto;
+
+/**
+ * PATCH com JSON Merge Patch: um único UPDATE, só das colunas enviadas,
+ * sem ler o produto antes.
+ */
+class AtualizacaoParcialTests extends ApiHttpBase {
+
+	@Test
+	void patchDePrecoExecutaUmUnicoUpdateEMantemOsDemaisCampos() throws Exception {
+		Produto produto = novoProduto("Produto Patch", null);
+
+		estatisticas.clear();
+		HttpResponse<String> resposta = patch("/api/produtos/" + produto.getId(), "{\"preco\":19.90}");
+
+		assertThat(resposta.statusCode()).isEqualTo(204);
+		assertThat(estatisticas.getPrepareStatementCount()).isEqualTo(1);
+		assertThat(estatisticas.getEntityLoadCount()).isZero();
+
+		Produto alterado = produtoRepository.findById(produto.getId()).orElseThrow();
+		assertThat(alterado.getPreco()).isEqualByComparingTo("19.90");
+		assertThat(alterado.getNome()).isEqualTo("Produto Patch");
+		assertThat(alterado.getQuantidadeEstoque()).isEqualTo(100);
+		assertThat(alterado.getVersao()).isEqualTo(produto.getVersao() + 1);
+	}
+
+	@Test
+	void patchRecusaCampoDesconhecidoVersaoAntigaEProdutoInexistente() throws Exception {
+		Produto produto = novoProduto("Produto Patch", null);
+		String caminho = "/api/produtos/" + produto.getId();
+
+		assertThat(patch(caminho, "{\"codigo\":\"X\"}").statusCode()).isEqualTo(400);
+		assertThat(patch(caminho, "{\"nome\":null}").statusCode()).isEqualTo(400);
+		assertThat(patch(caminho, "{\"quantidadeEstoque\":50,\"versao\":" + produto.getVersao() + "}").statusCode())
+				.isEqualTo(204);
+		assertThat(patch(caminho, "{\"quantidadeEstoque\":40,\"versao\":" + produto.getVersao() + "}").statusCode())
+				.isEqualTo(409);
+		assertThat(patch("/api/produtos/999999", "{\"preco\":1.00}").statusCode()).isEqualTo(404);
+	}
+
+	private HttpResponse<String> patch(String caminho, String json) throws Exception {
+		return enviar(requisicaoJson("PATCH", caminho, json).setHeader("Content-Type", "application/merge-patch+json"));
+	}
+
+}
@@ -0,0 +1,80 @@
+package api.comercio.local.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import org.junit.jupiter.api.Test;
+
+import api.comercio.local.model.Fornecedor;
+import api.comercio.local.model.Produto;
+
+/**
+ * GET condicional do catálogo: ETag nas respostas, 304 com If-None-Match
+ * sem carregar entidades, e ETag novo depois de uma alteração.
+ */
+class CatalogoEtagTests extends ApiHttpBase {
+
+	@Test
+	void listagemDeProdutosSemAlteracaoRespondeNotModifiedSemCarregarEntidades() throws Exception {
+		novoProduto("Produto ETag", novoFornecedor("11.111.111/0001-01"));
+
+		HttpResponse<String> primeira = get("/api/produtos", null);
+		String etag = primeira.headers().firstValue("ETag").orElseThrow();
+
+		estatisticas.clear();
+		HttpResponse<String> segunda = get("/api/produtos", etag);
+
+		assertThat(segunda.statusCode()).isEqualTo(304);
+		assertThat(segunda.body()).isEmpty();
+		assertThat(segunda.headers().firstValue("ETag")).contains(etag);
+		// apenas as agregações de produtos e fornecedores
+		assertThat(estatisticas.getPrepareStatementCount()).isEqualTo(2);
+		assertThat(estatisticas.getEntityLoadCount()).isZero();
+	}
+
+	@Test
+	void alteracaoDoProdutoMudaOEtagERecusaVersaoAntiga() throws Exception {
+		Produto produto = novoProduto("Produto Versionado", null);
+		String caminho = "/api/produtos/" + produto.getId();
+
+		String etag = get(caminho, null).headers().firstValue("ETag").orElseThrow();
+		assertThat(get(caminho, etag).statusCode()).isEqualTo(304);
+
+		String json = "{\"nome\":\"Produto Versionado\",\"preco\":12.00,\"quantidadeEstoque\":5,\"versao\":"
+				+ produto.getVersao() + "}";
+		assertThat(put(caminho, json).statusCode()).isEqualTo(200);
+		// mesma versão de novo: alguém já gravou depois dela
+		assertThat(put(caminho, json).statusCode()).isEqualTo(409);
+
+		HttpResponse<String> depois = get(caminho, etag);
+		assertThat(depois.statusCode()).isEqualTo(200);
+		assertThat(depois.headers().firstValue("ETag")).isPresent().get().isNotEqualTo(etag);
+	}
+
+	@Test
+	void fornecedorSemAlteracaoRespondeNotModifiedSemCarregarOFornecedor() throws Exception {
+		Fornecedor fornecedor = novoFornecedor("11.111.111/0001-02");
+		String caminho = "/api/fornecedores/" + fornecedor.getId();
+
+		String etag = get(caminho, null).headers().firstValue("ETag").orElseThrow();
+
+		estatisticas.clear();
+		assertThat(get(caminho, etag).statusCode()).isEqualTo(304);
+		assertThat(estatisticas.getEntityLoadCount()).isZero();
+	}
+
+	private HttpResponse<String> get(String caminho, String ifNoneMatch) throws Exception {
+		HttpRequest.Builder requisicao = requisicao(caminho).GET();
+		if (ifNoneMatch != null) {
+			requisicao.header("If-None-Match", ifNoneMatch);
+		}
+		return enviar(requisicao);
+	}
+
+	private HttpResponse<String> put(String caminho, String json) throws Exception {
+		return enviar(requisicaoJson("PUT", caminho, json));
+	}
+
+}
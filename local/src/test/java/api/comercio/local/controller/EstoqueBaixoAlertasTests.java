@@ -0,0 +1,111 @@
+package api.comercio.local.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import api.comercio.local.evento.ProdutoAlteradoEvent;
+import api.comercio.local.model.Cliente;
+import api.comercio.local.model.Produto;
+import api.comercio.local.service.EstoqueBaixoService;
+
+/**
+ * Alertas de estoque baixo por SSE: a venda que leva o produto abaixo do
+ * limite gera "estoque-baixo", a reposição gera "estoque-normalizado", e um
+ * estado mais antigo que chega atrasado não gera alerta.
+ */
+class EstoqueBaixoAlertasTests extends ApiHttpBase {
+
+	private static final int LIMITE = 50;
+
+	@Autowired
+	private EstoqueBaixoService estoqueBaixoService;
+
+	@Test
+	void assinanteRecebeOsCruzamentosDoLimite() throws Exception {
+		Cliente cliente = novoCliente("777.777.777-03");
+		Produto produto = novoProduto("Produto Alerta", null);
+
+		HttpResponse<Stream<String>> conexao = http().send(
+				requisicao("/api/produtos/estoque-baixo/stream?quantidade=" + LIMITE).GET().build(),
+				HttpResponse.BodyHandlers.ofLines());
+		assertThat(conexao.statusCode()).isEqualTo(200);
+		BlockingQueue<String> eventos = new LinkedBlockingQueue<>();
+		Thread leitor = Thread.ofVirtual().start(() -> lerEventos(conexao.body(), eventos));
+		try {
+			assertThat(proximo(eventos, "snapshot")).doesNotContain("\"id\":" + produto.getId() + ",");
+
+			// venda de 60: 100 -> 40
+			String venda = "{\"cliente\":{\"id\":" + cliente.getId() + "},\"itens\":[{\"produto\":{\"id\":"
+					+ produto.getId() + "},\"quantidade\":60,\"precoUnitario\":10.00}]}";
+			assertThat(enviar(requisicaoJson("POST", "/api/vendas", venda)).statusCode()).isEqualTo(201);
+			assertThat(proximo(eventos, "estoque-baixo", produto)).contains("\"quantidadeEstoque\":40");
+
+			// estado anterior à venda chegando depois dela: descartado pela versão
+			estoqueBaixoService.aoAlterarProduto(new ProdutoAlteradoEvent(produto.getId(), produto));
+			assertThat(estoqueBaixoService.buscarAbaixoDe(LIMITE)).extracting(Produto::getId).contains(produto.getId());
+
+			// reposição: 40 -> 80
+			Long versao = produtoRepository.findById(produto.getId()).orElseThrow().getVersao();
+			String reposicao = "{\"nome\":\"Produto Alerta\",\"preco\":10.00,\"quantidadeEstoque\":80,\"versao\":" + versao + "}";
+			assertThat(enviar(requisicaoJson("PUT", "/api/produtos/" + produto.getId(), reposicao)).statusCode()).isEqualTo(200);
+			// o primeiro alerta depois do baixo é o da reposição (não o do estado atrasado, com 100)
+			assertThat(proximo(eventos, "estoque-normalizado", produto)).contains("\"quantidadeEstoque\":80");
+			assertThat(estoqueBaixoService.buscarAbaixoDe(LIMITE)).extracting(Produto::getId).doesNotContain(produto.getId());
+		} finally {
+			conexao.body().close();
+			leitor.interrupt();
+		}
+	}
+
+	/**
+	 * Junta as linhas "event:" e "data:" de cada evento SSE em "nome dados"
+	 */
+	private static void lerEventos(Stream<String> linhas, BlockingQueue<String> eventos) {
+		String[] nome = new String[1];
+		try {
+			linhas.forEach(linha -> {
+				if (linha.startsWith("event:")) {
+					nome[0] = linha.substring("event:".length());
+				} else if (linha.startsWith("data:") && nome[0] != null) {
+					eventos.add(nome[0] + " " + linha.substring("data:".length()));
+					nome[0] = null;
+				}
+			});
+		} catch (RuntimeException e) {
+			// conexão fechada no fim do teste
+		}
+	}
+
+	private static String proximo(BlockingQueue<String> eventos, String nome) throws InterruptedException {
+		String evento = eventos.poll(10, TimeUnit.SECONDS);
+		assertThat(evento).as("evento %s", nome).isNotNull().startsWith(nome + " ");
+		return evento;
+	}
+
+	/**
+	 * Próximo alerta do produto (alertas de produtos de outros testes são ignorados)
+	 */
+	private static String proximo(BlockingQueue<String> eventos, String nome, Produto produto) throws InterruptedException {
+		List<String> ignorados = new ArrayList<>();
+		while (true) {
+			String evento = eventos.poll(10, TimeUnit.SECONDS);
+			assertThat(evento).as("evento %s do produto %d (ignorados: %s)", nome, produto.getId(), ignorados).isNotNull();
+			if (evento.contains("\"id\":" + produto.getId() + ",")) {
+				assertThat(evento).startsWith(nome + " ");
+				return evento;
+			}
+			ignorados.add(evento);
+		}
+	}
+
+}
@@ -0,0 +1,60 @@
+package api.comercio.local.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+
+import api.comercio.local.model.Cliente;
+import api.comercio.local.model.Produto;
+
+/**
+ * Vendas simultâneas do mesmo produto: a baixa condicional do estoque
+ * (ProdutoRepository.baixarEstoque) aceita só o que há em estoque e
+ * recusa o resto com 409, sem deixar o estoque negativo.
+ */
+class EstoqueConcorrenteTests extends ApiHttpBase {
+
+	private static final int VENDAS = 20;
+	private static final int ESTOQUE = 5;
+
+	@Test
+	void vendasSimultaneasNaoVendemMaisQueOEstoque() throws Exception {
+		Cliente cliente = novoCliente("444.444.444-01");
+		Produto produto = produtoRepository.save(Produto.builder()
+				.nome("Produto Disputado")
+				.preco(BigDecimal.TEN)
+				.quantidadeEstoque(ESTOQUE)
+				.build());
+
+		String json = "{\"cliente\":{\"id\":" + cliente.getId() + "},\"itens\":[{\"produto\":{\"id\":"
+				+ produto.getId() + "},\"quantidade\":1,\"precoUnitario\":10.00}]}";
+		List<CompletableFuture<HttpResponse<String>>> respostas = new ArrayList<>();
+		for (int i = 0; i < VENDAS; i++) {
+			respostas.add(http().sendAsync(requisicaoJson("POST", "/api/vendas", json).build(),
+					HttpResponse.BodyHandlers.ofString()));
+		}
+
+		int criadas = 0;
+		int recusadas = 0;
+		for (CompletableFuture<HttpResponse<String>> resposta : respostas) {
+			int status = resposta.get().statusCode();
+			assertThat(status).isIn(201, 409);
+			if (status == 201) {
+				criadas++;
+			} else {
+				recusadas++;
+			}
+		}
+
+		assertThat(criadas).isEqualTo(ESTOQUE);
+		assertThat(recusadas).isEqualTo(VENDAS - ESTOQUE);
+		assertThat(produtoRepository.findQuantidadeEstoqueById(produto.getId())).contains(0);
+	}
+
+}
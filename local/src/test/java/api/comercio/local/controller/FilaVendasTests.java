@@ -0,0 +1,53 @@
+package api.comercio.local.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.http.HttpResponse;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import api.comercio.local.model.Cliente;
+import api.comercio.local.repository.VendaRepository;
+
+/**
+ * POST /api/vendas/fila: 202 com o ID de acompanhamento, e a venda aparece
+ * como GRAVADA em GET /api/vendas/fila/{id} depois que o escritor grava o lote.
+ */
+@TestPropertySource(properties = "comercio.vendas.fila.habilitada=true")
+class FilaVendasTests extends ApiHttpBase {
+
+	@Autowired
+	private VendaRepository vendaRepository;
+
+	@Test
+	void vendaAceitaNaFilaEGravadaPeloEscritor() throws Exception {
+		Cliente cliente = novoCliente("333.333.333-01");
+
+		HttpResponse<String> aceita = post("{\"cliente\":{\"id\":" + cliente.getId() + "},\"valorTotal\":25.00}");
+		assertThat(aceita.statusCode()).isEqualTo(202);
+		String situacao = aceita.headers().firstValue("Location").orElseThrow();
+
+		HttpResponse<String> resposta = get(situacao);
+		for (int tentativa = 0; tentativa < 50 && resposta.body().contains("PENDENTE"); tentativa++) {
+			Thread.sleep(100);
+			resposta = get(situacao);
+		}
+
+		assertThat(resposta.statusCode()).isEqualTo(200);
+		assertThat(resposta.body()).contains("\"estado\":\"GRAVADA\"");
+		assertThat(vendaRepository.findByClienteId(cliente.getId())).hasSize(1);
+	}
+
+	@Test
+	void vendaIncompletaERecusadaAntesDaFila() throws Exception {
+		assertThat(post("{\"valorTotal\":25.00}").statusCode()).isEqualTo(400);
+		assertThat(get("/api/vendas/fila/inexistente").statusCode()).isEqualTo(404);
+	}
+
+	private HttpResponse<String> post(String json) throws Exception {
+		return enviar(requisicaoJson("POST", "/api/vendas/fila", json));
+	}
+
+}
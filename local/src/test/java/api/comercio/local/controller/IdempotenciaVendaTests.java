@@ -0,0 +1,81 @@
+package api.comercio.local.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+
+import api.comercio.local.model.Cliente;
+
+/**
+ * POST /api/vendas com Idempotency-Key: a repetição devolve a resposta original
+ * sem ir ao banco, e repetições simultâneas gravam uma única venda.
+ */
+class IdempotenciaVendaTests extends ApiHttpBase {
+
+	@Test
+	void repeticaoDevolveARespostaOriginalSemComandosNoBanco() throws Exception {
+		String json = vendaJson(novoCliente("222.222.222-01"));
+		String chave = UUID.randomUUID().toString();
+
+		HttpResponse<String> primeira = post(json, chave);
+		assertThat(primeira.statusCode()).isEqualTo(201);
+		assertThat(primeira.headers().firstValue("Idempotent-Replayed")).contains("false");
+
+		estatisticas.clear();
+		HttpResponse<String> repetida = post(json, chave);
+
+		assertThat(repetida.statusCode()).isEqualTo(201);
+		assertThat(repetida.headers().firstValue("Idempotent-Replayed")).contains("true");
+		assertThat(repetida.body()).isEqualTo(primeira.body());
+		assertThat(estatisticas.getPrepareStatementCount()).isZero();
+	}
+
+	@Test
+	void repeticoesSimultaneasGravamUmaUnicaVenda() throws Exception {
+		String json = vendaJson(novoCliente("222.222.222-02"));
+		String chave = UUID.randomUUID().toString();
+
+		estatisticas.clear();
+		List<CompletableFuture<HttpResponse<String>>> respostas = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			respostas.add(http().sendAsync(requisicao(json, chave).build(), HttpResponse.BodyHandlers.ofString()));
+		}
+
+		String corpo = null;
+		for (CompletableFuture<HttpResponse<String>> resposta : respostas) {
+			assertThat(resposta.get().statusCode()).isEqualTo(201);
+			if (corpo == null) {
+				corpo = resposta.get().body();
+			}
+			assertThat(resposta.get().body()).isEqualTo(corpo);
+		}
+		assertThat(estatisticas.getEntityInsertCount()).isEqualTo(1);
+	}
+
+	@Test
+	void chaveMuitoLongaERecusada() throws Exception {
+		String json = vendaJson(novoCliente("222.222.222-03"));
+
+		assertThat(post(json, "x".repeat(101)).statusCode()).isEqualTo(400);
+	}
+
+	private HttpResponse<String> post(String json, String chave) throws Exception {
+		return enviar(requisicao(json, chave));
+	}
+
+	private HttpRequest.Builder requisicao(String json, String chave) {
+		return requisicaoJson("POST", "/api/vendas", json).header("Idempotency-Key", chave);
+	}
+
+	private String vendaJson(Cliente cliente) {
+		return "{\"cliente\":{\"id\":" + cliente.getId() + "},\"valorTotal\":49.90}";
+	}
+
+}
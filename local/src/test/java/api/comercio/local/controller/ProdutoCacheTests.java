@@ -0,0 +1,90 @@
+package api.comercio.local.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.http.HttpResponse;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import api.comercio.local.model.Cliente;
+import api.comercio.local.model.Fornecedor;
+import api.comercio.local.model.Produto;
+import api.comercio.local.service.ProdutoCacheService;
+
+/**
+ * Cache de produtos: a segunda consulta não vai ao banco, e a entrada é
+ * removida quando o produto é alterado pela API ou vendido.
+ */
+class ProdutoCacheTests extends ApiHttpBase {
+
+	@Autowired
+	private ProdutoCacheService produtoCacheService;
+
+	@Test
+	void consultaRepetidaVemDoCacheSemComandosSql() throws Exception {
+		Fornecedor fornecedor = novoFornecedor("55.555.555/0001-01");
+		Produto produto = novoProduto("Produto Em Cache", fornecedor);
+		String caminho = "/api/produtos/" + produto.getId();
+
+		HttpResponse<String> primeira = get(caminho);
+		HttpResponse<String> porFornecedor = get("/api/produtos/fornecedor/" + fornecedor.getId());
+		assertThat(primeira.statusCode()).isEqualTo(200);
+
+		estatisticas.clear();
+		HttpResponse<String> segunda = get(caminho);
+		HttpResponse<String> porFornecedorDeNovo = get("/api/produtos/fornecedor/" + fornecedor.getId());
+
+		assertThat(segunda.body()).isEqualTo(primeira.body()).contains("\"nome\":\"Fornecedor 55.555.555/0001-01\"");
+		assertThat(segunda.headers().firstValue("ETag")).isEqualTo(primeira.headers().firstValue("ETag"));
+		assertThat(porFornecedorDeNovo.body()).isEqualTo(porFornecedor.body()).contains("Produto Em Cache");
+		assertThat(estatisticas.getPrepareStatementCount()).isZero();
+	}
+
+	@Test
+	void entidadeAlteradaForaDaApiNaoMudaACopiaDoCache() throws Exception {
+		Produto produto = novoProduto("Produto Original", null);
+		String caminho = "/api/produtos/" + produto.getId();
+		String corpo = get(caminho).body();
+
+		// a entidade carregada por outro código não é a guardada no cache
+		Produto carregado = produtoRepository.findById(produto.getId()).orElseThrow();
+		carregado.setNome("Alterado Sem Gravar");
+
+		assertThat(get(caminho).body()).isEqualTo(corpo).contains("Produto Original");
+		assertThat(produtoCacheService.buscar(produto.getId())).get()
+				.extracting(detalhe -> detalhe.nome()).isEqualTo("Produto Original");
+	}
+
+	@Test
+	void alteracaoPelaApiRemoveOProdutoDoCache() throws Exception {
+		Produto produto = novoProduto("Produto Alterado", null);
+		String caminho = "/api/produtos/" + produto.getId();
+		String etag = get(caminho).headers().firstValue("ETag").orElseThrow();
+
+		String json = "{\"nome\":\"Produto Alterado\",\"preco\":15.00,\"quantidadeEstoque\":100,\"versao\":"
+				+ produto.getVersao() + "}";
+		assertThat(enviar(requisicaoJson("PUT", caminho, json)).statusCode()).isEqualTo(200);
+
+		HttpResponse<String> depois = get(caminho);
+		assertThat(depois.body()).contains("\"preco\":15.0");
+		assertThat(depois.headers().firstValue("ETag")).isPresent().get().isNotEqualTo(etag);
+	}
+
+	@Test
+	void vendaRemoveOProdutoDoCache() throws Exception {
+		Cliente cliente = novoCliente("555.555.555-01");
+		Produto produto = novoProduto("Produto Vendido Em Cache", null);
+		String caminho = "/api/produtos/" + produto.getId();
+		assertThat(get(caminho).body()).contains("\"quantidadeEstoque\":100");
+
+		String venda = "{\"cliente\":{\"id\":" + cliente.getId() + "},\"itens\":[{\"produto\":{\"id\":"
+				+ produto.getId() + "},\"quantidade\":3,\"precoUnitario\":10.00}]}";
+		assertThat(enviar(requisicaoJson("POST", "/api/vendas", venda)).statusCode()).isEqualTo(201);
+
+		estatisticas.clear();
+		assertThat(get(caminho).body()).contains("\"quantidadeEstoque\":97");
+		assertThat(estatisticas.getPrepareStatementCount()).isPositive();
+	}
+
+}
@@ -0,0 +1,168 @@
+package api.comercio.local.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import api.comercio.local.model.Cliente;
+import api.comercio.local.model.Produto;
+import api.comercio.local.service.ResumoVendaService;
+
+/**
+ * Resumos diários (vendas_diarias e vendas_diarias_produto) iguais às somas
+ * feitas direto sobre vendas e estoque depois de cada tipo de alteração, de
+ * reconstruir() e de vendas simultâneas abrindo o mesmo dia.
+ *
+ * As vendas usam datas futuras, que nenhum outro teste usa: a comparação é
+ * feita só nesses dias.
+ */
+class ResumoVendasConsistenciaTests extends ApiHttpBase {
+
+	private static final Pattern ID = Pattern.compile("^\\{\"id\":(\\d+)");
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ResumoVendaService resumoVendaService;
+
+	@Test
+	void resumosAcompanhamCadastroAlteracoesEExclusoes() throws Exception {
+		List<LocalDate> dias = List.of(LocalDate.of(2031, 3, 10), LocalDate.of(2031, 3, 11), LocalDate.of(2031, 3, 12));
+		Cliente cliente = novoCliente("777.777.777-01");
+		Produto teclado = novoProduto("Teclado Resumo", null);
+		Produto mouse = novoProduto("Mouse Resumo", null);
+
+		HttpResponse<String> criada = enviar(requisicaoJson("POST", "/api/vendas", venda(cliente, "2031-03-10T09:00:00",
+				item(teclado, 2, "10.00"), item(mouse, 1, "5.00"))));
+		assertThat(criada.statusCode()).isEqualTo(201);
+		long primeira = id(criada.body());
+		conferir(dias);
+
+		HttpResponse<String> outra = enviar(requisicaoJson("POST", "/api/vendas", venda(cliente, "2031-03-10T15:00:00",
+				item(teclado, 3, "10.00"))));
+		long segunda = id(outra.body());
+		conferir(dias);
+
+		// PUT: outro dia, outro valor e sem os itens (removidos com orphanRemoval)
+		assertThat(enviar(requisicaoJson("PUT", "/api/vendas/" + primeira, "{\"cliente\":{\"id\":" + cliente.getId()
+				+ "},\"dataVenda\":\"2031-03-11T10:00:00\",\"valorTotal\":99.00}")).statusCode()).isEqualTo(200);
+		conferir(dias);
+
+		// PATCH: só a data
+		assertThat(enviar(requisicaoJson("PATCH", "/api/vendas/" + segunda, "{\"dataVenda\":\"2031-03-12T08:00:00\"}")
+				.setHeader("Content-Type", "application/merge-patch+json")).statusCode()).isEqualTo(204);
+		conferir(dias);
+
+		// itens: inclusão, alteração e exclusão
+		HttpResponse<String> item = enviar(requisicaoJson("POST", "/api/estoque", "{\"venda\":{\"id\":" + segunda
+				+ "},\"produto\":{\"id\":" + mouse.getId() + "},\"quantidade\":4,\"precoUnitario\":5.00}"));
+		assertThat(item.statusCode()).isEqualTo(201);
+		long itemNovo = id(item.body());
+		conferir(dias);
+
+		assertThat(enviar(requisicaoJson("PUT", "/api/estoque/" + itemNovo, "{\"venda\":{\"id\":" + segunda
+				+ "},\"produto\":{\"id\":" + mouse.getId() + "},\"quantidade\":2,\"precoUnitario\":7.00}"))
+				.statusCode()).isEqualTo(200);
+		conferir(dias);
+
+		assertThat(enviar(requisicao("/api/estoque/" + itemNovo).DELETE()).statusCode()).isEqualTo(204);
+		conferir(dias);
+
+		// exclusão da venda (com os itens)
+		assertThat(enviar(requisicaoJson("POST", "/api/estoque", "{\"venda\":{\"id\":" + primeira
+				+ "},\"produto\":{\"id\":" + teclado.getId() + "},\"quantidade\":1,\"precoUnitario\":10.00}"))
+				.statusCode()).isEqualTo(201);
+		conferir(dias);
+		assertThat(enviar(requisicao("/api/vendas/" + primeira).DELETE()).statusCode()).isEqualTo(204);
+		conferir(dias);
+
+		resumoVendaService.reconstruir();
+		conferir(dias);
+	}
+
+	@Test
+	void vendasSimultaneasNoPrimeiroMinutoDeUmDiaNovo() throws Exception {
+		LocalDate dia = LocalDate.of(2031, 4, 1);
+		Cliente cliente = novoCliente("777.777.777-02");
+		List<CompletableFuture<HttpResponse<String>>> respostas = new ArrayList<>();
+		for (int i = 0; i < 16; i++) {
+			// um produto por venda: só o resumo do dia é disputado
+			Produto produto = novoProduto("Produto Dia Novo " + i, null);
+			String json = venda(cliente, "2031-04-01T00:00:0" + (i % 10), item(produto, 1, "10.00"));
+			respostas.add(http().sendAsync(requisicaoJson("POST", "/api/vendas", json).build(),
+					HttpResponse.BodyHandlers.ofString()));
+		}
+		for (CompletableFuture<HttpResponse<String>> resposta : respostas) {
+			assertThat(resposta.get().statusCode()).isEqualTo(201);
+		}
+
+		Map<String, Object> resumo = jdbcTemplate.queryForMap(
+				"SELECT quantidade_vendas, itens_vendidos FROM vendas_diarias WHERE dia = ?", dia);
+		assertThat(((Number) resumo.get("quantidade_vendas")).longValue()).isEqualTo(16);
+		assertThat(((Number) resumo.get("itens_vendidos")).longValue()).isEqualTo(16);
+		conferir(List.of(dia));
+	}
+
+	/**
+	 * Compara os resumos de cada dia com as somas sobre vendas e estoque
+	 * (linha ausente no resumo vale zero)
+	 */
+	private void conferir(List<LocalDate> dias) {
+		for (LocalDate dia : dias) {
+			List<Object> esperado = jdbcTemplate.queryForObject("""
+					SELECT COUNT(*), COALESCE(SUM(v.valor_total), 0),
+					       COALESCE((SELECT SUM(e.quantidade) FROM estoque e JOIN vendas x ON x.id = e.venda_id
+					                 WHERE CAST(x.data_venda AS DATE) = ?), 0)
+					FROM vendas v WHERE CAST(v.data_venda AS DATE) = ?
+					""", (rs, n) -> List.of(rs.getLong(1), rs.getBigDecimal(2).stripTrailingZeros(), rs.getLong(3)), dia, dia);
+			List<Object> resumo = jdbcTemplate.query(
+					"SELECT quantidade_vendas, valor_total, itens_vendidos FROM vendas_diarias WHERE dia = ?",
+					(rs, n) -> List.<Object>of(rs.getLong(1), rs.getBigDecimal(2).stripTrailingZeros(), rs.getLong(3)), dia)
+					.stream().findFirst().orElse(List.of(0L, BigDecimal.ZERO, 0L));
+			assertThat(resumo).as("vendas_diarias %s", dia).isEqualTo(esperado);
+
+			List<List<Object>> esperadoProdutos = jdbcTemplate.query("""
+					SELECT e.produto_id, SUM(e.quantidade), SUM(e.quantidade * e.preco_unitario)
+					FROM estoque e JOIN vendas v ON v.id = e.venda_id
+					WHERE CAST(v.data_venda AS DATE) = ?
+					GROUP BY e.produto_id ORDER BY e.produto_id
+					""", (rs, n) -> List.<Object>of(rs.getLong(1), rs.getLong(2), rs.getBigDecimal(3).stripTrailingZeros()), dia);
+			// linhas zeradas ficam no resumo depois que a última venda do produto sai do dia
+			List<List<Object>> resumoProdutos = jdbcTemplate.query("""
+					SELECT produto_id, quantidade_vendida, valor_total FROM vendas_diarias_produto
+					WHERE dia = ? AND (quantidade_vendida <> 0 OR valor_total <> 0) ORDER BY produto_id
+					""", (rs, n) -> List.<Object>of(rs.getLong(1), rs.getLong(2), rs.getBigDecimal(3).stripTrailingZeros()), dia);
+			assertThat(resumoProdutos).as("vendas_diarias_produto %s", dia).isEqualTo(esperadoProdutos);
+		}
+	}
+
+	private static String venda(Cliente cliente, String dataVenda, String... itens) {
+		return "{\"cliente\":{\"id\":" + cliente.getId() + "},\"dataVenda\":\"" + dataVenda + "\",\"itens\":["
+				+ String.join(",", itens) + "]}";
+	}
+
+	private static String item(Produto produto, int quantidade, String precoUnitario) {
+		return "{\"produto\":{\"id\":" + produto.getId() + "},\"quantidade\":" + quantidade
+				+ ",\"precoUnitario\":" + precoUnitario + "}";
+	}
+
+	private static long id(String json) {
+		Matcher matcher = ID.matcher(json);
+		assertThat(matcher.find()).as(json).isTrue();
+		return Long.parseLong(matcher.group(1));
+	}
+
+}
@@ -0,0 +1,156 @@
+package api.comercio.local.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import api.comercio.local.model.Cliente;
+import api.comercio.local.model.Endereco;
+import api.comercio.local.model.Estoque;
+import api.comercio.local.model.Fornecedor;
+import api.comercio.local.model.Produto;
+import api.comercio.local.model.Venda;
+import api.comercio.local.repository.VendaRepository;
+
+/**
+ * Verifica quantos comandos SQL cada leitura de venda executa (problema N+1).
+ *
+ * As requisições passam pelo servidor real (porta aleatória), então a contagem
+ * inclui também os carregamentos feitos durante a serialização do JSON.
+ */
+class VendaControllerTests extends ApiHttpBase {
+
+	@Autowired
+	private VendaRepository vendaRepository;
+
+	@Test
+	void detalheDaVendaExecutaUmUnicoSelect() throws Exception {
+		Cliente cliente = novoCliente("111.111.111-01");
+		Venda venda = novaVenda(cliente, LocalDateTime.now(), 5);
+
+		long comandos = contarComandos("/api/vendas/" + venda.getId());
+
+		assertThat(comandos).isEqualTo(1);
+	}
+
+	@Test
+	void vendasPorPeriodoNaoCrescemComONumeroDeVendas() throws Exception {
+		Cliente cliente = novoCliente("111.111.111-02");
+		LocalDateTime inicio = LocalDateTime.of(2001, 1, 1, 0, 0);
+		for (int i = 0; i < 20; i++) {
+			novaVenda(cliente, inicio.plusDays(i), 3);
+		}
+
+		long comandos = contarComandos("/api/vendas/periodo?inicio=2001-01-01T00:00:00&fim=2001-01-31T23:59:59");
+
+		// vendas + cliente (entity graph), depois itens, produtos e fornecedores em lotes:
+		// o total não depende das 20 vendas (sem lotes seriam mais de 20 SELECTs)
+		assertThat(comandos).isLessThanOrEqualTo(6);
+	}
+
+	@Test
+	void exportacaoDoPeriodoTrazUmaLinhaPorVendaComOsItens() throws Exception {
+		Cliente cliente = novoCliente("111.111.111-04");
+		LocalDateTime inicio = LocalDateTime.of(2002, 1, 1, 0, 0);
+		Venda primeira = novaVenda(cliente, inicio, 3);
+		Venda segunda = novaVenda(cliente, inicio.plusDays(1), 2);
+
+		HttpResponse<String> resposta = get("/api/vendas/periodo/stream?inicio=2002-01-01T00:00:00&fim=2002-01-31T23:59:59");
+
+		assertThat(resposta.statusCode()).isEqualTo(200);
+		String[] linhas = resposta.body().strip().split("\n");
+		assertThat(linhas).hasSize(2);
+		assertThat(linhas[0]).startsWith("{\"id\":" + primeira.getId() + ",");
+		assertThat(linhas[0].split("\"produtoId\"", -1)).hasSize(4);
+		assertThat(linhas[1]).startsWith("{\"id\":" + segunda.getId() + ",");
+		assertThat(linhas[1].split("\"produtoId\"", -1)).hasSize(3);
+	}
+
+	@Test
+	void vendaComClienteOuProdutoInexistenteERecusadaComBadRequest() throws Exception {
+		Cliente cliente = novoCliente("111.111.111-03");
+		String itemInexistente = "[{\"produto\":{\"id\":999999},\"quantidade\":1,\"precoUnitario\":10.00}]";
+
+		assertThat(enviar(requisicaoJson("POST", "/api/vendas",
+				"{\"cliente\":{\"id\":999999},\"valorTotal\":10.00}")).statusCode()).isEqualTo(400);
+		assertThat(enviar(requisicaoJson("POST", "/api/vendas",
+				"{\"cliente\":{\"id\":" + cliente.getId() + "},\"itens\":" + itemInexistente + "}")).statusCode())
+				.isEqualTo(400);
+		assertThat(enviar(requisicaoJson("POST", "/api/vendas/lote",
+				"[{\"cliente\":{\"id\":" + cliente.getId() + "},\"itens\":" + itemInexistente + "}]")).statusCode())
+				.isEqualTo(400);
+	}
+
+	@Test
+	void itemAdicionadoAUmaVendaExistenteVoltaComAVendaSemOsItens() throws Exception {
+		Cliente cliente = novoCliente("111.111.111-05");
+		Venda venda = novaVenda(cliente, LocalDateTime.now(), 1);
+		Produto produto = novoProduto("Produto Item Avulso", null);
+
+		HttpResponse<String> resposta = enviar(requisicaoJson("POST", "/api/estoque", "{\"venda\":{\"id\":" + venda.getId()
+				+ "},\"produto\":{\"id\":" + produto.getId() + "},\"quantidade\":2,\"precoUnitario\":10.00}"));
+
+		assertThat(resposta.statusCode()).isEqualTo(201);
+		assertThat(resposta.body()).contains("\"venda\":{\"id\":" + venda.getId()).doesNotContain("\"itens\"");
+	}
+
+	@Test
+	void alteracaoComProdutoSoPeloIdAceitaOProdutoVersionado() throws Exception {
+		Cliente cliente = novoCliente("111.111.111-06");
+		Venda venda = novaVenda(cliente, LocalDateTime.now(), 1);
+		Produto produto = novoProduto("Produto Troca", null);
+		Long itemId = venda.getItens().getFirst().getId();
+
+		HttpResponse<String> item = enviar(requisicaoJson("PUT", "/api/estoque/" + itemId, "{\"venda\":{\"id\":"
+				+ venda.getId() + "},\"produto\":{\"id\":" + produto.getId() + "},\"quantidade\":3,\"precoUnitario\":10.00}"));
+		assertThat(item.statusCode()).isEqualTo(200);
+		assertThat(item.body()).contains("\"quantidade\":3");
+
+		HttpResponse<String> alterada = enviar(requisicaoJson("PUT", "/api/vendas/" + venda.getId(), "{\"cliente\":{\"id\":"
+				+ cliente.getId() + "},\"dataVenda\":\"2003-01-01T10:00:00\",\"valorTotal\":20.00,\"itens\":[{\"produto\":{\"id\":" + produto.getId()
+				+ "},\"quantidade\":2,\"precoUnitario\":10.00}]}"));
+		assertThat(alterada.statusCode()).isEqualTo(200);
+		assertThat(alterada.body()).contains("\"quantidade\":2");
+	}
+
+	private long contarComandos(String caminho) throws Exception {
+		estatisticas.clear();
+
+		HttpResponse<String> resposta = get(caminho);
+
+		assertThat(resposta.statusCode()).isEqualTo(200);
+		return estatisticas.getPrepareStatementCount();
+	}
+
+	private Venda novaVenda(Cliente cliente, LocalDateTime data, int quantidadeItens) {
+		Venda venda = Venda.builder().cliente(cliente).dataVenda(data).valorTotal(BigDecimal.ZERO).build();
+
+		for (int i = 0; i < quantidadeItens; i++) {
+			Fornecedor fornecedor = fornecedorRepository.save(Fornecedor.builder()
+					.nome("Fornecedor " + i)
+					.endereco(Endereco.builder().cidade("Campinas").estado("SP").build())
+					.build());
+			Produto produto = produtoRepository.save(Produto.builder()
+					.nome("Produto " + i)
+					.preco(BigDecimal.TEN)
+					.quantidadeEstoque(100)
+					.fornecedor(fornecedor)
+					.build());
+
+			venda.getItens().add(Estoque.builder()
+					.venda(venda)
+					.produto(produto)
+					.quantidade(1)
+					.precoUnitario(BigDecimal.TEN)
+					.build());
+		}
+
+		return vendaRepository.save(venda);
+	}
+
+}
@@ -0,0 +1,194 @@
+package api.comercio.local.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import api.comercio.local.dto.ProdutoSugestao;
+import api.comercio.local.evento.ProdutoAlteradoEvent;
+import api.comercio.local.evento.VendaRegistradaEvent;
+import api.comercio.local.model.Produto;
+import api.comercio.local.repository.ProdutoRepository;
+
+/**
+ * Autocomplete pela trie compacta: prefixos que terminam no meio de um nó,
+ * início de qualquer palavra, ordem por vendas e a trie depois de alterações
+ * e exclusões (divisão e união de nós).
+ *
+ * Os eventos são entregues direto ao service, como fazem os listeners.
+ */
+@SpringBootTest
+class AutocompleteProdutoServiceTests {
+
+	@Autowired
+	private AutocompleteProdutoService autocompleteProdutoService;
+
+	@Autowired
+	private ProdutoRepository produtoRepository;
+
+	@Test
+	void sugereOsNomesQueComecamComOPrefixoEmQualquerPalavra() {
+		cadastrar("Mouse Zumbizento Gamer");
+		cadastrar("Mouse Zumbizento Sem Fio");
+		cadastrar("Zumbizento Teclado");
+		cadastrar("Café Zumbizento");
+
+		assertThat(sugerir("zumb")).containsExactly(
+				"Café Zumbizento", "Mouse Zumbizento Gamer", "Mouse Zumbizento Sem Fio", "Zumbizento Teclado");
+		assertThat(sugerir("mouse zumbizento s")).containsExactly("Mouse Zumbizento Sem Fio");
+		assertThat(sugerir("ZUMBIZENTO TE")).containsExactly("Zumbizento Teclado");
+		assertThat(sugerir("cafe zumbi")).containsExactly("Café Zumbizento");
+		// diverge no meio do rótulo de um nó
+		assertThat(sugerir("zumbix")).isEmpty();
+		assertThat(sugerir("mouse zumbizento sem fio e mais")).isEmpty();
+	}
+
+	@Test
+	void vendaSobeOProdutoNasSugestoes() {
+		Produto primeiro = cadastrar("Lampião Borbulhante A");
+		Produto segundo = cadastrar("Lampião Borbulhante B");
+		Produto terceiro = cadastrar("Lampião Borbulhante C");
+		assertThat(sugerir("lampiao borb")).containsExactly(
+				"Lampião Borbulhante A", "Lampião Borbulhante B", "Lampião Borbulhante C");
+
+		vender(terceiro, 5);
+		vender(segundo, 2);
+		assertThat(sugerir("lampiao borb")).containsExactly(
+				"Lampião Borbulhante C", "Lampião Borbulhante B", "Lampião Borbulhante A");
+		assertThat(sugerir("borbulhante")).containsExactly(
+				"Lampião Borbulhante C", "Lampião Borbulhante B", "Lampião Borbulhante A");
+		assertThat(autocompleteProdutoService.sugerir("borbulhante c", 10))
+				.extracting(ProdutoSugestao::quantidadeVendida).containsExactly(5L);
+
+		vender(primeiro, 10);
+		assertThat(sugerir("lampiao")).startsWith("Lampião Borbulhante A");
+	}
+
+	@Test
+	void alteracaoEExclusaoMantemAsOutrasEntradas() {
+		Produto gamer = cadastrar("Fone Quimerico Gamer");
+		Produto semFio = cadastrar("Fone Quimerico Sem Fio");
+		Produto sem = cadastrar("Fone Quimerico Sem");
+
+		alterar(gamer, "Fone Ornitorrinco");
+		assertThat(sugerir("fone quim")).containsExactly("Fone Quimerico Sem", "Fone Quimerico Sem Fio");
+		assertThat(sugerir("ornito")).containsExactly("Fone Ornitorrinco");
+
+		excluir(sem);
+		String nome = "fone quimerico sem fio";
+		for (int tamanho = 6; tamanho <= nome.length(); tamanho++) {
+			assertThat(sugerir(nome.substring(0, tamanho))).as(nome.substring(0, tamanho))
+					.containsExactly("Fone Quimerico Sem Fio");
+		}
+
+		excluir(semFio);
+		assertThat(sugerir("fone quim")).isEmpty();
+		assertThat(sugerir("fone ornitorrinco")).containsExactly("Fone Ornitorrinco");
+
+		// o mesmo nome cadastrado de novo depois da exclusão
+		cadastrar("Fone Quimerico Sem");
+		assertThat(sugerir("quimerico")).containsExactly("Fone Quimerico Sem");
+	}
+
+	/**
+	 * Sequência aleatória (semente fixa) de cadastros, alterações e exclusões de nomes
+	 * com trechos repetidos, que força divisões e uniões de nós; depois de cada passo
+	 * as sugestões de todos os prefixos são conferidas com uma busca linear.
+	 */
+	@Test
+	void sugestoesConferemComBuscaLinearDepoisDeAlteracoesAleatorias() {
+		Random aleatorio = new Random(7);
+		String[] silabas = {"ba", "be", "bab", "a", "ab", "b"};
+		Map<Long, String> nomes = new HashMap<>();
+		for (int passo = 0; passo < 300; passo++) {
+			int operacao = aleatorio.nextInt(3);
+			if (operacao == 0 || nomes.isEmpty()) {
+				StringBuilder nome = new StringBuilder("Xyzt");
+				for (int palavra = aleatorio.nextInt(3); palavra >= 0; palavra--) {
+					nome.append(' ');
+					for (int silaba = aleatorio.nextInt(3); silaba >= 0; silaba--) {
+						nome.append(silabas[aleatorio.nextInt(silabas.length)]);
+					}
+				}
+				// IDs que não existem no banco: só a trie é exercitada
+				Long id = -1_000L - passo;
+				indexar(id, nome.toString());
+				nomes.put(id, nome.toString());
+			} else {
+				Long id = nomes.keySet().stream().sorted().skip(aleatorio.nextInt(nomes.size())).findFirst().orElseThrow();
+				if (operacao == 1) {
+					autocompleteProdutoService.aoAlterarProduto(new ProdutoAlteradoEvent(id, null));
+					nomes.remove(id);
+				} else {
+					String nome = "Xyzt " + silabas[aleatorio.nextInt(silabas.length)] + " " + silabas[aleatorio.nextInt(silabas.length)];
+					indexar(id, nome);
+					nomes.put(id, nome);
+				}
+			}
+
+			for (String nome : nomes.values()) {
+				String normalizado = nome.toLowerCase();
+				for (int tamanho = 4; tamanho <= normalizado.length(); tamanho++) {
+					String prefixo = normalizado.substring(0, tamanho);
+					if (prefixo.endsWith(" ")) {
+						continue;
+					}
+					List<String> esperado = nomes.entrySet().stream()
+							.filter(entrada -> entrada.getValue().toLowerCase().startsWith(prefixo))
+							.sorted(Map.Entry.<Long, String>comparingByValue().thenComparing(Map.Entry.comparingByKey()))
+							.limit(AutocompleteProdutoService.MAXIMO_SUGESTOES)
+							.map(Map.Entry::getValue)
+							.toList();
+					assertThat(sugerir(prefixo)).as(prefixo).containsExactlyElementsOf(esperado);
+				}
+			}
+		}
+	}
+
+	private Produto cadastrar(String nome) {
+		Produto produto = produtoRepository.save(Produto.builder()
+				.nome(nome)
+				.preco(BigDecimal.TEN)
+				.quantidadeEstoque(10)
+				.build());
+		autocompleteProdutoService.aoAlterarProduto(new ProdutoAlteradoEvent(produto.getId(), produto));
+		return produto;
+	}
+
+	private void indexar(Long id, String nome) {
+		Produto produto = Produto.builder().id(id).nome(nome).build();
+		autocompleteProdutoService.aoAlterarProduto(new ProdutoAlteradoEvent(id, produto));
+	}
+
+	private void alterar(Produto produto, String nome) {
+		produto.setNome(nome);
+		produtoRepository.save(produto);
+		autocompleteProdutoService.aoAlterarProduto(new ProdutoAlteradoEvent(produto.getId(), produto));
+	}
+
+	private void excluir(Produto produto) {
+		produtoRepository.deleteById(produto.getId());
+		autocompleteProdutoService.aoAlterarProduto(new ProdutoAlteradoEvent(produto.getId(), null));
+	}
+
+	private void vender(Produto produto, int quantidade) {
+		autocompleteProdutoService.aoRegistrarVenda(
+				VendaRegistradaEvent.daVenda(LocalDateTime.now(), Map.of(produto.getId(), quantidade)));
+	}
+
+	private List<String> sugerir(String prefixo) {
+		return autocompleteProdutoService.sugerir(prefixo, AutocompleteProdutoService.MAXIMO_SUGESTOES).stream()
+				.map(ProdutoSugestao::nome)
+				.toList();
+	}
+
+}
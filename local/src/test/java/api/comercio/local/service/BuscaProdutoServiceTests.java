@@ -0,0 +1,104 @@
+package api.comercio.local.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import api.comercio.local.dto.ProdutoResumo;
+import api.comercio.local.evento.ProdutoAlteradoEvent;
+import api.comercio.local.model.Produto;
+import api.comercio.local.repository.ProdutoRepository;
+
+/**
+ * Índice de trigramas da busca de produtos: palavras parciais, acentos,
+ * várias palavras, palavras curtas e a ordem por relevância.
+ *
+ * Os produtos são gravados pelo repository e avisados ao índice com o mesmo
+ * evento publicado pelo ProdutoController.
+ */
+@SpringBootTest
+class BuscaProdutoServiceTests {
+
+	@Autowired
+	private BuscaProdutoService buscaProdutoService;
+
+	@Autowired
+	private ProdutoRepository produtoRepository;
+
+	@Test
+	void trigramasEncontramPalavrasParciaisSemAcentoETodasAsPalavras() {
+		cadastrar("Mouse Quiromântico Sem Fio", null);
+		cadastrar("Teclado Quiromântico", "com fio");
+		cadastrar("Monitor Comum", "nada a ver");
+
+		assertThat(buscar("quiroman", 10)).containsExactlyInAnyOrder("Mouse Quiromântico Sem Fio", "Teclado Quiromântico");
+		assertThat(buscar("QUIROMANTICO FIO", 10)).containsExactlyInAnyOrder("Mouse Quiromântico Sem Fio", "Teclado Quiromântico");
+		assertThat(buscar("quiromantico sem", 10)).containsExactly("Mouse Quiromântico Sem Fio");
+		assertThat(buscar("quiromantico inexistente", 10)).isEmpty();
+	}
+
+	@Test
+	void rankingPriorizaInicioDoNomeDepoisPalavraDepoisTrechoDepoisDescricao() {
+		cadastrar("Cabo Xilofonético", null);
+		cadastrar("Xilofonético Azul", null);
+		cadastrar("Suporte Superxilofonético", null);
+		cadastrar("Adaptador", "compatível com xilofonético");
+		cadastrar("Xilofonético", null);
+
+		assertThat(buscar("xilofonetico", 10)).containsExactly(
+				"Xilofonético",
+				"Xilofonético Azul",
+				"Cabo Xilofonético",
+				"Suporte Superxilofonético",
+				"Adaptador");
+		assertThat(buscar("xilofonetico", 2)).containsExactly("Xilofonético", "Xilofonético Azul");
+	}
+
+	@Test
+	void termoSoComPalavrasCurtasUsaOIndiceDePrefixos() {
+		cadastrar("Televisor Qy Wz 50", null);
+		cadastrar("Suporte Qyz", "parede wzk");
+		cadastrar("Cabo Aqy", "sem prefixo wz no meio: awz");
+
+		assertThat(buscar("qy", 10)).containsExactlyInAnyOrder("Televisor Qy Wz 50", "Suporte Qyz");
+		assertThat(buscar("qy wz", 10)).containsExactlyInAnyOrder("Televisor Qy Wz 50", "Suporte Qyz");
+		assertThat(buscar("q", 1000)).contains("Televisor Qy Wz 50", "Suporte Qyz");
+	}
+
+	@Test
+	void alteracaoEExclusaoAtualizamOIndice() {
+		Produto produto = cadastrar("Lanterna Pirilampejante", null);
+		assertThat(buscar("pirilampejante", 10)).containsExactly("Lanterna Pirilampejante");
+
+		produto.setNome("Lanterna Vagalumesca");
+		produtoRepository.save(produto);
+		buscaProdutoService.aoAlterarProduto(new ProdutoAlteradoEvent(produto.getId(), produto));
+		assertThat(buscar("pirilampejante", 10)).isEmpty();
+		assertThat(buscar("vagalumesca", 10)).containsExactly("Lanterna Vagalumesca");
+
+		produtoRepository.deleteById(produto.getId());
+		buscaProdutoService.aoAlterarProduto(new ProdutoAlteradoEvent(produto.getId(), null));
+		assertThat(buscar("vagalumesca", 10)).isEmpty();
+	}
+
+	private Produto cadastrar(String nome, String descricao) {
+		Produto produto = produtoRepository.save(Produto.builder()
+				.nome(nome)
+				.descricao(descricao)
+				.preco(BigDecimal.TEN)
+				.quantidadeEstoque(10)
+				.build());
+		buscaProdutoService.aoAlterarProduto(new ProdutoAlteradoEvent(produto.getId(), produto));
+		return produto;
+	}
+
+	private List<String> buscar(String termo, int limite) {
+		return buscaProdutoService.buscar(termo, limite).stream().map(ProdutoResumo::nome).toList();
+	}
+
+}
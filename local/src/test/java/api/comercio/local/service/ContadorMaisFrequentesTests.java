@@ -0,0 +1,85 @@
+package api.comercio.local.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Space-Saving: o produto substituído é o de menor contagem, o novo herda
+ * essa contagem como erro, e as estimativas respeitam os limites garantidos.
+ */
+class ContadorMaisFrequentesTests {
+
+	@Test
+	void produtoNovoSubstituiOMenorEHerdaAContagemComoErro() {
+		ContadorMaisFrequentes contador = new ContadorMaisFrequentes(2);
+		contador.adicionar(1, 5);
+		contador.adicionar(2, 3);
+		contador.adicionar(3, 1);
+
+		Map<Long, long[]> totais = totais(contador);
+		assertThat(totais).containsOnlyKeys(1L, 3L);
+		assertThat(totais.get(1L)).containsExactly(5, 0);
+		// 3 (herdado do produto 2) + 1 vendido
+		assertThat(totais.get(3L)).containsExactly(4, 3);
+
+		// o substituto agora é o menor: sai quando chega outro produto
+		contador.adicionar(4, 2);
+		assertThat(totais(contador)).containsOnlyKeys(1L, 4L);
+		assertThat(totais(contador).get(4L)).containsExactly(6, 4);
+	}
+
+	@Test
+	void estimativasFicamDentroDoErroGarantido() {
+		int capacidade = 20;
+		ContadorMaisFrequentes contador = new ContadorMaisFrequentes(capacidade);
+		Map<Long, Long> reais = new HashMap<>();
+		Random aleatorio = new Random(13);
+		long vendido = 0;
+		for (int i = 0; i < 50_000; i++) {
+			// distribuição enviesada: poucos produtos concentram as vendas
+			long produtoId = (long) Math.floor(Math.pow(aleatorio.nextDouble(), 3) * 500);
+			long quantidade = 1 + aleatorio.nextInt(3);
+			contador.adicionar(produtoId, quantidade);
+			reais.merge(produtoId, quantidade, Long::sum);
+			vendido += quantidade;
+		}
+
+		Map<Long, long[]> totais = totais(contador);
+		assertThat(totais).hasSizeLessThanOrEqualTo(capacidade);
+		totais.forEach((produtoId, total) -> {
+			long real = reais.get(produtoId);
+			assertThat(total[0]).as("produto %d", produtoId).isGreaterThanOrEqualTo(real);
+			assertThat(total[0] - total[1]).as("produto %d", produtoId).isLessThanOrEqualTo(real);
+		});
+		long limiar = vendido / capacidade;
+		reais.forEach((produtoId, real) -> {
+			if (real > limiar) {
+				assertThat(totais).as("produto %d com %d unidades", produtoId, real).containsKey(produtoId);
+			}
+		});
+	}
+
+	@Test
+	void limparDescartaTodosOsContadores() {
+		ContadorMaisFrequentes contador = new ContadorMaisFrequentes(2);
+		contador.adicionar(1, 5);
+		contador.limpar();
+		contador.adicionar(2, 1);
+		contador.adicionar(3, 1);
+
+		assertThat(totais(contador)).containsOnlyKeys(2L, 3L);
+		assertThat(totais(contador).get(2L)).containsExactly(1, 0);
+	}
+
+	private static Map<Long, long[]> totais(ContadorMaisFrequentes contador) {
+		Map<Long, long[]> totais = new HashMap<>();
+		contador.somarEm(totais);
+		return totais;
+	}
+
+}
@@ -0,0 +1,125 @@
+package api.comercio.local.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import api.comercio.local.evento.VendasGravadasEvent;
+import api.comercio.local.model.Cliente;
+import api.comercio.local.model.Estoque;
+import api.comercio.local.model.Produto;
+import api.comercio.local.model.Venda;
+import api.comercio.local.repository.ClienteRepository;
+import api.comercio.local.repository.ProdutoRepository;
+
+/**
+ * Diário de vendas ligado: a venda entra no diário dentro da transação e o
+ * desfecho (commit ou rollback) é registrado depois dela.
+ */
+@SpringBootTest
+class DiarioVendasServiceTests {
+
+	@TempDir
+	static Path pasta;
+
+	@DynamicPropertySource
+	static void configurar(DynamicPropertyRegistry propriedades) {
+		propriedades.add("comercio.vendas.diario.habilitado", () -> "true");
+		propriedades.add("comercio.vendas.diario.diretorio", () -> pasta.toString());
+	}
+
+	@Autowired
+	private DiarioVendasService diarioVendasService;
+
+	@Autowired
+	private VendaService vendaService;
+
+	@Autowired
+	private ClienteRepository clienteRepository;
+
+	@Autowired
+	private ProdutoRepository produtoRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Test
+	void vendaComCommitFicaNoDiarioComDesfechoConfirmado() throws Exception {
+		Cliente cliente = clienteRepository.save(Cliente.builder().nome("Cliente Diário").build());
+		Produto produto = produtoRepository.save(Produto.builder()
+				.nome("Produto Diário")
+				.preco(BigDecimal.TEN)
+				.quantidadeEstoque(100)
+				.build());
+		Venda venda = Venda.builder().cliente(cliente).dataVenda(LocalDateTime.now()).build();
+		venda.getItens().add(Estoque.builder()
+				.produto(produto)
+				.quantidade(2)
+				.precoUnitario(BigDecimal.TEN)
+				.build());
+
+		Long id = vendaService.registrar(venda).getId();
+
+		List<Long> vendas = new ArrayList<>();
+		List<DiarioVendas.Desfecho> desfechos = new ArrayList<>();
+		lerDiario(vendas, desfechos);
+		assertThat(vendas).contains(id);
+		assertThat(desfechos).contains(new DiarioVendas.Desfecho(List.of(id), true));
+	}
+
+	@Test
+	void transacaoDesfeitaDepoisDoDiarioRegistraDesfechoDesfeito() throws Exception {
+		Venda venda = Venda.builder()
+				.id(-25L)
+				.cliente(Cliente.builder().id(7L).build())
+				.dataVenda(LocalDateTime.now())
+				.valorTotal(BigDecimal.TEN)
+				.build();
+
+		// o diário é gravado e a transação termina em rollback (ex: falha no commit)
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			diarioVendasService.aoGravarVendas(new VendasGravadasEvent(List.of(venda)));
+			status.setRollbackOnly();
+		});
+
+		List<Long> vendas = new ArrayList<>();
+		List<DiarioVendas.Desfecho> desfechos = new ArrayList<>();
+		lerDiario(vendas, desfechos);
+		assertThat(vendas).contains(-25L);
+		assertThat(desfechos).contains(new DiarioVendas.Desfecho(List.of(-25L), false));
+	}
+
+	@Test
+	void segmentoMaiorQueOMapeamentoPermitidoERecusado() {
+		DiarioVendasService servico = new DiarioVendasService();
+		// 4096 MB estouraria um int (4096 * 1024 * 1024 = 2^32)
+		ReflectionTestUtils.setField(servico, "tamanhoSegmentoMb", 4096);
+
+		assertThatThrownBy(servico::iniciar)
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("tamanho-segmento-mb");
+	}
+
+	private static void lerDiario(List<Long> vendas, List<DiarioVendas.Desfecho> desfechos) throws Exception {
+		DiarioVendas leitura = new DiarioVendas(pasta, 0, false);
+		for (Long numero : leitura.listarSegmentos()) {
+			leitura.ler(numero, venda -> vendas.add(venda.id()), desfechos::add);
+		}
+	}
+
+}
@@ -0,0 +1,130 @@
+package api.comercio.local.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import api.comercio.local.model.Cliente;
+import api.comercio.local.model.Estoque;
+import api.comercio.local.model.Produto;
+import api.comercio.local.model.Venda;
+
+/**
+ * Formato do diário de vendas: leitura do que foi gravado (vendas e desfechos),
+ * troca de segmento quando o registro não cabe, e parada no registro com CRC inválido.
+ */
+class DiarioVendasTests {
+
+	@TempDir
+	Path pasta;
+
+	@Test
+	void vendasGravadasSaoLidasNaMesmaOrdemComOsItens() throws Exception {
+		DiarioVendas diario = new DiarioVendas(pasta, 4096, false);
+		diario.abrir(1, 0);
+		diario.registrar(venda(10, "chave-10", 2));
+		diario.registrar(venda(11, null, 0));
+		diario.fechar();
+
+		List<DiarioVendas.VendaDiario> lidas = new ArrayList<>();
+		assertThat(diario.ler(1, lidas::add)).isEqualTo(2);
+
+		DiarioVendas.VendaDiario primeira = lidas.getFirst();
+		assertThat(primeira.id()).isEqualTo(10);
+		assertThat(primeira.clienteId()).isEqualTo(7);
+		assertThat(primeira.dataVenda()).isEqualTo(LocalDateTime.of(2024, 11, 28, 10, 30, 15, 123_000_000));
+		assertThat(primeira.valorTotal()).isEqualTo(new BigDecimal("39.80"));
+		assertThat(primeira.chaveIdempotencia()).isEqualTo("chave-10");
+		assertThat(primeira.itens()).extracting(DiarioVendas.ItemDiario::produtoId).containsExactly(100L, 101L);
+		assertThat(primeira.itens().getFirst().subtotal()).isEqualTo(new BigDecimal("19.90"));
+		assertThat(lidas.get(1).chaveIdempotencia()).isNull();
+		assertThat(lidas.get(1).itens()).isEmpty();
+	}
+
+	@Test
+	void desfechosSaoLidosSeparadosDasVendas() throws Exception {
+		DiarioVendas diario = new DiarioVendas(pasta, 4096, false);
+		diario.abrir(1, 0);
+		diario.registrar(venda(10, null, 1));
+		diario.registrar(venda(11, null, 1));
+		diario.registrarDesfecho(List.of(10L, 11L), true);
+		diario.registrar(venda(12, null, 1));
+		diario.registrarDesfecho(List.of(12L), false);
+		diario.fechar();
+
+		List<Long> vendas = new ArrayList<>();
+		List<DiarioVendas.Desfecho> desfechos = new ArrayList<>();
+		assertThat(diario.ler(1, venda -> vendas.add(venda.id()), desfechos::add)).isEqualTo(3);
+
+		assertThat(vendas).containsExactly(10L, 11L, 12L);
+		assertThat(desfechos).containsExactly(
+				new DiarioVendas.Desfecho(List.of(10L, 11L), true),
+				new DiarioVendas.Desfecho(List.of(12L), false));
+	}
+
+	@Test
+	void registroQueNaoCabeVaiParaONovoSegmento() throws Exception {
+		DiarioVendas diario = new DiarioVendas(pasta, 256, false);
+		diario.abrir(1, 0);
+		for (int i = 0; i < 10; i++) {
+			diario.registrar(venda(i, null, 1));
+		}
+		diario.fechar();
+
+		List<Long> segmentos = diario.listarSegmentos();
+		assertThat(segmentos).hasSizeGreaterThan(1);
+		long total = 0;
+		for (Long numero : segmentos) {
+			total += diario.ler(numero, venda -> { });
+		}
+		assertThat(total).isEqualTo(10);
+	}
+
+	@Test
+	void leituraParaNoRegistroCorrompido() throws Exception {
+		DiarioVendas diario = new DiarioVendas(pasta, 4096, false);
+		diario.abrir(1, 0);
+		diario.registrar(venda(1, null, 1));
+		diario.registrar(venda(2, null, 1));
+		diario.fechar();
+
+		// altera um byte do conteúdo do segundo registro (gravação interrompida)
+		int tamanhoRegistro;
+		try (RandomAccessFile arquivo = new RandomAccessFile(pasta.resolve("vendas-00000000000000000001.diario").toFile(), "rw")) {
+			tamanhoRegistro = 8 + arquivo.readInt();
+			arquivo.seek(tamanhoRegistro + 8);
+			arquivo.writeByte(0x7F);
+		}
+
+		assertThat(diario.ler(1, venda -> { })).isEqualTo(1);
+	}
+
+	private static Venda venda(long id, String chave, int itens) {
+		Venda venda = Venda.builder()
+				.id(id)
+				.cliente(Cliente.builder().id(7L).build())
+				.dataVenda(LocalDateTime.of(2024, 11, 28, 10, 30, 15, 123_000_000))
+				.valorTotal(new BigDecimal("39.80"))
+				.chaveIdempotencia(chave)
+				.build();
+		for (int i = 0; i < itens; i++) {
+			venda.getItens().add(Estoque.builder()
+					.id(id * 10 + i)
+					.produto(Produto.builder().id(100L + i).build())
+					.quantidade(1)
+					.precoUnitario(new BigDecimal("19.90"))
+					.subtotal(new BigDecimal("19.90"))
+					.build());
+		}
+		return venda;
+	}
+
+}
@@ -0,0 +1,60 @@
+package api.comercio.local.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import api.comercio.local.model.Cliente;
+import api.comercio.local.repository.ClienteRepository;
+
+/**
+ * Verificação de CPF pelo filtro de Bloom: cadastros, trocas e exclusões
+ * feitos como nos controllers continuam sendo encontrados (sem falso negativo).
+ */
+@SpringBootTest
+class DocumentoUnicoServiceTests {
+
+	@Autowired
+	private DocumentoUnicoService documentoUnicoService;
+
+	@Autowired
+	private ClienteRepository clienteRepository;
+
+	@Test
+	void cpfCadastradoTrocadoEExcluidoSempreConfereComOBanco() {
+		Cliente primeiro = cadastrar("666.666.666-01");
+		Cliente segundo = cadastrar("666.666.666-02");
+		assertThat(documentoUnicoService.cpfCadastrado("666.666.666-01")).isTrue();
+		assertThat(documentoUnicoService.cpfCadastrado("666.666.666-02")).isTrue();
+
+		// PUT com CPF novo
+		primeiro.setCpf("666.666.666-03");
+		clienteRepository.save(primeiro);
+		documentoUnicoService.trocarCpf("666.666.666-01", "666.666.666-03");
+
+		assertThat(documentoUnicoService.cpfCadastrado("666.666.666-03")).isTrue();
+		assertThat(documentoUnicoService.cpfCadastrado("666.666.666-01")).isFalse();
+		assertThat(documentoUnicoService.cpfCadastrado("666.666.666-02")).isTrue();
+
+		// DELETE do segundo: o primeiro continua encontrado
+		clienteRepository.delete(segundo);
+		documentoUnicoService.removerCpf("666.666.666-02");
+
+		assertThat(documentoUnicoService.cpfCadastrado("666.666.666-02")).isFalse();
+		assertThat(documentoUnicoService.cpfCadastrado("666.666.666-03")).isTrue();
+	}
+
+	@Test
+	void cpfNuncaCadastradoNaoEncontrado() {
+		assertThat(documentoUnicoService.cpfCadastrado("666.666.666-99")).isFalse();
+	}
+
+	private Cliente cadastrar(String cpf) {
+		Cliente cliente = clienteRepository.save(Cliente.builder().nome("Cliente " + cpf).cpf(cpf).build());
+		documentoUnicoService.registrarCpf(cpf);
+		return cliente;
+	}
+
+}
@@ -0,0 +1,216 @@
+package api.comercio.local.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import api.comercio.local.model.Cliente;
+import api.comercio.local.model.Estoque;
+import api.comercio.local.model.EstoqueLedgerCheckpoint;
+import api.comercio.local.model.Produto;
+import api.comercio.local.model.Venda;
+import api.comercio.local.repository.ClienteRepository;
+import api.comercio.local.repository.EstoqueLedgerCheckpointRepository;
+import api.comercio.local.repository.ProdutoRepository;
+import api.comercio.local.repository.VendaRepository;
+
+/**
+ * Ledger de estoque: reservas simultâneas com recargas do saldo, recuperação
+ * do diário após uma queda e segmentos com transações desfeitas.
+ *
+ * O ledger fica desligado no contexto (as vendas dos outros testes não passam
+ * por ele); cada teste cria a sua instância sobre o diretório temporário.
+ */
+@SpringBootTest
+class EstoqueLedgerTests {
+
+	@TempDir
+	static Path pasta;
+
+	@DynamicPropertySource
+	static void configurar(DynamicPropertyRegistry propriedades) {
+		propriedades.add("comercio.estoque.ledger.diretorio", () -> pasta.toString());
+		// a descarga periódica não roda durante o teste
+		propriedades.add("comercio.estoque.ledger.intervalo-flush-ms", () -> "3600000");
+	}
+
+	@Autowired
+	private AutowireCapableBeanFactory beanFactory;
+
+	@Autowired
+	private ProdutoRepository produtoRepository;
+
+	@Autowired
+	private ClienteRepository clienteRepository;
+
+	@Autowired
+	private VendaRepository vendaRepository;
+
+	@Autowired
+	private EstoqueLedgerCheckpointRepository checkpointRepository;
+
+	@Test
+	void reservasSimultaneasComRecargasNaoVendemMaisQueOEstoque() throws Exception {
+		int estoque = 2_000;
+		Long produtoId = novoProduto(estoque).getId();
+		EstoqueLedger ledger = beanFactory.createBean(EstoqueLedger.class);
+		try {
+			int threads = 8;
+			ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+			CountDownLatch largada = new CountDownLatch(1);
+			AtomicBoolean reservando = new AtomicBoolean(true);
+			List<Future<Integer>> aceitas = new ArrayList<>();
+			for (int i = 0; i < threads; i++) {
+				aceitas.add(executor.submit(() -> {
+					largada.await();
+					int total = 0;
+					while (ledger.reservar(produtoId, 1)) {
+						total++;
+						// metade das reservas é devolvida e refeita (vendas desfeitas)
+						if (total % 2 == 0) {
+							ledger.devolver(produtoId, 1);
+							total--;
+							if (!ledger.reservar(produtoId, 1)) {
+								break;
+							}
+							total++;
+						}
+					}
+					return total;
+				}));
+			}
+			Future<?> recargas = executor.submit(() -> {
+				largada.await();
+				while (reservando.get()) {
+					ledger.recarregar(produtoId);
+				}
+				return null;
+			});
+
+			largada.countDown();
+			int total = 0;
+			for (Future<Integer> aceitasThread : aceitas) {
+				total += aceitasThread.get();
+			}
+			reservando.set(false);
+			recargas.get();
+			executor.shutdown();
+
+			assertThat(total).isEqualTo(estoque);
+			assertThat(ledger.disponivel(produtoId)).contains(0);
+			ledger.recarregar(produtoId);
+			assertThat(ledger.disponivel(produtoId)).contains(0);
+		} finally {
+			beanFactory.destroyBean(ledger);
+		}
+	}
+
+	@Test
+	void recuperacaoAplicaSoAsBaixasDeItensGravados() throws Exception {
+		Produto produto = novoProduto(100);
+		Venda venda = novaVenda(produto, 3, 4);
+		Long itemInexistente = venda.getItens().stream().mapToLong(Estoque::getId).max().orElseThrow() + 1_000;
+
+		// diário deixado por uma execução que caiu antes da descarga: duas vendas
+		// com commit e uma reserva cuja transação nunca chegou ao commit
+		EstoqueLedgerDiario anterior = new EstoqueLedgerDiario(pasta, true);
+		anterior.abrir(proximoSegmento(anterior));
+		List<EstoqueLedgerDiario.Movimento> movimentos = new ArrayList<>();
+		for (Estoque item : venda.getItens()) {
+			movimentos.add(new EstoqueLedgerDiario.Movimento(item.getId(), produto.getId(), item.getQuantidade()));
+		}
+		movimentos.add(new EstoqueLedgerDiario.Movimento(itemInexistente, produto.getId(), 50));
+		anterior.registrar(movimentos);
+		anterior.fechar();
+
+		EstoqueLedger ledger = beanFactory.createBean(EstoqueLedger.class);
+		try {
+			assertThat(produtoRepository.findQuantidadeEstoqueById(produto.getId())).contains(100 - 3 - 4);
+			assertThat(ledger.disponivel(produto.getId())).contains(100 - 3 - 4);
+		} finally {
+			beanFactory.destroyBean(ledger);
+		}
+	}
+
+	@Test
+	void descargaIgnoraItensDeTransacoesDesfeitas() throws Exception {
+		Produto produto = novoProduto(100);
+		EstoqueLedger ledger = beanFactory.createBean(EstoqueLedger.class);
+		try {
+			assertThat(ledger.reservar(produto.getId(), 5)).isTrue();
+			List<EstoqueLedgerDiario.Movimento> confirmada = List.of(new EstoqueLedgerDiario.Movimento(-1, produto.getId(), 5));
+			long segmentoConfirmada = ledger.registrar(confirmada);
+
+			assertThat(ledger.reservar(produto.getId(), 7)).isTrue();
+			List<EstoqueLedgerDiario.Movimento> desfeita = List.of(new EstoqueLedgerDiario.Movimento(-2, produto.getId(), 7));
+			long segmentoDesfeita = ledger.registrar(desfeita);
+
+			// transações ainda abertas: o segmento não é aplicado
+			ledger.descarregar();
+			assertThat(produtoRepository.findQuantidadeEstoqueById(produto.getId())).contains(100);
+
+			ledger.concluir(segmentoConfirmada, confirmada, true);
+			ledger.concluir(segmentoDesfeita, desfeita, false);
+			ledger.devolver(produto.getId(), 7);
+			ledger.descarregar();
+
+			assertThat(produtoRepository.findQuantidadeEstoqueById(produto.getId())).contains(95);
+			ledger.recarregar(produto.getId());
+			assertThat(ledger.disponivel(produto.getId())).contains(95);
+		} finally {
+			beanFactory.destroyBean(ledger);
+		}
+	}
+
+	private long proximoSegmento(EstoqueLedgerDiario diario) {
+		long ultimo = checkpointRepository.findById(EstoqueLedgerCheckpoint.ID_UNICO)
+				.map(EstoqueLedgerCheckpoint::getUltimoSegmento)
+				.orElse(0L);
+		for (Long numero : diario.listarSegmentos()) {
+			ultimo = Math.max(ultimo, numero);
+		}
+		return ultimo + 1;
+	}
+
+	private Produto novoProduto(int estoque) {
+		return produtoRepository.save(Produto.builder()
+				.nome("Produto Ledger")
+				.preco(BigDecimal.TEN)
+				.quantidadeEstoque(estoque)
+				.build());
+	}
+
+	/**
+	 * Venda gravada direto pelo repository (sem baixa de estoque), com um item por quantidade
+	 */
+	private Venda novaVenda(Produto produto, int... quantidades) {
+		Cliente cliente = clienteRepository.save(Cliente.builder().nome("Cliente Ledger").build());
+		Venda venda = Venda.builder().cliente(cliente).valorTotal(BigDecimal.TEN).build();
+		for (int quantidade : quantidades) {
+			venda.getItens().add(Estoque.builder()
+					.venda(venda)
+					.produto(produto)
+					.quantidade(quantidade)
+					.precoUnitario(BigDecimal.TEN)
+					.build());
+		}
+		return vendaRepository.save(venda);
+	}
+
+}
@@ -0,0 +1,106 @@
+package api.comercio.local.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Filtro de Bloom com contadores: nenhum falso negativo depois de adições,
+ * remoções e trocas, e taxa de falso positivo medida perto da configurada.
+ */
+class FiltroBloomContagemTests {
+
+	private static final int CAPACIDADE = 10_000;
+	private static final double TAXA = 0.01;
+
+	@Test
+	void valoresAdicionadosSempreSaoEncontrados() {
+		FiltroBloomContagem filtro = new FiltroBloomContagem(CAPACIDADE, TAXA);
+		List<String> cpfs = cpfs(0, CAPACIDADE);
+		cpfs.forEach(filtro::adicionar);
+
+		assertThat(cpfs).allMatch(filtro::possivelmenteContem);
+		assertThat(filtro.elementos()).isEqualTo(CAPACIDADE);
+	}
+
+	@Test
+	void remocaoNaoEscondeOsValoresQueFicaram() {
+		FiltroBloomContagem filtro = new FiltroBloomContagem(CAPACIDADE, TAXA);
+		List<String> cpfs = cpfs(0, CAPACIDADE);
+		cpfs.forEach(filtro::adicionar);
+
+		List<String> removidos = cpfs.subList(0, CAPACIDADE / 2);
+		removidos.forEach(filtro::remover);
+
+		assertThat(cpfs.subList(CAPACIDADE / 2, CAPACIDADE)).allMatch(filtro::possivelmenteContem);
+		assertThat(filtro.elementos()).isEqualTo(CAPACIDADE / 2);
+		// as posições liberadas voltam a zero: a maior parte dos removidos some do filtro
+		long aindaPresentes = removidos.stream().filter(filtro::possivelmenteContem).count();
+		assertThat(aindaPresentes).isLessThan(removidos.size() / 10);
+	}
+
+	@Test
+	void trocaDeValorEncontraONovoESoltaOAntigo() {
+		FiltroBloomContagem filtro = new FiltroBloomContagem(CAPACIDADE, TAXA);
+		List<String> anteriores = cpfs(0, CAPACIDADE);
+		List<String> atuais = cpfs(CAPACIDADE, CAPACIDADE);
+		anteriores.forEach(filtro::adicionar);
+
+		// mesma sequência do DocumentoUnicoService.trocarCpf: remove o antigo e adiciona o novo
+		for (int i = 0; i < CAPACIDADE; i += 2) {
+			filtro.remover(anteriores.get(i));
+			filtro.adicionar(atuais.get(i));
+		}
+
+		for (int i = 0; i < CAPACIDADE; i++) {
+			String esperado = i % 2 == 0 ? atuais.get(i) : anteriores.get(i);
+			assertThat(filtro.possivelmenteContem(esperado)).as(esperado).isTrue();
+		}
+		assertThat(filtro.elementos()).isEqualTo(CAPACIDADE);
+	}
+
+	@Test
+	void taxaDeFalsoPositivoMedidaFicaPertoDaConfigurada() {
+		FiltroBloomContagem filtro = new FiltroBloomContagem(CAPACIDADE, TAXA);
+		cpfs(0, CAPACIDADE).forEach(filtro::adicionar);
+
+		int consultas = 100_000;
+		long falsosPositivos = cpfs(CAPACIDADE, consultas).stream().filter(filtro::possivelmenteContem).count();
+		double medida = (double) falsosPositivos / consultas;
+
+		assertThat(medida).isBetween(TAXA / 2, TAXA * 1.5);
+		assertThat(filtro.taxaFalsoPositivoEstimada()).isBetween(TAXA * 0.8, TAXA * 1.2);
+	}
+
+	@Test
+	void contadorSaturadoNaoEDecrementado() {
+		FiltroBloomContagem filtro = new FiltroBloomContagem(100, TAXA);
+		for (int i = 0; i < 300; i++) {
+			filtro.adicionar("000.000.000-00");
+		}
+		for (int i = 0; i < 300; i++) {
+			filtro.remover("000.000.000-00");
+		}
+
+		// 255 é o limite do contador: depois dele o valor fica no filtro
+		assertThat(filtro.possivelmenteContem("000.000.000-00")).isTrue();
+	}
+
+	/**
+	 * CPFs formatados e distintos, a partir do número "inicio"
+	 */
+	private static List<String> cpfs(int inicio, int quantidade) {
+		List<String> cpfs = new ArrayList<>(quantidade);
+		for (int n = inicio; n < inicio + quantidade; n++) {
+			long numero = 10_000_000_000L + n * 7_919L;
+			String digitos = Long.toString(numero).substring(0, 11);
+			cpfs.add(digitos.substring(0, 3) + "." + digitos.substring(3, 6) + "." + digitos.substring(6, 9)
+					+ "-" + digitos.substring(9, 11));
+		}
+		return cpfs;
+	}
+
+}
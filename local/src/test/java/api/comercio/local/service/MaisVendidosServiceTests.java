@@ -0,0 +1,96 @@
+package api.comercio.local.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import api.comercio.local.dto.ProdutoMaisVendido;
+import api.comercio.local.evento.VendaRegistradaEvent;
+import api.comercio.local.model.Produto;
+import api.comercio.local.repository.ProdutoRepository;
+
+/**
+ * Ranking de mais vendidos: troca de baldes quando o tempo avança e
+ * produtos excluídos fora da resposta sem ocupar lugar no limite.
+ */
+@SpringBootTest
+class MaisVendidosServiceTests {
+
+	private static final long MINUTO = Duration.ofMinutes(1).toMillis();
+
+	@Autowired
+	private MaisVendidosService maisVendidosService;
+
+	@Autowired
+	private ProdutoRepository produtoRepository;
+
+	@Test
+	void baldeReaproveitadoDescartaOIntervaloAntigo() {
+		MaisVendidosService.Anel anel = new MaisVendidosService.Anel(Duration.ofMinutes(1), 3, 10);
+		anel.registrar(1, 5, 10 * MINUTO, 10 * MINUTO);
+		anel.registrar(2, 1, 11 * MINUTO, 11 * MINUTO);
+
+		// intervalo 12: os três baldes (10, 11 e 12) ainda estão na janela
+		assertThat(somar(anel, 12, 3)).containsOnlyKeys(1L, 2L);
+		assertThat(somar(anel, 12, 2)).containsOnlyKeys(2L);
+
+		// intervalo 13: o balde do intervalo 10 fica de fora e é reaproveitado
+		assertThat(somar(anel, 13, 3)).containsOnlyKeys(2L);
+		anel.registrar(3, 2, 13 * MINUTO, 13 * MINUTO);
+		Map<Long, long[]> totais = somar(anel, 13, 3);
+		assertThat(totais).containsOnlyKeys(2L, 3L);
+		assertThat(totais.get(3L)).containsExactly(2, 0);
+
+		// venda mais antiga que o anel é ignorada; data futura conta no intervalo atual
+		anel.registrar(1, 7, 10 * MINUTO, 13 * MINUTO);
+		anel.registrar(4, 1, 20 * MINUTO, 13 * MINUTO);
+		assertThat(somar(anel, 13, 3)).containsOnlyKeys(2L, 3L, 4L);
+		assertThat(somar(anel, 13, 1)).containsOnlyKeys(3L, 4L);
+	}
+
+	@Test
+	void produtosExcluidosNaoOcupamLugarNoLimite() {
+		Produto excluido1 = novoProduto("Mais Vendido Excluído 1");
+		Produto excluido2 = novoProduto("Mais Vendido Excluído 2");
+		Produto excluido3 = novoProduto("Mais Vendido Excluído 3");
+		Produto primeiro = novoProduto("Mais Vendido Ativo 1");
+		Produto segundo = novoProduto("Mais Vendido Ativo 2");
+		// quantidades bem acima das vendas dos outros testes: são os primeiros do ranking
+		maisVendidosService.aoRegistrarVenda(VendaRegistradaEvent.daVenda(LocalDateTime.now(), Map.of(
+				excluido1.getId(), 1_000_000,
+				excluido2.getId(), 999_000,
+				excluido3.getId(), 998_000,
+				primeiro.getId(), 900_000,
+				segundo.getId(), 800_000)));
+		produtoRepository.deleteAllById(List.of(excluido1.getId(), excluido2.getId(), excluido3.getId()));
+
+		List<ProdutoMaisVendido> ranking = maisVendidosService.maisVendidos(JanelaVendas.HORA, 2);
+
+		assertThat(ranking).extracting(ProdutoMaisVendido::id).containsExactly(primeiro.getId(), segundo.getId());
+		assertThat(ranking).extracting(ProdutoMaisVendido::nome).containsExactly("Mais Vendido Ativo 1", "Mais Vendido Ativo 2");
+	}
+
+	private static Map<Long, long[]> somar(MaisVendidosService.Anel anel, long intervalo, int baldes) {
+		Map<Long, long[]> totais = new HashMap<>();
+		anel.somarEm(totais, intervalo * MINUTO, baldes);
+		return totais;
+	}
+
+	private Produto novoProduto(String nome) {
+		return produtoRepository.save(Produto.builder()
+				.nome(nome)
+				.preco(BigDecimal.TEN)
+				.quantidadeEstoque(100)
+				.build());
+	}
+
+}